@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+
+import org.springframework.cloud.openfeign.support.FeignDeadline;
+import org.springframework.core.Ordered;
+
+/**
+ * Runs the client methods returning a {@link CompletableFuture} on the executor of the
+ * client. The wrapped handler is the regular synchronous one, so interceptors, load
+ * balancing and the codecs apply as they do for blocking methods. The
+ * {@link FeignDeadline} of the caller is carried over to the call.
+ *
+ * @see org.springframework.cloud.openfeign.support.SpringMvcContract
+ */
+class AsyncMethodHandlerDecorator implements MethodHandlerDecorator {
+
+	private final Supplier<Executor> executor;
+
+	AsyncMethodHandlerDecorator(Supplier<Executor> executor) {
+		this.executor = executor;
+	}
+
+	static boolean isAsync(Method method) {
+		return CompletableFuture.class.equals(method.getReturnType());
+	}
+
+	@Override
+	public MethodHandler decorate(Target<?> target, Method method,
+			MethodHandler handler) {
+		if (!isAsync(method)) {
+			return handler;
+		}
+		Executor executor = this.executor.get();
+		return argv -> {
+			CompletableFuture<Object> result = new CompletableFuture<>();
+			FeignDeadline deadline = FeignDeadline.current();
+			try {
+				executor.execute(() -> {
+					FeignDeadline previous = FeignDeadline.bind(deadline);
+					try {
+						result.complete(handler.invoke(argv));
+					}
+					catch (Throwable t) {
+						result.completeExceptionally(t);
+					}
+					finally {
+						FeignDeadline.restore(previous);
+					}
+				});
+			}
+			catch (RejectedExecutionException e) {
+				result.completeExceptionally(e);
+			}
+			return result;
+		};
+	}
+
+	@Override
+	public int getOrder() {
+		// right inside the result cache
+		return Ordered.HIGHEST_PRECEDENCE + 1;
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sends the request of a load-balanced Feign client method to every instance of its
+ * service, rather than to one of them. The method must return a list of
+ * {@link BroadcastResult}, holding the response of each instance decoded into the type
+ * of the results, or the exception the call of the instance failed with.
+ * <p>
+ * The calls are sent in parallel on the broadcast executor of the client, at most
+ * {@link #maxConcurrency()} at a time, through the encoder, interceptors and decoder of
+ * the client. The calls that have not completed when the {@link #timeout()} has elapsed
+ * fail with a {@link java.util.concurrent.TimeoutException}.
+ *
+ * <pre class="code">
+ * &#64;DeleteMapping("/caches/{name}")
+ * &#64;Broadcast(maxConcurrency = 4, timeout = "2s")
+ * List&lt;BroadcastResult&lt;Void&gt;&gt; evict(&#64;PathVariable("name") String name);
+ * </pre>
+ *
+ * @since 3.0.0
+ * @see org.springframework.cloud.openfeign.support.SpringMvcContract
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Broadcast {
+
+	/**
+	 * @return the maximum number of instances called at the same time
+	 */
+	int maxConcurrency() default 8;
+
+	/**
+	 * @return how long to wait for all the instances, such as {@code 5s}, in
+	 * milliseconds if no unit is given. May contain property placeholders.
+	 */
+	String timeout() default "10s";
+
+}
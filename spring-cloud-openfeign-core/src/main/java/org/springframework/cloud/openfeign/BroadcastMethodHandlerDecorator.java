@@ -0,0 +1,205 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import feign.Feign;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.openfeign.loadbalancer.PinnedInstance;
+import org.springframework.cloud.openfeign.loadbalancer.ServiceInstanceSource;
+import org.springframework.cloud.openfeign.support.FeignDeadline;
+import org.springframework.cloud.openfeign.support.MethodBroadcast;
+import org.springframework.core.Ordered;
+
+/**
+ * Sends the calls of the methods annotated with {@link Broadcast} to every instance of
+ * their service. Each instance is called through the decorated handler, with the
+ * instance pinned to the thread making the call, so that the request goes through the
+ * encoder, interceptors, load-balanced client and decoder of the client. Applied inside
+ * the result cache and collapsing, and outside hedging.
+ * <p>
+ * The timeout of the broadcast, or the {@link FeignDeadline} of the caller when it is
+ * sooner, is bound to the threads calling the instances, so that the timeouts of the
+ * requests are capped to the time left, and no instance is called once it has passed.
+ */
+class BroadcastMethodHandlerDecorator implements MethodHandlerDecorator {
+
+	private final Function<String, MethodBroadcast> broadcastResolver;
+
+	private final Supplier<ServiceInstanceSource> instances;
+
+	private final Supplier<ExecutorService> executor;
+
+	/**
+	 * @param broadcastResolver resolves the broadcast of a method from its config key,
+	 * may return {@code null} if the calls of the method are not broadcast
+	 * @param instances supplies the source of the instances of the services
+	 * @param executor supplies the executor calling the instances
+	 */
+	BroadcastMethodHandlerDecorator(Function<String, MethodBroadcast> broadcastResolver,
+			Supplier<ServiceInstanceSource> instances,
+			Supplier<ExecutorService> executor) {
+		this.broadcastResolver = broadcastResolver;
+		this.instances = instances;
+		this.executor = executor;
+	}
+
+	@Override
+	public MethodHandler decorate(Target<?> target, Method method,
+			MethodHandler handler) {
+		MethodBroadcast broadcast = this.broadcastResolver
+				.apply(Feign.configKey(target.type(), method));
+		if (broadcast == null) {
+			return handler;
+		}
+		String serviceId = URI.create(target.url()).getHost();
+		return argv -> invoke(serviceId, broadcast, handler, argv);
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE + 300;
+	}
+
+	private List<BroadcastResult<Object>> invoke(String serviceId,
+			MethodBroadcast broadcast, MethodHandler handler, Object[] argv)
+			throws InterruptedException {
+		List<ServiceInstance> instances = this.instances.get().getInstances(serviceId);
+		if (instances == null || instances.isEmpty()) {
+			return Collections.emptyList();
+		}
+		FeignDeadline deadline = FeignDeadline.after(broadcast.getTimeout());
+		FeignDeadline callerDeadline = FeignDeadline.current();
+		if (callerDeadline != null
+				&& callerDeadline.remainingNanos() < deadline.remainingNanos()) {
+			deadline = callerDeadline;
+		}
+		Broadcaster broadcaster = new Broadcaster(instances, handler, argv, deadline);
+		List<Future<?>> workers = new ArrayList<>();
+		ExecutorService executor = this.executor.get();
+		try {
+			for (int i = 0; i < Math.min(broadcast.getMaxConcurrency(),
+					instances.size()); i++) {
+				workers.add(executor.submit(broadcaster::run));
+			}
+		}
+		catch (RejectedExecutionException ex) {
+			if (workers.isEmpty()) {
+				// the executor is saturated, call the instances from this thread
+				broadcaster.run();
+			}
+		}
+		try {
+			broadcaster.done.await(Math.max(0, deadline.remainingNanos()),
+					TimeUnit.NANOSECONDS);
+		}
+		finally {
+			// stop calling the remaining instances
+			broadcaster.next.set(instances.size());
+			for (Future<?> worker : workers) {
+				worker.cancel(true);
+			}
+		}
+		List<BroadcastResult<Object>> results = new ArrayList<>(instances.size());
+		for (int i = 0; i < instances.size(); i++) {
+			BroadcastResult<Object> result = broadcaster.results.get(i);
+			results.add(result != null ? result
+					: BroadcastResult.failure(instances.get(i), new TimeoutException(
+							"No response within " + broadcast.getTimeout())));
+		}
+		return results;
+	}
+
+	/**
+	 * Calls the instances one after the other, from each of the threads it runs on,
+	 * until the deadline.
+	 */
+	private static final class Broadcaster {
+
+		private final List<ServiceInstance> instances;
+
+		private final MethodHandler handler;
+
+		private final Object[] argv;
+
+		private final FeignDeadline deadline;
+
+		private final AtomicInteger next = new AtomicInteger();
+
+		private final AtomicReferenceArray<BroadcastResult<Object>> results;
+
+		private final CountDownLatch done;
+
+		Broadcaster(List<ServiceInstance> instances, MethodHandler handler,
+				Object[] argv, FeignDeadline deadline) {
+			this.instances = instances;
+			this.handler = handler;
+			this.argv = argv;
+			this.deadline = deadline;
+			this.results = new AtomicReferenceArray<>(instances.size());
+			this.done = new CountDownLatch(instances.size());
+		}
+
+		void run() {
+			int index;
+			while ((index = this.next.getAndIncrement()) < this.instances.size()) {
+				if (Thread.currentThread().isInterrupted()
+						|| this.deadline.remainingNanos() <= 0) {
+					return;
+				}
+				ServiceInstance instance = this.instances.get(index);
+				ServiceInstance previous = PinnedInstance.pin(instance);
+				FeignDeadline previousDeadline = FeignDeadline.bind(this.deadline);
+				BroadcastResult<Object> result;
+				try {
+					result = BroadcastResult.success(instance,
+							this.handler.invoke(this.argv));
+				}
+				catch (Throwable ex) {
+					result = BroadcastResult.failure(instance, ex);
+				}
+				finally {
+					FeignDeadline.restore(previousDeadline);
+					PinnedInstance.restore(previous);
+				}
+				this.results.set(index, result);
+				this.done.countDown();
+			}
+		}
+
+	}
+
+}
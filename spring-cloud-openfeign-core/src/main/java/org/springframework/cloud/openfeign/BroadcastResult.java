@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * The outcome of the call of an instance by a {@link Broadcast} method: either the
+ * decoded response of the instance, or the exception the call failed with.
+ *
+ * @param <T> the type of the decoded responses
+ * @since 3.0.0
+ */
+public final class BroadcastResult<T> {
+
+	private final ServiceInstance instance;
+
+	private final T value;
+
+	private final Throwable exception;
+
+	private BroadcastResult(ServiceInstance instance, T value, Throwable exception) {
+		this.instance = instance;
+		this.value = value;
+		this.exception = exception;
+	}
+
+	static <T> BroadcastResult<T> success(ServiceInstance instance, T value) {
+		return new BroadcastResult<>(instance, value, null);
+	}
+
+	static <T> BroadcastResult<T> failure(ServiceInstance instance,
+			Throwable exception) {
+		return new BroadcastResult<>(instance, null, exception);
+	}
+
+	/**
+	 * @return the instance called
+	 */
+	public ServiceInstance getInstance() {
+		return this.instance;
+	}
+
+	/**
+	 * @return the decoded response of the instance, or {@code null} if the call failed
+	 */
+	public T getValue() {
+		return this.value;
+	}
+
+	/**
+	 * @return the exception the call failed with, or {@code null} if it succeeded
+	 */
+	public Throwable getException() {
+		return this.exception;
+	}
+
+	public boolean isSuccess() {
+		return this.exception == null;
+	}
+
+	@Override
+	public String toString() {
+		return "BroadcastResult{instance=" + this.instance.getHost() + ":"
+				+ this.instance.getPort() + ", "
+				+ (isSuccess() ? "value=" + this.value : "exception=" + this.exception)
+				+ "}";
+	}
+
+}
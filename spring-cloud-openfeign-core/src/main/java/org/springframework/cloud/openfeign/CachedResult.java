@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the decoded results of a Feign client method, keyed by the arguments of the
+ * method. A cached result is returned without sending a request, encoding or decoding
+ * anything. Results are cached until their time to live expires, and the least recently
+ * used results are evicted when the maximum number of entries is reached. Exceptions
+ * are not cached.
+ *
+ * @since 3.0.0
+ * @see org.springframework.cloud.openfeign.support.SpringMvcContract
+ * @see org.springframework.cloud.openfeign.cache.FeignResultCaches
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CachedResult {
+
+	/**
+	 * @return the time to live of a cached result, such as {@code 30s} or
+	 * {@code PT5M}, in milliseconds if no unit is given. May contain property
+	 * placeholders.
+	 */
+	String ttl() default "60s";
+
+	/**
+	 * @return the maximum number of results cached for the method
+	 */
+	int maxEntries() default 1000;
+
+	/**
+	 * @return the scope of the cached results
+	 */
+	Scope scope() default Scope.GLOBAL;
+
+	/**
+	 * Scope of cached results.
+	 */
+	enum Scope {
+
+		/**
+		 * Results are shared by all callers of the client.
+		 */
+		GLOBAL,
+
+		/**
+		 * Results are only shared within the web request being processed by the
+		 * calling thread. Nothing is cached outside of a web request.
+		 */
+		REQUEST
+
+	}
+
+}
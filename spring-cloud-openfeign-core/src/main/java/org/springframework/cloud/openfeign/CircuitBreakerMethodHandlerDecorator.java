@@ -0,0 +1,194 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import feign.Feign;
+import feign.FeignException;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+
+import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Runs each method of a client in its own circuit breaker, and hands the failures and
+ * the calls rejected by an open circuit to the fallback of the client, if any. Applied
+ * inside the asynchronous execution of a method, so that the breaker sees the outcome
+ * of the call rather than a future, and outside the result cache, so that fallback
+ * results are not cached.
+ *
+ * @see CircuitBreakerTargeter
+ */
+class CircuitBreakerMethodHandlerDecorator implements MethodHandlerDecorator {
+
+	private final String clientName;
+
+	private final CircuitBreakerFactory circuitBreakerFactory;
+
+	private final FallbackFactory<?> fallbackFactory;
+
+	private final boolean ignoreClientErrors;
+
+	/**
+	 * @param clientName the context id of the client
+	 * @param circuitBreakerFactory creates the circuit breakers of the methods
+	 * @param fallbackFactory creates the fallback handling failed calls, may be
+	 * {@code null} to rethrow the failures
+	 * @param ignoreClientErrors whether responses with a 4xx status are thrown to the
+	 * caller rather than recorded as failures
+	 */
+	CircuitBreakerMethodHandlerDecorator(String clientName,
+			CircuitBreakerFactory circuitBreakerFactory,
+			FallbackFactory<?> fallbackFactory, boolean ignoreClientErrors) {
+		this.clientName = clientName;
+		this.circuitBreakerFactory = circuitBreakerFactory;
+		this.fallbackFactory = fallbackFactory;
+		this.ignoreClientErrors = ignoreClientErrors;
+	}
+
+	/**
+	 * @param clientName the context id of the client
+	 * @param target the target of the client
+	 * @param method a method of the client
+	 * @return the id of the circuit breaker of the method, such as
+	 * {@code stores.getStore(Long)}
+	 */
+	static String circuitBreakerId(String clientName, Target<?> target,
+			Method method) {
+		String configKey = Feign.configKey(target.type(), method);
+		return clientName + "." + configKey.substring(configKey.indexOf('#') + 1);
+	}
+
+	@Override
+	public MethodHandler decorate(Target<?> target, Method method,
+			MethodHandler handler) {
+		CircuitBreaker circuitBreaker = this.circuitBreakerFactory
+				.create(circuitBreakerId(this.clientName, target, method));
+		if (this.fallbackFactory != null) {
+			// the client interface does not have to be public
+			ReflectionUtils.makeAccessible(method);
+		}
+		return argv -> {
+			Object result;
+			try {
+				result = circuitBreaker.run(() -> call(handler, argv),
+						failure -> fallback(method, argv, unwrap(failure)));
+			}
+			catch (FailedCall ex) {
+				throw ex.getCause();
+			}
+			if (result instanceof IgnoredFailure) {
+				throw ((IgnoredFailure) result).failure;
+			}
+			return result;
+		};
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE + 50;
+	}
+
+	private Object call(MethodHandler handler, Object[] argv) {
+		try {
+			return handler.invoke(argv);
+		}
+		catch (FeignException ex) {
+			if (this.ignoreClientErrors && ex.status() >= 400 && ex.status() < 500) {
+				// returned rather than thrown, so that the breaker records a success
+				return new IgnoredFailure(ex);
+			}
+			throw ex;
+		}
+		catch (RuntimeException | Error ex) {
+			throw ex;
+		}
+		catch (Throwable ex) {
+			throw new FailedCall(ex);
+		}
+	}
+
+	private Object fallback(Method method, Object[] argv, Throwable failure) {
+		if (this.fallbackFactory == null) {
+			throw new FailedCall(failure);
+		}
+		Object fallback = this.fallbackFactory.create(failure);
+		try {
+			Object result = method.invoke(fallback, argv);
+			if (AsyncMethodHandlerDecorator.isAsync(method) && result != null) {
+				// already running asynchronously, the future is completed by the caller
+				return ((Future<?>) result).get();
+			}
+			return result;
+		}
+		catch (InvocationTargetException | ExecutionException ex) {
+			throw new FailedCall(ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new FailedCall(ex);
+		}
+		catch (IllegalAccessException ex) {
+			throw new IllegalStateException(
+					"Could not invoke the fallback of " + method.getName(), ex);
+		}
+	}
+
+	private static Throwable unwrap(Throwable failure) {
+		Throwable unwrapped = failure;
+		while ((unwrapped instanceof FailedCall
+				|| unwrapped instanceof CompletionException
+				|| unwrapped instanceof ExecutionException)
+				&& unwrapped.getCause() != null) {
+			unwrapped = unwrapped.getCause();
+		}
+		return unwrapped;
+	}
+
+	/**
+	 * Carries a checked exception through the circuit breaker.
+	 */
+	private static final class FailedCall extends RuntimeException {
+
+		FailedCall(Throwable cause) {
+			super(null, cause, false, false);
+		}
+
+	}
+
+	/**
+	 * A failure that is not recorded by the circuit breaker.
+	 */
+	private static final class IgnoredFailure {
+
+		private final FeignException failure;
+
+		IgnoredFailure(FeignException failure) {
+			this.failure = failure;
+		}
+
+	}
+
+}
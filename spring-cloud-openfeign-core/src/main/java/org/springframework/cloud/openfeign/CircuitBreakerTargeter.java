@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import feign.Feign;
+import feign.Target;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+
+/**
+ * A {@link Targeter} running the methods of the clients in Spring Cloud
+ * CircuitBreakers, with one breaker per method of each client, and handing their
+ * failures to the {@link FeignClient#fallback() fallback} or
+ * {@link FeignClient#fallbackFactory() fallback factory} of the client.
+ *
+ * @see CircuitBreakerMethodHandlerDecorator
+ */
+class CircuitBreakerTargeter implements Targeter {
+
+	private final ObjectProvider<CircuitBreakerFactory> circuitBreakerFactory;
+
+	CircuitBreakerTargeter(ObjectProvider<CircuitBreakerFactory> circuitBreakerFactory) {
+		this.circuitBreakerFactory = circuitBreakerFactory;
+	}
+
+	@Override
+	public <T> T target(FeignClientFactoryBean factory, Feign.Builder feign,
+			FeignContext context, Target.HardCodedTarget<T> target) {
+		CircuitBreakerFactory circuitBreakerFactory = this.circuitBreakerFactory
+				.getIfAvailable();
+		FeignClientProperties.CircuitBreakerConfiguration config = factory.getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getCircuitBreaker);
+		if (circuitBreakerFactory == null || (config != null && !config.isEnabled())) {
+			return feign.target(target);
+		}
+		factory.addMethodHandlerDecorator(new CircuitBreakerMethodHandlerDecorator(
+				factory.getContextId(), circuitBreakerFactory,
+				getFallbackFactory(factory, context, target.type()),
+				config != null && config.isIgnoreClientErrors()));
+		feign.invocationHandlerFactory(new DecoratingInvocationHandlerFactory(
+				factory.getMethodHandlerDecorators()));
+		return feign.target(target);
+	}
+
+	private FallbackFactory<?> getFallbackFactory(FeignClientFactoryBean factory,
+			FeignContext context, Class<?> type) {
+		if (factory.getFallback() != void.class) {
+			Object fallback = getFromContext("fallback", factory, context,
+					factory.getFallback(), type);
+			return new FallbackFactory.Default<>(fallback);
+		}
+		if (factory.getFallbackFactory() != void.class) {
+			return getFromContext("fallbackFactory", factory, context,
+					factory.getFallbackFactory(), FallbackFactory.class);
+		}
+		return null;
+	}
+
+	private <T> T getFromContext(String fallbackMechanism,
+			FeignClientFactoryBean factory, FeignContext context, Class<?> beanType,
+			Class<T> targetType) {
+		Object instance = context.getInstance(factory.getContextId(), beanType);
+		if (instance == null) {
+			throw new IllegalStateException(
+					String.format("No %s instance of type %s found for feign client %s",
+							fallbackMechanism, beanType, factory.getContextId()));
+		}
+		if (!targetType.isAssignableFrom(beanType)) {
+			throw new IllegalStateException(String.format(
+					"Incompatible %s instance. %s of type %s is not assignable to %s for feign client %s",
+					fallbackMechanism, fallbackMechanism, beanType, targetType,
+					factory.getContextId()));
+		}
+		return targetType.cast(instance);
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Collapses the concurrent calls of a single-item Feign client method into calls of a
+ * batch method of the same client. The annotated method must take the key of the item
+ * as its only parameter. The batch method must take a collection of keys as its only
+ * parameter, and return either a map of the items by key or a collection of items from
+ * which the keys are read through the {@link #resultKey()} property.
+ * <p>
+ * The first call starts a batch, which is sent when the {@link #window()} has elapsed
+ * or when it holds {@link #maxBatchSize()} keys, whichever comes first. Each caller gets
+ * the item matching its key, or {@code null} if the batch method returned none.
+ *
+ * <pre class="code">
+ * &#64;GetMapping("/items/{id}")
+ * &#64;CollapsedInto(value = "batchGet", resultKey = "id")
+ * Item getItem(&#64;PathVariable("id") String id);
+ *
+ * &#64;PostMapping("/items:batchGet")
+ * List&lt;Item&gt; batchGet(&#64;RequestBody List&lt;String&gt; ids);
+ * </pre>
+ *
+ * @since 3.0.0
+ * @see org.springframework.cloud.openfeign.support.SpringMvcContract
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CollapsedInto {
+
+	/**
+	 * @return the name of the batch method
+	 */
+	String value();
+
+	/**
+	 * @return the property of the items returned as a collection holding their key
+	 */
+	String resultKey() default "";
+
+	/**
+	 * @return how long a batch collects calls after the first one, such as
+	 * {@code 10ms}, in milliseconds if no unit is given. May contain property
+	 * placeholders.
+	 */
+	String window() default "10ms";
+
+	/**
+	 * @return the maximum number of keys in a batch
+	 */
+	int maxBatchSize() default 100;
+
+}
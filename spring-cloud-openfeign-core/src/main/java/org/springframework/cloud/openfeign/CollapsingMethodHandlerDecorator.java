@@ -0,0 +1,346 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+import feign.Feign;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+import org.springframework.cloud.openfeign.support.MethodCollapsing;
+import org.springframework.core.Ordered;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Collapses the concurrent calls of the methods annotated with {@link CollapsedInto}
+ * into calls of their batch method. The first call of a batch waits for the others on
+ * its own thread and then sends the batch, so that no scheduler thread is needed.
+ * Applied inside the result cache, so that cached results are not collapsed, and
+ * outside hedging, so that the batch calls are hedged rather than the single ones. The
+ * keys of the results of a batch are converted to the type of the argument of the
+ * collapsed method, since decoded keys often differ from it, like the keys of a JSON
+ * object that are always strings. The calls whose key has no result get {@code null}.
+ */
+class CollapsingMethodHandlerDecorator implements MethodHandlerDecorator {
+
+	private final String clientName;
+
+	private final Function<String, MethodCollapsing> collapsingResolver;
+
+	private final FeignMetricsRegistrar metrics;
+
+	private final ConversionService conversionService;
+
+	private final Map<Method, MethodHandler> handlers = new ConcurrentHashMap<>();
+
+	/**
+	 * @param clientName the context id of the client
+	 * @param collapsingResolver resolves the collapsing of a method from its config key,
+	 * may return {@code null} if the calls of the method are not collapsed
+	 * @param metrics the registrar of the collapsing metrics
+	 * @param conversionService converts the keys of the results of the batches
+	 */
+	CollapsingMethodHandlerDecorator(String clientName,
+			Function<String, MethodCollapsing> collapsingResolver,
+			FeignMetricsRegistrar metrics, ConversionService conversionService) {
+		this.clientName = clientName;
+		this.collapsingResolver = collapsingResolver;
+		this.metrics = metrics;
+		this.conversionService = conversionService;
+	}
+
+	@Override
+	public MethodHandler decorate(Target<?> target, Method method,
+			MethodHandler handler) {
+		// the batch method may be decorated after the methods collapsed into it
+		this.handlers.put(method, handler);
+		String methodKey = Feign.configKey(target.type(), method);
+		MethodCollapsing collapsing = this.collapsingResolver.apply(methodKey);
+		if (collapsing == null) {
+			return handler;
+		}
+		Method batchMethod = findBatchMethod(target.type(), method, collapsing);
+		Collapser collapser = new Collapser(methodKey, batchMethod, collapsing,
+				ClassUtils.resolvePrimitiveIfNecessary(method.getParameterTypes()[0]));
+		return argv -> collapser.invoke(argv[0]);
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE + 200;
+	}
+
+	private static Method findBatchMethod(Class<?> type, Method method,
+			MethodCollapsing collapsing) {
+		for (Method candidate : type.getMethods()) {
+			if (candidate.getName().equals(collapsing.getBatchMethod())
+					&& candidate.getParameterCount() == 1
+					&& isCollectionOfKeys(candidate.getParameterTypes()[0])) {
+				if (collapsing.getResultKey() == null
+						&& Collection.class.isAssignableFrom(candidate.getReturnType())) {
+					throw new IllegalStateException("Method " + method.getName()
+							+ " must declare the resultKey of the items returned by "
+							+ candidate.getName());
+				}
+				return candidate;
+			}
+		}
+		throw new IllegalStateException("Method " + method.getName()
+				+ " is collapsed into " + collapsing.getBatchMethod() + " but "
+				+ type.getName()
+				+ " has no such method taking a collection of keys as its only parameter");
+	}
+
+	private static boolean isCollectionOfKeys(Class<?> parameterType) {
+		return parameterType.isAssignableFrom(ArrayList.class)
+				|| parameterType.isAssignableFrom(LinkedHashSet.class);
+	}
+
+	private final class Collapser {
+
+		private final Method batchMethod;
+
+		private final MethodCollapsing collapsing;
+
+		private final boolean setOfKeys;
+
+		private final Class<?> keyType;
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private final DoubleConsumer batchSizes;
+
+		private final LongConsumer waits;
+
+		private Batch current;
+
+		Collapser(String methodKey, Method batchMethod, MethodCollapsing collapsing,
+				Class<?> keyType) {
+			this.batchMethod = batchMethod;
+			this.collapsing = collapsing;
+			this.setOfKeys = !batchMethod.getParameterTypes()[0]
+					.isAssignableFrom(ArrayList.class);
+			this.keyType = keyType;
+			String clientName = CollapsingMethodHandlerDecorator.this.clientName;
+			FeignMetricsRegistrar metrics = CollapsingMethodHandlerDecorator.this.metrics;
+			this.batchSizes = metrics.distribution("feign.client.collapsing.batch.size",
+					"Number of distinct keys of the batches sent", "keys", "client",
+					clientName, "method", methodKey);
+			this.waits = metrics.timer("feign.client.collapsing.wait",
+					"Time calls waited for their batch to be sent", "client",
+					clientName, "method", methodKey);
+		}
+
+		Object invoke(Object key) throws Throwable {
+			CompletableFuture<Object> result = new CompletableFuture<>();
+			Batch batch;
+			boolean leader;
+			boolean interrupted = false;
+			this.lock.lock();
+			try {
+				leader = this.current == null;
+				if (leader) {
+					this.current = new Batch(this.lock.newCondition());
+				}
+				batch = this.current;
+				batch.add(key, result);
+				if (batch.keyCount() >= this.collapsing.getMaxBatchSize()) {
+					close(batch);
+				}
+				if (leader) {
+					long remaining = this.collapsing.getWindow().toNanos();
+					while (!batch.closed && remaining > 0) {
+						try {
+							remaining = batch.full.awaitNanos(remaining);
+						}
+						catch (InterruptedException ex) {
+							// send the batch now rather than failing the other calls
+							interrupted = true;
+							break;
+						}
+					}
+					close(batch);
+				}
+			}
+			finally {
+				this.lock.unlock();
+			}
+			if (leader) {
+				try {
+					send(batch);
+				}
+				finally {
+					if (interrupted) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+			try {
+				return result.get();
+			}
+			catch (ExecutionException ex) {
+				throw ex.getCause();
+			}
+		}
+
+		private void close(Batch batch) {
+			if (this.current == batch) {
+				this.current = null;
+			}
+			batch.closed = true;
+			batch.full.signal();
+		}
+
+		private void send(Batch batch) {
+			long sent = System.nanoTime();
+			for (long enqueued : batch.enqueued) {
+				this.waits.accept(sent - enqueued);
+			}
+			this.batchSizes.accept(batch.keyCount());
+			Collection<Object> keys = this.setOfKeys
+					? new LinkedHashSet<>(batch.results.keySet())
+					: new ArrayList<>(batch.results.keySet());
+			Object results;
+			try {
+				MethodHandler handler = CollapsingMethodHandlerDecorator.this.handlers
+						.get(this.batchMethod);
+				if (handler == null) {
+					throw new IllegalStateException(
+							"No handler for batch method " + this.batchMethod.getName());
+				}
+				results = handler.invoke(new Object[] { keys });
+			}
+			catch (Throwable ex) {
+				batch.results.values().forEach(futures -> futures
+						.forEach(future -> future.completeExceptionally(ex)));
+				return;
+			}
+			try {
+				Map<Object, Object> resultsByKey = index(results);
+				batch.results.forEach((key, futures) -> {
+					Object value = resultsByKey.get(key);
+					futures.forEach(future -> future.complete(value));
+				});
+			}
+			catch (RuntimeException ex) {
+				batch.results.values().forEach(futures -> futures
+						.forEach(future -> future.completeExceptionally(ex)));
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private Map<Object, Object> index(Object results) {
+			if (results == null) {
+				return new LinkedHashMap<>();
+			}
+			if (results instanceof Map) {
+				Map<Object, Object> resultsByKey = new LinkedHashMap<>();
+				((Map<Object, Object>) results).forEach(
+						(key, item) -> putIfConvertible(resultsByKey, key, item));
+				return resultsByKey;
+			}
+			if (!(results instanceof Iterable)) {
+				throw new IllegalStateException("Batch method "
+						+ this.batchMethod.getName()
+						+ " must return a map or a collection, but returned "
+						+ results.getClass().getName());
+			}
+			String resultKey = this.collapsing.getResultKey();
+			if (resultKey == null) {
+				throw new IllegalStateException("Batch method "
+						+ this.batchMethod.getName()
+						+ " returned a collection but no resultKey is declared");
+			}
+			Map<Object, Object> resultsByKey = new LinkedHashMap<>();
+			for (Object item : (Iterable<Object>) results) {
+				if (item != null) {
+					BeanWrapper wrapper = PropertyAccessorFactory
+							.forBeanPropertyAccess(item);
+					putIfConvertible(resultsByKey, wrapper.getPropertyValue(resultKey),
+							item);
+				}
+			}
+			return resultsByKey;
+		}
+
+		/**
+		 * Indexes an item by its key converted to the type of the keys of the calls,
+		 * ignoring the items whose key cannot be converted, as no call can match them.
+		 */
+		private void putIfConvertible(Map<Object, Object> resultsByKey, Object key,
+				Object item) {
+			Object converted = key;
+			if (key != null && !this.keyType.isInstance(key)) {
+				try {
+					converted = CollapsingMethodHandlerDecorator.this.conversionService
+							.convert(key, this.keyType);
+				}
+				catch (ConversionException ex) {
+					return;
+				}
+			}
+			resultsByKey.putIfAbsent(converted, item);
+		}
+
+	}
+
+	private static final class Batch {
+
+		private final Condition full;
+
+		private final Map<Object, List<CompletableFuture<Object>>> results = new LinkedHashMap<>();
+
+		private final List<Long> enqueued = new ArrayList<>();
+
+		private boolean closed;
+
+		Batch(Condition full) {
+			this.full = full;
+		}
+
+		void add(Object key, CompletableFuture<Object> result) {
+			this.results.computeIfAbsent(key, k -> new ArrayList<>(1)).add(result);
+			this.enqueued.add(System.nanoTime());
+		}
+
+		int keyCount() {
+			return this.results.size();
+		}
+
+	}
+
+}
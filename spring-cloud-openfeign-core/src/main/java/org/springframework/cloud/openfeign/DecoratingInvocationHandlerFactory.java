@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import feign.InvocationHandlerFactory;
+import feign.Target;
+
+import org.springframework.core.OrderComparator;
+
+/**
+ * An {@link InvocationHandlerFactory} that applies the {@link MethodHandlerDecorator}s
+ * registered for a client to each of its non-default methods.
+ *
+ * @see MethodHandlerDecorator
+ */
+class DecoratingInvocationHandlerFactory implements InvocationHandlerFactory {
+
+	private final List<MethodHandlerDecorator> decorators;
+
+	DecoratingInvocationHandlerFactory(List<MethodHandlerDecorator> decorators) {
+		this.decorators = decorators;
+	}
+
+	@Override
+	public InvocationHandler create(Target target, Map<Method, MethodHandler> dispatch) {
+		List<MethodHandlerDecorator> ordered = new ArrayList<>(this.decorators);
+		OrderComparator.sort(ordered);
+		Map<Method, MethodHandler> decorated = new LinkedHashMap<>();
+		for (Map.Entry<Method, MethodHandler> entry : dispatch.entrySet()) {
+			Method method = entry.getKey();
+			MethodHandler handler = entry.getValue();
+			if (!method.isDefault()) {
+				// the last decorator to be applied ends up outermost
+				for (int i = ordered.size() - 1; i >= 0; i--) {
+					handler = ordered.get(i).decorate(target, method, handler);
+				}
+			}
+			decorated.put(method, handler);
+		}
+		return new DecoratingInvocationHandler(target, decorated);
+	}
+
+	static class DecoratingInvocationHandler implements InvocationHandler {
+
+		private final Target<?> target;
+
+		private final Map<Method, MethodHandler> dispatch;
+
+		DecoratingInvocationHandler(Target<?> target,
+				Map<Method, MethodHandler> dispatch) {
+			this.target = target;
+			this.dispatch = dispatch;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+				throws Throwable {
+			if ("equals".equals(method.getName())) {
+				try {
+					Object otherHandler = args.length > 0 && args[0] != null
+							? Proxy.getInvocationHandler(args[0]) : null;
+					return equals(otherHandler);
+				}
+				catch (IllegalArgumentException e) {
+					return false;
+				}
+			}
+			else if ("hashCode".equals(method.getName())) {
+				return hashCode();
+			}
+			else if ("toString".equals(method.getName())) {
+				return toString();
+			}
+			return this.dispatch.get(method).invoke(args);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof DecoratingInvocationHandler) {
+				DecoratingInvocationHandler other = (DecoratingInvocationHandler) obj;
+				return this.target.equals(other.target);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.target.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return this.target.toString();
+		}
+
+	}
+
+}
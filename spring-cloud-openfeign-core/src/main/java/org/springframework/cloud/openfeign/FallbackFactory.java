@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+/**
+ * Creates the fallback of a Feign client for the failure of a call, so that the fallback
+ * can depend on the cause of the failure. Declared with
+ * {@link FeignClient#fallbackFactory()}.
+ *
+ * @param <T> the type of the Feign client
+ * @since 3.0.0
+ */
+public interface FallbackFactory<T> {
+
+	/**
+	 * @param cause the failure of the call, or the exception of the circuit breaker
+	 * rejecting it
+	 * @return the fallback handling the call
+	 */
+	T create(Throwable cause);
+
+	/**
+	 * A {@link FallbackFactory} returning the same fallback for all failures.
+	 *
+	 * @param <T> the type of the Feign client
+	 */
+	final class Default<T> implements FallbackFactory<T> {
+
+		private final T fallback;
+
+		public Default(T fallback) {
+			this.fallback = fallback;
+		}
+
+		@Override
+		public T create(Throwable cause) {
+			return this.fallback;
+		}
+
+	}
+
+}
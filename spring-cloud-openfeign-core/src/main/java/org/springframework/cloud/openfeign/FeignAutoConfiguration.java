@@ -28,6 +28,7 @@ import feign.Client;
 import feign.Feign;
 import feign.httpclient.ApacheHttpClient;
 import feign.okhttp.OkHttpClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import okhttp3.ConnectionPool;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
@@ -35,18 +36,31 @@ import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.impl.client.CloseableHttpClient;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.actuator.HasFeatures;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
 import org.springframework.cloud.commons.httpclient.ApacheHttpClientConnectionManagerFactory;
 import org.springframework.cloud.commons.httpclient.ApacheHttpClientFactory;
 import org.springframework.cloud.commons.httpclient.OkHttpClientConnectionPoolFactory;
 import org.springframework.cloud.commons.httpclient.OkHttpClientFactory;
+import org.springframework.cloud.openfeign.cache.FeignResultCaches;
+import org.springframework.cloud.openfeign.cache.FeignResultCachesEndpoint;
+import org.springframework.cloud.openfeign.clientconfig.CachingDnsResolver;
+import org.springframework.cloud.openfeign.clientconfig.DnsAwareHttpClientConnectionManager;
+import org.springframework.cloud.openfeign.clientconfig.FeignDnsResolver;
+import org.springframework.cloud.openfeign.clientconfig.OkHttpFeignDns;
 import org.springframework.cloud.openfeign.support.DefaultGzipDecoderConfiguration;
 import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+import org.springframework.cloud.openfeign.support.MicrometerFeignMetricsRegistrar;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -77,6 +91,59 @@ public class FeignAutoConfiguration {
 		return context;
 	}
 
+	@Bean
+	@ConditionalOnMissingBean
+	public FeignClientExecutors feignClientExecutors() {
+		return new FeignClientExecutors();
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public FeignResultCaches feignResultCaches() {
+		return new FeignResultCaches();
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public FeignScatterGather feignScatterGather(ApplicationContext applicationContext,
+			FeignClientExecutors feignClientExecutors,
+			FeignClientProperties feignClientProperties) {
+		FeignClientProperties.FeignClientConfiguration defaults = feignClientProperties
+				.getConfig().get(feignClientProperties.getDefaultConfig());
+		return new FeignScatterGather(applicationContext,
+				() -> feignClientExecutors.getScatterGatherExecutor(
+						defaults != null ? defaults.getAsync() : null));
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(Endpoint.class)
+	protected static class FeignResultCachesEndpointConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		@ConditionalOnAvailableEndpoint
+		public FeignResultCachesEndpoint feignResultCachesEndpoint(
+				FeignResultCaches feignResultCaches) {
+			return new FeignResultCachesEndpoint(feignResultCaches);
+		}
+
+	}
+
+	// declared before the default targeter, which backs off when this one is defined
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(CircuitBreakerFactory.class)
+	@ConditionalOnProperty("feign.circuitbreaker.enabled")
+	protected static class CircuitBreakerFeignTargeterConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public Targeter feignTargeter(
+				ObjectProvider<CircuitBreakerFactory> circuitBreakerFactory) {
+			return new CircuitBreakerTargeter(circuitBreakerFactory);
+		}
+
+	}
+
 	@Configuration(proxyBeanMethods = false)
 	protected static class DefaultFeignTargeterConfiguration {
 
@@ -88,6 +155,32 @@ public class FeignAutoConfiguration {
 
 	}
 
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(MeterRegistry.class)
+	protected static class FeignMetricsConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public FeignMetricsRegistrar feignMetricsRegistrar(
+				ObjectProvider<MeterRegistry> meterRegistry) {
+			return new MicrometerFeignMetricsRegistrar(meterRegistry);
+		}
+
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty("feign.httpclient.dns.enabled")
+	protected static class FeignDnsConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public FeignDnsResolver feignDnsResolver(
+				FeignHttpClientProperties httpClientProperties) {
+			return new CachingDnsResolver(httpClientProperties.getDns().getTtl());
+		}
+
+	}
+
 	// the following configuration is for alternate feign clients if
 	// SC loadbalancer is not on the class path.
 	// see corresponding configurations in FeignRibbonClientAutoConfiguration
@@ -110,9 +203,14 @@ public class FeignAutoConfiguration {
 		@ConditionalOnMissingBean(HttpClientConnectionManager.class)
 		public HttpClientConnectionManager connectionManager(
 				ApacheHttpClientConnectionManagerFactory connectionManagerFactory,
-				FeignHttpClientProperties httpClientProperties) {
-			final HttpClientConnectionManager connectionManager = connectionManagerFactory
-					.newConnectionManager(httpClientProperties.isDisableSslValidation(),
+				FeignHttpClientProperties httpClientProperties,
+				ObjectProvider<FeignDnsResolver> dnsResolvers) {
+			FeignDnsResolver dnsResolver = dnsResolvers.getIfAvailable();
+			final HttpClientConnectionManager connectionManager = dnsResolver != null
+					? DnsAwareHttpClientConnectionManager.create(httpClientProperties,
+							this.registryBuilder, dnsResolver)
+					: connectionManagerFactory.newConnectionManager(
+							httpClientProperties.isDisableSslValidation(),
 							httpClientProperties.getMaxConnections(),
 							httpClientProperties.getMaxConnectionsPerRoute(),
 							httpClientProperties.getTimeToLive(),
@@ -179,14 +277,18 @@ public class FeignAutoConfiguration {
 		@Bean
 		public okhttp3.OkHttpClient client(OkHttpClientFactory httpClientFactory,
 				ConnectionPool connectionPool,
-				FeignHttpClientProperties httpClientProperties) {
+				FeignHttpClientProperties httpClientProperties,
+				ObjectProvider<FeignDnsResolver> dnsResolvers) {
 			Boolean followRedirects = httpClientProperties.isFollowRedirects();
 			Integer connectTimeout = httpClientProperties.getConnectionTimeout();
 			Boolean disableSslValidation = httpClientProperties.isDisableSslValidation();
-			this.okHttpClient = httpClientFactory.createBuilder(disableSslValidation)
+			okhttp3.OkHttpClient.Builder builder = httpClientFactory
+					.createBuilder(disableSslValidation)
 					.connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
-					.followRedirects(followRedirects).connectionPool(connectionPool)
-					.build();
+					.followRedirects(followRedirects).connectionPool(connectionPool);
+			dnsResolvers.ifAvailable(dnsResolver -> OkHttpFeignDns.configure(builder,
+					connectionPool, dnsResolver));
+			this.okHttpClient = builder.build();
 			return this.okHttpClient;
 		}
 
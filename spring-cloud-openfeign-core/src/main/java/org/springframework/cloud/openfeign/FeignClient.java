@@ -75,7 +75,8 @@ public @interface FeignClient {
 	String qualifier() default "";
 
 	/**
-	 * @return an absolute URL or resolvable hostname (the protocol is optional).
+	 * @return an absolute URL or resolvable hostname (the protocol is optional), or a
+	 * comma-separated list of them to balance the requests over.
 	 */
 	String url() default "";
 
@@ -106,7 +107,7 @@ public @interface FeignClient {
 	 * factory must produce instances of fallback classes that implement the interface
 	 * annotated by {@link FeignClient}. The fallback factory must be a valid spring bean.
 	 *
-	 * @see feign.hystrix.FallbackFactory for details.
+	 * @see FallbackFactory for details.
 	 * @return fallback factory for the specified Feign client interface
 	 */
 	Class<?> fallbackFactory() default void.class;
@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.openfeign;
 
+import java.util.concurrent.Executor;
+
 import org.springframework.context.ApplicationContext;
 
 /**
@@ -86,6 +88,39 @@ public class FeignClientBuilder {
 			return this;
 		}
 
+		public Builder<T> fallbackFactory(final Class<?> fallbackFactory) {
+			FeignClientsRegistrar.validateFallbackFactory(fallbackFactory);
+			this.feignClientFactoryBean.setFallbackFactory(fallbackFactory);
+			return this;
+		}
+
+		/**
+		 * Sets the executor running the methods of the client that return a
+		 * {@link java.util.concurrent.CompletableFuture}. When not set, a bounded
+		 * executor configured with {@code feign.client.config.<name>.async.*} is used.
+		 * @param executor the executor to use
+		 * @return this builder
+		 */
+		public Builder<T> asyncExecutor(final Executor executor) {
+			this.feignClientFactoryBean.setAsyncExecutor(executor);
+			return this;
+		}
+
+		/**
+		 * Caps the timeouts of the requests of the client to the time left until the
+		 * {@link org.springframework.cloud.openfeign.support.FeignDeadline} of the
+		 * calling thread, as set by a {@link ScatterGather}. The clients injected from
+		 * {@link FeignClient} interfaces can do the same with
+		 * {@code feign.client.config.<name>.propagateDeadline}.
+		 * @param propagateDeadline whether to propagate the deadline of the calling
+		 * thread
+		 * @return this builder
+		 */
+		public Builder<T> propagateDeadline(final boolean propagateDeadline) {
+			this.feignClientFactoryBean.setPropagateDeadline(propagateDeadline);
+			return this;
+		}
+
 		/**
 		 * @return the created Feign client
 		 */
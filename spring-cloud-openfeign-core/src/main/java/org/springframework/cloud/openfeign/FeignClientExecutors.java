@@ -0,0 +1,230 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Holds the executors created for Feign clients, so that each client gets its own
+ * bounded pool and all of them are shut down with the application context. The other
+ * resources of the clients that need to be released with the context are closed along
+ * with them.
+ *
+ * @since 3.0.0
+ */
+public class FeignClientExecutors implements DisposableBean {
+
+	private static final Log LOG = LogFactory.getLog(FeignClientExecutors.class);
+
+	private final Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
+
+	private final List<Closeable> resources = new CopyOnWriteArrayList<>();
+
+	/**
+	 * @param contextId the context id of the client
+	 * @param config the async configuration of the client, may be {@code null}
+	 * @return the executor running the asynchronous methods of the client
+	 */
+	public ExecutorService getAsyncExecutor(String contextId,
+			FeignClientProperties.AsyncConfiguration config) {
+		return getExecutor("feign-async-" + contextId, () -> newBoundedExecutor(
+				"feign-async-" + contextId + "-",
+				config != null ? config : new FeignClientProperties.AsyncConfiguration()));
+	}
+
+	/**
+	 * @param contextId the context id of the client
+	 * @param config the async configuration of the client, may be {@code null}
+	 * @return the executor running the hedged calls of the client
+	 */
+	public ExecutorService getHedgingExecutor(String contextId,
+			FeignClientProperties.AsyncConfiguration config) {
+		return getExecutor("feign-hedging-" + contextId, () -> newBoundedExecutor(
+				"feign-hedging-" + contextId + "-",
+				config != null ? config : new FeignClientProperties.AsyncConfiguration()));
+	}
+
+	/**
+	 * @param contextId the context id of the client
+	 * @param config the async configuration of the client, may be {@code null}
+	 * @return the executor calling the instances of the service of the client for its
+	 * broadcast methods
+	 */
+	public ExecutorService getBroadcastExecutor(String contextId,
+			FeignClientProperties.AsyncConfiguration config) {
+		return getExecutor("feign-broadcast-" + contextId, () -> newBoundedExecutor(
+				"feign-broadcast-" + contextId + "-",
+				config != null ? config : new FeignClientProperties.AsyncConfiguration()));
+	}
+
+	/**
+	 * @param config the async configuration of the default client configuration, may
+	 * be {@code null}
+	 * @return the executor running the calls submitted to a {@link ScatterGather}
+	 */
+	public ExecutorService getScatterGatherExecutor(
+			FeignClientProperties.AsyncConfiguration config) {
+		return getExecutor("feign-scatter-gather", () -> newBoundedExecutor(
+				"feign-scatter-gather-",
+				config != null ? config : new FeignClientProperties.AsyncConfiguration()));
+	}
+
+	/**
+	 * @param contextId the context id of the client
+	 * @return the executor revalidating the stale cached responses of the client in the
+	 * background
+	 */
+	public ExecutorService getCacheRevalidationExecutor(String contextId) {
+		return getExecutor("feign-cache-" + contextId, () -> {
+			FeignClientProperties.AsyncConfiguration config = new FeignClientProperties.AsyncConfiguration();
+			config.setCorePoolSize(2);
+			config.setMaxPoolSize(2);
+			return newBoundedExecutor("feign-cache-" + contextId + "-", config);
+		});
+	}
+
+	/**
+	 * @param contextId the context id of the client
+	 * @return the executor resolving the host names of the static URLs of the client
+	 * again in the background
+	 */
+	public ExecutorService getDnsRefreshExecutor(String contextId) {
+		return getExecutor("feign-dns-" + contextId, () -> {
+			FeignClientProperties.AsyncConfiguration config = new FeignClientProperties.AsyncConfiguration();
+			config.setCorePoolSize(1);
+			config.setMaxPoolSize(1);
+			return newBoundedExecutor("feign-dns-" + contextId + "-", config);
+		});
+	}
+
+	/**
+	 * @param contextId the context id of the client
+	 * @return an executor starting a new virtual thread for each call of the client
+	 * @throws IllegalStateException if virtual threads are not supported by the JVM
+	 */
+	public ExecutorService getVirtualThreadExecutor(String contextId) {
+		return getExecutor("feign-virtual-" + contextId,
+				() -> newVirtualThreadPerTaskExecutor("feign-virtual-" + contextId + "-"));
+	}
+
+	/**
+	 * @param name the unique name of the executor
+	 * @param factory creates the executor when none is registered under {@code name}
+	 * @return the executor registered under {@code name}
+	 */
+	public ExecutorService getExecutor(String name, Supplier<ExecutorService> factory) {
+		return this.executors.computeIfAbsent(name, key -> factory.get());
+	}
+
+	/**
+	 * @param resource a resource of a client, closed when the executors are shut down
+	 */
+	public void closeOnShutdown(Closeable resource) {
+		this.resources.add(resource);
+	}
+
+	static ThreadPoolExecutor newBoundedExecutor(String threadNamePrefix,
+			FeignClientProperties.AsyncConfiguration config) {
+		BlockingQueue<Runnable> queue = config.getQueueCapacity() > 0
+				? new ArrayBlockingQueue<>(config.getQueueCapacity())
+				: new SynchronousQueue<>();
+		RejectedExecutionHandler rejectionHandler = config
+				.getRejectionPolicy() == FeignClientProperties.AsyncConfiguration.RejectionPolicy.CALLER_RUNS
+						? new ThreadPoolExecutor.CallerRunsPolicy()
+						: new ThreadPoolExecutor.AbortPolicy();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+				threadNamePrefix);
+		threadFactory.setDaemon(true);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(config.getCorePoolSize(),
+				Math.max(config.getCorePoolSize(), config.getMaxPoolSize()),
+				config.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS, queue,
+				threadFactory, rejectionHandler);
+		if (config.getKeepAlive().toMillis() > 0) {
+			executor.allowCoreThreadTimeOut(true);
+		}
+		return executor;
+	}
+
+	/**
+	 * Creates the executor through reflection, as virtual threads are only available as
+	 * of Java 21.
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor(String threadNamePrefix) {
+		Method ofVirtual = ReflectionUtils.findMethod(Thread.class, "ofVirtual");
+		if (ofVirtual == null) {
+			throw new IllegalStateException(
+					"Running Feign calls on virtual threads requires Java 21 or later");
+		}
+		try {
+			Class<?> builderType = ClassUtils.forName("java.lang.Thread$Builder",
+					FeignClientExecutors.class.getClassLoader());
+			Object builder = ReflectionUtils.invokeMethod(ofVirtual, null);
+			builder = builderType.getMethod("name", String.class, long.class)
+					.invoke(builder, threadNamePrefix, 0L);
+			ThreadFactory threadFactory = (ThreadFactory) builderType
+					.getMethod("factory").invoke(builder);
+			Method newThreadPerTaskExecutor = Executors.class
+					.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) newThreadPerTaskExecutor.invoke(null,
+					threadFactory);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not create virtual thread executor",
+					e);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.executors.values().forEach(ExecutorService::shutdown);
+		this.executors.clear();
+		for (Closeable resource : this.resources) {
+			try {
+				resource.close();
+			}
+			catch (IOException | RuntimeException e) {
+				LOG.warn("Could not close " + resource, e);
+			}
+		}
+		this.resources.clear();
+	}
+
+}
@@ -16,8 +16,18 @@
 
 package org.springframework.cloud.openfeign;
 
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import feign.Client;
 import feign.Contract;
@@ -38,10 +48,37 @@ import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.openfeign.cache.CachingClient;
+import org.springframework.cloud.openfeign.cache.DiskResponseCache;
+import org.springframework.cloud.openfeign.cache.FeignResponseCache;
+import org.springframework.cloud.openfeign.cache.FeignResultCaches;
+import org.springframework.cloud.openfeign.cache.InMemoryResponseCache;
+import org.springframework.cloud.openfeign.cache.TieredResponseCache;
 import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.RetryableFeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.ServiceInstanceSource;
+import org.springframework.cloud.openfeign.support.AdaptiveTimeoutClient;
+import org.springframework.cloud.openfeign.support.CoalescingClient;
+import org.springframework.cloud.openfeign.support.ConcurrencyLimitingClient;
+import org.springframework.cloud.openfeign.support.DeadlineClient;
+import org.springframework.cloud.openfeign.support.FeignInvocationContext;
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+import org.springframework.cloud.openfeign.support.MethodBroadcast;
+import org.springframework.cloud.openfeign.support.MethodCollapsing;
+import org.springframework.cloud.openfeign.support.MethodOptionsClient;
+import org.springframework.cloud.openfeign.support.MethodRequestOptions;
+import org.springframework.cloud.openfeign.support.MethodResultCaching;
+import org.springframework.cloud.openfeign.support.RateLimitingClient;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.cloud.openfeign.support.StaticUrlsClient;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -58,6 +95,10 @@ class FeignClientFactoryBean
 	 * lifecycle race condition.
 	 ***********************************/
 
+	private static final boolean SPRING_RETRY_PRESENT = ClassUtils.isPresent(
+			"org.springframework.retry.support.RetryTemplate",
+			FeignClientFactoryBean.class.getClassLoader());
+
 	private Class<?> type;
 
 	private String name;
@@ -76,6 +117,14 @@ class FeignClientFactoryBean
 
 	private Class<?> fallbackFactory = void.class;
 
+	private Executor asyncExecutor;
+
+	private boolean propagateDeadline;
+
+	private Contract contract;
+
+	private final List<MethodHandlerDecorator> methodHandlerDecorators = new ArrayList<>();
+
 	@Override
 	public void afterPropertiesSet() {
 		Assert.hasText(this.contextId, "Context id must be set");
@@ -86,13 +135,14 @@ class FeignClientFactoryBean
 		FeignLoggerFactory loggerFactory = get(context, FeignLoggerFactory.class);
 		Logger logger = loggerFactory.create(this.type);
 
+		this.contract = get(context, Contract.class);
 		// @formatter:off
 		Feign.Builder builder = get(context, Feign.Builder.class)
 				// required values
 				.logger(logger)
 				.encoder(get(context, Encoder.class))
 				.decoder(get(context, Decoder.class))
-				.contract(get(context, Contract.class));
+				.contract(this.contract);
 		// @formatter:on
 
 		configureFeign(context, builder);
@@ -221,7 +271,8 @@ class FeignClientFactoryBean
 		}
 
 		if (Objects.nonNull(config.getContract())) {
-			builder.contract(getOrInstantiate(config.getContract()));
+			this.contract = getOrInstantiate(config.getContract());
+			builder.contract(this.contract);
 		}
 
 		if (Objects.nonNull(config.getExceptionPropagationPolicy())) {
@@ -251,11 +302,394 @@ class FeignClientFactoryBean
 		return context.getInstance(this.contextId, type);
 	}
 
+	/**
+	 * Resolves a per-client setting, falling back to the default configuration when the
+	 * client does not set it.
+	 * @param getter reads the setting from a client configuration
+	 * @param <T> the type of the setting
+	 * @return the value of the setting, or {@code null} if none is configured
+	 */
+	protected <T> T getConfigValue(
+			Function<FeignClientProperties.FeignClientConfiguration, T> getter) {
+		FeignClientProperties properties = this.applicationContext
+				.getBean(FeignClientProperties.class);
+		FeignClientProperties.FeignClientConfiguration config = properties.getConfig()
+				.get(this.contextId);
+		T value = config != null ? getter.apply(config) : null;
+		if (value == null) {
+			FeignClientProperties.FeignClientConfiguration defaultConfig = properties
+					.getConfig().get(properties.getDefaultConfig());
+			value = defaultConfig != null ? getter.apply(defaultConfig) : null;
+		}
+		return value;
+	}
+
+	/**
+	 * Wraps the client executing the requests with the decorators configured for this
+	 * Feign client.
+	 * @param client the client to decorate, may be {@code null} if none is defined
+	 * @return the decorated client, or {@code client} if no decorator is configured
+	 */
+	protected Client decorateClient(Client client) {
+		Client decorated = client;
+		FeignClientProperties.ConcurrencyLimitConfiguration concurrencyLimit = getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getConcurrencyLimit);
+		boolean limitInstances = concurrencyLimit != null && concurrencyLimit.isEnabled()
+				&& concurrencyLimit.isPerInstance()
+				&& client instanceof FeignBlockingLoadBalancerClient;
+		if (limitInstances) {
+			// inside the load balancer, where requests are sent to a single instance
+			FeignBlockingLoadBalancerClient loadBalancing = (FeignBlockingLoadBalancerClient) client;
+			decorated = loadBalancing.withDelegate(
+					new ConcurrencyLimitingClient(loadBalancing.getDelegate(),
+							this.contextId, concurrencyLimit, getMetricsRegistrar()));
+		}
+		if (isDeadlinePropagated() || hasAnnotatedMethod(Broadcast.class)) {
+			// inside the load balancer and retries, so that each attempt gets the time
+			// left, broadcasts binding their timeout as deadline
+			decorated = decorateAttempts(decorated, DeadlineClient::new);
+		}
+		FeignClientProperties.AdaptiveTimeoutConfiguration adaptiveTimeout = getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getAdaptiveTimeout);
+		if (adaptiveTimeout != null && adaptiveTimeout.isEnabled()) {
+			// inside the load balancer and retries, so that the latency of single
+			// attempts is observed, and around deadlines, so that they still bound the
+			// adapted timeout
+			decorated = decorateAttempts(decorated,
+					delegate -> new AdaptiveTimeoutClient(delegate, this.contextId,
+							adaptiveTimeout, getMetricsRegistrar()));
+		}
+		Map<String, FeignClientProperties.MethodConfiguration> methods = getMethodConfigurations();
+		FeignClientProperties.RateLimitConfiguration rateLimit = getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getRateLimit);
+		if ((rateLimit != null && rateLimit.isEnabled())
+				|| hasMethodRateLimit(methods)) {
+			// inside the load balancer and retries, so that each attempt takes a permit
+			// and throttled attempts lower the rate, and around adaptive timeouts, so
+			// that waiting for a permit is not seen as latency
+			decorated = decorateAttempts(decorated,
+					delegate -> new RateLimitingClient(delegate, this.contextId,
+							rateLimit, methodRateLimits(methods), getMetricsRegistrar()));
+		}
+		FeignClientProperties.RetryConfiguration retry = getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getRetry);
+		if (retry != null && retry.isEnabled()
+				&& decorated instanceof FeignBlockingLoadBalancerClient) {
+			Assert.state(SPRING_RETRY_PRESENT, "Retries of Feign client " + this.contextId
+					+ " require spring-retry on the classpath");
+			decorated = new RetryableFeignBlockingLoadBalancerClient(
+					(FeignBlockingLoadBalancerClient) decorated, this.contextId, retry,
+					getMetricsRegistrar());
+		}
+		if (concurrencyLimit != null && concurrencyLimit.isEnabled() && !limitInstances) {
+			decorated = new ConcurrencyLimitingClient(orDefault(decorated),
+					this.contextId, concurrencyLimit, getMetricsRegistrar());
+		}
+		// around adaptive timeouts, so that they start from the options of the method
+		if (hasMethodRequestOptions(methods)) {
+			decorated = new MethodOptionsClient(orDefault(decorated),
+					methodOptionsResolver(this.contract, methods));
+		}
+		FeignClientProperties.CoalescingConfiguration coalescing = getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getCoalescing);
+		if (coalescing != null && coalescing.isEnabled()) {
+			decorated = new CoalescingClient(orDefault(decorated), this.contextId,
+					coalescing.getMaxBodySize().toBytes(), coalescing.getIgnoredHeaders(),
+					getMetricsRegistrar());
+		}
+		// outermost, so that responses served from the cache skip the other decorators
+		FeignClientProperties.HttpCacheConfiguration httpCache = getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getHttpCache);
+		if (httpCache != null && httpCache.isEnabled()) {
+			decorated = createCachingClient(orDefault(decorated), httpCache);
+		}
+		return decorated;
+	}
+
+	private Client decorateAttempts(Client client, Function<Client, Client> decorator) {
+		if (client instanceof FeignBlockingLoadBalancerClient) {
+			FeignBlockingLoadBalancerClient loadBalancing = (FeignBlockingLoadBalancerClient) client;
+			return loadBalancing
+					.withDelegate(decorator.apply(loadBalancing.getDelegate()));
+		}
+		return decorator.apply(orDefault(client));
+	}
+
+	private Client createStaticUrlsClient(Client client, String targetUrl) {
+		List<String> urls = new ArrayList<>();
+		for (String url : StringUtils.commaDelimitedListToStringArray(this.url)) {
+			url = url.trim();
+			if (StringUtils.hasText(url)) {
+				urls.add((url.contains("://") ? url : "http://" + url) + cleanPath());
+			}
+		}
+		FeignClientProperties.StaticUrlsConfiguration staticUrls = getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getStaticUrls);
+		return new StaticUrlsClient(orDefault(client), this.contextId, targetUrl, urls,
+				staticUrls != null ? staticUrls
+						: new FeignClientProperties.StaticUrlsConfiguration(),
+				getMetricsRegistrar(),
+				getExecutors().getDnsRefreshExecutor(this.contextId));
+	}
+
+	private CachingClient createCachingClient(Client client,
+			FeignClientProperties.HttpCacheConfiguration config) {
+		FeignResponseCache cache = new InMemoryResponseCache(
+				config.getMaxSize().toBytes());
+		long maxEntrySize = config.getMaxEntrySize().toBytes();
+		FeignClientProperties.DiskCacheConfiguration disk = config.getDisk();
+		if (disk != null && disk.isEnabled()) {
+			// one directory per client, as each cache evicts the files of its directory
+			Path directory = StringUtils.hasText(disk.getDirectory())
+					? Paths.get(disk.getDirectory(), this.contextId)
+					: Paths.get(System.getProperty("java.io.tmpdir"), "feign-cache",
+							this.contextId);
+			try {
+				DiskResponseCache diskCache = new DiskResponseCache(directory,
+						disk.getMaxSize().toBytes());
+				getExecutors().closeOnShutdown(diskCache);
+				cache = new TieredResponseCache(cache, diskCache, maxEntrySize);
+			}
+			catch (IOException e) {
+				throw new IllegalStateException(
+						"Could not create response cache directory " + directory, e);
+			}
+			maxEntrySize = Math.max(maxEntrySize, disk.getMaxEntrySize().toBytes());
+		}
+		CachingClient cachingClient = new CachingClient(client, this.contextId, cache,
+				maxEntrySize, getExecutors().getCacheRevalidationExecutor(this.contextId),
+				getMetricsRegistrar());
+		cachingClient.setStaleIfError(config.getStaleIfError().toMillis());
+		return cachingClient;
+	}
+
+	/**
+	 * @return the configurations of the methods of the client, on top of the ones of
+	 * the default configuration, or {@code null} if there are none
+	 */
+	private Map<String, FeignClientProperties.MethodConfiguration> getMethodConfigurations() {
+		FeignClientProperties properties = this.applicationContext
+				.getBean(FeignClientProperties.class);
+		Map<String, FeignClientProperties.MethodConfiguration> methods = new HashMap<>();
+		for (String name : new String[] { properties.getDefaultConfig(),
+				this.contextId }) {
+			FeignClientProperties.FeignClientConfiguration config = properties
+					.getConfig().get(name);
+			if (config != null && config.getMethods() != null) {
+				methods.putAll(config.getMethods());
+			}
+		}
+		return methods.isEmpty() ? null : methods;
+	}
+
+	private boolean hasMethodRequestOptions(
+			Map<String, FeignClientProperties.MethodConfiguration> methods) {
+		return (methods != null && methods.values().stream()
+				.anyMatch(method -> method.getConnectTimeout() != null
+						|| method.getReadTimeout() != null
+						|| method.getFollowRedirects() != null))
+				|| hasAnnotatedMethod(RequestOptions.class);
+	}
+
+	private boolean hasAnnotatedMethod(Class<? extends Annotation> annotationType) {
+		for (Method method : this.type.getMethods()) {
+			if (AnnotatedElementUtils.hasAnnotation(method, annotationType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Function<String, FeignClientProperties.RateLimitConfiguration> methodRateLimits(
+			Map<String, FeignClientProperties.MethodConfiguration> methods) {
+		return methodKey -> {
+			FeignClientProperties.MethodConfiguration config = getMethodConfiguration(
+					methods, methodKey);
+			return config != null ? config.getRateLimit() : null;
+		};
+	}
+
+	private Function<String, MethodRequestOptions> methodOptionsResolver(
+			Contract contract,
+			Map<String, FeignClientProperties.MethodConfiguration> methods) {
+		return methodKey -> {
+			MethodRequestOptions options = MethodRequestOptions.NONE;
+			if (contract instanceof SpringMvcContract) {
+				options = options.overriddenBy(((SpringMvcContract) contract)
+						.getMethodRequestOptions(methodKey));
+			}
+			FeignClientProperties.MethodConfiguration config = getMethodConfiguration(
+					methods, methodKey);
+			if (config != null) {
+				options = options.overriddenBy(
+						new MethodRequestOptions(config.getConnectTimeout(),
+								config.getReadTimeout(), config.getFollowRedirects()));
+			}
+			return options;
+		};
+	}
+
+	private static FeignClientProperties.MethodConfiguration getMethodConfiguration(
+			Map<String, FeignClientProperties.MethodConfiguration> methods,
+			String methodKey) {
+		if (methods == null) {
+			return null;
+		}
+		FeignClientProperties.MethodConfiguration config = methods.get(methodKey);
+		if (config == null) {
+			// fall back to the name of the method
+			config = methods.get(methodKey.substring(methodKey.indexOf('#') + 1,
+					methodKey.indexOf('(')));
+		}
+		return config;
+	}
+
+	private static boolean hasMethodRateLimit(
+			Map<String, FeignClientProperties.MethodConfiguration> methods) {
+		return methods != null && methods.values().stream()
+				.anyMatch(method -> method.getRateLimit() != null);
+	}
+
+	private static Client orDefault(Client client) {
+		return client != null ? client : new Client.Default(null, null);
+	}
+
+	protected void configureMethodHandlers(Feign.Builder builder,
+			boolean bindInvocationContext) {
+		this.methodHandlerDecorators.clear();
+		if (bindInvocationContext) {
+			addMethodHandlerDecorator(FeignInvocationContext.decorator(this.contextId));
+		}
+		for (Method method : this.type.getMethods()) {
+			if (AsyncMethodHandlerDecorator.isAsync(method)) {
+				addMethodHandlerDecorator(
+						new AsyncMethodHandlerDecorator(this::getAsyncExecutorToUse));
+				break;
+			}
+		}
+		if (isVirtualThreads()) {
+			addMethodHandlerDecorator(new VirtualThreadMethodHandlerDecorator(
+					() -> getExecutors().getVirtualThreadExecutor(this.contextId)));
+		}
+		FeignClientProperties.HedgingConfiguration hedging = getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getHedging);
+		if (hedging != null && hedging.isEnabled()) {
+			FeignClientProperties.AsyncConfiguration async = getConfigValue(
+					FeignClientProperties.FeignClientConfiguration::getAsync);
+			addMethodHandlerDecorator(new HedgingMethodHandlerDecorator(hedging,
+					() -> getExecutors().getHedgingExecutor(this.contextId, async)));
+		}
+		if (hasAnnotatedMethod(CachedResult.class)) {
+			ResultCacheMethodHandlerDecorator resultCache = new ResultCacheMethodHandlerDecorator(
+					this.contextId, this::getMethodResultCaching,
+					this.applicationContext.getBean(FeignResultCaches.class));
+			addMethodHandlerDecorator(resultCache);
+			addMethodHandlerDecorator(resultCache.store());
+		}
+		if (hasAnnotatedMethod(CollapsedInto.class)) {
+			addMethodHandlerDecorator(new CollapsingMethodHandlerDecorator(
+					this.contextId, this::getMethodCollapsing, getMetricsRegistrar(),
+					getConversionService()));
+		}
+		if (hasAnnotatedMethod(Broadcast.class)) {
+			FeignClientProperties.AsyncConfiguration async = getConfigValue(
+					FeignClientProperties.FeignClientConfiguration::getAsync);
+			addMethodHandlerDecorator(new BroadcastMethodHandlerDecorator(
+					this::getMethodBroadcast, this::getServiceInstanceSource,
+					() -> getExecutors().getBroadcastExecutor(this.contextId, async)));
+		}
+		if (!this.methodHandlerDecorators.isEmpty()) {
+			builder.invocationHandlerFactory(
+					new DecoratingInvocationHandlerFactory(this.methodHandlerDecorators));
+		}
+	}
+
+	private MethodResultCaching getMethodResultCaching(String methodKey) {
+		return this.contract instanceof SpringMvcContract
+				? ((SpringMvcContract) this.contract).getMethodResultCaching(methodKey)
+				: null;
+	}
+
+	private MethodCollapsing getMethodCollapsing(String methodKey) {
+		return this.contract instanceof SpringMvcContract
+				? ((SpringMvcContract) this.contract).getMethodCollapsing(methodKey)
+				: null;
+	}
+
+	private MethodBroadcast getMethodBroadcast(String methodKey) {
+		return this.contract instanceof SpringMvcContract
+				? ((SpringMvcContract) this.contract).getMethodBroadcast(methodKey)
+				: null;
+	}
+
+	private ServiceInstanceSource getServiceInstanceSource() {
+		ServiceInstanceSource instances = this.applicationContext
+				.getBeanProvider(ServiceInstanceSource.class).getIfAvailable();
+		if (instances != null) {
+			return instances;
+		}
+		DiscoveryClient discoveryClient = this.applicationContext
+				.getBeanProvider(DiscoveryClient.class).getIfAvailable();
+		Assert.state(discoveryClient != null,
+				"Broadcast methods of client " + this.contextId
+						+ " require a DiscoveryClient or a ServiceInstanceSource");
+		return discoveryClient::getInstances;
+	}
+
+	private Executor getAsyncExecutorToUse() {
+		if (this.asyncExecutor != null) {
+			return this.asyncExecutor;
+		}
+		FeignClientExecutors executors = getExecutors();
+		if (isVirtualThreads()) {
+			return executors.getVirtualThreadExecutor(this.contextId);
+		}
+		return executors.getAsyncExecutor(this.contextId, getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getAsync));
+	}
+
+	private boolean isDeadlinePropagated() {
+		return this.propagateDeadline || Boolean.TRUE.equals(getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getPropagateDeadline));
+	}
+
+	private boolean isVirtualThreads() {
+		return Boolean.TRUE.equals(getConfigValue(
+				FeignClientProperties.FeignClientConfiguration::getVirtualThreads));
+	}
+
+	private ConversionService getConversionService() {
+		ConversionService conversionService = getOptional(
+				this.applicationContext.getBean(FeignContext.class),
+				ConversionService.class);
+		return conversionService != null ? conversionService
+				: DefaultConversionService.getSharedInstance();
+	}
+
+	private FeignMetricsRegistrar getMetricsRegistrar() {
+		return this.applicationContext.getBeanProvider(FeignMetricsRegistrar.class)
+				.getIfAvailable(() -> FeignMetricsRegistrar.NONE);
+	}
+
+	private FeignClientExecutors getExecutors() {
+		return this.applicationContext.getBean(FeignClientExecutors.class);
+	}
+
+	void addMethodHandlerDecorator(MethodHandlerDecorator decorator) {
+		this.methodHandlerDecorators.add(decorator);
+	}
+
+	List<MethodHandlerDecorator> getMethodHandlerDecorators() {
+		return this.methodHandlerDecorators;
+	}
+
 	protected <T> T loadBalance(Feign.Builder builder, FeignContext context,
 			HardCodedTarget<T> target) {
 		Client client = getOptional(context, Client.class);
 		if (client != null) {
-			builder.client(client);
+			Client decorated = decorateClient(client);
+			builder.client(decorated);
+			configureMethodHandlers(builder, decorated != client);
 			Targeter targeter = get(context, Targeter.class);
 			return targeter.target(this, builder, context, target);
 		}
@@ -300,8 +734,20 @@ class FeignClientFactoryBean
 				// but Spring Cloud LoadBalancer is on the classpath, so unwrap
 				client = ((FeignBlockingLoadBalancerClient) client).getDelegate();
 			}
-			builder.client(client);
 		}
+		Assert.state(!hasAnnotatedMethod(Broadcast.class), "Client " + this.contextId
+				+ " has broadcast methods and must be load balanced, but has a url");
+		Client balanced = client;
+		if (this.url.contains(",")) {
+			// the requests target the name of the client, replaced with one of the urls
+			url = "http://" + this.name + cleanPath();
+			balanced = createStaticUrlsClient(client, url);
+		}
+		Client decorated = decorateClient(balanced);
+		if (decorated != null) {
+			builder.client(decorated);
+		}
+		configureMethodHandlers(builder, decorated != client);
 		Targeter targeter = get(context, Targeter.class);
 		return (T) targeter.target(this, builder, context,
 				new HardCodedTarget<>(this.type, this.name, url));
@@ -403,6 +849,22 @@ class FeignClientFactoryBean
 		this.fallbackFactory = fallbackFactory;
 	}
 
+	public Executor getAsyncExecutor() {
+		return this.asyncExecutor;
+	}
+
+	public void setAsyncExecutor(Executor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	public boolean isPropagateDeadline() {
+		return this.propagateDeadline;
+	}
+
+	public void setPropagateDeadline(boolean propagateDeadline) {
+		this.propagateDeadline = propagateDeadline;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) {
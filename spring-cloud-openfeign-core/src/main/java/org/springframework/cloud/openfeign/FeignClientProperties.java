@@ -16,10 +16,15 @@
 
 package org.springframework.cloud.openfeign;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import feign.Contract;
 import feign.ExceptionPropagationPolicy;
@@ -31,6 +36,7 @@ import feign.codec.Encoder;
 import feign.codec.ErrorDecoder;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * @author Eko Kurniawan Khannedy
@@ -114,6 +120,32 @@ public class FeignClientProperties {
 
 		private ExceptionPropagationPolicy exceptionPropagationPolicy;
 
+		private AsyncConfiguration async;
+
+		private Boolean virtualThreads;
+
+		private Boolean propagateDeadline;
+
+		private HedgingConfiguration hedging;
+
+		private AdaptiveTimeoutConfiguration adaptiveTimeout;
+
+		private Map<String, MethodConfiguration> methods;
+
+		private HttpCacheConfiguration httpCache;
+
+		private CoalescingConfiguration coalescing;
+
+		private CircuitBreakerConfiguration circuitBreaker;
+
+		private ConcurrencyLimitConfiguration concurrencyLimit;
+
+		private RateLimitConfiguration rateLimit;
+
+		private RetryConfiguration retry;
+
+		private StaticUrlsConfiguration staticUrls;
+
 		public Logger.Level getLoggerLevel() {
 			return this.loggerLevel;
 		}
@@ -204,6 +236,110 @@ public class FeignClientProperties {
 			this.exceptionPropagationPolicy = exceptionPropagationPolicy;
 		}
 
+		public AsyncConfiguration getAsync() {
+			return this.async;
+		}
+
+		public void setAsync(AsyncConfiguration async) {
+			this.async = async;
+		}
+
+		public Boolean getVirtualThreads() {
+			return this.virtualThreads;
+		}
+
+		public void setVirtualThreads(Boolean virtualThreads) {
+			this.virtualThreads = virtualThreads;
+		}
+
+		public Boolean getPropagateDeadline() {
+			return this.propagateDeadline;
+		}
+
+		public void setPropagateDeadline(Boolean propagateDeadline) {
+			this.propagateDeadline = propagateDeadline;
+		}
+
+		public HedgingConfiguration getHedging() {
+			return this.hedging;
+		}
+
+		public void setHedging(HedgingConfiguration hedging) {
+			this.hedging = hedging;
+		}
+
+		public AdaptiveTimeoutConfiguration getAdaptiveTimeout() {
+			return this.adaptiveTimeout;
+		}
+
+		public void setAdaptiveTimeout(AdaptiveTimeoutConfiguration adaptiveTimeout) {
+			this.adaptiveTimeout = adaptiveTimeout;
+		}
+
+		public Map<String, MethodConfiguration> getMethods() {
+			return this.methods;
+		}
+
+		public void setMethods(Map<String, MethodConfiguration> methods) {
+			this.methods = methods;
+		}
+
+		public HttpCacheConfiguration getHttpCache() {
+			return this.httpCache;
+		}
+
+		public void setHttpCache(HttpCacheConfiguration httpCache) {
+			this.httpCache = httpCache;
+		}
+
+		public CoalescingConfiguration getCoalescing() {
+			return this.coalescing;
+		}
+
+		public void setCoalescing(CoalescingConfiguration coalescing) {
+			this.coalescing = coalescing;
+		}
+
+		public CircuitBreakerConfiguration getCircuitBreaker() {
+			return this.circuitBreaker;
+		}
+
+		public void setCircuitBreaker(CircuitBreakerConfiguration circuitBreaker) {
+			this.circuitBreaker = circuitBreaker;
+		}
+
+		public ConcurrencyLimitConfiguration getConcurrencyLimit() {
+			return this.concurrencyLimit;
+		}
+
+		public void setConcurrencyLimit(ConcurrencyLimitConfiguration concurrencyLimit) {
+			this.concurrencyLimit = concurrencyLimit;
+		}
+
+		public RateLimitConfiguration getRateLimit() {
+			return this.rateLimit;
+		}
+
+		public void setRateLimit(RateLimitConfiguration rateLimit) {
+			this.rateLimit = rateLimit;
+		}
+
+		public RetryConfiguration getRetry() {
+			return this.retry;
+		}
+
+		public void setRetry(RetryConfiguration retry) {
+			this.retry = retry;
+		}
+
+		public StaticUrlsConfiguration getStaticUrls() {
+			return this.staticUrls;
+		}
+
+		public void setStaticUrls(StaticUrlsConfiguration staticUrls) {
+			this.staticUrls = staticUrls;
+		}
+
 		@Override
 		public boolean equals(Object o) {
 			if (this == o) {
@@ -224,7 +360,20 @@ public class FeignClientProperties {
 					&& Objects.equals(this.decoder, that.decoder)
 					&& Objects.equals(this.contract, that.contract)
 					&& Objects.equals(this.exceptionPropagationPolicy,
-							that.exceptionPropagationPolicy);
+							that.exceptionPropagationPolicy)
+					&& Objects.equals(this.async, that.async)
+					&& Objects.equals(this.virtualThreads, that.virtualThreads)
+					&& Objects.equals(this.propagateDeadline, that.propagateDeadline)
+					&& Objects.equals(this.hedging, that.hedging)
+					&& Objects.equals(this.adaptiveTimeout, that.adaptiveTimeout)
+					&& Objects.equals(this.methods, that.methods)
+					&& Objects.equals(this.httpCache, that.httpCache)
+					&& Objects.equals(this.coalescing, that.coalescing)
+					&& Objects.equals(this.circuitBreaker, that.circuitBreaker)
+					&& Objects.equals(this.concurrencyLimit, that.concurrencyLimit)
+					&& Objects.equals(this.rateLimit, that.rateLimit)
+					&& Objects.equals(this.retry, that.retry)
+					&& Objects.equals(this.staticUrls, that.staticUrls);
 		}
 
 		@Override
@@ -232,7 +381,1253 @@ public class FeignClientProperties {
 			return Objects.hash(this.loggerLevel, this.connectTimeout, this.readTimeout,
 					this.retryer, this.errorDecoder, this.requestInterceptors,
 					this.decode404, this.encoder, this.decoder, this.contract,
-					this.exceptionPropagationPolicy);
+					this.exceptionPropagationPolicy, this.async, this.virtualThreads,
+					this.propagateDeadline, this.hedging, this.adaptiveTimeout, this.methods, this.httpCache,
+					this.coalescing, this.circuitBreaker, this.concurrencyLimit,
+					this.rateLimit, this.retry, this.staticUrls);
+		}
+
+	}
+
+	/**
+	 * Configuration of the bounded executor that runs the methods of a client returning
+	 * a {@link java.util.concurrent.CompletableFuture}.
+	 */
+	public static class AsyncConfiguration {
+
+		/**
+		 * Number of threads kept in the pool.
+		 */
+		private int corePoolSize = 8;
+
+		/**
+		 * Maximum number of threads in the pool.
+		 */
+		private int maxPoolSize = 8;
+
+		/**
+		 * Maximum number of calls waiting for a thread.
+		 */
+		private int queueCapacity = 100;
+
+		/**
+		 * Time an idle thread is kept alive.
+		 */
+		private Duration keepAlive = Duration.ofSeconds(60);
+
+		/**
+		 * What to do with a call once the pool and its queue are full.
+		 */
+		private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+		public int getCorePoolSize() {
+			return this.corePoolSize;
+		}
+
+		public void setCorePoolSize(int corePoolSize) {
+			this.corePoolSize = corePoolSize;
+		}
+
+		public int getMaxPoolSize() {
+			return this.maxPoolSize;
+		}
+
+		public void setMaxPoolSize(int maxPoolSize) {
+			this.maxPoolSize = maxPoolSize;
+		}
+
+		public int getQueueCapacity() {
+			return this.queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public Duration getKeepAlive() {
+			return this.keepAlive;
+		}
+
+		public void setKeepAlive(Duration keepAlive) {
+			this.keepAlive = keepAlive;
+		}
+
+		public RejectionPolicy getRejectionPolicy() {
+			return this.rejectionPolicy;
+		}
+
+		public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+			this.rejectionPolicy = rejectionPolicy;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			AsyncConfiguration that = (AsyncConfiguration) o;
+			return this.corePoolSize == that.corePoolSize
+					&& this.maxPoolSize == that.maxPoolSize
+					&& this.queueCapacity == that.queueCapacity
+					&& Objects.equals(this.keepAlive, that.keepAlive)
+					&& this.rejectionPolicy == that.rejectionPolicy;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.corePoolSize, this.maxPoolSize, this.queueCapacity,
+					this.keepAlive, this.rejectionPolicy);
+		}
+
+		/**
+		 * What to do with a call once the pool and its queue are full.
+		 */
+		public enum RejectionPolicy {
+
+			/**
+			 * Complete the returned future exceptionally with a
+			 * {@link java.util.concurrent.RejectedExecutionException}.
+			 */
+			ABORT,
+
+			/**
+			 * Run the call on the calling thread.
+			 */
+			CALLER_RUNS
+
+		}
+
+	}
+
+	/**
+	 * Configuration of request hedging: when an idempotent method has not received a
+	 * response after a delay, a second request is sent and the first response wins.
+	 */
+	public static class HedgingConfiguration {
+
+		/**
+		 * Whether hedging is enabled for the idempotent methods of the client.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Delay after which a hedged request is sent. When adaptive, used until enough
+		 * latencies have been observed.
+		 */
+		private Duration delay = Duration.ofMillis(100);
+
+		/**
+		 * Whether to derive the delay from the observed latency of each method.
+		 */
+		private boolean adaptive;
+
+		/**
+		 * Latency quantile used as the delay when adaptive.
+		 */
+		private double quantile = 0.95;
+
+		/**
+		 * Lower bound of the adaptive delay.
+		 */
+		private Duration minDelay = Duration.ofMillis(1);
+
+		/**
+		 * Maximum hedged requests, as a percentage of the requests of the client.
+		 */
+		private double budgetPercent = 10;
+
+		/**
+		 * Config keys of the methods, such as {@code StoreClient#getStore(Long)},
+		 * to consider idempotent in addition to those annotated with
+		 * {@link Idempotent}.
+		 */
+		private List<String> methods = new ArrayList<>();
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getDelay() {
+			return this.delay;
+		}
+
+		public void setDelay(Duration delay) {
+			this.delay = delay;
+		}
+
+		public boolean isAdaptive() {
+			return this.adaptive;
+		}
+
+		public void setAdaptive(boolean adaptive) {
+			this.adaptive = adaptive;
+		}
+
+		public double getQuantile() {
+			return this.quantile;
+		}
+
+		public void setQuantile(double quantile) {
+			this.quantile = quantile;
+		}
+
+		public Duration getMinDelay() {
+			return this.minDelay;
+		}
+
+		public void setMinDelay(Duration minDelay) {
+			this.minDelay = minDelay;
+		}
+
+		public double getBudgetPercent() {
+			return this.budgetPercent;
+		}
+
+		public void setBudgetPercent(double budgetPercent) {
+			this.budgetPercent = budgetPercent;
+		}
+
+		public List<String> getMethods() {
+			return this.methods;
+		}
+
+		public void setMethods(List<String> methods) {
+			this.methods = methods;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			HedgingConfiguration that = (HedgingConfiguration) o;
+			return this.enabled == that.enabled && this.adaptive == that.adaptive
+					&& Double.compare(this.quantile, that.quantile) == 0
+					&& Double.compare(this.budgetPercent, that.budgetPercent) == 0
+					&& Objects.equals(this.delay, that.delay)
+					&& Objects.equals(this.minDelay, that.minDelay)
+					&& Objects.equals(this.methods, that.methods);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.enabled, this.delay, this.adaptive, this.quantile,
+					this.minDelay, this.budgetPercent, this.methods);
+		}
+
+	}
+
+	/**
+	 * Configuration of adaptive read timeouts, derived for each method of a client from
+	 * the latencies observed for that method.
+	 */
+	public static class AdaptiveTimeoutConfiguration {
+
+		/**
+		 * Whether adaptive read timeouts are enabled for the client.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Latency quantile the read timeout is derived from.
+		 */
+		private double quantile = 0.999;
+
+		/**
+		 * Multiplier applied to the latency quantile to get the read timeout.
+		 */
+		private double multiplier = 2;
+
+		/**
+		 * Lower bound of the read timeout.
+		 */
+		private Duration minReadTimeout = Duration.ofMillis(100);
+
+		/**
+		 * Upper bound of the read timeout.
+		 */
+		private Duration maxReadTimeout = Duration.ofSeconds(60);
+
+		/**
+		 * Number of calls to observe before adapting the read timeout of a method. The
+		 * statically configured read timeout is used until then.
+		 */
+		private int minSamples = 100;
+
+		/**
+		 * Duration over which latencies are observed.
+		 */
+		private Duration window = Duration.ofMinutes(5);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public double getQuantile() {
+			return this.quantile;
+		}
+
+		public void setQuantile(double quantile) {
+			this.quantile = quantile;
+		}
+
+		public double getMultiplier() {
+			return this.multiplier;
+		}
+
+		public void setMultiplier(double multiplier) {
+			this.multiplier = multiplier;
+		}
+
+		public Duration getMinReadTimeout() {
+			return this.minReadTimeout;
+		}
+
+		public void setMinReadTimeout(Duration minReadTimeout) {
+			this.minReadTimeout = minReadTimeout;
+		}
+
+		public Duration getMaxReadTimeout() {
+			return this.maxReadTimeout;
+		}
+
+		public void setMaxReadTimeout(Duration maxReadTimeout) {
+			this.maxReadTimeout = maxReadTimeout;
+		}
+
+		public int getMinSamples() {
+			return this.minSamples;
+		}
+
+		public void setMinSamples(int minSamples) {
+			this.minSamples = minSamples;
+		}
+
+		public Duration getWindow() {
+			return this.window;
+		}
+
+		public void setWindow(Duration window) {
+			this.window = window;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			AdaptiveTimeoutConfiguration that = (AdaptiveTimeoutConfiguration) o;
+			return this.enabled == that.enabled
+					&& Double.compare(this.quantile, that.quantile) == 0
+					&& Double.compare(this.multiplier, that.multiplier) == 0
+					&& this.minSamples == that.minSamples
+					&& Objects.equals(this.minReadTimeout, that.minReadTimeout)
+					&& Objects.equals(this.maxReadTimeout, that.maxReadTimeout)
+					&& Objects.equals(this.window, that.window);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.enabled, this.quantile, this.multiplier,
+					this.minReadTimeout, this.maxReadTimeout, this.minSamples,
+					this.window);
+		}
+
+	}
+
+	/**
+	 * Request options and rate limit of a single method of a client, keyed by the config
+	 * key of the method, such as {@code StoreClient#getStore(Long)}, or by its name.
+	 */
+	public static class MethodConfiguration {
+
+		/**
+		 * Connect timeout of the method, in milliseconds.
+		 */
+		private Integer connectTimeout;
+
+		/**
+		 * Read timeout of the method, in milliseconds.
+		 */
+		private Integer readTimeout;
+
+		/**
+		 * Whether redirects are followed.
+		 */
+		private Boolean followRedirects;
+
+		/**
+		 * Rate limit of the method, replacing the one of the client.
+		 */
+		private RateLimitConfiguration rateLimit;
+
+		public Integer getConnectTimeout() {
+			return this.connectTimeout;
+		}
+
+		public void setConnectTimeout(Integer connectTimeout) {
+			this.connectTimeout = connectTimeout;
+		}
+
+		public Integer getReadTimeout() {
+			return this.readTimeout;
+		}
+
+		public void setReadTimeout(Integer readTimeout) {
+			this.readTimeout = readTimeout;
+		}
+
+		public Boolean getFollowRedirects() {
+			return this.followRedirects;
+		}
+
+		public void setFollowRedirects(Boolean followRedirects) {
+			this.followRedirects = followRedirects;
+		}
+
+		public RateLimitConfiguration getRateLimit() {
+			return this.rateLimit;
+		}
+
+		public void setRateLimit(RateLimitConfiguration rateLimit) {
+			this.rateLimit = rateLimit;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			MethodConfiguration that = (MethodConfiguration) o;
+			return Objects.equals(this.connectTimeout, that.connectTimeout)
+					&& Objects.equals(this.readTimeout, that.readTimeout)
+					&& Objects.equals(this.followRedirects, that.followRedirects)
+					&& Objects.equals(this.rateLimit, that.rateLimit);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.connectTimeout, this.readTimeout,
+					this.followRedirects, this.rateLimit);
+		}
+
+	}
+
+	/**
+	 * Configuration of the cache storing the responses of a client according to their
+	 * HTTP caching headers.
+	 */
+	public static class HttpCacheConfiguration {
+
+		/**
+		 * Whether responses are cached.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Maximum total size of the cached responses.
+		 */
+		private DataSize maxSize = DataSize.ofMegabytes(10);
+
+		/**
+		 * Maximum size of a single cached response body. Larger responses are not
+		 * cached.
+		 */
+		private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+		/**
+		 * How long responses without a stale-if-error directive are served stale when
+		 * the server fails or times out.
+		 */
+		private Duration staleIfError = Duration.ZERO;
+
+		/**
+		 * Persistent second tier of the cache.
+		 */
+		private DiskCacheConfiguration disk;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public DataSize getMaxSize() {
+			return this.maxSize;
+		}
+
+		public void setMaxSize(DataSize maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public DataSize getMaxEntrySize() {
+			return this.maxEntrySize;
+		}
+
+		public void setMaxEntrySize(DataSize maxEntrySize) {
+			this.maxEntrySize = maxEntrySize;
+		}
+
+		public Duration getStaleIfError() {
+			return this.staleIfError;
+		}
+
+		public void setStaleIfError(Duration staleIfError) {
+			this.staleIfError = staleIfError;
+		}
+
+		public DiskCacheConfiguration getDisk() {
+			return this.disk;
+		}
+
+		public void setDisk(DiskCacheConfiguration disk) {
+			this.disk = disk;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			HttpCacheConfiguration that = (HttpCacheConfiguration) o;
+			return this.enabled == that.enabled
+					&& Objects.equals(this.maxSize, that.maxSize)
+					&& Objects.equals(this.maxEntrySize, that.maxEntrySize)
+					&& Objects.equals(this.staleIfError, that.staleIfError)
+					&& Objects.equals(this.disk, that.disk);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.enabled, this.maxSize, this.maxEntrySize,
+					this.staleIfError, this.disk);
+		}
+
+	}
+
+	/**
+	 * Configuration of the persistent tier of an HTTP response cache, storing responses
+	 * in files.
+	 */
+	public static class DiskCacheConfiguration {
+
+		/**
+		 * Whether responses are stored on disk.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Directory of the cached responses, in which each client gets its own [client
+		 * name] directory. Defaults to a feign-cache directory in the temporary
+		 * directory.
+		 */
+		private String directory;
+
+		/**
+		 * Maximum total size of the cached responses on disk.
+		 */
+		private DataSize maxSize = DataSize.ofGigabytes(1);
+
+		/**
+		 * Maximum size of a single response body cached on disk.
+		 */
+		private DataSize maxEntrySize = DataSize.ofMegabytes(100);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDirectory() {
+			return this.directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public DataSize getMaxSize() {
+			return this.maxSize;
+		}
+
+		public void setMaxSize(DataSize maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public DataSize getMaxEntrySize() {
+			return this.maxEntrySize;
+		}
+
+		public void setMaxEntrySize(DataSize maxEntrySize) {
+			this.maxEntrySize = maxEntrySize;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			DiskCacheConfiguration that = (DiskCacheConfiguration) o;
+			return this.enabled == that.enabled
+					&& Objects.equals(this.directory, that.directory)
+					&& Objects.equals(this.maxSize, that.maxSize)
+					&& Objects.equals(this.maxEntrySize, that.maxEntrySize);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.enabled, this.directory, this.maxSize,
+					this.maxEntrySize);
+		}
+
+	}
+
+	/**
+	 * Configuration of the coalescing of identical concurrent GET requests of a client.
+	 */
+	public static class CoalescingConfiguration {
+
+		/**
+		 * Whether identical concurrent requests are coalesced.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Maximum size of a response body shared by coalesced requests. Callers waiting
+		 * for a larger response send their own request.
+		 */
+		private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+		/**
+		 * Headers ignored when comparing requests, typically those that are different
+		 * for every request.
+		 */
+		private List<String> ignoredHeaders = new ArrayList<>(Arrays.asList(
+				"X-B3-TraceId", "X-B3-SpanId", "X-B3-ParentSpanId", "X-B3-Sampled", "b3",
+				"traceparent", "tracestate", "X-Request-Id"));
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public DataSize getMaxBodySize() {
+			return this.maxBodySize;
+		}
+
+		public void setMaxBodySize(DataSize maxBodySize) {
+			this.maxBodySize = maxBodySize;
+		}
+
+		public List<String> getIgnoredHeaders() {
+			return this.ignoredHeaders;
+		}
+
+		public void setIgnoredHeaders(List<String> ignoredHeaders) {
+			this.ignoredHeaders = ignoredHeaders;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			CoalescingConfiguration that = (CoalescingConfiguration) o;
+			return this.enabled == that.enabled
+					&& Objects.equals(this.maxBodySize, that.maxBodySize)
+					&& Objects.equals(this.ignoredHeaders, that.ignoredHeaders);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.enabled, this.maxBodySize, this.ignoredHeaders);
+		}
+
+	}
+
+	/**
+	 * Configuration of the circuit breakers wrapping the methods of a client, when
+	 * {@code feign.circuitbreaker.enabled} is set. The thresholds of the breakers are
+	 * configured through the Spring Cloud CircuitBreaker implementation.
+	 */
+	public static class CircuitBreakerConfiguration {
+
+		/**
+		 * Whether the methods of the client are wrapped in circuit breakers.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Whether client errors, responses with a 4xx status, are thrown to the caller
+		 * rather than recorded as failures and handed to the fallback.
+		 */
+		private boolean ignoreClientErrors = false;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public boolean isIgnoreClientErrors() {
+			return this.ignoreClientErrors;
+		}
+
+		public void setIgnoreClientErrors(boolean ignoreClientErrors) {
+			this.ignoreClientErrors = ignoreClientErrors;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			CircuitBreakerConfiguration that = (CircuitBreakerConfiguration) o;
+			return this.enabled == that.enabled
+					&& this.ignoreClientErrors == that.ignoreClientErrors;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.enabled, this.ignoreClientErrors);
+		}
+
+	}
+
+	/**
+	 * Configuration of the adaptive limit of the concurrent requests of a client.
+	 */
+	public static class ConcurrencyLimitConfiguration {
+
+		/**
+		 * Whether the concurrent requests of the client are limited.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Algorithm adapting the limit to the observed latencies and failures.
+		 */
+		private Algorithm algorithm = Algorithm.GRADIENT;
+
+		/**
+		 * Number of concurrent requests allowed before any latency is observed.
+		 */
+		private int initialLimit = 20;
+
+		/**
+		 * Lower bound of the limit.
+		 */
+		private int minLimit = 1;
+
+		/**
+		 * Upper bound of the limit.
+		 */
+		private int maxLimit = 200;
+
+		/**
+		 * Whether each instance of a load-balanced service gets its own limit, rather
+		 * than the client as a whole.
+		 */
+		private boolean perInstance = false;
+
+		/**
+		 * Ratio of the long-term latency to the recent latency tolerated before the
+		 * gradient algorithm lowers the limit.
+		 */
+		private double rttTolerance = 1.5;
+
+		/**
+		 * Factor the AIMD algorithm applies to the limit when a request fails or is
+		 * throttled.
+		 */
+		private double backoffRatio = 0.9;
+
+		/**
+		 * Time after which the limit of an instance that received no request is
+		 * dropped, along with its metrics, when each instance gets its own limit.
+		 */
+		private Duration instanceIdleTimeout = Duration.ofMinutes(10);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Algorithm getAlgorithm() {
+			return this.algorithm;
+		}
+
+		public void setAlgorithm(Algorithm algorithm) {
+			this.algorithm = algorithm;
+		}
+
+		public int getInitialLimit() {
+			return this.initialLimit;
+		}
+
+		public void setInitialLimit(int initialLimit) {
+			this.initialLimit = initialLimit;
+		}
+
+		public int getMinLimit() {
+			return this.minLimit;
+		}
+
+		public void setMinLimit(int minLimit) {
+			this.minLimit = minLimit;
+		}
+
+		public int getMaxLimit() {
+			return this.maxLimit;
+		}
+
+		public void setMaxLimit(int maxLimit) {
+			this.maxLimit = maxLimit;
+		}
+
+		public boolean isPerInstance() {
+			return this.perInstance;
+		}
+
+		public void setPerInstance(boolean perInstance) {
+			this.perInstance = perInstance;
+		}
+
+		public double getRttTolerance() {
+			return this.rttTolerance;
+		}
+
+		public void setRttTolerance(double rttTolerance) {
+			this.rttTolerance = rttTolerance;
+		}
+
+		public double getBackoffRatio() {
+			return this.backoffRatio;
+		}
+
+		public void setBackoffRatio(double backoffRatio) {
+			this.backoffRatio = backoffRatio;
+		}
+
+		public Duration getInstanceIdleTimeout() {
+			return this.instanceIdleTimeout;
+		}
+
+		public void setInstanceIdleTimeout(Duration instanceIdleTimeout) {
+			this.instanceIdleTimeout = instanceIdleTimeout;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			ConcurrencyLimitConfiguration that = (ConcurrencyLimitConfiguration) o;
+			return this.enabled == that.enabled && this.algorithm == that.algorithm
+					&& this.initialLimit == that.initialLimit
+					&& this.minLimit == that.minLimit && this.maxLimit == that.maxLimit
+					&& this.perInstance == that.perInstance
+					&& Double.compare(this.rttTolerance, that.rttTolerance) == 0
+					&& Double.compare(this.backoffRatio, that.backoffRatio) == 0
+					&& Objects.equals(this.instanceIdleTimeout,
+							that.instanceIdleTimeout);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.enabled, this.algorithm, this.initialLimit,
+					this.minLimit, this.maxLimit, this.perInstance, this.rttTolerance,
+					this.backoffRatio, this.instanceIdleTimeout);
+		}
+
+		/**
+		 * Algorithms adapting the concurrency limit.
+		 */
+		public enum Algorithm {
+
+			/**
+			 * Lowers the limit as the recent latency grows over the long-term latency,
+			 * and raises it otherwise.
+			 */
+			GRADIENT,
+
+			/**
+			 * Raises the limit by one for each successful request, and lowers it by the
+			 * backoff ratio for each failed or throttled one.
+			 */
+			AIMD
+
+		}
+
+	}
+
+	/**
+	 * Configuration of the token bucket limiting the rate of the requests of a client or
+	 * of a method.
+	 */
+	public static class RateLimitConfiguration {
+
+		/**
+		 * Whether the rate of requests is limited.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Number of requests allowed per second, on average.
+		 */
+		private double permitsPerSecond = 10;
+
+		/**
+		 * Number of requests that can be sent at once after a quiet period.
+		 */
+		private int burst = 1;
+
+		/**
+		 * Maximum time a request waits for a permit before failing. Requests fail
+		 * immediately by default.
+		 */
+		private Duration maxWait = Duration.ZERO;
+
+		/**
+		 * Whether the rate is lowered from the Retry-After and RateLimit headers of the
+		 * responses.
+		 */
+		private boolean adaptToResponses = true;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public double getPermitsPerSecond() {
+			return this.permitsPerSecond;
+		}
+
+		public void setPermitsPerSecond(double permitsPerSecond) {
+			this.permitsPerSecond = permitsPerSecond;
+		}
+
+		public int getBurst() {
+			return this.burst;
+		}
+
+		public void setBurst(int burst) {
+			this.burst = burst;
+		}
+
+		public Duration getMaxWait() {
+			return this.maxWait;
+		}
+
+		public void setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+		}
+
+		public boolean isAdaptToResponses() {
+			return this.adaptToResponses;
+		}
+
+		public void setAdaptToResponses(boolean adaptToResponses) {
+			this.adaptToResponses = adaptToResponses;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			RateLimitConfiguration that = (RateLimitConfiguration) o;
+			return this.enabled == that.enabled
+					&& Double.compare(this.permitsPerSecond, that.permitsPerSecond) == 0
+					&& this.burst == that.burst
+					&& Objects.equals(this.maxWait, that.maxWait)
+					&& this.adaptToResponses == that.adaptToResponses;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.enabled, this.permitsPerSecond, this.burst,
+					this.maxWait, this.adaptToResponses);
+		}
+
+	}
+
+	/**
+	 * Configuration of the retries of the requests of a load-balanced client, each of
+	 * them sent to another instance of the service.
+	 */
+	public static class RetryConfiguration {
+
+		/**
+		 * Whether failed requests are retried. Requires spring-retry on the classpath.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Maximum number of attempts of a request, including the first one.
+		 */
+		private int maxAttempts = 3;
+
+		/**
+		 * Backoff before the first retry. Each backoff is randomly extended by up to
+		 * the multiplier, so that retries of concurrent requests are spread over time.
+		 */
+		private Duration initialBackoff = Duration.ofMillis(50);
+
+		/**
+		 * Multiplier applied to the backoff after each retry.
+		 */
+		private double backoffMultiplier = 2;
+
+		/**
+		 * Upper bound of the backoff, including the ones asked by the Retry-After
+		 * header of a retried response.
+		 */
+		private Duration maxBackoff = Duration.ofSeconds(1);
+
+		/**
+		 * Statuses of the responses that are retried, whatever the HTTP method of the
+		 * request.
+		 */
+		private Set<Integer> retryableStatusCodes = new HashSet<>();
+
+		/**
+		 * Maximum retries, as a percentage of the requests of the client.
+		 */
+		private double budgetPercent = 10;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxAttempts() {
+			return this.maxAttempts;
+		}
+
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+		public Duration getInitialBackoff() {
+			return this.initialBackoff;
+		}
+
+		public void setInitialBackoff(Duration initialBackoff) {
+			this.initialBackoff = initialBackoff;
+		}
+
+		public double getBackoffMultiplier() {
+			return this.backoffMultiplier;
+		}
+
+		public void setBackoffMultiplier(double backoffMultiplier) {
+			this.backoffMultiplier = backoffMultiplier;
+		}
+
+		public Duration getMaxBackoff() {
+			return this.maxBackoff;
+		}
+
+		public void setMaxBackoff(Duration maxBackoff) {
+			this.maxBackoff = maxBackoff;
+		}
+
+		public Set<Integer> getRetryableStatusCodes() {
+			return this.retryableStatusCodes;
+		}
+
+		public void setRetryableStatusCodes(Set<Integer> retryableStatusCodes) {
+			this.retryableStatusCodes = retryableStatusCodes;
+		}
+
+		public double getBudgetPercent() {
+			return this.budgetPercent;
+		}
+
+		public void setBudgetPercent(double budgetPercent) {
+			this.budgetPercent = budgetPercent;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			RetryConfiguration that = (RetryConfiguration) o;
+			return this.enabled == that.enabled && this.maxAttempts == that.maxAttempts
+					&& Objects.equals(this.initialBackoff, that.initialBackoff)
+					&& Double.compare(this.backoffMultiplier, that.backoffMultiplier) == 0
+					&& Objects.equals(this.maxBackoff, that.maxBackoff)
+					&& Objects.equals(this.retryableStatusCodes,
+							that.retryableStatusCodes)
+					&& Double.compare(this.budgetPercent, that.budgetPercent) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.enabled, this.maxAttempts, this.initialBackoff,
+					this.backoffMultiplier, this.maxBackoff, this.retryableStatusCodes,
+					this.budgetPercent);
+		}
+
+	}
+
+	/**
+	 * Configuration of the clients with several URLs, balancing their requests over
+	 * them.
+	 */
+	public static class StaticUrlsConfiguration {
+
+		/**
+		 * How the URL of each request is chosen.
+		 */
+		private Balancing balancing = Balancing.ROUND_ROBIN;
+
+		/**
+		 * Consecutive failures after which a URL is no longer used for the down time.
+		 */
+		private int failureThreshold = 3;
+
+		/**
+		 * Time during which a failing URL is not used.
+		 */
+		private Duration downTime = Duration.ofSeconds(10);
+
+		/**
+		 * Interval at which the host names of the URLs are resolved again, or zero to
+		 * never resolve them.
+		 */
+		private Duration dnsRefreshInterval = Duration.ofSeconds(30);
+
+		public Balancing getBalancing() {
+			return this.balancing;
+		}
+
+		public void setBalancing(Balancing balancing) {
+			this.balancing = balancing;
+		}
+
+		public int getFailureThreshold() {
+			return this.failureThreshold;
+		}
+
+		public void setFailureThreshold(int failureThreshold) {
+			this.failureThreshold = failureThreshold;
+		}
+
+		public Duration getDownTime() {
+			return this.downTime;
+		}
+
+		public void setDownTime(Duration downTime) {
+			this.downTime = downTime;
+		}
+
+		public Duration getDnsRefreshInterval() {
+			return this.dnsRefreshInterval;
+		}
+
+		public void setDnsRefreshInterval(Duration dnsRefreshInterval) {
+			this.dnsRefreshInterval = dnsRefreshInterval;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			StaticUrlsConfiguration that = (StaticUrlsConfiguration) o;
+			return this.balancing == that.balancing
+					&& this.failureThreshold == that.failureThreshold
+					&& Objects.equals(this.downTime, that.downTime)
+					&& Objects.equals(this.dnsRefreshInterval, that.dnsRefreshInterval);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.balancing, this.failureThreshold, this.downTime,
+					this.dnsRefreshInterval);
+		}
+
+		/**
+		 * How the URL of a request is chosen.
+		 */
+		public enum Balancing {
+
+			/**
+			 * Each URL in turn.
+			 */
+			ROUND_ROBIN,
+
+			/**
+			 * The URL with the fewest requests in flight.
+			 */
+			LEAST_IN_FLIGHT
+
 		}
 
 	}
@@ -21,6 +21,7 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -106,15 +107,26 @@ class FeignClientsRegistrar
 
 	static String getUrl(String url) {
 		if (StringUtils.hasText(url) && !(url.startsWith("#{") && url.contains("}"))) {
-			if (!url.contains("://")) {
-				url = "http://" + url;
-			}
-			try {
-				new URL(url);
-			}
-			catch (MalformedURLException e) {
-				throw new IllegalArgumentException(url + " is malformed", e);
+			List<String> urls = new ArrayList<>();
+			for (String single : StringUtils.commaDelimitedListToStringArray(url)) {
+				if (StringUtils.hasText(single)) {
+					urls.add(getSingleUrl(single.trim()));
+				}
 			}
+			return StringUtils.collectionToCommaDelimitedString(urls);
+		}
+		return url;
+	}
+
+	private static String getSingleUrl(String url) {
+		if (!url.contains("://")) {
+			url = "http://" + url;
+		}
+		try {
+			new URL(url);
+		}
+		catch (MalformedURLException e) {
+			throw new IllegalArgumentException(url + " is malformed", e);
 		}
 		return url;
 	}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.util.Assert;
+
+/**
+ * Entry point of the {@link ScatterGather scatter-gather} calls of Feign clients. Builds
+ * the clients whose requests are bounded by the deadline of the calls, and starts the
+ * scatter-gathers on a bounded executor configured with
+ * {@code feign.client.config.default.async.*}. The clients injected from
+ * {@link FeignClient} interfaces are only bounded by the deadline when
+ * {@code feign.client.config.<name>.propagateDeadline} is set.
+ *
+ * @since 3.0.0
+ */
+public class FeignScatterGather {
+
+	private final FeignClientBuilder clientBuilder;
+
+	private final Environment environment;
+
+	private final Supplier<ExecutorService> executor;
+
+	private final Map<String, Object> clients = new ConcurrentHashMap<>();
+
+	public FeignScatterGather(ApplicationContext applicationContext,
+			Supplier<ExecutorService> executor) {
+		this.clientBuilder = new FeignClientBuilder(applicationContext);
+		this.environment = applicationContext.getEnvironment();
+		this.executor = executor;
+	}
+
+	/**
+	 * Builds a client of the given type, taking the {@code url}, {@code path},
+	 * {@code decode404}, {@code fallback} and {@code fallbackFactory} of its
+	 * {@link FeignClient} annotation, if any. Its configuration classes apply when the
+	 * given name is the one of the annotation.
+	 * @param type the type of the client
+	 * @param name the name of the service of the client, also used to look up its
+	 * configuration
+	 * @param <T> the type of the client
+	 * @return a client capping the timeouts of its requests to the time left until the
+	 * deadline of the scatter-gather making the call
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T client(Class<T> type, String name) {
+		return (T) this.clients.computeIfAbsent(type.getName() + "#" + name,
+				key -> build(type, name));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T build(Class<T> type, String name) {
+		FeignClientBuilder.Builder<T> builder = this.clientBuilder.forType(type, name)
+				.propagateDeadline(true);
+		FeignClient annotation = AnnotatedElementUtils.findMergedAnnotation(type,
+				FeignClient.class);
+		if (annotation != null) {
+			builder.url(this.environment.resolvePlaceholders(annotation.url()))
+					.path(this.environment.resolvePlaceholders(annotation.path()))
+					.decode404(annotation.decode404());
+			if (annotation.fallback() != void.class) {
+				builder.fallback((Class<? extends T>) annotation.fallback());
+			}
+			if (annotation.fallbackFactory() != void.class) {
+				builder.fallbackFactory(annotation.fallbackFactory());
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @param timeout the time the submitted calls have to complete
+	 * @return a new scatter-gather, to submit the calls to
+	 */
+	public ScatterGather start(Duration timeout) {
+		Assert.isTrue(timeout != null && !timeout.isNegative() && !timeout.isZero(),
+				"Timeout must be positive");
+		return new ScatterGather(this.executor.get(), timeout);
+	}
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import feign.Feign;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+
+import org.springframework.cloud.openfeign.loadbalancer.ChosenInstances;
+import org.springframework.cloud.openfeign.loadbalancer.PinnedInstance;
+import org.springframework.cloud.openfeign.support.CallerContext;
+import org.springframework.cloud.openfeign.support.LatencyHistogram;
+import org.springframework.cloud.openfeign.support.RequestBudget;
+
+/**
+ * Hedges the idempotent methods of a client: when no response has arrived after a
+ * delay, the same call is made a second time, to another instance than the first one
+ * when the load balancer has one, and whichever succeeds first wins. The number of
+ * hedged calls is capped by a {@link RequestBudget}. Both attempts run on the hedging
+ * executor, with the {@link CallerContext} of the caller, so that the caller can return
+ * as soon as one of them succeeds. The delay is measured from the start of the first
+ * attempt, not from its submission. When the executor has no idle thread, the call is
+ * made on the caller thread without hedging, rather than queued behind other calls.
+ *
+ * @see Idempotent
+ * @see FeignClientProperties.HedgingConfiguration
+ */
+class HedgingMethodHandlerDecorator implements MethodHandlerDecorator {
+
+	static final int MIN_SAMPLES = 20;
+
+	private static final int BUDGET_RESERVE = 10;
+
+	private final FeignClientProperties.HedgingConfiguration config;
+
+	private final Supplier<ExecutorService> executor;
+
+	private final RequestBudget budget;
+
+	HedgingMethodHandlerDecorator(FeignClientProperties.HedgingConfiguration config,
+			Supplier<ExecutorService> executor) {
+		this.config = config;
+		this.executor = executor;
+		this.budget = new RequestBudget(config.getBudgetPercent(), BUDGET_RESERVE);
+	}
+
+	@Override
+	public MethodHandler decorate(Target<?> target, Method method,
+			MethodHandler handler) {
+		if (!method.isAnnotationPresent(Idempotent.class) && !this.config.getMethods()
+				.contains(Feign.configKey(target.type(), method))) {
+			return handler;
+		}
+		return new HedgingMethodHandler(handler, this.executor.get());
+	}
+
+	private class HedgingMethodHandler implements MethodHandler {
+
+		private final MethodHandler delegate;
+
+		private final ExecutorService executor;
+
+		private final LatencyHistogram latencies = new LatencyHistogram(1,
+				TimeUnit.MINUTES);
+
+		HedgingMethodHandler(MethodHandler delegate, ExecutorService executor) {
+			this.delegate = delegate;
+			this.executor = executor;
+		}
+
+		@Override
+		public Object invoke(Object[] argv) throws Throwable {
+			if (PinnedInstance.get() != null) {
+				// a hedged call would go to the same instance
+				return this.delegate.invoke(argv);
+			}
+			HedgingMethodHandlerDecorator.this.budget.deposit();
+			CallerContext context = CallerContext.capture();
+			ChosenInstances chosen = new ChosenInstances();
+			Attempt primary = submit(argv, context, chosen);
+			if (primary == null) {
+				return invokeDirectly(argv);
+			}
+			try {
+				awaitDelay(primary);
+				if (primary.result.isDone()) {
+					return primary.result.get();
+				}
+			}
+			catch (ExecutionException e) {
+				throw e.getCause();
+			}
+			catch (InterruptedException e) {
+				primary.cancel();
+				throw e;
+			}
+			Attempt hedge = HedgingMethodHandlerDecorator.this.budget.tryWithdraw()
+					? submit(argv, context, chosen) : null;
+			if (hedge == null) {
+				return await(primary.result, primary, null);
+			}
+			return await(firstSuccessful(primary.result, hedge.result), primary, hedge);
+		}
+
+		private Object invokeDirectly(Object[] argv) throws Throwable {
+			long start = System.nanoTime();
+			try {
+				return this.delegate.invoke(argv);
+			}
+			finally {
+				this.latencies.record(System.nanoTime() - start);
+			}
+		}
+
+		/**
+		 * Waits for the attempt to complete until the hedging delay has elapsed since it
+		 * started.
+		 */
+		private void awaitDelay(Attempt attempt)
+				throws ExecutionException, InterruptedException {
+			long delay = delayNanos();
+			while (true) {
+				long wait = attempt.started
+						? attempt.startNanos + delay - System.nanoTime() : delay;
+				if (attempt.started && wait <= 0) {
+					return;
+				}
+				try {
+					attempt.result.get(wait, TimeUnit.NANOSECONDS);
+					return;
+				}
+				catch (TimeoutException e) {
+					// not started yet, or no response yet
+				}
+			}
+		}
+
+		private long delayNanos() {
+			long delay = HedgingMethodHandlerDecorator.this.config.getDelay().toNanos();
+			if (HedgingMethodHandlerDecorator.this.config.isAdaptive()
+					&& this.latencies.count() >= MIN_SAMPLES) {
+				long observed = this.latencies.quantile(
+						HedgingMethodHandlerDecorator.this.config.getQuantile());
+				delay = Math.max(observed, HedgingMethodHandlerDecorator.this.config
+						.getMinDelay().toNanos());
+			}
+			return delay;
+		}
+
+		private Attempt submit(Object[] argv, CallerContext context,
+				ChosenInstances chosen) {
+			if (!hasIdleThread()) {
+				// the attempt would wait in the queue
+				return null;
+			}
+			Attempt attempt = new Attempt(argv, context, chosen);
+			try {
+				attempt.task = this.executor.submit(attempt);
+				return attempt;
+			}
+			catch (RejectedExecutionException e) {
+				return null;
+			}
+		}
+
+		private boolean hasIdleThread() {
+			if (!(this.executor instanceof ThreadPoolExecutor)) {
+				return true;
+			}
+			ThreadPoolExecutor pool = (ThreadPoolExecutor) this.executor;
+			return pool.getActiveCount() < pool.getMaximumPoolSize();
+		}
+
+		private CompletableFuture<Object> firstSuccessful(
+				CompletableFuture<Object> first, CompletableFuture<Object> second) {
+			CompletableFuture<Object> winner = new CompletableFuture<>();
+			AtomicInteger failures = new AtomicInteger();
+			BiConsumer<Object, Throwable> onDone = (value, error) -> {
+				if (error == null) {
+					winner.complete(value);
+				}
+				else if (failures.incrementAndGet() == 2) {
+					winner.completeExceptionally(error);
+				}
+			};
+			first.whenComplete(onDone);
+			second.whenComplete(onDone);
+			return winner;
+		}
+
+		private Object await(CompletableFuture<Object> result, Attempt primary,
+				Attempt hedge) throws Throwable {
+			try {
+				return result.get();
+			}
+			catch (ExecutionException e) {
+				throw e.getCause();
+			}
+			finally {
+				// cancels the loser, or both attempts when interrupted
+				primary.cancel();
+				if (hedge != null) {
+					hedge.cancel();
+				}
+			}
+		}
+
+		/**
+		 * An attempt of a call, whose latency is recorded whether it succeeds, fails or
+		 * is cancelled, so that the adaptive delay is not biased by fast failures.
+		 */
+		private final class Attempt implements Runnable {
+
+			private final Object[] argv;
+
+			private final CallerContext context;
+
+			private final ChosenInstances chosen;
+
+			private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+			private final AtomicBoolean recorded = new AtomicBoolean();
+
+			private volatile long startNanos;
+
+			private volatile boolean started;
+
+			private volatile Future<?> task;
+
+			private Attempt(Object[] argv, CallerContext context,
+					ChosenInstances chosen) {
+				this.argv = argv;
+				this.context = context;
+				this.chosen = chosen;
+			}
+
+			@Override
+			public void run() {
+				this.startNanos = System.nanoTime();
+				this.started = true;
+				ChosenInstances previous = ChosenInstances.bind(this.chosen);
+				try (CallerContext.Scope scope = this.context.bind()) {
+					this.result.complete(
+							HedgingMethodHandler.this.delegate.invoke(this.argv));
+				}
+				catch (Throwable t) {
+					this.result.completeExceptionally(t);
+				}
+				finally {
+					record();
+					ChosenInstances.restore(previous);
+				}
+			}
+
+			private void record() {
+				if (this.started && this.recorded.compareAndSet(false, true)) {
+					HedgingMethodHandler.this.latencies
+							.record(System.nanoTime() - this.startNanos);
+				}
+			}
+
+			private void cancel() {
+				if (!this.result.isDone()) {
+					// at least as slow as the time it ran for
+					record();
+				}
+				this.task.cancel(true);
+			}
+
+		}
+
+	}
+
+}
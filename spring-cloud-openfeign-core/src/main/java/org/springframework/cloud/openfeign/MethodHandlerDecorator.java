@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.Method;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+
+import org.springframework.core.Ordered;
+
+/**
+ * Decorates the {@link MethodHandler} Feign creates for a client method, so that
+ * behaviour can be added around each invocation of that method.
+ * <p>
+ * Decorators are applied in {@link Ordered order}: the decorator with the highest
+ * precedence ends up outermost, the one with the lowest precedence is closest to the
+ * underlying Feign call.
+ *
+ * @since 3.0.0
+ */
+public interface MethodHandlerDecorator extends Ordered {
+
+	/**
+	 * @param target the target of the Feign client
+	 * @param method the client method the handler dispatches to
+	 * @param handler the handler to decorate
+	 * @return the decorated handler, or {@code handler} if the method does not need
+	 * decorating
+	 */
+	MethodHandler decorate(Target<?> target, Method method, MethodHandler handler);
+
+	@Override
+	default int getOrder() {
+		return 0;
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the request options of the client for a single Feign client method. Each
+ * attribute left empty falls back to the options of the client. Attributes may contain
+ * property placeholders.
+ *
+ * @since 3.0.0
+ * @see org.springframework.cloud.openfeign.support.SpringMvcContract
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequestOptions {
+
+	/**
+	 * @return the connect timeout of the method, in milliseconds
+	 */
+	String connectTimeout() default "";
+
+	/**
+	 * @return the read timeout of the method, in milliseconds
+	 */
+	String readTimeout() default "";
+
+	/**
+	 * @return whether redirects are followed, either {@code true} or {@code false}
+	 */
+	String followRedirects() default "";
+
+}
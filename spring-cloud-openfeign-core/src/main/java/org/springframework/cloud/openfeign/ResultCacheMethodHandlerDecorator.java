@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import feign.Feign;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+
+import org.springframework.cloud.openfeign.cache.FeignResultCaches;
+import org.springframework.cloud.openfeign.cache.ResultCache;
+import org.springframework.cloud.openfeign.support.MethodResultCaching;
+import org.springframework.core.Ordered;
+
+/**
+ * Returns the cached results of the methods annotated with {@link CachedResult}. Applied
+ * outermost, so that a cached result is returned on the calling thread without going
+ * through the executor of the asynchronous or virtual thread methods, nor through the
+ * circuit breaker or hedging. A cached result of a method returning a
+ * {@link CompletableFuture} is returned as a completed future. The results are cached
+ * by the {@link Store} decorator, applied inside the asynchronous execution of a method,
+ * so that the result a future completes with is cached rather than the future, and
+ * inside the circuit breaker, so that fallback results are not cached.
+ *
+ * @see FeignResultCaches
+ */
+class ResultCacheMethodHandlerDecorator implements MethodHandlerDecorator {
+
+	private final String clientName;
+
+	private final Function<String, MethodResultCaching> cachingResolver;
+
+	private final FeignResultCaches caches;
+
+	/**
+	 * @param clientName the context id of the client
+	 * @param cachingResolver resolves the caching of a method from its config key, may
+	 * return {@code null} if the results of the method are not cached
+	 * @param caches the registry of the result caches
+	 */
+	ResultCacheMethodHandlerDecorator(String clientName,
+			Function<String, MethodResultCaching> cachingResolver,
+			FeignResultCaches caches) {
+		this.clientName = clientName;
+		this.cachingResolver = cachingResolver;
+		this.caches = caches;
+	}
+
+	@Override
+	public MethodHandler decorate(Target<?> target, Method method,
+			MethodHandler handler) {
+		String methodKey = Feign.configKey(target.type(), method);
+		MethodResultCaching caching = getCaching(methodKey);
+		if (caching == null) {
+			return handler;
+		}
+		boolean async = AsyncMethodHandlerDecorator.isAsync(method);
+		return argv -> {
+			ResultCache cache = getCache(methodKey, caching);
+			ResultCache.ValueWrapper cached = cache != null ? cache.get(argv) : null;
+			if (cached == null) {
+				return handler.invoke(argv);
+			}
+			return async ? CompletableFuture.completedFuture(cached.get())
+					: cached.get();
+		};
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	private MethodResultCaching getCaching(String methodKey) {
+		return this.cachingResolver.apply(methodKey);
+	}
+
+	private ResultCache getCache(String methodKey, MethodResultCaching caching) {
+		return this.caches.getCache(this.clientName, methodKey, caching);
+	}
+
+	/**
+	 * @return the decorator caching the results returned through this one
+	 */
+	MethodHandlerDecorator store() {
+		return new Store();
+	}
+
+	/**
+	 * Caches the results of the calls.
+	 */
+	private final class Store implements MethodHandlerDecorator {
+
+		@Override
+		public MethodHandler decorate(Target<?> target, Method method,
+				MethodHandler handler) {
+			String methodKey = Feign.configKey(target.type(), method);
+			MethodResultCaching caching = getCaching(methodKey);
+			if (caching == null) {
+				return handler;
+			}
+			return argv -> {
+				Object result = handler.invoke(argv);
+				ResultCache cache = getCache(methodKey, caching);
+				if (cache != null) {
+					cache.put(argv, result);
+				}
+				return result;
+			};
+		}
+
+		@Override
+		public int getOrder() {
+			return Ordered.HIGHEST_PRECEDENCE + 100;
+		}
+
+	}
+
+}
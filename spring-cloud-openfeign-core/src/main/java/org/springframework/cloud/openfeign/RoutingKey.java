@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the parameter of a Feign client method holding the routing key of the request.
+ * The key is sent in the {@value #HEADER} header, and the Feign load balancer sends the
+ * requests with the same key to the same instance of the service, as long as it is not
+ * overloaded, so that the caches of the instances keep hitting.
+ *
+ * <pre class="code">
+ * &#64;GetMapping("/carts/{userId}")
+ * Cart getCart(&#64;PathVariable("userId") &#64;RoutingKey String userId);
+ * </pre>
+ *
+ * @since 3.0.0
+ * @see org.springframework.cloud.openfeign.loadbalancer.FeignLoadBalancerProperties.ConsistentHash
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RoutingKey {
+
+	/**
+	 * Name of the header holding the routing key.
+	 */
+	String HEADER = "X-Routing-Key";
+
+}
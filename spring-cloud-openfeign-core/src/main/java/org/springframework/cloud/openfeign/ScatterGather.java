@@ -0,0 +1,220 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.cloud.openfeign.support.FeignDeadline;
+import org.springframework.util.Assert;
+
+/**
+ * Runs several calls concurrently with one deadline, typically calls of several Feign
+ * clients to aggregate their responses:
+ *
+ * <pre class="code">
+ * ScatterGather scatterGather = feignScatterGather.start(Duration.ofMillis(800));
+ * ScatterGather.Call&lt;Store&gt; store = scatterGather.submit(() -&gt; stores.getStore(id));
+ * ScatterGather.Call&lt;Stock&gt; stock = scatterGather.submit(() -&gt; stocks.getStock(id));
+ * scatterGather.gather();
+ * return new StorePage(store.getValue(), stock.getValueOrElse(Stock.UNKNOWN));
+ * </pre>
+ *
+ * Each call runs with the deadline bound to its thread, so that the clients obtained
+ * from {@link FeignScatterGather#client(Class, String)} cap the timeouts of their
+ * requests to the time left. The calls still running at the deadline are cancelled and
+ * fail with a {@link TimeoutException}, while the results of the other calls are kept.
+ *
+ * @since 3.0.0
+ */
+public final class ScatterGather {
+
+	private final ExecutorService executor;
+
+	private final Duration timeout;
+
+	private final FeignDeadline deadline;
+
+	private final List<Call<?>> calls = new ArrayList<>();
+
+	private boolean gathered;
+
+	ScatterGather(ExecutorService executor, Duration timeout) {
+		this.executor = executor;
+		this.timeout = timeout;
+		this.deadline = FeignDeadline.after(timeout);
+	}
+
+	/**
+	 * @param callable the call to run, typically calling a method of a Feign client
+	 * @param <T> the type of the result of the call
+	 * @return the call, holding its result once {@link #gather() gathered}
+	 */
+	public synchronized <T> Call<T> submit(Callable<T> callable) {
+		Assert.state(!this.gathered, "Calls cannot be submitted once gathered");
+		Call<T> call = new Call<>(callable, this.deadline);
+		try {
+			call.task = this.executor.submit(call::run);
+		}
+		catch (RejectedExecutionException ex) {
+			call.result.completeExceptionally(ex);
+		}
+		this.calls.add(call);
+		return call;
+	}
+
+	/**
+	 * Waits for the submitted calls until the deadline, and cancels the calls still
+	 * running at the deadline.
+	 * @return whether all the calls completed before the deadline, successfully or not
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public boolean gather() throws InterruptedException {
+		List<Call<?>> calls;
+		synchronized (this) {
+			this.gathered = true;
+			calls = new ArrayList<>(this.calls);
+		}
+		// waits without holding the monitor, which would pin a virtual thread
+		boolean completed = true;
+		try {
+			for (Call<?> call : calls) {
+				try {
+					call.result.get(Math.max(0, this.deadline.remainingNanos()),
+							TimeUnit.NANOSECONDS);
+				}
+				catch (ExecutionException ex) {
+					// kept by the call
+				}
+				catch (TimeoutException ex) {
+					completed = false;
+					break;
+				}
+			}
+		}
+		finally {
+			for (Call<?> call : calls) {
+				call.cancel(this.timeout);
+			}
+		}
+		return completed;
+	}
+
+	/**
+	 * A call submitted to a {@link ScatterGather}.
+	 *
+	 * @param <T> the type of the result of the call
+	 */
+	public static final class Call<T> {
+
+		private final Callable<T> callable;
+
+		private final FeignDeadline deadline;
+
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+
+		private volatile Future<?> task;
+
+		private Call(Callable<T> callable, FeignDeadline deadline) {
+			this.callable = callable;
+			this.deadline = deadline;
+		}
+
+		private void run() {
+			FeignDeadline previous = FeignDeadline.bind(this.deadline);
+			try {
+				this.result.complete(this.callable.call());
+			}
+			catch (Throwable ex) {
+				this.result.completeExceptionally(ex);
+			}
+			finally {
+				FeignDeadline.restore(previous);
+			}
+		}
+
+		private void cancel(Duration timeout) {
+			if (this.result.completeExceptionally(
+					new TimeoutException("No result within " + timeout))) {
+				Future<?> task = this.task;
+				if (task != null) {
+					task.cancel(true);
+				}
+			}
+		}
+
+		/**
+		 * @return whether the call completed, successfully or not
+		 */
+		public boolean isDone() {
+			return this.result.isDone();
+		}
+
+		/**
+		 * @return whether the call completed successfully
+		 */
+		public boolean isSuccess() {
+			return this.result.isDone() && !this.result.isCompletedExceptionally();
+		}
+
+		/**
+		 * @return the result of the call, or {@code null} if it did not complete
+		 * successfully
+		 */
+		public T getValue() {
+			return getValueOrElse(null);
+		}
+
+		/**
+		 * @param fallback the value to return if the call did not complete successfully
+		 * @return the result of the call, or the fallback
+		 */
+		public T getValueOrElse(T fallback) {
+			return isSuccess() ? this.result.join() : fallback;
+		}
+
+		/**
+		 * @return the exception thrown by the call, a {@link TimeoutException} if it
+		 * was still running at the deadline, or {@code null} if it completed
+		 * successfully or is still running
+		 */
+		public Throwable getException() {
+			if (!this.result.isCompletedExceptionally()) {
+				return null;
+			}
+			try {
+				this.result.join();
+				return null;
+			}
+			catch (Exception ex) {
+				return ex.getCause() != null ? ex.getCause() : ex;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+
+import org.springframework.cloud.openfeign.support.CallerContext;
+import org.springframework.core.Ordered;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Runs the blocking methods of a client in virtual thread mode on a new virtual thread,
+ * and waits for their result, so that the caller does not need to run on a virtual
+ * thread itself. The methods returning a {@link CompletableFuture} are left to the
+ * {@link AsyncMethodHandlerDecorator}.
+ */
+class VirtualThreadMethodHandlerDecorator implements MethodHandlerDecorator {
+
+	private static final Method IS_VIRTUAL = ReflectionUtils.findMethod(Thread.class,
+			"isVirtual");
+
+	private final Supplier<ExecutorService> executor;
+
+	VirtualThreadMethodHandlerDecorator(Supplier<ExecutorService> executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public MethodHandler decorate(Target<?> target, Method method,
+			MethodHandler handler) {
+		if (AsyncMethodHandlerDecorator.isAsync(method)) {
+			return handler;
+		}
+		ExecutorService executor = this.executor.get();
+		return argv -> {
+			if (isVirtual(Thread.currentThread())) {
+				return handler.invoke(argv);
+			}
+			CallerContext context = CallerContext.capture();
+			CompletableFuture<Object> result = new CompletableFuture<>();
+			Future<?> task = executor.submit(() -> {
+				try (CallerContext.Scope scope = context.bind()) {
+					result.complete(handler.invoke(argv));
+				}
+				catch (Throwable t) {
+					result.completeExceptionally(t);
+				}
+			});
+			try {
+				return result.get();
+			}
+			catch (ExecutionException e) {
+				throw e.getCause();
+			}
+			catch (InterruptedException e) {
+				task.cancel(true);
+				throw e;
+			}
+		};
+	}
+
+	@Override
+	public int getOrder() {
+		// right inside the async methods, so that the other decorators run on the
+		// virtual thread
+		return Ordered.HIGHEST_PRECEDENCE + 2;
+	}
+
+	static boolean isVirtual(Thread thread) {
+		return IS_VIRTUAL != null
+				&& (Boolean) ReflectionUtils.invokeMethod(IS_VIRTUAL, thread);
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+import feign.MethodMetadata;
+
+import org.springframework.cloud.openfeign.AnnotatedParameterProcessor;
+import org.springframework.cloud.openfeign.RoutingKey;
+
+import static feign.Util.checkState;
+
+/**
+ * {@link RoutingKey} parameter processor.
+ *
+ * @see AnnotatedParameterProcessor
+ * @since 3.0.0
+ */
+public class RoutingKeyParameterProcessor implements AnnotatedParameterProcessor {
+
+	private static final Class<RoutingKey> ANNOTATION = RoutingKey.class;
+
+	@Override
+	public Class<? extends Annotation> getAnnotationType() {
+		return ANNOTATION;
+	}
+
+	@Override
+	public boolean processArgument(AnnotatedParameterContext context,
+			Annotation annotation, Method method) {
+		MethodMetadata data = context.getMethodMetadata();
+		checkState(!data.template().headers().containsKey(RoutingKey.HEADER),
+				"RoutingKey can only be present once, found on parameter %s",
+				context.getParameterIndex());
+		context.setParameterName(RoutingKey.HEADER);
+		Collection<String> header = context.setTemplateParameter(RoutingKey.HEADER,
+				null);
+		data.template().header(RoutingKey.HEADER, header);
+		return true;
+	}
+
+}
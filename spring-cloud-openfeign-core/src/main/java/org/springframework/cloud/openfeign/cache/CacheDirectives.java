@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Directives of a {@code Cache-Control} header that are relevant to the cache of a
+ * client, which is shared by all the callers of the client.
+ *
+ * @since 3.0.0
+ */
+final class CacheDirectives {
+
+	static final CacheDirectives NONE = new CacheDirectives();
+
+	boolean noStore;
+
+	boolean noCache;
+
+	boolean mustRevalidate;
+
+	boolean proxyRevalidate;
+
+	boolean privateResponse;
+
+	boolean publicResponse;
+
+	long maxAge = -1;
+
+	long sharedMaxAge = -1;
+
+	long staleWhileRevalidate;
+
+	long staleIfError;
+
+	private CacheDirectives() {
+	}
+
+	/**
+	 * @param values the values of the {@code Cache-Control} headers, may be
+	 * {@code null}
+	 * @return the parsed directives, where unknown directives are ignored
+	 */
+	static CacheDirectives parse(Collection<String> values) {
+		if (values == null || values.isEmpty()) {
+			return NONE;
+		}
+		CacheDirectives directives = new CacheDirectives();
+		for (String value : values) {
+			for (String directive : value.split(",")) {
+				int index = directive.indexOf('=');
+				String name = (index < 0 ? directive : directive.substring(0, index))
+						.trim().toLowerCase(Locale.ROOT);
+				String argument = index < 0 ? null
+						: directive.substring(index + 1).trim().replace("\"", "");
+				switch (name) {
+				case "no-store":
+					directives.noStore = true;
+					break;
+				case "no-cache":
+					directives.noCache = true;
+					break;
+				case "must-revalidate":
+					directives.mustRevalidate = true;
+					break;
+				case "proxy-revalidate":
+					directives.proxyRevalidate = true;
+					break;
+				case "private":
+					directives.privateResponse = true;
+					break;
+				case "public":
+					directives.publicResponse = true;
+					break;
+				case "max-age":
+					directives.maxAge = parseSeconds(argument, directives.maxAge);
+					break;
+				case "s-maxage":
+					directives.sharedMaxAge = parseSeconds(argument,
+							directives.sharedMaxAge);
+					break;
+				case "stale-while-revalidate":
+					directives.staleWhileRevalidate = parseSeconds(argument, 0);
+					break;
+				case "stale-if-error":
+					directives.staleIfError = parseSeconds(argument, 0);
+					break;
+				default:
+					break;
+				}
+			}
+		}
+		return directives;
+	}
+
+	/**
+	 * @return whether a shared cache must not serve the response once it is stale, as
+	 * required by {@code must-revalidate}, {@code proxy-revalidate} and
+	 * {@code s-maxage}
+	 */
+	boolean isRevalidationRequired() {
+		return this.mustRevalidate || this.proxyRevalidate || this.sharedMaxAge >= 0;
+	}
+
+	private static long parseSeconds(String value, long defaultValue) {
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Math.max(0, Long.parseLong(value));
+		}
+		catch (NumberFormatException ex) {
+			return defaultValue;
+		}
+	}
+
+}
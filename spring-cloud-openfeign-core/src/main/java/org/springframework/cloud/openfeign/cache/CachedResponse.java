@@ -0,0 +1,278 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+import feign.Request;
+import feign.Response;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+/**
+ * Response stored by a {@link FeignResponseCache}, along with the information needed to
+ * decide whether it can be served.
+ *
+ * @since 3.0.0
+ */
+public final class CachedResponse {
+
+	private final int status;
+
+	private final String reason;
+
+	private final Map<String, Collection<String>> headers;
+
+	private final byte[] body;
+
+	private final long responseTime;
+
+	private final Map<String, Collection<String>> varyValues;
+
+	private final CacheDirectives directives;
+
+	/**
+	 * @param status the status code of the response
+	 * @param reason the reason phrase of the response, may be {@code null}
+	 * @param headers the headers of the response
+	 * @param body the body of the response
+	 * @param responseTime the time the response was received or last validated, in
+	 * milliseconds since the epoch
+	 * @param varyValues the values of the request headers listed in the {@code Vary}
+	 * header of the response
+	 */
+	public CachedResponse(int status, String reason,
+			Map<String, Collection<String>> headers, byte[] body, long responseTime,
+			Map<String, Collection<String>> varyValues) {
+		this.status = status;
+		this.reason = reason;
+		this.headers = caseInsensitiveCopy(headers);
+		this.body = body;
+		this.responseTime = responseTime;
+		this.varyValues = caseInsensitiveCopy(varyValues);
+		this.directives = CacheDirectives.parse(this.headers.get(HttpHeaders.CACHE_CONTROL));
+	}
+
+	private static Map<String, Collection<String>> caseInsensitiveCopy(
+			Map<String, Collection<String>> source) {
+		Map<String, Collection<String>> copy = new LinkedCaseInsensitiveMap<>(
+				source.size());
+		source.forEach((name, values) -> copy.put(name,
+				Collections.unmodifiableList(new ArrayList<>(values))));
+		return Collections.unmodifiableMap(copy);
+	}
+
+	public int getStatus() {
+		return this.status;
+	}
+
+	public String getReason() {
+		return this.reason;
+	}
+
+	public Map<String, Collection<String>> getHeaders() {
+		return this.headers;
+	}
+
+	public byte[] getBody() {
+		return this.body;
+	}
+
+	public long getResponseTime() {
+		return this.responseTime;
+	}
+
+	public Map<String, Collection<String>> getVaryValues() {
+		return this.varyValues;
+	}
+
+	/**
+	 * @return the approximate memory footprint of the response, in bytes
+	 */
+	public long size() {
+		long size = this.body.length;
+		for (Map.Entry<String, Collection<String>> header : this.headers.entrySet()) {
+			size += header.getKey().length();
+			for (String value : header.getValue()) {
+				size += value.length();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @param now the current time, in milliseconds since the epoch
+	 * @return the age of the response, in milliseconds
+	 */
+	public long age(long now) {
+		long age = Math.max(0, now - this.responseTime);
+		String ageHeader = getFirstHeader(HttpHeaders.AGE);
+		if (ageHeader != null) {
+			try {
+				age += Math.max(0, Long.parseLong(ageHeader.trim())) * 1000;
+			}
+			catch (NumberFormatException ex) {
+				// ignore invalid Age header
+			}
+		}
+		return age;
+	}
+
+	/**
+	 * @return how long the response is fresh after it was generated, in milliseconds,
+	 * for a shared cache: {@code s-maxage} takes precedence over {@code max-age}
+	 */
+	public long freshnessLifetime() {
+		if (this.directives.noCache) {
+			return 0;
+		}
+		if (this.directives.sharedMaxAge >= 0) {
+			return this.directives.sharedMaxAge * 1000;
+		}
+		if (this.directives.maxAge >= 0) {
+			return this.directives.maxAge * 1000;
+		}
+		long expires = getDateHeader(HttpHeaders.EXPIRES);
+		if (expires >= 0) {
+			long date = getDateHeader(HttpHeaders.DATE);
+			return Math.max(0, expires - (date >= 0 ? date : this.responseTime));
+		}
+		return 0;
+	}
+
+	/**
+	 * @param now the current time, in milliseconds since the epoch
+	 * @return whether the response can be served without contacting the server
+	 */
+	public boolean isFresh(long now) {
+		return age(now) < freshnessLifetime();
+	}
+
+	/**
+	 * @param now the current time, in milliseconds since the epoch
+	 * @return whether the response is stale but can be served while it is revalidated
+	 * in the background, as allowed by {@code stale-while-revalidate}
+	 */
+	public boolean isStaleWhileRevalidate(long now) {
+		return !this.directives.isRevalidationRequired() && !this.directives.noCache
+				&& age(now) < freshnessLifetime()
+						+ this.directives.staleWhileRevalidate * 1000;
+	}
+
+	/**
+	 * @param now the current time, in milliseconds since the epoch
+	 * @param defaultStaleIfError how long the response can be served stale when the
+	 * server fails if it has no {@code stale-if-error} directive, in milliseconds
+	 * @return whether the response can be served when the server fails
+	 */
+	public boolean isStaleIfError(long now, long defaultStaleIfError) {
+		long staleIfError = this.directives.staleIfError > 0
+				? this.directives.staleIfError * 1000 : defaultStaleIfError;
+		return !this.directives.isRevalidationRequired()
+				&& age(now) < freshnessLifetime() + staleIfError;
+	}
+
+	/**
+	 * @param requestHeaders the headers of a request
+	 * @return whether the response was selected by a request with the same values of
+	 * the headers listed in its {@code Vary} header
+	 */
+	public boolean matches(Map<String, Collection<String>> requestHeaders) {
+		if (this.varyValues.isEmpty()) {
+			return true;
+		}
+		Map<String, Collection<String>> headers = caseInsensitiveCopy(requestHeaders);
+		for (Map.Entry<String, Collection<String>> vary : this.varyValues.entrySet()) {
+			Collection<String> values = headers.get(vary.getKey());
+			if (!Objects.equals(vary.getValue(),
+					values != null ? new ArrayList<>(values) : Collections.emptyList())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public String getETag() {
+		return getFirstHeader(HttpHeaders.ETAG);
+	}
+
+	public String getLastModified() {
+		return getFirstHeader(HttpHeaders.LAST_MODIFIED);
+	}
+
+	/**
+	 * @param notModifiedHeaders the headers of the {@code 304 Not Modified} response
+	 * validating this response
+	 * @param now the time the validating response was received, in milliseconds since
+	 * the epoch
+	 * @return this response updated with the headers of the validating response
+	 */
+	public CachedResponse revalidated(Map<String, Collection<String>> notModifiedHeaders,
+			long now) {
+		Map<String, Collection<String>> headers = new LinkedCaseInsensitiveMap<>();
+		headers.putAll(this.headers);
+		notModifiedHeaders.forEach((name, values) -> {
+			if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+				headers.put(name, values);
+			}
+		});
+		if (!notModifiedHeaders.keySet().stream()
+				.anyMatch(HttpHeaders.AGE::equalsIgnoreCase)) {
+			headers.remove(HttpHeaders.AGE);
+		}
+		return new CachedResponse(this.status, this.reason, headers, this.body, now,
+				this.varyValues);
+	}
+
+	/**
+	 * @param request the request the response is served for
+	 * @return a new Feign response with the cached status, headers and body
+	 */
+	public Response toResponse(Request request) {
+		return Response.builder().request(request).status(this.status)
+				.reason(this.reason).headers(this.headers).body(this.body).build();
+	}
+
+	private String getFirstHeader(String name) {
+		Collection<String> values = this.headers.get(name);
+		return values == null || values.isEmpty() ? null : values.iterator().next();
+	}
+
+	private long getDateHeader(String name) {
+		String value = getFirstHeader(name);
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+					.toInstant().toEpochMilli();
+		}
+		catch (DateTimeParseException ex) {
+			// an invalid date, such as Expires: 0, means already expired
+			return HttpHeaders.EXPIRES.equalsIgnoreCase(name) ? 0 : -1;
+		}
+	}
+
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link Client} caching {@code GET} responses according to their HTTP caching headers.
+ * Fresh responses are served without contacting the server, stale ones are revalidated
+ * with {@code If-None-Match} and {@code If-Modified-Since}, and {@code 304 Not
+ * Modified} responses are replaced by the cached response before they are decoded.
+ * Responses allowing {@code stale-while-revalidate} are served stale while they are
+ * revalidated in the background, and stale responses allowing {@code stale-if-error} are
+ * served when the server fails or times out.
+ *
+ * @since 3.0.0
+ */
+public class CachingClient implements Client {
+
+	private static final Log LOG = LogFactory.getLog(CachingClient.class);
+
+	private final Client delegate;
+
+	private final FeignResponseCache cache;
+
+	private final long maxEntrySize;
+
+	private final Executor revalidationExecutor;
+
+	private final Clock clock;
+
+	private long staleIfError;
+
+	private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder revalidated = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder staleOnError = new LongAdder();
+
+	private final LongAdder bytesSaved = new LongAdder();
+
+	/**
+	 * @param delegate the client executing the requests
+	 * @param clientName the context id of the client, used to tag its metrics
+	 * @param cache the store of the cached responses
+	 * @param maxEntrySize the maximum size of a cached body, in bytes
+	 * @param revalidationExecutor the executor revalidating stale responses in the
+	 * background
+	 * @param metrics the registrar of the cache metrics
+	 */
+	public CachingClient(Client delegate, String clientName, FeignResponseCache cache,
+			long maxEntrySize, Executor revalidationExecutor,
+			FeignMetricsRegistrar metrics) {
+		this(delegate, clientName, cache, maxEntrySize, revalidationExecutor, metrics,
+				Clock.systemUTC());
+	}
+
+	CachingClient(Client delegate, String clientName, FeignResponseCache cache,
+			long maxEntrySize, Executor revalidationExecutor,
+			FeignMetricsRegistrar metrics, Clock clock) {
+		this.delegate = delegate;
+		this.cache = cache;
+		this.maxEntrySize = maxEntrySize;
+		this.revalidationExecutor = revalidationExecutor;
+		this.clock = clock;
+		registerMetrics(clientName, metrics);
+	}
+
+	private void registerMetrics(String clientName, FeignMetricsRegistrar metrics) {
+		String description = "Requests served by the HTTP cache of the client";
+		metrics.counter("feign.client.cache.requests", description, this.hits::sum,
+				"client", clientName, "result", "hit");
+		metrics.counter("feign.client.cache.requests", description,
+				this.revalidated::sum, "client", clientName, "result", "revalidated");
+		metrics.counter("feign.client.cache.requests", description, this.misses::sum,
+				"client", clientName, "result", "miss");
+		metrics.counter("feign.client.cache.requests", description,
+				this.staleOnError::sum, "client", clientName, "result", "stale");
+		metrics.counter("feign.client.cache.bytes.saved",
+				"Bytes of response bodies served from the cache instead of the network",
+				this.bytesSaved::sum, "client", clientName);
+		metrics.gauge("feign.client.cache.hit.ratio",
+				"Ratio of requests served from the cache, including revalidated ones",
+				this::getHitRatio, "client", clientName);
+		metrics.gauge("feign.client.cache.size", "Size of the cached responses, in bytes",
+				this.cache::size, "client", clientName);
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		CacheDirectives directives = CacheDirectives
+				.parse(getHeader(request.headers(), HttpHeaders.CACHE_CONTROL));
+		if (!isCacheable(request, directives)) {
+			return this.delegate.execute(request, options);
+		}
+		String key = key(request);
+		CachedResponse cached = this.cache.get(key);
+		if (cached != null && !cached.matches(request.headers())) {
+			cached = null;
+		}
+		if (cached != null && !directives.noCache) {
+			long now = this.clock.millis();
+			if (cached.isFresh(now)) {
+				return hit(cached, request);
+			}
+			if (cached.isStaleWhileRevalidate(now)) {
+				revalidateInBackground(key, request, options, cached);
+				return hit(cached, request);
+			}
+		}
+		return fetch(key, request, options, cached);
+	}
+
+	private Response hit(CachedResponse cached, Request request) {
+		this.hits.increment();
+		this.bytesSaved.add(cached.getBody().length);
+		return cached.toResponse(request);
+	}
+
+	/**
+	 * Sends the request, conditionally if a cached response can be revalidated, and
+	 * caches the response when allowed.
+	 * @param key the key of the request
+	 * @param request the request to send
+	 * @param options the options of the request
+	 * @param cached the cached response to revalidate, may be {@code null}
+	 * @return the response to serve
+	 * @throws IOException if the request fails
+	 */
+	protected Response fetch(String key, Request request, Request.Options options,
+			CachedResponse cached) throws IOException {
+		Request sent = cached != null ? conditional(request, cached) : request;
+		Response response;
+		try {
+			response = this.delegate.execute(sent, options);
+		}
+		catch (IOException ex) {
+			if (cached != null && cached.isStaleIfError(this.clock.millis(),
+					this.staleIfError)) {
+				return staleOnError(cached, request, ex.toString());
+			}
+			throw ex;
+		}
+		long now = this.clock.millis();
+		if (cached != null && response.status() >= 500
+				&& cached.isStaleIfError(now, this.staleIfError)) {
+			response.close();
+			return staleOnError(cached, request, "status " + response.status());
+		}
+		if (cached != null && response.status() == 304) {
+			response.close();
+			CachedResponse updated = cached.revalidated(response.headers(), now);
+			if (isShareable(request, updated.getHeaders()) && isStorable(updated)) {
+				// the body is unchanged, so the cache may keep it where it is
+				this.cache.revalidate(key, updated);
+			}
+			else {
+				this.cache.remove(key);
+			}
+			this.revalidated.increment();
+			this.bytesSaved.add(updated.getBody().length);
+			return updated.toResponse(request);
+		}
+		this.misses.increment();
+		return storeIfCacheable(key, request, response, now);
+	}
+
+	private Response staleOnError(CachedResponse cached, Request request,
+			String error) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Serving stale response of " + key(request) + " after " + error);
+		}
+		this.staleOnError.increment();
+		this.bytesSaved.add(cached.getBody().length);
+		return cached.toResponse(request);
+	}
+
+	private void revalidateInBackground(String key, Request request,
+			Request.Options options, CachedResponse cached) {
+		if (!this.revalidating.add(key)) {
+			return;
+		}
+		try {
+			this.revalidationExecutor.execute(() -> {
+				try (Response response = fetch(key, request, options, cached)) {
+					// the body has been cached, if allowed
+				}
+				catch (IOException | RuntimeException ex) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Could not revalidate cached response of " + key, ex);
+					}
+				}
+				finally {
+					this.revalidating.remove(key);
+				}
+			});
+		}
+		catch (RejectedExecutionException ex) {
+			this.revalidating.remove(key);
+		}
+	}
+
+	private Response storeIfCacheable(String key, Request request, Response response,
+			long now) throws IOException {
+		if (!isCacheable(request, response)) {
+			this.cache.remove(key);
+			return response;
+		}
+		Map<String, Collection<String>> varyValues = varyValues(request, response);
+		if (varyValues == null) {
+			this.cache.remove(key);
+			return response;
+		}
+		byte[] body = new byte[0];
+		if (response.body() != null) {
+			Integer length = response.body().length();
+			if (length != null && length > this.maxEntrySize) {
+				return response;
+			}
+			InputStream stream = response.body().asInputStream();
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			if (!copy(stream, buffer, this.maxEntrySize)) {
+				// too large to be cached, the body is streamed instead
+				return Response.builder().request(response.request())
+						.status(response.status()).reason(response.reason())
+						.headers(response.headers())
+						.body(new SequenceInputStream(
+								new ByteArrayInputStream(buffer.toByteArray()), stream),
+								null)
+						.build();
+			}
+			response.close();
+			body = buffer.toByteArray();
+		}
+		CachedResponse cached = new CachedResponse(response.status(), response.reason(),
+				response.headers(), body, now, varyValues);
+		store(key, cached);
+		return cached.toResponse(request);
+	}
+
+	/**
+	 * Caches a response, or removes the response cached under its key if it can
+	 * neither be served fresh nor revalidated.
+	 * @param key the key of the response
+	 * @param response the response to cache
+	 */
+	protected void store(String key, CachedResponse response) {
+		if (isStorable(response)) {
+			this.cache.put(key, response);
+		}
+		else {
+			this.cache.remove(key);
+		}
+	}
+
+	private static boolean isStorable(CachedResponse response) {
+		return response.freshnessLifetime() > 0 || response.getETag() != null
+				|| response.getLastModified() != null;
+	}
+
+	private static boolean copy(InputStream stream, ByteArrayOutputStream buffer,
+			long limit) throws IOException {
+		byte[] chunk = new byte[8192];
+		int read;
+		while ((read = stream.read(chunk, 0,
+				(int) Math.min(chunk.length, limit + 1 - buffer.size()))) > 0) {
+			buffer.write(chunk, 0, read);
+			if (buffer.size() > limit) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isCacheable(Request request, CacheDirectives directives) {
+		return request.httpMethod() == Request.HttpMethod.GET && !directives.noStore
+				// conditional requests are answered by the server for the caller
+				&& getHeader(request.headers(), HttpHeaders.IF_NONE_MATCH) == null
+				&& getHeader(request.headers(), HttpHeaders.IF_MODIFIED_SINCE) == null;
+	}
+
+	private static boolean isCacheable(Request request, Response response) {
+		return (response.status() == 200 || response.status() == 203)
+				&& isShareable(request, response.headers());
+	}
+
+	/**
+	 * @return whether a response can be served to all the callers of the client, as
+	 * for a shared cache (RFC 7234, sections 3 and 3.2)
+	 */
+	private static boolean isShareable(Request request,
+			Map<String, Collection<String>> responseHeaders) {
+		CacheDirectives directives = CacheDirectives
+				.parse(getHeader(responseHeaders, HttpHeaders.CACHE_CONTROL));
+		if (directives.noStore || directives.privateResponse) {
+			return false;
+		}
+		// the response of an authenticated request is for the authenticated caller
+		return getHeader(request.headers(), HttpHeaders.AUTHORIZATION) == null
+				|| directives.publicResponse || directives.sharedMaxAge >= 0
+				|| directives.mustRevalidate;
+	}
+
+	/**
+	 * @return the values of the request headers the response varies on, or
+	 * {@code null} if the response varies on anything
+	 */
+	private static Map<String, Collection<String>> varyValues(Request request,
+			Response response) {
+		Collection<String> vary = getHeader(response.headers(), HttpHeaders.VARY);
+		if (vary == null) {
+			return Collections.emptyMap();
+		}
+		Map<String, Collection<String>> values = new LinkedCaseInsensitiveMap<>();
+		for (String names : vary) {
+			for (String name : StringUtils.commaDelimitedListToStringArray(names)) {
+				name = name.trim();
+				if ("*".equals(name)) {
+					return null;
+				}
+				if (!name.isEmpty()) {
+					Collection<String> requestValues = getHeader(request.headers(), name);
+					values.put(name, requestValues != null
+							? new ArrayList<>(requestValues) : Collections.emptyList());
+				}
+			}
+		}
+		return values;
+	}
+
+	private static Request conditional(Request request, CachedResponse cached) {
+		if (cached.getETag() == null && cached.getLastModified() == null) {
+			return request;
+		}
+		Map<String, Collection<String>> headers = new LinkedCaseInsensitiveMap<>();
+		headers.putAll(request.headers());
+		if (cached.getETag() != null) {
+			headers.put(HttpHeaders.IF_NONE_MATCH,
+					Collections.singletonList(cached.getETag()));
+		}
+		if (cached.getLastModified() != null) {
+			headers.put(HttpHeaders.IF_MODIFIED_SINCE,
+					Collections.singletonList(cached.getLastModified()));
+		}
+		return Request.create(request.httpMethod(), request.url(), headers,
+				request.body(), request.charset(), request.requestTemplate());
+	}
+
+	private static Collection<String> getHeader(Map<String, Collection<String>> headers,
+			String name) {
+		for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+			if (name.equalsIgnoreCase(header.getKey())) {
+				return header.getValue();
+			}
+		}
+		return null;
+	}
+
+	static String key(Request request) {
+		return request.httpMethod() + " " + request.url();
+	}
+
+	/**
+	 * Sets how long responses without a {@code stale-if-error} directive are served
+	 * stale when the server fails or times out. Defaults to {@code 0}.
+	 * @param staleIfError the duration, in milliseconds
+	 */
+	public void setStaleIfError(long staleIfError) {
+		this.staleIfError = staleIfError;
+	}
+
+	/**
+	 * @return the ratio of requests served from the cache, either fresh or revalidated
+	 */
+	public double getHitRatio() {
+		long served = this.hits.sum() + this.revalidated.sum()
+				+ this.staleOnError.sum();
+		long total = served + this.misses.sum();
+		return total == 0 ? 0 : (double) served / total;
+	}
+
+	public FeignResponseCache getCache() {
+		return this.cache;
+	}
+
+	public Client getDelegate() {
+		return this.delegate;
+	}
+
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link FeignResponseCache} storing responses in files of a directory, so that they
+ * survive restarts. Each response is stored in its own segment file, named after the
+ * hash of its key. The least recently used responses are evicted when the total size of
+ * the segment files exceeds the maximum size. The order of use is tracked in memory and
+ * written to the modification times of the segment files on eviction and on
+ * {@link #close()}, so that it survives restarts. The headers of revalidated responses
+ * are kept in memory instead of writing their body again. Failures to read or write the
+ * files are logged and treated as cache misses.
+ *
+ * @since 3.0.0
+ */
+public class DiskResponseCache implements FeignResponseCache, Closeable {
+
+	private static final Log LOG = LogFactory.getLog(DiskResponseCache.class);
+
+	private static final int MAGIC = 0xFE16CAC4;
+
+	private static final String SUFFIX = ".segment";
+
+	private final Path directory;
+
+	private final long maxSize;
+
+	private final Map<String, Long> segments = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Segments used since their modification times were last written, least recently
+	 * used first.
+	 */
+	private final Set<String> used = new LinkedHashSet<>();
+
+	/**
+	 * Headers of the responses revalidated since their segment was written.
+	 */
+	private final Map<String, Revalidation> revalidations = new HashMap<>();
+
+	private long size;
+
+	/**
+	 * Creates the cache, loading the segment files already present in the directory.
+	 * @param directory the directory of the segment files, created if missing
+	 * @param maxSize the maximum total size of the segment files, in bytes
+	 * @throws IOException if the directory cannot be created or listed
+	 */
+	public DiskResponseCache(Path directory, long maxSize) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.maxSize = maxSize;
+		load();
+	}
+
+	private void load() throws IOException {
+		// left over by writes interrupted by a shutdown
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory,
+				"*.tmp")) {
+			stream.forEach(DiskResponseCache::deleteQuietly);
+		}
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory,
+				"*" + SUFFIX)) {
+			stream.forEach(files::add);
+		}
+		// oldest first, so that the least recently used segments are evicted first
+		files.sort(Comparator.comparing(this::lastModified));
+		for (Path file : files) {
+			String name = file.getFileName().toString();
+			try {
+				addSegment(name.substring(0, name.length() - SUFFIX.length()),
+						Files.size(file));
+			}
+			catch (IOException ex) {
+				LOG.warn("Could not load cached response " + file, ex);
+			}
+		}
+	}
+
+	private FileTime lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		}
+		catch (IOException ex) {
+			return FileTime.fromMillis(0);
+		}
+	}
+
+	@Override
+	public CachedResponse get(String key) {
+		String segment = segmentName(key);
+		synchronized (this) {
+			if (this.segments.get(segment) == null) {
+				return null;
+			}
+			markUsed(segment);
+		}
+		Path file = segmentFile(segment);
+		try {
+			CachedResponse response = read(Files.readAllBytes(file), key);
+			Revalidation revalidation;
+			synchronized (this) {
+				revalidation = this.revalidations.get(segment);
+			}
+			return response != null && revalidation != null
+					&& revalidation.key.equals(key) ? revalidation.applyTo(response)
+							: response;
+		}
+		catch (NoSuchFileException ex) {
+			removeSegment(segment);
+			return null;
+		}
+		catch (IOException | RuntimeException ex) {
+			LOG.warn("Could not read cached response " + file + ", removing it", ex);
+			remove(key);
+			return null;
+		}
+	}
+
+	@Override
+	public void put(String key, CachedResponse response) {
+		String segment = segmentName(key);
+		Path file = segmentFile(segment);
+		Path temp = null;
+		try {
+			byte[] metadata = writeMetadata(key, response);
+			long length = metadata.length + 4L + response.getBody().length;
+			if (length > this.maxSize) {
+				remove(key);
+				return;
+			}
+			temp = Files.createTempFile(this.directory, segment, ".tmp");
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				out.write(metadata);
+				new DataOutputStream(out).writeInt(response.getBody().length);
+				out.write(response.getBody());
+			}
+			List<String> evicted;
+			synchronized (this) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+				removeSegment(segment);
+				addSegment(segment, length);
+				markUsed(segment);
+				evicted = evict();
+			}
+			if (!evicted.isEmpty()) {
+				// outside of the lock, so that reads are not blocked; a segment written
+				// again in the meantime is deleted too, and then missed by get
+				for (String evictedSegment : evicted) {
+					deleteQuietly(segmentFile(evictedSegment));
+				}
+				persistOrderOfUse();
+			}
+		}
+		catch (IOException ex) {
+			LOG.warn("Could not write cached response " + file, ex);
+			deleteQuietly(temp);
+		}
+	}
+
+	/**
+	 * Keeps the headers of a revalidated response in memory rather than writing its body
+	 * again. They are lost on restart, after which the response is revalidated again.
+	 */
+	@Override
+	public void revalidate(String key, CachedResponse response) {
+		String segment = segmentName(key);
+		synchronized (this) {
+			if (this.segments.containsKey(segment)) {
+				this.revalidations.put(segment, new Revalidation(key, response));
+				markUsed(segment);
+				return;
+			}
+		}
+		put(key, response);
+	}
+
+	@Override
+	public void remove(String key) {
+		String segment = segmentName(key);
+		synchronized (this) {
+			removeSegment(segment);
+			deleteQuietly(segmentFile(segment));
+		}
+	}
+
+	@Override
+	public synchronized long size() {
+		return this.size;
+	}
+
+	/**
+	 * Writes the order of use of the responses to the segment files.
+	 */
+	@Override
+	public void close() {
+		persistOrderOfUse();
+	}
+
+	private void addSegment(String segment, long length) {
+		this.segments.put(segment, length);
+		this.size += length;
+	}
+
+	private synchronized void removeSegment(String segment) {
+		Long length = this.segments.remove(segment);
+		if (length != null) {
+			this.size -= length;
+		}
+		this.used.remove(segment);
+		this.revalidations.remove(segment);
+	}
+
+	private void markUsed(String segment) {
+		// moves the segment to the end
+		this.used.remove(segment);
+		this.used.add(segment);
+	}
+
+	/**
+	 * @return the segments evicted, whose files are left to delete
+	 */
+	private List<String> evict() {
+		List<String> evicted = new ArrayList<>();
+		Iterator<Map.Entry<String, Long>> eldest = this.segments.entrySet().iterator();
+		while (this.size > this.maxSize && eldest.hasNext()) {
+			Map.Entry<String, Long> segment = eldest.next();
+			this.size -= segment.getValue();
+			eldest.remove();
+			this.used.remove(segment.getKey());
+			this.revalidations.remove(segment.getKey());
+			evicted.add(segment.getKey());
+		}
+		return evicted;
+	}
+
+	private void persistOrderOfUse() {
+		List<String> used;
+		synchronized (this) {
+			used = new ArrayList<>(this.used);
+			this.used.clear();
+		}
+		// the segments used since the last write are more recent than the other ones
+		long time = System.currentTimeMillis() - used.size();
+		for (String segment : used) {
+			Path file = segmentFile(segment);
+			try {
+				Files.setLastModifiedTime(file, FileTime.fromMillis(++time));
+			}
+			catch (NoSuchFileException ex) {
+				// removed in the meantime
+			}
+			catch (IOException ex) {
+				LOG.warn("Could not write order of use of cached response " + file, ex);
+			}
+		}
+	}
+
+	private Path segmentFile(String segment) {
+		return this.directory.resolve(segment + SUFFIX);
+	}
+
+	private static void deleteQuietly(Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (IOException ex) {
+			LOG.warn("Could not delete cached response " + file, ex);
+		}
+	}
+
+	static String segmentName(String key) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256")
+					.digest(key.getBytes(StandardCharsets.UTF_8));
+			StringBuilder name = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				name.append(Character.forDigit((b >> 4) & 0xF, 16))
+						.append(Character.forDigit(b & 0xF, 16));
+			}
+			return name.toString();
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static byte[] writeMetadata(String key, CachedResponse response)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeUTF(key);
+		out.writeInt(response.getStatus());
+		out.writeBoolean(response.getReason() != null);
+		if (response.getReason() != null) {
+			out.writeUTF(response.getReason());
+		}
+		out.writeLong(response.getResponseTime());
+		writeHeaders(out, response.getHeaders());
+		writeHeaders(out, response.getVaryValues());
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static void writeHeaders(DataOutputStream out,
+			Map<String, Collection<String>> headers) throws IOException {
+		out.writeInt(headers.size());
+		for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+			out.writeUTF(header.getKey());
+			out.writeInt(header.getValue().size());
+			for (String value : header.getValue()) {
+				out.writeUTF(value);
+			}
+		}
+	}
+
+	/**
+	 * @return the response read from the buffer, or {@code null} if the segment holds
+	 * another key with the same hash
+	 */
+	private static CachedResponse read(byte[] segment, String key) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(segment));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a cached response");
+		}
+		if (!key.equals(in.readUTF())) {
+			return null;
+		}
+		int status = in.readInt();
+		String reason = in.readBoolean() ? in.readUTF() : null;
+		long responseTime = in.readLong();
+		Map<String, Collection<String>> headers = readHeaders(in);
+		Map<String, Collection<String>> varyValues = readHeaders(in);
+		byte[] body = new byte[in.readInt()];
+		in.readFully(body);
+		return new CachedResponse(status, reason, headers, body, responseTime,
+				varyValues);
+	}
+
+	private static Map<String, Collection<String>> readHeaders(DataInputStream in)
+			throws IOException {
+		int count = in.readInt();
+		Map<String, Collection<String>> headers = new LinkedHashMap<>(count);
+		for (int i = 0; i < count; i++) {
+			String name = in.readUTF();
+			int valueCount = in.readInt();
+			List<String> values = new ArrayList<>(valueCount);
+			for (int j = 0; j < valueCount; j++) {
+				values.add(in.readUTF());
+			}
+			headers.put(name, values);
+		}
+		return headers;
+	}
+
+	/**
+	 * Headers of a response revalidated after its segment was written.
+	 */
+	private static final class Revalidation {
+
+		private final String key;
+
+		private final Map<String, Collection<String>> headers;
+
+		private final long responseTime;
+
+		private Revalidation(String key, CachedResponse response) {
+			this.key = key;
+			this.headers = response.getHeaders();
+			this.responseTime = response.getResponseTime();
+		}
+
+		private CachedResponse applyTo(CachedResponse response) {
+			return new CachedResponse(response.getStatus(), response.getReason(),
+					this.headers, response.getBody(), this.responseTime,
+					response.getVaryValues());
+		}
+
+	}
+
+}
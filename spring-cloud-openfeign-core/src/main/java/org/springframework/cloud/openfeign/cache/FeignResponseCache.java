@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+/**
+ * Store of the responses cached by a {@link CachingClient}. Implementations must be
+ * thread-safe.
+ *
+ * @since 3.0.0
+ */
+public interface FeignResponseCache {
+
+	/**
+	 * @param key the key of the response
+	 * @return the cached response, or {@code null} if none is cached under {@code key}
+	 */
+	CachedResponse get(String key);
+
+	/**
+	 * Caches a response, replacing the one cached under the same key, if any.
+	 * @param key the key of the response
+	 * @param response the response to cache
+	 */
+	void put(String key, CachedResponse response);
+
+	/**
+	 * Replaces the cached response with the same response revalidated by the server,
+	 * whose body is unchanged. Stores writing the body to slow storage can avoid writing
+	 * it again.
+	 * @param key the key of the response
+	 * @param response the revalidated response
+	 */
+	default void revalidate(String key, CachedResponse response) {
+		put(key, response);
+	}
+
+	/**
+	 * Removes the response cached under a key, if any.
+	 * @param key the key of the response
+	 */
+	void remove(String key);
+
+	/**
+	 * @return the total size of the cached responses, in bytes
+	 */
+	long size();
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cloud.openfeign.support.MethodResultCaching;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Registry of the caches holding the results of Feign client methods annotated with
+ * {@link org.springframework.cloud.openfeign.CachedResult}. Global caches are kept for
+ * the lifetime of the application, request-scoped ones are kept as attributes of the
+ * current web request.
+ *
+ * @since 3.0.0
+ */
+public class FeignResultCaches {
+
+	private static final String REQUEST_ATTRIBUTE_PREFIX = FeignResultCaches.class
+			.getName() + ".";
+
+	private final ConcurrentMap<String, ConcurrentMap<String, ResultCache>> caches = new ConcurrentHashMap<>();
+
+	/**
+	 * @param clientName the context id of the client
+	 * @param methodKey the config key of the method
+	 * @param caching the caching of the method results
+	 * @return the cache of the method results, or {@code null} if the results are
+	 * request-scoped and the current thread is not processing a web request
+	 */
+	public ResultCache getCache(String clientName, String methodKey,
+			MethodResultCaching caching) {
+		switch (caching.getScope()) {
+		case REQUEST:
+			return getRequestCache(clientName, methodKey, caching);
+		default:
+			return this.caches
+					.computeIfAbsent(clientName, key -> new ConcurrentHashMap<>())
+					.computeIfAbsent(methodKey, key -> newCache(caching));
+		}
+	}
+
+	private ResultCache getRequestCache(String clientName, String methodKey,
+			MethodResultCaching caching) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return null;
+		}
+		String name = REQUEST_ATTRIBUTE_PREFIX + clientName + "." + methodKey;
+		synchronized (attributes) {
+			ResultCache cache = (ResultCache) attributes.getAttribute(name,
+					RequestAttributes.SCOPE_REQUEST);
+			if (cache == null) {
+				cache = newCache(caching);
+				attributes.setAttribute(name, cache, RequestAttributes.SCOPE_REQUEST);
+			}
+			return cache;
+		}
+	}
+
+	private static ResultCache newCache(MethodResultCaching caching) {
+		return new ResultCache(caching.getTtl().toNanos(), caching.getMaxEntries());
+	}
+
+	/**
+	 * Evicts the globally cached results of the methods of a client.
+	 * @param clientName the context id of the client
+	 */
+	public void evict(String clientName) {
+		Map<String, ResultCache> clientCaches = this.caches.get(clientName);
+		if (clientCaches != null) {
+			clientCaches.values().forEach(ResultCache::clear);
+		}
+	}
+
+	/**
+	 * Evicts the globally cached results of all clients.
+	 */
+	public void evictAll() {
+		this.caches.keySet().forEach(this::evict);
+	}
+
+	/**
+	 * @return the number of globally cached results of each method, by client
+	 */
+	public Map<String, Map<String, Integer>> getSizes() {
+		Map<String, Map<String, Integer>> sizes = new LinkedHashMap<>();
+		this.caches.forEach((clientName, clientCaches) -> {
+			Map<String, Integer> clientSizes = new LinkedHashMap<>();
+			clientCaches.forEach((methodKey, cache) -> clientSizes.put(methodKey,
+					cache.size()));
+			sizes.put(clientName, clientSizes);
+		});
+		return sizes;
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+/**
+ * Actuator endpoint exposing the cached results of Feign client methods and evicting
+ * them by client.
+ *
+ * @since 3.0.0
+ */
+@Endpoint(id = "feigncaches")
+public class FeignResultCachesEndpoint {
+
+	private final FeignResultCaches caches;
+
+	public FeignResultCachesEndpoint(FeignResultCaches caches) {
+		this.caches = caches;
+	}
+
+	@ReadOperation
+	public Map<String, Map<String, Integer>> caches() {
+		return this.caches.getSizes();
+	}
+
+	@DeleteOperation
+	public void evictAll() {
+		this.caches.evictAll();
+	}
+
+	@DeleteOperation
+	public void evict(@Selector String client) {
+		this.caches.evict(client);
+	}
+
+}
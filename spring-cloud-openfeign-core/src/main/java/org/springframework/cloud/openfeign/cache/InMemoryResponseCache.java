@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link FeignResponseCache} keeping responses in memory, bounded by the total size of
+ * their bodies and headers. The least recently used responses are evicted first.
+ *
+ * @since 3.0.0
+ */
+public class InMemoryResponseCache implements FeignResponseCache {
+
+	private final long maxSize;
+
+	private final Map<String, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f,
+			true);
+
+	private long size;
+
+	/**
+	 * @param maxSize the maximum total size of the cached responses, in bytes
+	 */
+	public InMemoryResponseCache(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public synchronized CachedResponse get(String key) {
+		return this.responses.get(key);
+	}
+
+	@Override
+	public synchronized void put(String key, CachedResponse response) {
+		CachedResponse previous = this.responses.remove(key);
+		if (previous != null) {
+			this.size -= previous.size();
+		}
+		if (response.size() > this.maxSize) {
+			return;
+		}
+		this.responses.put(key, response);
+		this.size += response.size();
+		Iterator<CachedResponse> eldest = this.responses.values().iterator();
+		while (this.size > this.maxSize && eldest.hasNext()) {
+			this.size -= eldest.next().size();
+			eldest.remove();
+		}
+	}
+
+	@Override
+	public synchronized void remove(String key) {
+		CachedResponse removed = this.responses.remove(key);
+		if (removed != null) {
+			this.size -= removed.size();
+		}
+	}
+
+	@Override
+	public synchronized long size() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Results of a Feign client method, keyed by the arguments of the method. Results expire
+ * after their time to live and the least recently used ones are evicted when the maximum
+ * number of entries is exceeded. Lookups do not lock: the recency of the results is
+ * tracked per entry, and a single thread at a time evicts a batch of the least recently
+ * used ones, so the cache may briefly hold more entries than its maximum.
+ *
+ * @since 3.0.0
+ */
+public class ResultCache {
+
+	private final long ttlNanos;
+
+	private final int maxEntries;
+
+	private final LongSupplier nanoTime;
+
+	private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+	private final AtomicLong uses = new AtomicLong();
+
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	/**
+	 * @param ttlNanos the time to live of a result, in nanoseconds
+	 * @param maxEntries the maximum number of cached results
+	 */
+	public ResultCache(long ttlNanos, int maxEntries) {
+		this(ttlNanos, maxEntries, System::nanoTime);
+	}
+
+	ResultCache(long ttlNanos, int maxEntries, LongSupplier nanoTime) {
+		this.ttlNanos = ttlNanos;
+		this.maxEntries = maxEntries;
+		this.nanoTime = nanoTime;
+	}
+
+	/**
+	 * @param args the arguments of a call
+	 * @return the cached result of the call, or {@code null} if there is none; a
+	 * cached {@code null} result is returned as {@link ValueWrapper} holding
+	 * {@code null}
+	 */
+	public ValueWrapper get(Object[] args) {
+		// the arguments are only copied when a result is put
+		Key key = new Key(args != null ? args : Key.NO_ARGS);
+		Entry entry = this.entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (this.nanoTime.getAsLong() - entry.expiresAt >= 0) {
+			this.entries.remove(key, entry);
+			return null;
+		}
+		entry.lastUsed = this.uses.incrementAndGet();
+		return entry.value;
+	}
+
+	/**
+	 * @param args the arguments of a call
+	 * @param value the result of the call, may be {@code null}
+	 */
+	public void put(Object[] args, Object value) {
+		long now = this.nanoTime.getAsLong();
+		Entry entry = new Entry(new ValueWrapper(value), now + this.ttlNanos);
+		entry.lastUsed = this.uses.incrementAndGet();
+		this.entries.put(new Key(args != null ? args.clone() : Key.NO_ARGS), entry);
+		if (this.entries.size() > this.maxEntries
+				&& this.evicting.compareAndSet(false, true)) {
+			try {
+				evict(now);
+			}
+			finally {
+				this.evicting.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Evicts the expired results, then the least recently used ones, leaving room for
+	 * a sixteenth of the maximum entries so that evictions are not run on every put.
+	 */
+	private void evict(long now) {
+		List<Map.Entry<Key, Entry>> candidates = new ArrayList<>(this.entries.size());
+		for (Map.Entry<Key, Entry> candidate : this.entries.entrySet()) {
+			if (now - candidate.getValue().expiresAt >= 0) {
+				this.entries.remove(candidate.getKey(), candidate.getValue());
+			}
+			else {
+				candidates.add(candidate);
+			}
+		}
+		int excess = this.entries.size() - (this.maxEntries - this.maxEntries / 16);
+		if (excess <= 0) {
+			return;
+		}
+		candidates.sort(Comparator
+				.comparingLong(candidate -> candidate.getValue().lastUsed));
+		for (int i = 0; i < excess && i < candidates.size(); i++) {
+			Map.Entry<Key, Entry> candidate = candidates.get(i);
+			this.entries.remove(candidate.getKey(), candidate.getValue());
+		}
+	}
+
+	public void clear() {
+		this.entries.clear();
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Holder of a cached result, which can be {@code null}.
+	 */
+	public static final class ValueWrapper {
+
+		private final Object value;
+
+		ValueWrapper(Object value) {
+			this.value = value;
+		}
+
+		public Object get() {
+			return this.value;
+		}
+
+	}
+
+	private static final class Entry {
+
+		private final ValueWrapper value;
+
+		private final long expiresAt;
+
+		private volatile long lastUsed;
+
+		Entry(ValueWrapper value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+	private static final class Key {
+
+		private static final Object[] NO_ARGS = new Object[0];
+
+		private final Object[] args;
+
+		private final int hash;
+
+		Key(Object[] args) {
+			this.args = args;
+			this.hash = Arrays.deepHashCode(args);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return this == o || (o instanceof Key
+					&& Arrays.deepEquals(this.args, ((Key) o).args));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+/**
+ * {@link FeignResponseCache} combining a small, fast first tier with a larger second
+ * tier, typically an {@link InMemoryResponseCache} in front of a
+ * {@link DiskResponseCache}. Responses found in the second tier only are promoted to the
+ * first one, unless they are too large for it.
+ *
+ * @since 3.0.0
+ */
+public class TieredResponseCache implements FeignResponseCache {
+
+	private final FeignResponseCache first;
+
+	private final FeignResponseCache second;
+
+	private final long firstTierMaxEntrySize;
+
+	/**
+	 * @param first the first tier
+	 * @param second the second tier
+	 * @param firstTierMaxEntrySize the maximum size of a response body stored in the
+	 * first tier, in bytes
+	 */
+	public TieredResponseCache(FeignResponseCache first, FeignResponseCache second,
+			long firstTierMaxEntrySize) {
+		this.first = first;
+		this.second = second;
+		this.firstTierMaxEntrySize = firstTierMaxEntrySize;
+	}
+
+	@Override
+	public CachedResponse get(String key) {
+		CachedResponse response = this.first.get(key);
+		if (response == null) {
+			response = this.second.get(key);
+			if (response != null && fitsFirstTier(response)) {
+				this.first.put(key, response);
+			}
+		}
+		return response;
+	}
+
+	@Override
+	public void put(String key, CachedResponse response) {
+		if (fitsFirstTier(response)) {
+			this.first.put(key, response);
+		}
+		else {
+			this.first.remove(key);
+		}
+		this.second.put(key, response);
+	}
+
+	@Override
+	public void revalidate(String key, CachedResponse response) {
+		if (fitsFirstTier(response)) {
+			this.first.put(key, response);
+		}
+		this.second.revalidate(key, response);
+	}
+
+	@Override
+	public void remove(String key) {
+		this.first.remove(key);
+		this.second.remove(key);
+	}
+
+	@Override
+	public long size() {
+		return this.first.size() + this.second.size();
+	}
+
+	private boolean fitsFirstTier(CachedResponse response) {
+		return response.getBody().length <= this.firstTierMaxEntrySize;
+	}
+
+}
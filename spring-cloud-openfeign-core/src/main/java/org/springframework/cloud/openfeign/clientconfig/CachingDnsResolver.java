@@ -0,0 +1,225 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.clientconfig;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * A {@link FeignDnsResolver} caching the addresses of each host name for a time to live.
+ * Once it expired, the cached addresses are still returned while they are resolved again
+ * in the background, and kept if the resolution fails. The addresses are returned in a
+ * rotating order, so that the connections to a host spread over all its addresses
+ * instead of all going to the first one. The addresses that disappear from the host
+ * names are retired, for the transports to close their connections to them.
+ *
+ * @since 3.0.0
+ */
+public class CachingDnsResolver implements FeignDnsResolver, DisposableBean {
+
+	private static final Log LOG = LogFactory.getLog(CachingDnsResolver.class);
+
+	private final HostResolver resolver;
+
+	private final long ttlNanos;
+
+	private final Executor executor;
+
+	private final LongSupplier nanoClock;
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final Set<InetAddress> retired = ConcurrentHashMap.newKeySet();
+
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * @param ttl how long the addresses of a host name are used before being resolved
+	 * again
+	 */
+	public CachingDnsResolver(Duration ttl) {
+		this(InetAddress::getAllByName, ttl, newExecutor(), System::nanoTime);
+	}
+
+	CachingDnsResolver(HostResolver resolver, Duration ttl, Executor executor,
+			LongSupplier nanoClock) {
+		this.resolver = resolver;
+		this.ttlNanos = ttl.toNanos();
+		this.executor = executor;
+		this.nanoClock = nanoClock;
+	}
+
+	private static ExecutorService newExecutor() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+				"feign-dns-");
+		threadFactory.setDaemon(true);
+		return Executors.newSingleThreadExecutor(threadFactory);
+	}
+
+	@Override
+	public List<InetAddress> resolve(String host) throws UnknownHostException {
+		long now = this.nanoClock.getAsLong();
+		Entry entry = this.entries.get(host);
+		if (entry == null) {
+			Entry resolved = new Entry(lookup(host), now);
+			entry = this.entries.putIfAbsent(host, resolved);
+			if (entry == null) {
+				entry = resolved;
+				update(Collections.emptyList(), resolved.addresses);
+			}
+		}
+		else if (now - entry.resolvedAt >= this.ttlNanos
+				&& entry.refreshing.compareAndSet(false, true)) {
+			Entry expired = entry;
+			this.executor.execute(() -> refresh(host, expired));
+		}
+		return entry.rotate();
+	}
+
+	@Override
+	public boolean isRetired(InetAddress address) {
+		return !this.retired.isEmpty() && this.retired.contains(address);
+	}
+
+	@Override
+	public void addRetirementListener(Runnable listener) {
+		this.listeners.add(listener);
+	}
+
+	private List<InetAddress> lookup(String host) throws UnknownHostException {
+		List<InetAddress> addresses = Arrays.asList(this.resolver.resolve(host));
+		if (addresses.isEmpty()) {
+			throw new UnknownHostException(host);
+		}
+		return addresses;
+	}
+
+	private void refresh(String host, Entry entry) {
+		try {
+			List<InetAddress> addresses = lookup(host);
+			List<InetAddress> previous = entry.addresses;
+			entry.addresses = addresses;
+			if (!new HashSet<>(previous).equals(new HashSet<>(addresses))) {
+				update(previous, addresses);
+			}
+		}
+		catch (UnknownHostException e) {
+			// keep using the previous addresses until the host resolves again
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Could not resolve " + host + " again, keeping "
+						+ entry.addresses, e);
+			}
+		}
+		catch (RuntimeException e) {
+			LOG.warn("Could not resolve " + host + " again", e);
+		}
+		finally {
+			entry.resolvedAt = this.nanoClock.getAsLong();
+			entry.refreshing.set(false);
+		}
+	}
+
+	private synchronized void update(List<InetAddress> previous,
+			List<InetAddress> addresses) {
+		this.retired.removeAll(addresses);
+		Set<InetAddress> removed = new HashSet<>(previous);
+		removed.removeAll(addresses);
+		if (removed.isEmpty()) {
+			return;
+		}
+		// an address still used by another host name is not retired
+		for (Entry entry : this.entries.values()) {
+			removed.removeAll(entry.addresses);
+		}
+		if (!removed.isEmpty()) {
+			this.retired.addAll(removed);
+			for (Runnable listener : this.listeners) {
+				listener.run();
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (this.executor instanceof ExecutorService) {
+			((ExecutorService) this.executor).shutdownNow();
+		}
+	}
+
+	/**
+	 * Resolves the addresses of a host name.
+	 */
+	@FunctionalInterface
+	interface HostResolver {
+
+		InetAddress[] resolve(String host) throws UnknownHostException;
+
+	}
+
+	private static final class Entry {
+
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private final AtomicInteger next = new AtomicInteger();
+
+		private volatile List<InetAddress> addresses;
+
+		private volatile long resolvedAt;
+
+		Entry(List<InetAddress> addresses, long resolvedAt) {
+			this.addresses = addresses;
+			this.resolvedAt = resolvedAt;
+		}
+
+		List<InetAddress> rotate() {
+			List<InetAddress> addresses = this.addresses;
+			if (addresses.size() == 1) {
+				return addresses;
+			}
+			int start = Math.floorMod(this.next.getAndIncrement(), addresses.size());
+			List<InetAddress> rotated = new ArrayList<>(addresses.size());
+			rotated.addAll(addresses.subList(start, addresses.size()));
+			rotated.addAll(addresses.subList(0, start));
+			return rotated;
+		}
+
+	}
+
+}
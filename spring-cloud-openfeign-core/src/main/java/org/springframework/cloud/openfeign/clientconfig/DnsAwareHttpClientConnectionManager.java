@@ -0,0 +1,156 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.clientconfig;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpInetConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+
+/**
+ * A {@link PoolingHttpClientConnectionManager} resolving host names with a
+ * {@link FeignDnsResolver}, which closes its connections to the retired addresses: the
+ * idle ones as soon as they are retired, the leased ones when they are released.
+ *
+ * @since 3.0.0
+ */
+public class DnsAwareHttpClientConnectionManager
+		extends PoolingHttpClientConnectionManager {
+
+	private final FeignDnsResolver dnsResolver;
+
+	public DnsAwareHttpClientConnectionManager(
+			Registry<ConnectionSocketFactory> socketFactoryRegistry,
+			FeignDnsResolver dnsResolver, long timeToLive, TimeUnit timeUnit) {
+		super(socketFactoryRegistry, null, null,
+				host -> dnsResolver.resolve(host).toArray(new InetAddress[0]),
+				timeToLive, timeUnit);
+		this.dnsResolver = dnsResolver;
+		dnsResolver.addRetirementListener(this::closeRetiredConnections);
+	}
+
+	/**
+	 * Creates a connection manager configured from the given properties, like the one
+	 * of the default {@code ApacheHttpClientConnectionManagerFactory}.
+	 * @param properties the properties of the HTTP client
+	 * @param registryBuilder the registry of the socket factories, may be {@code null}
+	 * @param dnsResolver the resolver of the host names
+	 * @return the connection manager
+	 */
+	@SuppressWarnings("unchecked")
+	public static DnsAwareHttpClientConnectionManager create(
+			FeignHttpClientProperties properties, RegistryBuilder registryBuilder,
+			FeignDnsResolver dnsResolver) {
+		RegistryBuilder<ConnectionSocketFactory> registry = registryBuilder != null
+				? registryBuilder : RegistryBuilder.create();
+		registry.register("http", PlainConnectionSocketFactory.INSTANCE);
+		if (properties.isDisableSslValidation()) {
+			try {
+				SSLContext sslContext = SSLContext.getInstance("SSL");
+				sslContext.init(null,
+						new TrustManager[] { new DisabledValidationTrustManager() },
+						new SecureRandom());
+				registry.register("https", new SSLConnectionSocketFactory(sslContext,
+						NoopHostnameVerifier.INSTANCE));
+			}
+			catch (GeneralSecurityException e) {
+				throw new IllegalStateException("Could not disable SSL validation", e);
+			}
+		}
+		else {
+			registry.register("https", SSLConnectionSocketFactory.getSocketFactory());
+		}
+		DnsAwareHttpClientConnectionManager connectionManager = new DnsAwareHttpClientConnectionManager(
+				registry.build(), dnsResolver, properties.getTimeToLive(),
+				properties.getTimeToLiveUnit());
+		connectionManager.setMaxTotal(properties.getMaxConnections());
+		connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+		return connectionManager;
+	}
+
+	@Override
+	public void releaseConnection(HttpClientConnection connection, Object state,
+			long keepAlive, TimeUnit timeUnit) {
+		if (isRetired(connection)) {
+			// not reused, so that the requests move to the current addresses
+			try {
+				connection.close();
+			}
+			catch (IOException e) {
+				// released anyway
+			}
+		}
+		super.releaseConnection(connection, state, keepAlive, timeUnit);
+	}
+
+	/**
+	 * Closes the idle connections to the retired addresses.
+	 */
+	public void closeRetiredConnections() {
+		enumAvailable(entry -> {
+			if (isRetired(entry.getConnection())) {
+				entry.close();
+			}
+		});
+	}
+
+	private boolean isRetired(HttpClientConnection connection) {
+		if (!(connection instanceof HttpInetConnection) || !connection.isOpen()) {
+			return false;
+		}
+		InetAddress address = ((HttpInetConnection) connection).getRemoteAddress();
+		return address != null && this.dnsResolver.isRetired(address);
+	}
+
+	private static final class DisabledValidationTrustManager
+			implements X509TrustManager {
+
+		@Override
+		public void checkClientTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		@Override
+		public void checkServerTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		@Override
+		public X509Certificate[] getAcceptedIssuers() {
+			return new X509Certificate[0];
+		}
+
+	}
+
+}
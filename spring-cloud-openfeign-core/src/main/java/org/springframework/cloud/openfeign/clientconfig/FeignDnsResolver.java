@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.clientconfig;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * Resolves the host names the Apache HttpClient and OkHttp transports of Feign clients
+ * connect to, in place of the resolution of the JVM.
+ *
+ * @since 3.0.0
+ * @see CachingDnsResolver
+ */
+public interface FeignDnsResolver {
+
+	/**
+	 * @param host the host name to resolve
+	 * @return the addresses of the host, in the order connections should try them
+	 * @throws UnknownHostException if the host name does not resolve
+	 */
+	List<InetAddress> resolve(String host) throws UnknownHostException;
+
+	/**
+	 * @param address an address connections are open to
+	 * @return whether the address no longer belongs to any of the resolved host names,
+	 * so that the connections open to it should be closed
+	 */
+	default boolean isRetired(InetAddress address) {
+		return false;
+	}
+
+	/**
+	 * @param listener called when addresses are retired
+	 */
+	default void addRetirementListener(Runnable listener) {
+	}
+
+}
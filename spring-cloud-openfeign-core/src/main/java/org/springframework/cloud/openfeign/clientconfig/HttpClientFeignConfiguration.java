@@ -27,6 +27,7 @@ import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -60,9 +61,14 @@ public class HttpClientFeignConfiguration {
 	@ConditionalOnMissingBean(HttpClientConnectionManager.class)
 	public HttpClientConnectionManager connectionManager(
 			ApacheHttpClientConnectionManagerFactory connectionManagerFactory,
-			FeignHttpClientProperties httpClientProperties) {
-		final HttpClientConnectionManager connectionManager = connectionManagerFactory
-				.newConnectionManager(httpClientProperties.isDisableSslValidation(),
+			FeignHttpClientProperties httpClientProperties,
+			ObjectProvider<FeignDnsResolver> dnsResolvers) {
+		FeignDnsResolver dnsResolver = dnsResolvers.getIfAvailable();
+		final HttpClientConnectionManager connectionManager = dnsResolver != null
+				? DnsAwareHttpClientConnectionManager.create(httpClientProperties,
+						this.registryBuilder, dnsResolver)
+				: connectionManagerFactory.newConnectionManager(
+						httpClientProperties.isDisableSslValidation(),
 						httpClientProperties.getMaxConnections(),
 						httpClientProperties.getMaxConnectionsPerRoute(),
 						httpClientProperties.getTimeToLive(),
@@ -23,6 +23,7 @@ import javax.annotation.PreDestroy;
 import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.cloud.commons.httpclient.OkHttpClientConnectionPoolFactory;
 import org.springframework.cloud.commons.httpclient.OkHttpClientFactory;
@@ -58,13 +59,17 @@ public class OkHttpFeignConfiguration {
 	@Bean
 	public okhttp3.OkHttpClient client(OkHttpClientFactory httpClientFactory,
 			ConnectionPool connectionPool,
-			FeignHttpClientProperties httpClientProperties) {
+			FeignHttpClientProperties httpClientProperties,
+			ObjectProvider<FeignDnsResolver> dnsResolvers) {
 		Boolean followRedirects = httpClientProperties.isFollowRedirects();
 		Integer connectTimeout = httpClientProperties.getConnectionTimeout();
-		this.okHttpClient = httpClientFactory
+		okhttp3.OkHttpClient.Builder builder = httpClientFactory
 				.createBuilder(httpClientProperties.isDisableSslValidation())
 				.connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
-				.followRedirects(followRedirects).connectionPool(connectionPool).build();
+				.followRedirects(followRedirects).connectionPool(connectionPool);
+		dnsResolvers.ifAvailable(dnsResolver -> OkHttpFeignDns.configure(builder,
+				connectionPool, dnsResolver));
+		this.okHttpClient = builder.build();
 		return this.okHttpClient;
 	}
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.clientconfig;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dns;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Resolves the host names of an {@link OkHttpClient} with a {@link FeignDnsResolver},
+ * and stops reusing its connections to the retired addresses. The pool cannot evict the
+ * connections to a single address, so all its idle connections are evicted when
+ * addresses are retired, and a network interceptor asks the HTTP/1.1 connections to the
+ * retired addresses to close after their current exchange.
+ *
+ * @since 3.0.0
+ */
+public final class OkHttpFeignDns implements Dns, Interceptor {
+
+	private final FeignDnsResolver dnsResolver;
+
+	private OkHttpFeignDns(FeignDnsResolver dnsResolver) {
+		this.dnsResolver = dnsResolver;
+	}
+
+	/**
+	 * Configures the given builder to resolve host names with the given resolver.
+	 * @param builder the builder of the client
+	 * @param connectionPool the connection pool of the client
+	 * @param dnsResolver the resolver of the host names
+	 * @return the builder
+	 */
+	public static OkHttpClient.Builder configure(OkHttpClient.Builder builder,
+			ConnectionPool connectionPool, FeignDnsResolver dnsResolver) {
+		OkHttpFeignDns dns = new OkHttpFeignDns(dnsResolver);
+		dnsResolver.addRetirementListener(connectionPool::evictAll);
+		return builder.dns(dns).addNetworkInterceptor(dns);
+	}
+
+	@Override
+	public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+		return this.dnsResolver.resolve(hostname);
+	}
+
+	@Override
+	public Response intercept(Chain chain) throws IOException {
+		Request request = chain.request();
+		Connection connection = chain.connection();
+		if (connection != null && this.dnsResolver
+				.isRetired(connection.route().socketAddress().getAddress())) {
+			request = request.newBuilder().header("Connection", "close").build();
+		}
+		return chain.proceed(request);
+	}
+
+}
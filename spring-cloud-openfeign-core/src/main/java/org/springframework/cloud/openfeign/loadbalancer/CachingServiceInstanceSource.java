@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+/**
+ * A {@link ServiceInstanceSource} keeping the instances of each service in memory, and
+ * refreshing them in the background from the {@link ServiceInstanceListSupplier} that
+ * Spring Cloud LoadBalancer configures for the service. Only the first request to a
+ * service waits for its instances, up to the configured timeout; afterwards, getting
+ * the instances never blocks, and a slow refresh does not delay the requests.
+ *
+ * @since 3.0.0
+ */
+public class CachingServiceInstanceSource implements ServiceInstanceSource, DisposableBean {
+
+	private static final Log LOG = LogFactory.getLog(CachingServiceInstanceSource.class);
+
+	private final Function<String, ServiceInstanceListSupplier> suppliers;
+
+	private final Duration refreshInterval;
+
+	private final Duration initialTimeout;
+
+	private final ConcurrentMap<String, CachedInstances> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * @param suppliers the supplier of the instances of each service
+	 * @param refreshInterval the interval between refreshes of the instances
+	 * @param initialTimeout the maximum time the first request to a service waits for
+	 * its instances
+	 */
+	public CachingServiceInstanceSource(
+			Function<String, ServiceInstanceListSupplier> suppliers,
+			Duration refreshInterval, Duration initialTimeout) {
+		this.suppliers = suppliers;
+		this.refreshInterval = refreshInterval;
+		this.initialTimeout = initialTimeout;
+	}
+
+	@Override
+	public List<ServiceInstance> getInstances(String serviceId) {
+		CachedInstances cached = this.cache.get(serviceId);
+		if (cached == null) {
+			cached = this.cache.computeIfAbsent(serviceId, this::subscribe);
+		}
+		return cached.get(this.initialTimeout);
+	}
+
+	@Override
+	public void destroy() {
+		this.cache.values().forEach(CachedInstances::dispose);
+		this.cache.clear();
+	}
+
+	private CachedInstances subscribe(String serviceId) {
+		ServiceInstanceListSupplier supplier = this.suppliers.apply(serviceId);
+		CachedInstances cached = new CachedInstances();
+		cached.subscription = Flux.interval(Duration.ZERO, this.refreshInterval)
+				.onBackpressureDrop()
+				.concatMap(tick -> supplier.get().next().onErrorResume(ex -> {
+					if (LOG.isWarnEnabled()) {
+						LOG.warn("Could not refresh the instances of service "
+								+ serviceId, ex);
+					}
+					return Mono.empty();
+				}), 1)
+				.subscribe(cached::set);
+		return cached;
+	}
+
+	private static final class CachedInstances {
+
+		private final CountDownLatch loaded = new CountDownLatch(1);
+
+		private volatile List<ServiceInstance> instances = Collections.emptyList();
+
+		private volatile Disposable subscription;
+
+		List<ServiceInstance> get(Duration initialTimeout) {
+			if (this.loaded.getCount() > 0) {
+				try {
+					if (!this.loaded.await(initialTimeout.toNanos(),
+							TimeUnit.NANOSECONDS)) {
+						// do not make every request wait for a failing service registry
+						this.loaded.countDown();
+					}
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return this.instances;
+		}
+
+		void set(List<ServiceInstance> instances) {
+			this.instances = instances;
+			this.loaded.countDown();
+		}
+
+		void dispose() {
+			Disposable subscription = this.subscription;
+			if (subscription != null) {
+				subscription.dispose();
+			}
+		}
+
+	}
+
+}
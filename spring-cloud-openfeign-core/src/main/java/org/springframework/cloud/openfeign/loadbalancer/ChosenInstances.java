@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * The instances chosen for the attempts of a call made on several threads, as the
+ * attempts of a hedged call. A {@link FeignBlockingLoadBalancerClient} records the
+ * instance of each attempt, and avoids the instances already chosen for the following
+ * attempts.
+ *
+ * @since 3.0.0
+ */
+public final class ChosenInstances {
+
+	private static final ThreadLocal<ChosenInstances> CURRENT = new ThreadLocal<>();
+
+	private final Set<String> instances = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * @return the instances chosen for the call made by the current thread, or
+	 * {@code null} if there are none
+	 */
+	public static ChosenInstances current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * @param chosen the instances to bind to the current thread
+	 * @return the instances previously bound, to {@link #restore(ChosenInstances)
+	 * restore} once the requests are sent
+	 */
+	public static ChosenInstances bind(ChosenInstances chosen) {
+		ChosenInstances previous = CURRENT.get();
+		CURRENT.set(chosen);
+		return previous;
+	}
+
+	/**
+	 * @param previous the instances previously bound, may be {@code null}
+	 */
+	public static void restore(ChosenInstances previous) {
+		if (previous != null) {
+			CURRENT.set(previous);
+		}
+		else {
+			CURRENT.remove();
+		}
+	}
+
+	/**
+	 * @param instance an instance of the service
+	 * @return whether the instance was chosen for a previous attempt
+	 */
+	public boolean contains(ServiceInstance instance) {
+		return this.instances.contains(key(instance));
+	}
+
+	/**
+	 * @param instance the instance chosen for an attempt
+	 */
+	public void add(ServiceInstance instance) {
+		this.instances.add(key(instance));
+	}
+
+	private static String key(ServiceInstance instance) {
+		return instance.getHost() + ":" + instance.getPort();
+	}
+
+}
@@ -0,0 +1,564 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import feign.Request;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+import org.springframework.util.StringUtils;
+
+/**
+ * A {@link FeignLoadBalancer} choosing between two random instances of the service the
+ * one with the lowest expected latency, based on the latency and the requests in flight
+ * observed for each instance. Failed requests and server errors count as requests
+ * lasting at least the configured failure penalty. With outlier ejection, the instances
+ * failing repeatedly are not chosen for an increasing time, published as the
+ * {@code feign.loadbalancer.ejections} counter and the
+ * {@code feign.loadbalancer.ejected} gauge of each service. With zone affinity, the
+ * instances in the zone of the caller, given by their {@value #ZONE} metadata, are
+ * preferred unless they have too many requests in flight or failing. With slow start,
+ * the instances that appear in the service get a share of the traffic growing over the
+ * configured window. The requests carrying a routing key go to the instance owning the
+ * key on a consistent hash ring, unless it has more requests in flight than the
+ * configured balance factor allows, in which case they go to the next instance of the
+ * ring.
+ *
+ * @since 3.0.0
+ * @see FeignLoadBalancerProperties
+ */
+public class DefaultFeignLoadBalancer implements FeignLoadBalancer {
+
+	/**
+	 * Metadata of the instances holding their zone.
+	 */
+	public static final String ZONE = "zone";
+
+	/**
+	 * Maximum number of draws of a candidate when instances are ramping up.
+	 */
+	private static final int MAX_SAMPLES = 4;
+
+	private final ServiceInstanceSource instances;
+
+	private final FeignLoadBalancerProperties properties;
+
+	private final FeignMetricsRegistrar metrics;
+
+	private final LongSupplier clock;
+
+	private final ConcurrentMap<String, ServiceStatistics> statistics = new ConcurrentHashMap<>();
+
+	public DefaultFeignLoadBalancer(ServiceInstanceSource instances,
+			FeignLoadBalancerProperties properties) {
+		this(instances, properties, FeignMetricsRegistrar.NONE);
+	}
+
+	public DefaultFeignLoadBalancer(ServiceInstanceSource instances,
+			FeignLoadBalancerProperties properties, FeignMetricsRegistrar metrics) {
+		this(instances, properties, metrics, System::nanoTime);
+	}
+
+	DefaultFeignLoadBalancer(ServiceInstanceSource instances,
+			FeignLoadBalancerProperties properties, FeignMetricsRegistrar metrics,
+			LongSupplier clock) {
+		this.instances = instances;
+		this.properties = properties;
+		this.metrics = metrics;
+		this.clock = clock;
+	}
+
+	@Override
+	public ServiceInstance choose(String serviceId, Request request) {
+		List<ServiceInstance> all = this.instances.getInstances(serviceId);
+		if (all == null || all.isEmpty()) {
+			return null;
+		}
+		ServiceStatistics serviceStatistics = getStatistics(serviceId);
+		serviceStatistics.update(all);
+		long now = this.clock.getAsLong();
+		if (this.properties.getSlowStart().isEnabled()) {
+			registerNewInstances(serviceStatistics, all, now);
+		}
+		boolean ejection = this.properties.getOutlierEjection().isEnabled();
+		List<ServiceInstance> candidates = all;
+		if (ejection) {
+			candidates = serviceStatistics.withoutEjected(all, now);
+			// when every instance is ejected, none is
+			candidates = candidates.isEmpty() ? all : candidates;
+		}
+		FeignLoadBalancerProperties.ZoneAffinity zoneAffinity = this.properties
+				.getZoneAffinity();
+		boolean zoned = isZoned(zoneAffinity);
+		if (zoned) {
+			List<ServiceInstance> local = serviceStatistics.inZone(all,
+					zoneAffinity.getZone());
+			if (ejection) {
+				local = serviceStatistics.withoutEjected(local, now);
+			}
+			// spill over to the other zones while the local instances cannot keep up
+			if (!local.isEmpty()
+					&& !serviceStatistics.isOverloaded(local, zoneAffinity, now)) {
+				candidates = local;
+			}
+		}
+		String routingKey = getRoutingKey(request);
+		ServiceInstance chosen = null;
+		if (routingKey != null) {
+			chosen = chooseByKey(serviceStatistics, all, candidates, routingKey);
+		}
+		if (chosen == null) {
+			chosen = choose(serviceStatistics, candidates, now);
+		}
+		if (zoned && zoneAffinity.getZone().equalsIgnoreCase(getZone(chosen))) {
+			serviceStatistics.localRequests.increment();
+		}
+		else if (zoned) {
+			serviceStatistics.remoteRequests.increment();
+		}
+		return chosen;
+	}
+
+	private ServiceInstance choose(ServiceStatistics serviceStatistics,
+			List<ServiceInstance> candidates, long now) {
+		if (candidates.size() == 1) {
+			return candidates.get(0);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = sample(serviceStatistics, candidates, -1, random, now);
+		int second = sample(serviceStatistics, candidates, first, random, now);
+		ServiceInstance a = candidates.get(first);
+		ServiceInstance b = candidates.get(second);
+		return serviceStatistics.cost(a, now) <= serviceStatistics.cost(b, now) ? a : b;
+	}
+
+	/**
+	 * Walks the hash ring from the point owning the key up to the first candidate with
+	 * less requests in flight than the bound of the balance factor, so that the keys of
+	 * an overloaded instance spread over the following ones.
+	 */
+	private ServiceInstance chooseByKey(ServiceStatistics serviceStatistics,
+			List<ServiceInstance> all, List<ServiceInstance> candidates,
+			String routingKey) {
+		FeignLoadBalancerProperties.ConsistentHash consistentHash = this.properties
+				.getConsistentHash();
+		HashRing ring = serviceStatistics.ring(all,
+				consistentHash.getPointsPerInstance());
+		if (ring.size() == 0) {
+			return null;
+		}
+		Set<String> available = null;
+		if (candidates != all) {
+			available = new HashSet<>();
+			for (ServiceInstance instance : candidates) {
+				available.add(key(instance));
+			}
+		}
+		long inFlight = 0;
+		for (ServiceInstance instance : candidates) {
+			inFlight += serviceStatistics.inFlight(instance);
+		}
+		double bound = Math.ceil(
+				consistentHash.getBalanceFactor() * (inFlight + 1) / candidates.size());
+		Set<String> visited = new HashSet<>();
+		int start = ring.ceiling(HashRing.hash(routingKey));
+		for (int i = 0; i < ring.size() && visited.size() < all.size(); i++) {
+			ServiceInstance owner = ring.getOwner((start + i) % ring.size(), all);
+			String key = key(owner);
+			if (!visited.add(key) || available != null && !available.contains(key)) {
+				continue;
+			}
+			if (serviceStatistics.inFlight(owner) + 1 <= bound) {
+				return owner;
+			}
+		}
+		return null;
+	}
+
+	private String getRoutingKey(Request request) {
+		if (request == null) {
+			return null;
+		}
+		String header = this.properties.getConsistentHash().getHeader();
+		for (Map.Entry<String, Collection<String>> entry : request.headers()
+				.entrySet()) {
+			if (entry.getKey().equalsIgnoreCase(header)) {
+				for (String value : entry.getValue()) {
+					if (StringUtils.hasText(value)) {
+						return value;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Draws a random candidate, redrawing the instances still ramping up in proportion
+	 * of the traffic they should not take yet.
+	 */
+	private int sample(ServiceStatistics serviceStatistics,
+			List<ServiceInstance> candidates, int excluded, ThreadLocalRandom random,
+			long now) {
+		FeignLoadBalancerProperties.SlowStart slowStart = this.properties.getSlowStart();
+		int index = 0;
+		for (int i = 0; i < MAX_SAMPLES; i++) {
+			if (excluded < 0) {
+				index = random.nextInt(candidates.size());
+			}
+			else {
+				index = random.nextInt(candidates.size() - 1);
+				index = index >= excluded ? index + 1 : index;
+			}
+			if (!slowStart.isEnabled() || random.nextDouble() < serviceStatistics
+					.weight(candidates.get(index), slowStart, now)) {
+				return index;
+			}
+		}
+		return index;
+	}
+
+	private void registerNewInstances(ServiceStatistics serviceStatistics,
+			List<ServiceInstance> all, long now) {
+		if (sameInstances(serviceStatistics.seen, all)) {
+			return;
+		}
+		// the instances known when the service is first called are not new
+		long firstSeen = serviceStatistics.seen != null ? now
+				: now - this.properties.getSlowStart().getWindow().toNanos();
+		for (ServiceInstance instance : all) {
+			serviceStatistics.instances.computeIfAbsent(key(instance),
+					key -> newStatistics(firstSeen));
+		}
+		serviceStatistics.seen = all;
+	}
+
+	@Override
+	public void onRequest(String serviceId, ServiceInstance instance) {
+		getStatistics(serviceId).instances
+				.computeIfAbsent(key(instance),
+						key -> newStatistics(this.clock.getAsLong()))
+				.onRequest();
+	}
+
+	@Override
+	public void onResponse(String serviceId, ServiceInstance instance, int status,
+			long latencyNanos) {
+		ServiceStatistics serviceStatistics = getStatistics(serviceId);
+		InstanceStatistics instanceStatistics = serviceStatistics.instances
+				.get(key(instance));
+		if (instanceStatistics == null) {
+			return;
+		}
+		boolean failure = status < 0 || status >= 500;
+		long latency = latencyNanos;
+		if (failure) {
+			latency = Math.max(latency,
+					this.properties.getFailurePenalty().toNanos());
+		}
+		long now = this.clock.getAsLong();
+		instanceStatistics.onResponse(latency, now);
+		FeignLoadBalancerProperties.OutlierEjection ejection = this.properties
+				.getOutlierEjection();
+		if (ejection.isEnabled() || isZoned(this.properties.getZoneAffinity())) {
+			instanceStatistics.onOutcome(failure, now);
+		}
+		if (ejection.isEnabled() && failure
+				&& isOutlier(instanceStatistics, ejection, now)) {
+			serviceStatistics.eject(instanceStatistics, ejection, now);
+		}
+	}
+
+	private ServiceStatistics getStatistics(String serviceId) {
+		ServiceStatistics serviceStatistics = this.statistics.get(serviceId);
+		if (serviceStatistics == null) {
+			serviceStatistics = this.statistics.computeIfAbsent(serviceId,
+					this::newServiceStatistics);
+		}
+		return serviceStatistics;
+	}
+
+	private ServiceStatistics newServiceStatistics(String serviceId) {
+		ServiceStatistics serviceStatistics = new ServiceStatistics();
+		if (this.properties.getOutlierEjection().isEnabled()) {
+			this.metrics.counter("feign.loadbalancer.ejections",
+					"Ejections of failing instances", serviceStatistics.ejections::sum,
+					"service", serviceId);
+			this.metrics.gauge("feign.loadbalancer.ejected",
+					"Instances currently ejected",
+					() -> serviceStatistics.countEjected(this.clock.getAsLong()),
+					"service", serviceId);
+		}
+		if (isZoned(this.properties.getZoneAffinity())) {
+			String description = "Requests sent to the zone of the caller, or to another one";
+			this.metrics.counter("feign.loadbalancer.zone.requests", description,
+					serviceStatistics.localRequests::sum, "service", serviceId,
+					"locality", "local");
+			this.metrics.counter("feign.loadbalancer.zone.requests", description,
+					serviceStatistics.remoteRequests::sum, "service", serviceId,
+					"locality", "remote");
+		}
+		return serviceStatistics;
+	}
+
+	private InstanceStatistics newStatistics(long firstSeen) {
+		return new InstanceStatistics(this.properties.getDecayTime().toNanos(),
+				this.properties.getOutlierEjection().getWindow().toNanos(),
+				this.clock.getAsLong(), firstSeen);
+	}
+
+	private static boolean isOutlier(InstanceStatistics instanceStatistics,
+			FeignLoadBalancerProperties.OutlierEjection ejection, long now) {
+		if (instanceStatistics.getConsecutiveFailures() >= ejection
+				.getConsecutiveFailures()) {
+			return true;
+		}
+		long[] outcomes = instanceStatistics.getOutcomes(now);
+		return outcomes[0] >= ejection.getMinimumRequests()
+				&& outcomes[1] * 100.0 >= outcomes[0] * ejection.getFailureRateThreshold();
+	}
+
+	private static boolean isZoned(FeignLoadBalancerProperties.ZoneAffinity zoneAffinity) {
+		return zoneAffinity.isEnabled() && StringUtils.hasText(zoneAffinity.getZone());
+	}
+
+	static String getZone(ServiceInstance instance) {
+		Map<String, String> metadata = instance.getMetadata();
+		return metadata != null ? metadata.get(ZONE) : null;
+	}
+
+	static String key(ServiceInstance instance) {
+		return instance.getHost() + ":" + instance.getPort();
+	}
+
+	/**
+	 * Compares the instances of a service by their host, port and zone, as the instance
+	 * sources may return a new list on each call even when the instances are unchanged.
+	 * What is derived from equal lists must still be resolved against the new one, which
+	 * may hold other schemes or metadata.
+	 * @param first some instances of a service
+	 * @param second other instances of the service
+	 * @return whether both lists hold the same instances in the same order
+	 */
+	static boolean sameInstances(List<ServiceInstance> first,
+			List<ServiceInstance> second) {
+		if (first == second) {
+			return true;
+		}
+		if (first == null || second == null || first.size() != second.size()) {
+			return false;
+		}
+		for (int i = 0; i < first.size(); i++) {
+			ServiceInstance one = first.get(i);
+			ServiceInstance other = second.get(i);
+			if (one.getPort() != other.getPort()
+					|| !Objects.equals(one.getHost(), other.getHost())
+					|| !Objects.equals(getZone(one), getZone(other))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The statistics of the instances of a service.
+	 */
+	private static final class ServiceStatistics {
+
+		private final ConcurrentMap<String, InstanceStatistics> instances = new ConcurrentHashMap<>();
+
+		private final LongAdder ejections = new LongAdder();
+
+		private final LongAdder localRequests = new LongAdder();
+
+		private final LongAdder remoteRequests = new LongAdder();
+
+		private volatile int size;
+
+		private volatile ZoneInstances zoneInstances;
+
+		private volatile List<ServiceInstance> seen;
+
+		private volatile HashRing ring;
+
+		void update(List<ServiceInstance> candidates) {
+			this.size = candidates.size();
+			// forget the instances that left the service, but only once enough did
+			if (this.instances.size() > 2 * candidates.size() + 16) {
+				Set<String> keys = new HashSet<>();
+				for (ServiceInstance instance : candidates) {
+					keys.add(key(instance));
+				}
+				this.instances.keySet().retainAll(keys);
+			}
+		}
+
+		double weight(ServiceInstance instance,
+				FeignLoadBalancerProperties.SlowStart slowStart, long now) {
+			InstanceStatistics instanceStatistics = this.instances.get(key(instance));
+			return instanceStatistics != null ? instanceStatistics.getSlowStartWeight(
+					now, slowStart.getWindow().toNanos(), slowStart.getAggression(),
+					slowStart.getMinWeightPercent() / 100) : 1;
+		}
+
+		HashRing ring(List<ServiceInstance> all, int points) {
+			HashRing ring = HashRing.build(this.ring, all, points);
+			this.ring = ring;
+			return ring;
+		}
+
+		int inFlight(ServiceInstance instance) {
+			InstanceStatistics instanceStatistics = this.instances.get(key(instance));
+			return instanceStatistics != null ? instanceStatistics.getInFlight() : 0;
+		}
+
+		double cost(ServiceInstance instance, long now) {
+			InstanceStatistics instanceStatistics = this.instances.get(key(instance));
+			return instanceStatistics != null ? instanceStatistics.getCost(now) : 0;
+		}
+
+		List<ServiceInstance> withoutEjected(List<ServiceInstance> candidates,
+				long now) {
+			List<ServiceInstance> available = null;
+			for (int i = 0; i < candidates.size(); i++) {
+				InstanceStatistics instanceStatistics = this.instances
+						.get(key(candidates.get(i)));
+				boolean ejected = instanceStatistics != null
+						&& instanceStatistics.isEjected(now);
+				if (ejected && available == null) {
+					available = new ArrayList<>(candidates.subList(0, i));
+				}
+				else if (!ejected && available != null) {
+					available.add(candidates.get(i));
+				}
+			}
+			return available != null ? available : candidates;
+		}
+
+		List<ServiceInstance> inZone(List<ServiceInstance> candidates, String zone) {
+			ZoneInstances zoneInstances = this.zoneInstances;
+			if (zoneInstances != null && zoneInstances.all == candidates
+					&& zoneInstances.zone.equals(zone)) {
+				return zoneInstances.local;
+			}
+			int[] indexes;
+			if (zoneInstances != null && zoneInstances.zone.equals(zone)
+					&& sameInstances(zoneInstances.all, candidates)) {
+				indexes = zoneInstances.indexes;
+			}
+			else {
+				int[] matching = new int[candidates.size()];
+				int size = 0;
+				for (int i = 0; i < candidates.size(); i++) {
+					if (zone.equalsIgnoreCase(getZone(candidates.get(i)))) {
+						matching[size++] = i;
+					}
+				}
+				indexes = Arrays.copyOf(matching, size);
+			}
+			// taken from the new list, which may hold new schemes or metadata
+			List<ServiceInstance> local = new ArrayList<>(indexes.length);
+			for (int index : indexes) {
+				local.add(candidates.get(index));
+			}
+			this.zoneInstances = new ZoneInstances(candidates, zone, indexes, local);
+			return local;
+		}
+
+		boolean isOverloaded(List<ServiceInstance> candidates,
+				FeignLoadBalancerProperties.ZoneAffinity zoneAffinity, long now) {
+			long inFlight = 0;
+			long requests = 0;
+			long failures = 0;
+			for (ServiceInstance instance : candidates) {
+				InstanceStatistics instanceStatistics = this.instances.get(key(instance));
+				if (instanceStatistics != null) {
+					inFlight += instanceStatistics.getInFlight();
+					long[] outcomes = instanceStatistics.getOutcomes(now);
+					requests += outcomes[0];
+					failures += outcomes[1];
+				}
+			}
+			if (inFlight >= (long) zoneAffinity.getMaxInFlightPerInstance()
+					* candidates.size()) {
+				return true;
+			}
+			return requests >= zoneAffinity.getMinimumRequests() && failures
+					* 100.0 >= requests * zoneAffinity.getFailureRateThreshold();
+		}
+
+		synchronized void eject(InstanceStatistics instanceStatistics,
+				FeignLoadBalancerProperties.OutlierEjection ejection, long now) {
+			if (instanceStatistics.isEjected(now)) {
+				return;
+			}
+			if (countEjected(now) + 1 > this.size * ejection.getMaxEjectionPercent()
+					/ 100) {
+				return;
+			}
+			instanceStatistics.eject(now, ejection.getBaseEjectionTime().toNanos(),
+					ejection.getMaxEjectionTime().toNanos());
+			this.ejections.increment();
+		}
+
+		int countEjected(long now) {
+			int ejected = 0;
+			for (InstanceStatistics instanceStatistics : this.instances.values()) {
+				if (instanceStatistics.isEjected(now)) {
+					ejected++;
+				}
+			}
+			return ejected;
+		}
+
+	}
+
+	private static final class ZoneInstances {
+
+		private final List<ServiceInstance> all;
+
+		private final String zone;
+
+		private final int[] indexes;
+
+		private final List<ServiceInstance> local;
+
+		ZoneInstances(List<ServiceInstance> all, String zone, int[] indexes,
+				List<ServiceInstance> local) {
+			this.all = all;
+			this.zone = zone;
+			this.indexes = indexes;
+			this.local = local;
+		}
+
+	}
+
+}
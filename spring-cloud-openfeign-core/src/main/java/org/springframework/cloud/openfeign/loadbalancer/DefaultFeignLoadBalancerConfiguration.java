@@ -18,6 +18,7 @@ package org.springframework.cloud.openfeign.loadbalancer;
 
 import feign.Client;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.context.annotation.Bean;
@@ -35,9 +36,10 @@ class DefaultFeignLoadBalancerConfiguration {
 
 	@Bean
 	@ConditionalOnMissingBean
-	public Client feignClient(LoadBalancerClient loadBalancerClient) {
+	public Client feignClient(LoadBalancerClient loadBalancerClient,
+			ObjectProvider<FeignLoadBalancer> feignLoadBalancer) {
 		return new FeignBlockingLoadBalancerClient(new Client.Default(null, null),
-				loadBalancerClient);
+				loadBalancerClient, feignLoadBalancer.getIfAvailable());
 	}
 
 }
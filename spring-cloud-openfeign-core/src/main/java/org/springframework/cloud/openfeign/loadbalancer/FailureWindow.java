@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the requests and the failures of an instance over a sliding window of time,
+ * split into buckets. Each bucket packs its time stamp and both counts into a single
+ * {@code long}, so that recording an outcome is a single compare-and-set.
+ */
+final class FailureWindow {
+
+	private static final int COUNT_BITS = 20;
+
+	private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+	private static final int EPOCH_SHIFT = 2 * COUNT_BITS;
+
+	private static final long EPOCH_MASK = (1L << (Long.SIZE - EPOCH_SHIFT)) - 1;
+
+	private final AtomicLongArray buckets;
+
+	private final long bucketNanos;
+
+	FailureWindow(long windowNanos, int bucketCount) {
+		this.buckets = new AtomicLongArray(bucketCount);
+		this.bucketNanos = Math.max(windowNanos / bucketCount, 1);
+	}
+
+	void record(boolean failure, long now) {
+		long epoch = Math.floorDiv(now, this.bucketNanos);
+		int index = (int) Math.floorMod(epoch, (long) this.buckets.length());
+		long stamp = epoch & EPOCH_MASK;
+		long current;
+		long next;
+		do {
+			current = this.buckets.get(index);
+			long requests = 0;
+			long failures = 0;
+			if ((current >>> EPOCH_SHIFT) == stamp) {
+				requests = (current >>> COUNT_BITS) & COUNT_MASK;
+				failures = current & COUNT_MASK;
+			}
+			// saturate rather than overflow into the time stamp
+			requests = Math.min(requests + 1, COUNT_MASK);
+			failures = failure ? Math.min(failures + 1, COUNT_MASK) : failures;
+			next = (stamp << EPOCH_SHIFT) | (requests << COUNT_BITS) | failures;
+		}
+		while (!this.buckets.compareAndSet(index, current, next));
+	}
+
+	/**
+	 * @param now the current time
+	 * @return the number of requests and the number of failures in the window
+	 */
+	long[] getCounts(long now) {
+		long epoch = Math.floorDiv(now, this.bucketNanos);
+		long requests = 0;
+		long failures = 0;
+		for (int i = 0; i < this.buckets.length(); i++) {
+			long bucket = this.buckets.get(i);
+			long age = (epoch - (bucket >>> EPOCH_SHIFT)) & EPOCH_MASK;
+			if (age < this.buckets.length()) {
+				requests += (bucket >>> COUNT_BITS) & COUNT_MASK;
+				failures += bucket & COUNT_MASK;
+			}
+		}
+		return new long[] { requests, failures };
+	}
+
+	void reset() {
+		for (int i = 0; i < this.buckets.length(); i++) {
+			this.buckets.set(i, 0);
+		}
+	}
+
+}
@@ -43,39 +43,152 @@ public class FeignBlockingLoadBalancerClient implements Client {
 	private static final Log LOG = LogFactory
 			.getLog(FeignBlockingLoadBalancerClient.class);
 
+	/**
+	 * Number of times the load balancer is asked for an instance that was not chosen
+	 * yet.
+	 */
+	private static final int CHOOSE_ATTEMPTS = 3;
+
 	private final Client delegate;
 
 	private final LoadBalancerClient loadBalancerClient;
 
+	private final LoadBalancedUrlRewriter urlRewriter;
+
+	private final FeignLoadBalancer feignLoadBalancer;
+
 	public FeignBlockingLoadBalancerClient(Client delegate,
 			LoadBalancerClient loadBalancerClient) {
+		this(delegate, loadBalancerClient, (FeignLoadBalancer) null);
+	}
+
+	/**
+	 * @param delegate the client sending the requests to the chosen instances
+	 * @param loadBalancerClient the client reconstructing the URIs of the instances,
+	 * and choosing them if {@code feignLoadBalancer} is {@code null}
+	 * @param feignLoadBalancer the load balancer choosing the instances, may be
+	 * {@code null}
+	 * @since 3.0.0
+	 */
+	public FeignBlockingLoadBalancerClient(Client delegate,
+			LoadBalancerClient loadBalancerClient, FeignLoadBalancer feignLoadBalancer) {
+		this(delegate, loadBalancerClient,
+				LoadBalancedUrlRewriter.supports(loadBalancerClient)
+						? new LoadBalancedUrlRewriter() : null,
+				feignLoadBalancer);
+	}
+
+	FeignBlockingLoadBalancerClient(Client delegate,
+			LoadBalancerClient loadBalancerClient, LoadBalancedUrlRewriter urlRewriter) {
+		this(delegate, loadBalancerClient, urlRewriter, null);
+	}
+
+	private FeignBlockingLoadBalancerClient(Client delegate,
+			LoadBalancerClient loadBalancerClient, LoadBalancedUrlRewriter urlRewriter,
+			FeignLoadBalancer feignLoadBalancer) {
 		this.delegate = delegate;
 		this.loadBalancerClient = loadBalancerClient;
+		this.urlRewriter = urlRewriter;
+		this.feignLoadBalancer = feignLoadBalancer;
 	}
 
 	@Override
 	public Response execute(Request request, Request.Options options) throws IOException {
-		final URI originalUri = URI.create(request.url());
-		String serviceId = originalUri.getHost();
-		Assert.state(serviceId != null,
-				"Request URI does not contain a valid hostname: " + originalUri);
-		ServiceInstance instance = loadBalancerClient.choose(serviceId);
+		String serviceId = getServiceId(request);
+		ServiceInstance instance = choose(serviceId, request);
 		if (instance == null) {
-			String message = "Load balancer does not contain an instance for the service "
-					+ serviceId;
-			if (LOG.isWarnEnabled()) {
-				LOG.warn(message);
+			return noInstanceResponse(request, serviceId);
+		}
+		return execute(request, serviceId, instance, options);
+	}
+
+	ServiceInstance choose(String serviceId, Request request) {
+		ServiceInstance pinned = PinnedInstance.get();
+		if (pinned != null) {
+			return pinned;
+		}
+		ChosenInstances chosen = ChosenInstances.current();
+		if (chosen == null) {
+			return chooseAny(serviceId, request);
+		}
+		ServiceInstance instance = null;
+		for (int i = 0; i < CHOOSE_ATTEMPTS; i++) {
+			instance = chooseAny(serviceId, request);
+			if (instance == null || !chosen.contains(instance)) {
+				break;
+			}
+		}
+		if (instance != null) {
+			chosen.add(instance);
+		}
+		return instance;
+	}
+
+	private ServiceInstance chooseAny(String serviceId, Request request) {
+		return feignLoadBalancer != null ? feignLoadBalancer.choose(serviceId, request)
+				: loadBalancerClient.choose(serviceId);
+	}
+
+	Response execute(Request request, String serviceId, ServiceInstance instance,
+			Request.Options options) throws IOException {
+		Request reconstructed = reconstructRequest(request, instance);
+		ServiceInstance previous = RequestInstance.bind(instance);
+		try {
+			if (feignLoadBalancer == null) {
+				return delegate.execute(reconstructed, options);
+			}
+			feignLoadBalancer.onRequest(serviceId, instance);
+			long start = System.nanoTime();
+			int status = -1;
+			try {
+				Response response = delegate.execute(reconstructed, options);
+				status = response.status();
+				return response;
 			}
-			return Response.builder().request(request)
-					.status(HttpStatus.SERVICE_UNAVAILABLE.value())
-					.body(message, StandardCharsets.UTF_8).build();
+			finally {
+				feignLoadBalancer.onResponse(serviceId, instance, status,
+						System.nanoTime() - start);
+			}
+		}
+		finally {
+			RequestInstance.restore(previous);
+		}
+	}
+
+	String getServiceId(Request request) {
+		String serviceId = urlRewriter != null
+				? urlRewriter.getServiceId(request.url()) : null;
+		if (serviceId != null) {
+			return serviceId;
 		}
-		String reconstructedUrl = loadBalancerClient.reconstructURI(instance, originalUri)
-				.toString();
-		Request newRequest = Request.create(request.httpMethod(), reconstructedUrl,
-				request.headers(), request.body(), request.charset(),
-				request.requestTemplate());
-		return delegate.execute(newRequest, options);
+		URI originalUri = URI.create(request.url());
+		serviceId = originalUri.getHost();
+		Assert.state(serviceId != null,
+				"Request URI does not contain a valid hostname: " + originalUri);
+		return serviceId;
+	}
+
+	Request reconstructRequest(Request request, ServiceInstance instance) {
+		String reconstructedUrl = urlRewriter != null
+				? urlRewriter.rewrite(request.url(), instance) : null;
+		if (reconstructedUrl == null) {
+			reconstructedUrl = loadBalancerClient
+					.reconstructURI(instance, URI.create(request.url())).toString();
+		}
+		// the headers and the body are shared with the original request
+		return Request.create(request.httpMethod(), reconstructedUrl, request.headers(),
+				request.requestBody(), request.requestTemplate());
+	}
+
+	static Response noInstanceResponse(Request request, String serviceId) {
+		String message = "Load balancer does not contain an instance for the service "
+				+ serviceId;
+		if (LOG.isWarnEnabled()) {
+			LOG.warn(message);
+		}
+		return Response.builder().request(request)
+				.status(HttpStatus.SERVICE_UNAVAILABLE.value())
+				.body(message, StandardCharsets.UTF_8).build();
 	}
 
 	// Visible for Sleuth instrumentation
@@ -83,4 +196,15 @@ public class FeignBlockingLoadBalancerClient implements Client {
 		return delegate;
 	}
 
+	/**
+	 * @param delegate the client sending the requests to the chosen instances
+	 * @return a client load balancing the requests like this one, but sending them
+	 * through the given client
+	 * @since 3.0.0
+	 */
+	public FeignBlockingLoadBalancerClient withDelegate(Client delegate) {
+		return new FeignBlockingLoadBalancerClient(delegate, loadBalancerClient,
+				urlRewriter, feignLoadBalancer);
+	}
+
 }
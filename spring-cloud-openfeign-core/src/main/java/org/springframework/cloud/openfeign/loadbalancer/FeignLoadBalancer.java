@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import feign.Request;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+
+/**
+ * Chooses the instances the requests of {@link FeignBlockingLoadBalancerClient} are
+ * sent to, instead of {@link LoadBalancerClient#choose(String)}, and is told about the
+ * outcome of each request so that later choices can take it into account.
+ *
+ * @since 3.0.0
+ */
+public interface FeignLoadBalancer {
+
+	/**
+	 * @param serviceId the id of the service the request is sent to
+	 * @param request the request
+	 * @return the instance to send the request to, or {@code null} if the service has
+	 * no available instance
+	 */
+	ServiceInstance choose(String serviceId, Request request);
+
+	/**
+	 * Called before a request is sent to an instance.
+	 * @param serviceId the id of the service
+	 * @param instance the instance the request is sent to
+	 */
+	default void onRequest(String serviceId, ServiceInstance instance) {
+	}
+
+	/**
+	 * Called once the response of an instance is received, or its request failed.
+	 * @param serviceId the id of the service
+	 * @param instance the instance the request was sent to
+	 * @param status the status of the response, or {@code -1} if the request failed
+	 * @param latencyNanos the time until the response was received, or the request
+	 * failed
+	 */
+	default void onResponse(String serviceId, ServiceInstance instance, int status,
+			long latencyNanos) {
+	}
+
+}
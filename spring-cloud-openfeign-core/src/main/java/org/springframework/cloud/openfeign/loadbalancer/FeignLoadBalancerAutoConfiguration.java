@@ -19,15 +19,25 @@ package org.springframework.cloud.openfeign.loadbalancer;
 import feign.Client;
 import feign.Feign;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
 import org.springframework.cloud.openfeign.FeignAutoConfiguration;
 import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
 
 /**
  * An autoconfiguration that instantiates {@link LoadBalancerClient}-based implementations
@@ -39,7 +49,8 @@ import org.springframework.context.annotation.Import;
 @ConditionalOnClass(Feign.class)
 @ConditionalOnBean(LoadBalancerClient.class)
 @AutoConfigureBefore(FeignAutoConfiguration.class)
-@EnableConfigurationProperties(FeignHttpClientProperties.class)
+@EnableConfigurationProperties({ FeignHttpClientProperties.class,
+		FeignLoadBalancerProperties.class })
 @Configuration(proxyBeanMethods = false)
 // Order is important here, last should be the default, first should be optional
 // see
@@ -49,4 +60,49 @@ import org.springframework.context.annotation.Import;
 		DefaultFeignLoadBalancerConfiguration.class })
 public class FeignLoadBalancerAutoConfiguration {
 
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty("feign.loadbalancer.enabled")
+	protected static class FeignLoadBalancerSelectionConfiguration {
+
+		@Configuration(proxyBeanMethods = false)
+		@ConditionalOnClass(ServiceInstanceListSupplier.class)
+		protected static class CachingServiceInstanceSourceConfiguration {
+
+			@Bean
+			@ConditionalOnMissingBean
+			public ServiceInstanceSource cachingFeignServiceInstanceSource(
+					LoadBalancerClientFactory loadBalancerClientFactory,
+					FeignLoadBalancerProperties properties) {
+				return new CachingServiceInstanceSource(
+						serviceId -> loadBalancerClientFactory.getInstance(serviceId,
+								ServiceInstanceListSupplier.class),
+						properties.getRefreshInterval(), properties.getInitialTimeout());
+			}
+
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public ServiceInstanceSource feignServiceInstanceSource(
+				DiscoveryClient discoveryClient) {
+			return discoveryClient::getInstances;
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public FeignLoadBalancer feignLoadBalancer(ServiceInstanceSource instances,
+				FeignLoadBalancerProperties properties,
+				ObjectProvider<FeignMetricsRegistrar> metrics, Environment environment) {
+			FeignLoadBalancerProperties.ZoneAffinity zoneAffinity = properties
+					.getZoneAffinity();
+			if (!StringUtils.hasText(zoneAffinity.getZone())) {
+				zoneAffinity.setZone(
+						environment.getProperty("spring.cloud.loadbalancer.zone"));
+			}
+			return new DefaultFeignLoadBalancer(instances, properties,
+					metrics.getIfAvailable(() -> FeignMetricsRegistrar.NONE));
+		}
+
+	}
+
 }
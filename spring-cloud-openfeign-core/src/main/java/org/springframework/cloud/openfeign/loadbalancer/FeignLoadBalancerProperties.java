@@ -0,0 +1,436 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.openfeign.RoutingKey;
+
+/**
+ * Properties of the {@link FeignLoadBalancer} of load-balanced Feign clients.
+ *
+ * @since 3.0.0
+ */
+@ConfigurationProperties("feign.loadbalancer")
+public class FeignLoadBalancerProperties {
+
+	/**
+	 * Whether Feign clients choose instances by their observed latency, instead of the
+	 * choice of the LoadBalancerClient.
+	 */
+	private boolean enabled;
+
+	/**
+	 * Time over which the observed latency of an instance forgets older requests.
+	 */
+	private Duration decayTime = Duration.ofSeconds(10);
+
+	/**
+	 * Minimum latency recorded for failed requests and server errors.
+	 */
+	private Duration failurePenalty = Duration.ofSeconds(1);
+
+	/**
+	 * Interval between refreshes of the instances cached for each service, when Spring
+	 * Cloud LoadBalancer provides them.
+	 */
+	private Duration refreshInterval = Duration.ofSeconds(5);
+
+	/**
+	 * Maximum time the first request to a service waits for its instances.
+	 */
+	private Duration initialTimeout = Duration.ofSeconds(1);
+
+	private OutlierEjection outlierEjection = new OutlierEjection();
+
+	private ZoneAffinity zoneAffinity = new ZoneAffinity();
+
+	private SlowStart slowStart = new SlowStart();
+
+	private ConsistentHash consistentHash = new ConsistentHash();
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getDecayTime() {
+		return this.decayTime;
+	}
+
+	public void setDecayTime(Duration decayTime) {
+		this.decayTime = decayTime;
+	}
+
+	public Duration getFailurePenalty() {
+		return this.failurePenalty;
+	}
+
+	public void setFailurePenalty(Duration failurePenalty) {
+		this.failurePenalty = failurePenalty;
+	}
+
+	public Duration getRefreshInterval() {
+		return this.refreshInterval;
+	}
+
+	public void setRefreshInterval(Duration refreshInterval) {
+		this.refreshInterval = refreshInterval;
+	}
+
+	public Duration getInitialTimeout() {
+		return this.initialTimeout;
+	}
+
+	public void setInitialTimeout(Duration initialTimeout) {
+		this.initialTimeout = initialTimeout;
+	}
+
+	public OutlierEjection getOutlierEjection() {
+		return this.outlierEjection;
+	}
+
+	public void setOutlierEjection(OutlierEjection outlierEjection) {
+		this.outlierEjection = outlierEjection;
+	}
+
+	public ZoneAffinity getZoneAffinity() {
+		return this.zoneAffinity;
+	}
+
+	public void setZoneAffinity(ZoneAffinity zoneAffinity) {
+		this.zoneAffinity = zoneAffinity;
+	}
+
+	public SlowStart getSlowStart() {
+		return this.slowStart;
+	}
+
+	public void setSlowStart(SlowStart slowStart) {
+		this.slowStart = slowStart;
+	}
+
+	public ConsistentHash getConsistentHash() {
+		return this.consistentHash;
+	}
+
+	public void setConsistentHash(ConsistentHash consistentHash) {
+		this.consistentHash = consistentHash;
+	}
+
+	/**
+	 * Ejection of the instances whose requests fail, until they recover.
+	 */
+	public static class OutlierEjection {
+
+		/**
+		 * Whether failing instances are ejected.
+		 */
+		private boolean enabled;
+
+		/**
+		 * Number of consecutive failures after which an instance is ejected.
+		 */
+		private int consecutiveFailures = 5;
+
+		/**
+		 * Percentage of failed requests over the window after which an instance is
+		 * ejected.
+		 */
+		private double failureRateThreshold = 50;
+
+		/**
+		 * Minimum number of requests over the window before the failure rate of an
+		 * instance is considered.
+		 */
+		private int minimumRequests = 10;
+
+		/**
+		 * Time window over which the failure rate is computed.
+		 */
+		private Duration window = Duration.ofSeconds(10);
+
+		/**
+		 * Time an instance is ejected for the first time. It doubles with each ejection
+		 * following the previous one by less than the maximum ejection time.
+		 */
+		private Duration baseEjectionTime = Duration.ofSeconds(30);
+
+		/**
+		 * Maximum time an instance is ejected.
+		 */
+		private Duration maxEjectionTime = Duration.ofMinutes(5);
+
+		/**
+		 * Maximum percentage of the instances of a service that are ejected at the same
+		 * time.
+		 */
+		private double maxEjectionPercent = 50;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getConsecutiveFailures() {
+			return this.consecutiveFailures;
+		}
+
+		public void setConsecutiveFailures(int consecutiveFailures) {
+			this.consecutiveFailures = consecutiveFailures;
+		}
+
+		public double getFailureRateThreshold() {
+			return this.failureRateThreshold;
+		}
+
+		public void setFailureRateThreshold(double failureRateThreshold) {
+			this.failureRateThreshold = failureRateThreshold;
+		}
+
+		public int getMinimumRequests() {
+			return this.minimumRequests;
+		}
+
+		public void setMinimumRequests(int minimumRequests) {
+			this.minimumRequests = minimumRequests;
+		}
+
+		public Duration getWindow() {
+			return this.window;
+		}
+
+		public void setWindow(Duration window) {
+			this.window = window;
+		}
+
+		public Duration getBaseEjectionTime() {
+			return this.baseEjectionTime;
+		}
+
+		public void setBaseEjectionTime(Duration baseEjectionTime) {
+			this.baseEjectionTime = baseEjectionTime;
+		}
+
+		public Duration getMaxEjectionTime() {
+			return this.maxEjectionTime;
+		}
+
+		public void setMaxEjectionTime(Duration maxEjectionTime) {
+			this.maxEjectionTime = maxEjectionTime;
+		}
+
+		public double getMaxEjectionPercent() {
+			return this.maxEjectionPercent;
+		}
+
+		public void setMaxEjectionPercent(double maxEjectionPercent) {
+			this.maxEjectionPercent = maxEjectionPercent;
+		}
+
+	}
+
+	/**
+	 * Preference for the instances in the zone of the caller.
+	 */
+	public static class ZoneAffinity {
+
+		/**
+		 * Whether the instances in the zone of the caller are preferred.
+		 */
+		private boolean enabled;
+
+		/**
+		 * Zone of the caller. Defaults to spring.cloud.loadbalancer.zone.
+		 */
+		private String zone;
+
+		/**
+		 * Average number of requests in flight to the local instances over which
+		 * requests are sent to all zones.
+		 */
+		private int maxInFlightPerInstance = 20;
+
+		/**
+		 * Percentage of failed requests to the local instances over which requests are
+		 * sent to all zones.
+		 */
+		private double failureRateThreshold = 25;
+
+		/**
+		 * Minimum number of requests to the local instances over the outlier ejection
+		 * window before their failure rate is considered.
+		 */
+		private int minimumRequests = 10;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getZone() {
+			return this.zone;
+		}
+
+		public void setZone(String zone) {
+			this.zone = zone;
+		}
+
+		public int getMaxInFlightPerInstance() {
+			return this.maxInFlightPerInstance;
+		}
+
+		public void setMaxInFlightPerInstance(int maxInFlightPerInstance) {
+			this.maxInFlightPerInstance = maxInFlightPerInstance;
+		}
+
+		public double getFailureRateThreshold() {
+			return this.failureRateThreshold;
+		}
+
+		public void setFailureRateThreshold(double failureRateThreshold) {
+			this.failureRateThreshold = failureRateThreshold;
+		}
+
+		public int getMinimumRequests() {
+			return this.minimumRequests;
+		}
+
+		public void setMinimumRequests(int minimumRequests) {
+			this.minimumRequests = minimumRequests;
+		}
+
+	}
+
+	/**
+	 * Gradual increase of the traffic sent to new instances.
+	 */
+	public static class SlowStart {
+
+		/**
+		 * Whether the traffic of new instances ramps up.
+		 */
+		private boolean enabled;
+
+		/**
+		 * Time over which the traffic of a new instance ramps up to its full share.
+		 */
+		private Duration window = Duration.ofSeconds(30);
+
+		/**
+		 * How fast the traffic grows at the start of the window: linearly with 1, faster
+		 * with higher values.
+		 */
+		private double aggression = 1;
+
+		/**
+		 * Minimum share of its traffic a new instance gets, as a percentage.
+		 */
+		private double minWeightPercent = 10;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getWindow() {
+			return this.window;
+		}
+
+		public void setWindow(Duration window) {
+			this.window = window;
+		}
+
+		public double getAggression() {
+			return this.aggression;
+		}
+
+		public void setAggression(double aggression) {
+			this.aggression = aggression;
+		}
+
+		public double getMinWeightPercent() {
+			return this.minWeightPercent;
+		}
+
+		public void setMinWeightPercent(double minWeightPercent) {
+			this.minWeightPercent = minWeightPercent;
+		}
+
+	}
+
+	/**
+	 * Routing of the requests carrying a routing key to the same instance.
+	 */
+	public static class ConsistentHash {
+
+		/**
+		 * Header holding the routing key of the requests.
+		 */
+		private String header = RoutingKey.HEADER;
+
+		/**
+		 * How many times the average requests in flight an instance can have before the
+		 * requests of its keys go to the next instance of the ring.
+		 */
+		private double balanceFactor = 1.25;
+
+		/**
+		 * Points of each instance on the hash ring.
+		 */
+		private int pointsPerInstance = 100;
+
+		public String getHeader() {
+			return this.header;
+		}
+
+		public void setHeader(String header) {
+			this.header = header;
+		}
+
+		public double getBalanceFactor() {
+			return this.balanceFactor;
+		}
+
+		public void setBalanceFactor(double balanceFactor) {
+			this.balanceFactor = balanceFactor;
+		}
+
+		public int getPointsPerInstance() {
+			return this.pointsPerInstance;
+		}
+
+		public void setPointsPerInstance(int pointsPerInstance) {
+			this.pointsPerInstance = pointsPerInstance;
+		}
+
+	}
+
+}
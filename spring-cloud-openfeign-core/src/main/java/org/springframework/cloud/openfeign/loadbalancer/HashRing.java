@@ -0,0 +1,185 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * An immutable consistent hash ring of the instances of a service, each owning a number
+ * of points spread over the ring. A ring built from a previous one only hashes the points
+ * of the instances added to the service, so that following the changes of large services
+ * stays cheap. The points are owned by the index of an instance in the list the ring was
+ * built from, so that a ring reused for a list holding the same hosts and ports in the
+ * same order resolves to the instances of that list, with their current metadata.
+ */
+final class HashRing {
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final List<ServiceInstance> instances;
+
+	private final int points;
+
+	private final long[] hashes;
+
+	private final int[] owners;
+
+	private HashRing(List<ServiceInstance> instances, int points, long[] hashes,
+			int[] owners) {
+		this.instances = instances;
+		this.points = points;
+		this.hashes = hashes;
+		this.owners = owners;
+	}
+
+	/**
+	 * Returns the ring of the given instances, reusing the points of the instances
+	 * already on the previous ring.
+	 * @param previous the previous ring of the service, or {@code null}
+	 * @param instances the instances of the service
+	 * @param points the points of each instance
+	 * @return the ring of the instances
+	 */
+	static HashRing build(HashRing previous, List<ServiceInstance> instances,
+			int points) {
+		boolean unchanged = previous != null && previous.points == points
+				&& DefaultFeignLoadBalancer.sameInstances(previous.instances, instances);
+		if (unchanged) {
+			return previous;
+		}
+		Map<String, Integer> added = new LinkedHashMap<>();
+		for (int i = 0; i < instances.size(); i++) {
+			added.put(DefaultFeignLoadBalancer.key(instances.get(i)), i);
+		}
+		long[] hashes = new long[added.size() * points];
+		int[] owners = new int[hashes.length];
+		int size = 0;
+		if (previous != null && previous.points == points) {
+			// keep the points of the remaining instances, already sorted
+			Map<String, Integer> kept = new LinkedHashMap<>();
+			for (int i = 0; i < previous.hashes.length; i++) {
+				String key = DefaultFeignLoadBalancer
+						.key(previous.instances.get(previous.owners[i]));
+				Integer current = added.get(key);
+				if (current != null) {
+					hashes[size] = previous.hashes[i];
+					owners[size++] = current;
+					kept.put(key, current);
+				}
+			}
+			added.keySet().removeAll(kept.keySet());
+		}
+		if (added.isEmpty()) {
+			return new HashRing(instances, points, Arrays.copyOf(hashes, size),
+					Arrays.copyOf(owners, size));
+		}
+		long[] addedHashes = new long[added.size() * points];
+		int[] addedOwners = new int[addedHashes.length];
+		int index = 0;
+		for (Map.Entry<String, Integer> entry : added.entrySet()) {
+			for (int i = 0; i < points; i++) {
+				addedHashes[index] = hash(entry.getKey() + "#" + i);
+				addedOwners[index++] = entry.getValue();
+			}
+		}
+		Integer[] order = new Integer[addedHashes.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(addedHashes[a], addedHashes[b]));
+		// merge the sorted points of the added instances with the kept ones
+		long[] mergedHashes = new long[size + addedHashes.length];
+		int[] mergedOwners = new int[mergedHashes.length];
+		int keptIndex = 0;
+		int addedIndex = 0;
+		for (int i = 0; i < mergedHashes.length; i++) {
+			if (addedIndex == order.length || keptIndex < size
+					&& hashes[keptIndex] <= addedHashes[order[addedIndex]]) {
+				mergedHashes[i] = hashes[keptIndex];
+				mergedOwners[i] = owners[keptIndex++];
+			}
+			else {
+				mergedHashes[i] = addedHashes[order[addedIndex]];
+				mergedOwners[i] = addedOwners[order[addedIndex++]];
+			}
+		}
+		return new HashRing(instances, points, mergedHashes, mergedOwners);
+	}
+
+	/**
+	 * Returns the 64-bit FNV-1a hash of the UTF-8 bytes of the given key, mixed to spread
+	 * close keys over the whole ring.
+	 * @param key the key to hash
+	 * @return the hash of the key
+	 */
+	static long hash(String key) {
+		long hash = FNV_OFFSET_BASIS;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= FNV_PRIME;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * Returns the index of the first point at or after the given hash, wrapping around
+	 * the end of the ring.
+	 * @param hash the hash of a key
+	 * @return the index of the point owning the key
+	 */
+	int ceiling(long hash) {
+		int index = Arrays.binarySearch(this.hashes, hash);
+		if (index < 0) {
+			index = -index - 1;
+		}
+		// the first of equal points
+		while (index > 0 && this.hashes[index - 1] == hash) {
+			index--;
+		}
+		return index < this.hashes.length ? index : 0;
+	}
+
+	/**
+	 * Returns the instance owning a point, taken from the given list, which must hold the
+	 * same instances in the same order as the one the ring was built from.
+	 * @param index the index of the point
+	 * @param instances the current instances of the service
+	 * @return the instance owning the point
+	 */
+	ServiceInstance getOwner(int index, List<ServiceInstance> instances) {
+		return instances.get(this.owners[index]);
+	}
+
+	int size() {
+		return this.hashes.length;
+	}
+
+}
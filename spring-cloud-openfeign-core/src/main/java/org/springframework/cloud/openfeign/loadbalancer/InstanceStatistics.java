@@ -0,0 +1,171 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The requests in flight and the peak exponentially weighted moving average of the
+ * latency of an instance, as observed by Feign clients. The average follows increases of
+ * the latency immediately, and decays towards decreases over the configured decay time.
+ * The outcomes of the requests are also recorded, to eject the instance while it fails,
+ * as well as the time the instance was first seen, to ramp its traffic up.
+ */
+final class InstanceStatistics {
+
+	/**
+	 * Cost of an instance with requests in flight but no completed one yet, high enough
+	 * to avoid sending it more requests before it answered one.
+	 */
+	static final double PENALTY = Long.MAX_VALUE >> 16;
+
+	private static final int WINDOW_BUCKETS = 10;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+	private final double decayNanos;
+
+	private final FailureWindow failures;
+
+	private final long firstSeen;
+
+	private double latency;
+
+	private long lastUpdate;
+
+	private volatile long ejectedUntil;
+
+	private volatile boolean ejected;
+
+	private int ejections;
+
+	InstanceStatistics(long decayNanos, long failureWindowNanos, long now,
+			long firstSeen) {
+		this.decayNanos = decayNanos;
+		this.failures = new FailureWindow(failureWindowNanos, WINDOW_BUCKETS);
+		this.lastUpdate = now;
+		this.firstSeen = firstSeen;
+	}
+
+	void onRequest() {
+		this.inFlight.incrementAndGet();
+	}
+
+	synchronized void onResponse(long latencyNanos, long now) {
+		this.inFlight.decrementAndGet();
+		if (latencyNanos > this.latency) {
+			this.latency = latencyNanos;
+		}
+		else {
+			double weight = Math.exp(-Math.max(now - this.lastUpdate, 0) / this.decayNanos);
+			this.latency = this.latency * weight + latencyNanos * (1 - weight);
+		}
+		this.lastUpdate = now;
+	}
+
+	void onOutcome(boolean failure, long now) {
+		this.failures.record(failure, now);
+		if (failure) {
+			this.consecutiveFailures.incrementAndGet();
+		}
+		else {
+			this.consecutiveFailures.set(0);
+		}
+	}
+
+	int getConsecutiveFailures() {
+		return this.consecutiveFailures.get();
+	}
+
+	/**
+	 * @param now the current time
+	 * @return the number of requests and the number of failures in the failure window
+	 */
+	long[] getOutcomes(long now) {
+		return this.failures.getCounts(now);
+	}
+
+	boolean isEjected(long now) {
+		return this.ejected && now - this.ejectedUntil < 0;
+	}
+
+	/**
+	 * Ejects the instance for the base time, doubled for each previous ejection that
+	 * was not followed by a healthy period as long as the maximum time.
+	 * @param now the current time
+	 * @param baseNanos the ejection time of an instance ejected for the first time
+	 * @param maxNanos the maximum ejection time
+	 */
+	synchronized void eject(long now, long baseNanos, long maxNanos) {
+		if (this.ejections > 0 && now - this.ejectedUntil > maxNanos) {
+			this.ejections = 0;
+		}
+		long duration = baseNanos << Math.min(this.ejections, 30);
+		duration = duration > 0 ? Math.min(duration, maxNanos) : maxNanos;
+		this.ejectedUntil = now + duration;
+		this.ejected = true;
+		this.ejections++;
+		// the instance starts over when it comes back
+		this.failures.reset();
+		this.consecutiveFailures.set(0);
+	}
+
+	/**
+	 * @param now the current time
+	 * @param windowNanos the duration of the slow start
+	 * @param aggression how fast the weight grows at the start of the window, linearly
+	 * when {@code 1}, faster when higher
+	 * @param minWeight the minimum weight
+	 * @return the share of its traffic the instance takes, as it ramps up after being
+	 * seen for the first time
+	 */
+	double getSlowStartWeight(long now, long windowNanos, double aggression,
+			double minWeight) {
+		long elapsed = now - this.firstSeen;
+		if (elapsed >= windowNanos) {
+			return 1;
+		}
+		double progress = Math.max(elapsed, 0) / (double) windowNanos;
+		return Math.max(minWeight, Math.pow(progress, 1 / aggression));
+	}
+
+	int getInFlight() {
+		return this.inFlight.get();
+	}
+
+	synchronized double getLatency(long now) {
+		// decay towards zero while idle, so that slow instances are tried again
+		double weight = Math.exp(-Math.max(now - this.lastUpdate, 0) / this.decayNanos);
+		return this.latency * weight;
+	}
+
+	/**
+	 * @param now the current time
+	 * @return the expected latency of the next request, given those already in flight
+	 */
+	double getCost(long now) {
+		double latency = getLatency(now);
+		int inFlight = getInFlight();
+		if (latency == 0 && inFlight > 0) {
+			return PENALTY + inFlight;
+		}
+		return latency * (inFlight + 1);
+	}
+
+}
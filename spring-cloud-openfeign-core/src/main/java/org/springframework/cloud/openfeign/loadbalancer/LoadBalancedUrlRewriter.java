@@ -0,0 +1,166 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+
+/**
+ * Rewrites the URLs of load-balanced requests without parsing them into {@link URI}s,
+ * with the same result as
+ * {@link LoadBalancerClient#reconstructURI(ServiceInstance, URI)} of the Spring Cloud
+ * LoadBalancer client. The validity of each service id and the authority of each
+ * instance are computed once and cached. URLs that are not handled, such as those with
+ * user info or an explicit port, are left to the slow path.
+ */
+final class LoadBalancedUrlRewriter {
+
+	/**
+	 * Name of the {@link LoadBalancerClient} whose URIs are reconstructed with
+	 * {@code LoadBalancerUriTools}, which this class follows.
+	 */
+	static final String BLOCKING_LOAD_BALANCER_CLIENT = "org.springframework.cloud.loadbalancer.blocking.client.BlockingLoadBalancerClient";
+
+	private static final String HTTP = "http";
+
+	private static final String HTTPS = "https";
+
+	private static final int MAX_CACHE_SIZE = 1024;
+
+	private final ConcurrentMap<String, Boolean> validServiceIds = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<ServiceInstance, String> authorities = new ConcurrentHashMap<>();
+
+	/**
+	 * @param loadBalancerClient the client reconstructing the URIs
+	 * @return whether the URIs reconstructed by the client can be rewritten by this
+	 * class
+	 */
+	static boolean supports(LoadBalancerClient loadBalancerClient) {
+		// exact class, as subclasses may reconstruct the URIs differently
+		return BLOCKING_LOAD_BALANCER_CLIENT
+				.equals(loadBalancerClient.getClass().getName());
+	}
+
+	/**
+	 * @param url the URL of a request
+	 * @return the service id of the URL, or {@code null} if the URL is not handled
+	 */
+	String getServiceId(String url) {
+		int start = authorityStart(url);
+		if (start < 0) {
+			return null;
+		}
+		String serviceId = url.substring(start, authorityEnd(url, start));
+		if (serviceId.indexOf('@') >= 0 || serviceId.indexOf(':') >= 0) {
+			return null;
+		}
+		Boolean valid = this.validServiceIds.get(serviceId);
+		if (valid == null) {
+			valid = isValidHost(serviceId);
+			cache(this.validServiceIds, serviceId, valid);
+		}
+		return valid ? serviceId : null;
+	}
+
+	/**
+	 * @param url the URL of a request, whose service id is valid
+	 * @param instance the instance the request is sent to
+	 * @return the URL of the request on the instance, or {@code null} if the URL or the
+	 * instance is not handled
+	 */
+	String rewrite(String url, ServiceInstance instance) {
+		int start = authorityStart(url);
+		if (start < 0) {
+			return null;
+		}
+		int end = authorityEnd(url, start);
+		for (int i = start; i < end; i++) {
+			if (url.charAt(i) == '@' || url.charAt(i) == ':') {
+				return null;
+			}
+		}
+		String authority = this.authorities.get(instance);
+		if (authority == null) {
+			authority = authority(instance);
+			if (authority == null) {
+				return null;
+			}
+			cache(this.authorities, instance, authority);
+		}
+		String scheme = instance.getScheme();
+		if (scheme == null) {
+			scheme = instance.isSecure() || start == HTTPS.length() + 3 ? HTTPS : HTTP;
+		}
+		return new StringBuilder(
+				scheme.length() + 3 + authority.length() + url.length() - end)
+						.append(scheme).append("://").append(authority)
+						.append(url, end, url.length()).toString();
+	}
+
+	private static int authorityStart(String url) {
+		if (url.startsWith("http://")) {
+			return HTTP.length() + 3;
+		}
+		if (url.startsWith("https://")) {
+			return HTTPS.length() + 3;
+		}
+		return -1;
+	}
+
+	private static int authorityEnd(String url, int start) {
+		for (int i = start; i < url.length(); i++) {
+			char c = url.charAt(i);
+			if (c == '/' || c == '?' || c == '#') {
+				return i;
+			}
+		}
+		return url.length();
+	}
+
+	private static boolean isValidHost(String serviceId) {
+		try {
+			return serviceId.equals(URI.create(HTTP + "://" + serviceId).getHost());
+		}
+		catch (IllegalArgumentException ex) {
+			return false;
+		}
+	}
+
+	private static String authority(ServiceInstance instance) {
+		String host = instance.getHost();
+		// default ports depend on the scheme, IPv6 addresses need brackets
+		if (host == null || host.isEmpty() || host.indexOf(':') >= 0
+				|| instance.getPort() < 0) {
+			return null;
+		}
+		return host + ":" + instance.getPort();
+	}
+
+	private static <K, V> void cache(ConcurrentMap<K, V> cache, K key, V value) {
+		if (cache.size() >= MAX_CACHE_SIZE) {
+			// instances are replaced over time, start over rather than grow unbounded
+			cache.clear();
+		}
+		cache.put(key, value);
+	}
+
+}
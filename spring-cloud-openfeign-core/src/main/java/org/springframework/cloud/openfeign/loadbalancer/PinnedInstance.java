@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Pins the requests sent by the current thread to an instance of their service, so
+ * that a {@link FeignBlockingLoadBalancerClient} sends them to this instance instead of
+ * choosing one, as for the calls of a {@link org.springframework.cloud.openfeign.Broadcast}
+ * method.
+ *
+ * @since 3.0.0
+ */
+public final class PinnedInstance {
+
+	private static final ThreadLocal<ServiceInstance> CURRENT = new ThreadLocal<>();
+
+	private PinnedInstance() {
+	}
+
+	/**
+	 * @return the instance pinned to the current thread, or {@code null} if there is
+	 * none
+	 */
+	public static ServiceInstance get() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * @param instance the instance to pin to the current thread
+	 * @return the instance previously pinned, to {@link #restore(ServiceInstance)
+	 * restore} once the requests are sent
+	 */
+	public static ServiceInstance pin(ServiceInstance instance) {
+		ServiceInstance previous = CURRENT.get();
+		CURRENT.set(instance);
+		return previous;
+	}
+
+	/**
+	 * @param previous the instance previously pinned, may be {@code null}
+	 */
+	public static void restore(ServiceInstance previous) {
+		if (previous != null) {
+			CURRENT.set(previous);
+		}
+		else {
+			CURRENT.remove();
+		}
+	}
+
+}
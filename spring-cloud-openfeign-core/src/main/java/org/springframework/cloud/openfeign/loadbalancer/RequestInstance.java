@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * The instance a {@link FeignBlockingLoadBalancerClient} sends the request of the
+ * current thread to, so that the clients it delegates to, such as a per-instance
+ * {@link org.springframework.cloud.openfeign.support.ConcurrencyLimitingClient}, do
+ * not need to parse it back from the URL of the request.
+ *
+ * @since 3.0.0
+ */
+public final class RequestInstance {
+
+	private static final ThreadLocal<ServiceInstance> CURRENT = new ThreadLocal<>();
+
+	private RequestInstance() {
+	}
+
+	/**
+	 * @return the instance the current request is sent to, or {@code null} if it is not
+	 * sent through a load balancer
+	 */
+	public static ServiceInstance get() {
+		return CURRENT.get();
+	}
+
+	static ServiceInstance bind(ServiceInstance instance) {
+		ServiceInstance previous = CURRENT.get();
+		CURRENT.set(instance);
+		return previous;
+	}
+
+	static void restore(ServiceInstance previous) {
+		if (previous != null) {
+			CURRENT.set(previous);
+		}
+		else {
+			CURRENT.remove();
+		}
+	}
+
+}
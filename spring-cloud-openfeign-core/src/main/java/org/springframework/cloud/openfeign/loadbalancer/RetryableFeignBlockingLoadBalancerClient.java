@@ -0,0 +1,321 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.openfeign.FeignClientProperties;
+import org.springframework.cloud.openfeign.Idempotent;
+import org.springframework.cloud.openfeign.support.FeignInvocationContext;
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+import org.springframework.cloud.openfeign.support.FeignUtils;
+import org.springframework.cloud.openfeign.support.RequestBudget;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffInterruptedException;
+import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+import org.springframework.retry.context.RetryContextSupport;
+import org.springframework.retry.support.RetryTemplate;
+
+/**
+ * A {@link Client} retrying the failed requests of a {@link FeignBlockingLoadBalancerClient}
+ * with spring-retry, choosing another instance of the service for each attempt. Requests
+ * that could not connect and responses with a configured status are retried for all
+ * HTTP methods, other I/O failures only for idempotent ones: {@code GET},
+ * {@code HEAD}, {@code OPTIONS}, {@code PUT}, {@code DELETE} and {@code TRACE}, or the
+ * client methods annotated with {@link Idempotent}. Retries are delayed by a jittered
+ * exponential backoff, or by the {@code Retry-After} header of the retried response if
+ * longer, up to the maximum backoff. They are capped by a {@link RequestBudget} so that
+ * they cannot amplify an outage. The retries and the retries denied by the budget are published as
+ * the {@code feign.client.retries} counter.
+ *
+ * @since 3.0.0
+ * @see FeignClientProperties.RetryConfiguration
+ */
+public class RetryableFeignBlockingLoadBalancerClient implements Client {
+
+	private static final int BUDGET_RESERVE = 10;
+
+	/**
+	 * Number of times the load balancer is asked for an instance that was not tried yet.
+	 */
+	private static final int CHOOSE_ATTEMPTS = 3;
+
+	private static final String IDEMPOTENT = "feign.idempotent";
+
+	private static final String TRIED_INSTANCES = "feign.triedInstances";
+
+	private static final String RETRY_ALLOWED = "feign.retryAllowed";
+
+	private final FeignBlockingLoadBalancerClient loadBalancing;
+
+	private final FeignClientProperties.RetryConfiguration config;
+
+	private final RequestBudget budget;
+
+	private final RetryTemplate retryTemplate = new RetryTemplate();
+
+	private final LongAdder retried = new LongAdder();
+
+	private final LongAdder denied = new LongAdder();
+
+	/**
+	 * @param loadBalancing the client choosing the instances and sending the requests
+	 * @param clientName the context id of the client
+	 * @param config the configuration of the retries
+	 * @param metrics the registrar of the retry metrics
+	 */
+	public RetryableFeignBlockingLoadBalancerClient(
+			FeignBlockingLoadBalancerClient loadBalancing, String clientName,
+			FeignClientProperties.RetryConfiguration config,
+			FeignMetricsRegistrar metrics) {
+		this(loadBalancing, clientName, config, metrics, new ThreadWaitSleeper());
+	}
+
+	RetryableFeignBlockingLoadBalancerClient(
+			FeignBlockingLoadBalancerClient loadBalancing, String clientName,
+			FeignClientProperties.RetryConfiguration config,
+			FeignMetricsRegistrar metrics, Sleeper sleeper) {
+		this.loadBalancing = loadBalancing;
+		this.config = config;
+		this.budget = new RequestBudget(config.getBudgetPercent(), BUDGET_RESERVE);
+		this.retryTemplate.setBackOffPolicy(new RetryAfterBackOffPolicy(config, sleeper));
+		this.retryTemplate.setRetryPolicy(new BudgetedRetryPolicy());
+		String description = "Retries of failed requests, or denied by the retry budget";
+		metrics.counter("feign.client.retries", description, this.retried::sum,
+				"client", clientName, "result", "retried");
+		metrics.counter("feign.client.retries", description, this.denied::sum,
+				"client", clientName, "result", "denied");
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		if (PinnedInstance.get() != null) {
+			// there is no other instance to retry on
+			return this.loadBalancing.execute(request, options);
+		}
+		String serviceId = this.loadBalancing.getServiceId(request);
+		boolean idempotent = FeignInvocationContext.isIdempotent(request);
+		this.budget.deposit();
+		try {
+			return this.retryTemplate.execute(context -> {
+				RetryContextSupport attempt = (RetryContextSupport) context;
+				if (attempt.getRetryCount() == 0) {
+					attempt.setAttribute(IDEMPOTENT, idempotent);
+					attempt.setAttribute(TRIED_INSTANCES, new HashSet<String>());
+				}
+				else {
+					closeRetriedResponse(attempt.getLastThrowable());
+					this.retried.increment();
+				}
+				ServiceInstance instance = choose(serviceId, request, attempt);
+				if (instance == null) {
+					return FeignBlockingLoadBalancerClient.noInstanceResponse(request,
+							serviceId);
+				}
+				Response response = this.loadBalancing.execute(request, serviceId,
+						instance, options);
+				if (this.config.getRetryableStatusCodes().contains(response.status())) {
+					throw new RetryableStatusException(response);
+				}
+				return response;
+			});
+		}
+		catch (RetryableStatusException ex) {
+			// retries are exhausted, the last response is the result
+			return ex.response;
+		}
+	}
+
+	public Client getDelegate() {
+		return this.loadBalancing;
+	}
+
+	@SuppressWarnings("unchecked")
+	private ServiceInstance choose(String serviceId, Request request,
+			RetryContext context) {
+		Set<String> tried = (Set<String>) context.getAttribute(TRIED_INSTANCES);
+		ServiceInstance instance = null;
+		for (int i = 0; i < CHOOSE_ATTEMPTS; i++) {
+			instance = this.loadBalancing.choose(serviceId, request);
+			if (instance == null || !tried.contains(key(instance))) {
+				break;
+			}
+		}
+		if (instance != null) {
+			tried.add(key(instance));
+		}
+		return instance;
+	}
+
+	private boolean isRetryable(RetryContext context, Throwable failure) {
+		if (failure instanceof RetryableStatusException
+				|| failure instanceof ConnectException
+				|| failure instanceof NoRouteToHostException) {
+			// the request was not processed, or the status is declared safe to retry
+			return true;
+		}
+		return failure instanceof IOException
+				&& Boolean.TRUE.equals(context.getAttribute(IDEMPOTENT));
+	}
+
+	private static void closeRetriedResponse(Throwable failure) {
+		if (failure instanceof RetryableStatusException) {
+			((RetryableStatusException) failure).response.close();
+		}
+	}
+
+	private static String key(ServiceInstance instance) {
+		return instance.getHost() + ":" + instance.getPort();
+	}
+
+	/**
+	 * Allows a retry when the failure is retryable, attempts are left and the budget
+	 * has a token. Decided once per failure, since the template asks more than once.
+	 */
+	private class BudgetedRetryPolicy implements RetryPolicy {
+
+		@Override
+		public boolean canRetry(RetryContext context) {
+			return context.getLastThrowable() == null
+					|| Boolean.TRUE.equals(context.getAttribute(RETRY_ALLOWED));
+		}
+
+		@Override
+		public RetryContext open(RetryContext parent) {
+			return new RetryContextSupport(parent);
+		}
+
+		@Override
+		public void close(RetryContext context) {
+		}
+
+		@Override
+		public void registerThrowable(RetryContext context, Throwable throwable) {
+			((RetryContextSupport) context).registerThrowable(throwable);
+			boolean allowed = context.getRetryCount() < getMaxAttempts()
+					&& isRetryable(context, throwable);
+			if (allowed && !RetryableFeignBlockingLoadBalancerClient.this.budget
+					.tryWithdraw()) {
+				RetryableFeignBlockingLoadBalancerClient.this.denied.increment();
+				allowed = false;
+			}
+			context.setAttribute(RETRY_ALLOWED, allowed);
+		}
+
+		private int getMaxAttempts() {
+			return RetryableFeignBlockingLoadBalancerClient.this.config
+					.getMaxAttempts();
+		}
+
+	}
+
+	/**
+	 * Jittered exponential backoff, waiting at least for the {@code Retry-After} of the
+	 * retried response, and at most for the maximum backoff.
+	 */
+	private static final class RetryAfterBackOffPolicy implements BackOffPolicy {
+
+		private final FeignClientProperties.RetryConfiguration config;
+
+		private final Sleeper sleeper;
+
+		private RetryAfterBackOffPolicy(FeignClientProperties.RetryConfiguration config,
+				Sleeper sleeper) {
+			this.config = config;
+			this.sleeper = sleeper;
+		}
+
+		@Override
+		public BackOffContext start(RetryContext context) {
+			return new RetryAfterBackOffContext(context,
+					this.config.getInitialBackoff().toMillis());
+		}
+
+		@Override
+		public void backOff(BackOffContext backOffContext)
+				throws BackOffInterruptedException {
+			RetryAfterBackOffContext backOff = (RetryAfterBackOffContext) backOffContext;
+			long maxBackoff = this.config.getMaxBackoff().toMillis();
+			double multiplier = Math.max(1, this.config.getBackoffMultiplier());
+			long interval = Math.min(backOff.interval, maxBackoff);
+			backOff.interval = (long) Math.min(interval * multiplier, maxBackoff);
+			long delay = (long) (interval * (1
+					+ ThreadLocalRandom.current().nextDouble() * (multiplier - 1)));
+			Throwable failure = backOff.retryContext.getLastThrowable();
+			if (failure instanceof RetryableStatusException) {
+				Response response = ((RetryableStatusException) failure).response;
+				Long retryAfter = FeignUtils.getRetryAfterMillis(response);
+				if (retryAfter != null) {
+					delay = Math.max(delay, retryAfter);
+				}
+			}
+			try {
+				this.sleeper.sleep(Math.min(delay, maxBackoff));
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new BackOffInterruptedException("Interrupted while backing off",
+						ex);
+			}
+		}
+
+	}
+
+	private static final class RetryAfterBackOffContext implements BackOffContext {
+
+		private final RetryContext retryContext;
+
+		// in milliseconds, before jitter
+		private long interval;
+
+		private RetryAfterBackOffContext(RetryContext retryContext, long interval) {
+			this.retryContext = retryContext;
+			this.interval = interval;
+		}
+
+	}
+
+	/**
+	 * Carries a response with a retryable status out of an attempt.
+	 */
+	private static final class RetryableStatusException extends RuntimeException {
+
+		private final transient Response response;
+
+		RetryableStatusException(Response response) {
+			super("Retryable status " + response.status(), null, false, false);
+			this.response = response;
+		}
+
+	}
+
+}
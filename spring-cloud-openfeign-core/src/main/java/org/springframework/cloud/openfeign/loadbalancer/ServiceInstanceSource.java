@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.util.List;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Provides the instances a {@link FeignLoadBalancer} chooses from.
+ *
+ * @since 3.0.0
+ */
+@FunctionalInterface
+public interface ServiceInstanceSource {
+
+	/**
+	 * @param serviceId the id of the service
+	 * @return the current instances of the service, possibly empty
+	 */
+	List<ServiceInstance> getInstances(String serviceId);
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cloud.openfeign.FeignClientProperties;
+import org.springframework.cloud.openfeign.FeignClientProperties.ConcurrencyLimitConfiguration.Algorithm;
+
+/**
+ * A limit of concurrent requests adapted from the latency and the outcome of each
+ * request, with either a latency gradient or an additive-increase,
+ * multiplicative-decrease algorithm. Acquiring a permit is lock-free, only the updates
+ * of the limit are synchronized.
+ *
+ * @see FeignClientProperties.ConcurrencyLimitConfiguration
+ */
+class AdaptiveConcurrencyLimit {
+
+	/**
+	 * Number of samples the long-term latency is averaged over.
+	 */
+	private static final int LONG_WINDOW = 600;
+
+	/**
+	 * Weight of a new limit computed by the gradient algorithm.
+	 */
+	private static final double SMOOTHING = 0.2;
+
+	private final FeignClientProperties.ConcurrencyLimitConfiguration config;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final LongAdder rejected = new LongAdder();
+
+	private volatile int limit;
+
+	// in nanoseconds
+	private volatile long lastUsed;
+
+	// guarded by this
+	private double estimatedLimit;
+
+	// guarded by this, in nanoseconds
+	private double longRtt;
+
+	AdaptiveConcurrencyLimit(FeignClientProperties.ConcurrencyLimitConfiguration config) {
+		this.config = config;
+		this.estimatedLimit = Math.min(
+				Math.max(config.getInitialLimit(), config.getMinLimit()),
+				config.getMaxLimit());
+		this.limit = (int) this.estimatedLimit;
+	}
+
+	/**
+	 * @return {@code true} if a permit was acquired, to be released with
+	 * {@link #release(long, boolean)}
+	 */
+	boolean tryAcquire() {
+		while (true) {
+			int current = this.inFlight.get();
+			if (current >= this.limit) {
+				this.rejected.increment();
+				return false;
+			}
+			if (this.inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Releases a permit and adapts the limit.
+	 * @param rttNanos the latency of the request
+	 * @param dropped whether the request failed or was throttled by the server
+	 */
+	void release(long rttNanos, boolean dropped) {
+		int inFlight = this.inFlight.getAndDecrement();
+		synchronized (this) {
+			if (this.config.getAlgorithm() == Algorithm.AIMD) {
+				updateAimd(inFlight, dropped);
+			}
+			else {
+				updateGradient(inFlight, rttNanos);
+			}
+			this.estimatedLimit = Math.max(this.config.getMinLimit(),
+					Math.min(this.config.getMaxLimit(), this.estimatedLimit));
+			this.limit = (int) this.estimatedLimit;
+		}
+	}
+
+	private void updateAimd(int inFlight, boolean dropped) {
+		if (dropped) {
+			this.estimatedLimit = Math
+					.floor(this.estimatedLimit * this.config.getBackoffRatio());
+		}
+		else if (inFlight * 2 >= this.estimatedLimit) {
+			// only grows when the limit is actually used
+			this.estimatedLimit += 1;
+		}
+	}
+
+	private void updateGradient(int inFlight, long rttNanos) {
+		double shortRtt = Math.max(rttNanos, 1);
+		if (this.longRtt == 0) {
+			this.longRtt = shortRtt;
+		}
+		else {
+			this.longRtt += (shortRtt - this.longRtt) / LONG_WINDOW;
+		}
+		if (this.longRtt / shortRtt > 2) {
+			// latency is back to normal after a long overload, forget it faster
+			this.longRtt *= 0.95;
+		}
+		if (inFlight < this.estimatedLimit / 2) {
+			// the limit is not what holds the requests back
+			return;
+		}
+		double gradient = Math.max(0.5,
+				Math.min(1.0, this.config.getRttTolerance() * this.longRtt / shortRtt));
+		double newLimit = this.estimatedLimit * gradient
+				+ Math.sqrt(this.estimatedLimit);
+		this.estimatedLimit = this.estimatedLimit * (1 - SMOOTHING)
+				+ newLimit * SMOOTHING;
+	}
+
+	/**
+	 * Records that a request was sent with this limit.
+	 * @param nanoTime the current time, in nanoseconds
+	 */
+	void markUsed(long nanoTime) {
+		this.lastUsed = nanoTime;
+	}
+
+	/**
+	 * @param nanoTime the current time, in nanoseconds
+	 * @param timeoutNanos the time without request after which the limit is idle
+	 * @return whether no request is in flight nor was sent for the given time
+	 */
+	boolean isIdle(long nanoTime, long timeoutNanos) {
+		return this.inFlight.get() == 0 && nanoTime - this.lastUsed >= timeoutNanos;
+	}
+
+	int getLimit() {
+		return this.limit;
+	}
+
+	int getInFlight() {
+		return this.inFlight.get();
+	}
+
+	long getRejected() {
+		return this.rejected.sum();
+	}
+
+}
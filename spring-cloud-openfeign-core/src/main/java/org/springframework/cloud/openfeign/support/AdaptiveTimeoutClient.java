@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import org.springframework.cloud.openfeign.FeignClientProperties;
+
+/**
+ * A {@link Client} setting the read timeout of each request from the latency observed
+ * for its client method: the timeout is a multiple of a high latency quantile, bounded by
+ * a floor and a ceiling. The current timeout of each method is published as the
+ * {@code feign.client.read.timeout} gauge.
+ *
+ * @since 3.0.0
+ * @see FeignClientProperties.AdaptiveTimeoutConfiguration
+ */
+public class AdaptiveTimeoutClient implements Client {
+
+	static final String UNKNOWN_METHOD = "unknown";
+
+	private final Client delegate;
+
+	private final String clientName;
+
+	private final FeignClientProperties.AdaptiveTimeoutConfiguration config;
+
+	private final FeignMetricsRegistrar metrics;
+
+	private final ConcurrentMap<String, MethodTimeout> timeouts = new ConcurrentHashMap<>();
+
+	public AdaptiveTimeoutClient(Client delegate, String clientName,
+			FeignClientProperties.AdaptiveTimeoutConfiguration config,
+			FeignMetricsRegistrar metrics) {
+		this.delegate = delegate;
+		this.clientName = clientName;
+		this.config = config;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		MethodTimeout timeout = getMethodTimeout();
+		int readTimeout = timeout.readTimeoutMillis(options.readTimeoutMillis());
+		Request.Options adapted = new Request.Options(options.connectTimeoutMillis(),
+				readTimeout, options.isFollowRedirects());
+		long start = System.nanoTime();
+		try {
+			Response response = this.delegate.execute(request, adapted);
+			timeout.record(System.nanoTime() - start);
+			return response;
+		}
+		catch (SocketTimeoutException e) {
+			// the actual latency is unknown but at least the timeout
+			timeout.record(System.nanoTime() - start);
+			throw e;
+		}
+	}
+
+	/**
+	 * @param methodKey the config key of a client method
+	 * @return the read timeout currently applied to the method, in milliseconds, or
+	 * {@code -1} if the method has not been called yet
+	 */
+	public int getReadTimeoutMillis(String methodKey) {
+		MethodTimeout timeout = this.timeouts.get(methodKey);
+		return timeout != null ? timeout.current : -1;
+	}
+
+	public Client getDelegate() {
+		return this.delegate;
+	}
+
+	private MethodTimeout getMethodTimeout() {
+		FeignInvocationContext context = FeignInvocationContext.current();
+		String methodKey = context != null ? context.getMethodKey() : UNKNOWN_METHOD;
+		MethodTimeout timeout = this.timeouts.get(methodKey);
+		if (timeout == null) {
+			MethodTimeout created = new MethodTimeout();
+			timeout = this.timeouts.putIfAbsent(methodKey, created);
+			if (timeout == null) {
+				timeout = created;
+				this.metrics.gauge("feign.client.read.timeout",
+						"Read timeout currently applied to the method, in milliseconds",
+						() -> created.current, "client", this.clientName, "method",
+						methodKey);
+			}
+		}
+		return timeout;
+	}
+
+	private class MethodTimeout {
+
+		private final LatencyHistogram latencies = new LatencyHistogram(
+				AdaptiveTimeoutClient.this.config.getWindow().toNanos(),
+				TimeUnit.NANOSECONDS);
+
+		private volatile int current = -1;
+
+		int readTimeoutMillis(int staticTimeoutMillis) {
+			FeignClientProperties.AdaptiveTimeoutConfiguration config = AdaptiveTimeoutClient.this.config;
+			long timeout = staticTimeoutMillis;
+			if (this.latencies.count() >= config.getMinSamples()) {
+				long quantile = this.latencies.quantile(config.getQuantile());
+				timeout = TimeUnit.NANOSECONDS
+						.toMillis((long) (quantile * config.getMultiplier()));
+			}
+			timeout = Math.max(timeout, config.getMinReadTimeout().toMillis());
+			timeout = Math.min(timeout, config.getMaxReadTimeout().toMillis());
+			this.current = (int) timeout;
+			return this.current;
+		}
+
+		void record(long nanos) {
+			this.latencies.record(nanos);
+		}
+
+	}
+
+}
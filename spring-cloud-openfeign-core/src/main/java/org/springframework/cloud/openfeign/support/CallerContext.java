@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.support;
+
+import java.util.Map;
+
+import org.slf4j.MDC;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * The state bound to the thread calling a client method, carried over to the threads
+ * the call runs on: the {@link FeignDeadline}, the request attributes used by the
+ * request interceptors, and the logging MDC.
+ *
+ * @since 3.0.0
+ */
+public final class CallerContext {
+
+	private static final boolean MDC_PRESENT = ClassUtils.isPresent("org.slf4j.MDC",
+			CallerContext.class.getClassLoader());
+
+	private final FeignDeadline deadline;
+
+	private final RequestAttributes requestAttributes;
+
+	private final Map<String, String> mdc;
+
+	private CallerContext(FeignDeadline deadline, RequestAttributes requestAttributes,
+			Map<String, String> mdc) {
+		this.deadline = deadline;
+		this.requestAttributes = requestAttributes;
+		this.mdc = mdc;
+	}
+
+	/**
+	 * @return the context of the current thread
+	 */
+	public static CallerContext capture() {
+		return new CallerContext(FeignDeadline.current(),
+				RequestContextHolder.getRequestAttributes(),
+				MDC_PRESENT ? MDC.getCopyOfContextMap() : null);
+	}
+
+	/**
+	 * Binds the context to the current thread, until the returned scope is closed.
+	 * @return the scope restoring the previous context of the current thread
+	 */
+	public Scope bind() {
+		FeignDeadline previousDeadline = FeignDeadline.bind(this.deadline);
+		RequestAttributes previousAttributes = RequestContextHolder
+				.getRequestAttributes();
+		setRequestAttributes(this.requestAttributes);
+		Map<String, String> previousMdc = MDC_PRESENT ? MDC.getCopyOfContextMap() : null;
+		setMdc(this.mdc);
+		return () -> {
+			FeignDeadline.restore(previousDeadline);
+			setRequestAttributes(previousAttributes);
+			setMdc(previousMdc);
+		};
+	}
+
+	private static void setRequestAttributes(RequestAttributes attributes) {
+		if (attributes != null) {
+			RequestContextHolder.setRequestAttributes(attributes);
+		}
+		else {
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+
+	private static void setMdc(Map<String, String> mdc) {
+		if (!MDC_PRESENT) {
+			return;
+		}
+		if (mdc != null) {
+			MDC.setContextMap(mdc);
+		}
+		else {
+			MDC.clear();
+		}
+	}
+
+	/**
+	 * The binding of a {@link CallerContext} to a thread.
+	 */
+	@FunctionalInterface
+	public interface Scope extends AutoCloseable {
+
+		@Override
+		void close();
+
+	}
+
+}
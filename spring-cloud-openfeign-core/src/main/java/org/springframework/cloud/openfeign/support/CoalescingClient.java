@@ -0,0 +1,280 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * {@link Client} coalescing identical concurrent {@code GET} requests: while a request
+ * is in flight, the requests with the same URL and headers wait for its response instead
+ * of being sent, and all of them get a copy of its body. Headers that differ between
+ * otherwise identical requests, such as tracing headers, can be ignored when comparing
+ * requests. Waiting callers give up after their read timeout, or at their
+ * {@link FeignDeadline} if sooner, and each of them gets its own {@link IOException}
+ * caused by the failure of the request they waited for.
+ *
+ * @since 3.0.0
+ */
+public class CoalescingClient implements Client {
+
+	private final Client delegate;
+
+	private final long maxBodySize;
+
+	private final Set<String> ignoredHeaders = new TreeSet<>(
+			String.CASE_INSENSITIVE_ORDER);
+
+	private final ConcurrentMap<Key, CompletableFuture<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder sent = new LongAdder();
+
+	private final LongAdder coalesced = new LongAdder();
+
+	/**
+	 * @param delegate the client executing the requests
+	 * @param clientName the context id of the client, used to tag its metrics
+	 * @param maxBodySize the maximum size of a shared response body, in bytes; callers
+	 * waiting for a larger response send their own request
+	 * @param ignoredHeaders the names of the headers ignored when comparing requests
+	 * @param metrics the registrar of the coalescing metrics
+	 */
+	public CoalescingClient(Client delegate, String clientName, long maxBodySize,
+			Collection<String> ignoredHeaders, FeignMetricsRegistrar metrics) {
+		this.delegate = delegate;
+		this.maxBodySize = maxBodySize;
+		this.ignoredHeaders.addAll(ignoredHeaders);
+		String description = "Requests sent, or coalesced with an identical request";
+		metrics.counter("feign.client.coalescing.requests", description, this.sent::sum,
+				"client", clientName, "result", "sent");
+		metrics.counter("feign.client.coalescing.requests", description,
+				this.coalesced::sum, "client", clientName, "result", "coalesced");
+		metrics.gauge("feign.client.coalescing.ratio",
+				"Ratio of requests coalesced with an identical request in flight",
+				this::getCoalescingRatio, "client", clientName);
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		if (request.httpMethod() != Request.HttpMethod.GET) {
+			return this.delegate.execute(request, options);
+		}
+		Key key = new Key(request, this.ignoredHeaders);
+		CompletableFuture<SharedResponse> shared = new CompletableFuture<>();
+		CompletableFuture<SharedResponse> existing = this.inFlight.putIfAbsent(key,
+				shared);
+		if (existing != null) {
+			SharedResponse response = await(existing, request, options);
+			if (response != null) {
+				this.coalesced.increment();
+				return response.toResponse(request);
+			}
+			// the response could not be shared
+			this.sent.increment();
+			return this.delegate.execute(request, options);
+		}
+		this.sent.increment();
+		try {
+			Response response = this.delegate.execute(request, options);
+			return share(response, shared, key);
+		}
+		catch (IOException | RuntimeException | Error ex) {
+			this.inFlight.remove(key, shared);
+			shared.completeExceptionally(ex);
+			throw ex;
+		}
+	}
+
+	private Response share(Response response, CompletableFuture<SharedResponse> shared,
+			Key key) throws IOException {
+		byte[] body = new byte[0];
+		if (response.body() != null) {
+			Integer length = response.body().length();
+			InputStream stream = response.body().asInputStream();
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+					length != null && length >= 0 ? (int) Math.min(length, this.maxBodySize)
+							: 256);
+			if (!read(stream, buffer, this.maxBodySize)) {
+				this.inFlight.remove(key, shared);
+				shared.complete(null);
+				return Response.builder().request(response.request())
+						.status(response.status()).reason(response.reason())
+						.headers(response.headers())
+						.body(new SequenceInputStream(
+								new ByteArrayInputStream(buffer.toByteArray()), stream),
+								null)
+						.build();
+			}
+			response.close();
+			body = buffer.toByteArray();
+		}
+		SharedResponse sharedResponse = new SharedResponse(response, body);
+		// new requests must not get the response once it has been handed out
+		this.inFlight.remove(key, shared);
+		shared.complete(sharedResponse);
+		return sharedResponse.toResponse(response.request());
+	}
+
+	private static SharedResponse await(CompletableFuture<SharedResponse> shared,
+			Request request, Request.Options options) throws IOException {
+		long timeout = options.readTimeoutMillis() > 0 ? options.readTimeoutMillis()
+				: Long.MAX_VALUE;
+		FeignDeadline deadline = FeignDeadline.current();
+		if (deadline != null) {
+			timeout = Math.min(timeout, deadline.remainingMillis());
+		}
+		try {
+			return shared.get(timeout, TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException ex) {
+			throw new SocketTimeoutException("Timed out after " + timeout
+					+ "ms waiting for a coalesced request to " + request.url());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			InterruptedIOException interrupted = new InterruptedIOException(
+					"Interrupted while waiting for a coalesced request");
+			interrupted.initCause(ex);
+			throw interrupted;
+		}
+		catch (ExecutionException ex) {
+			// not rethrown as is, as it is shared by every waiting caller
+			throw new IOException(
+					"Coalesced request to " + request.url() + " failed: " + ex.getCause(),
+					ex.getCause());
+		}
+	}
+
+	private static boolean read(InputStream stream, ByteArrayOutputStream buffer,
+			long limit) throws IOException {
+		byte[] chunk = new byte[8192];
+		int read;
+		while ((read = stream.read(chunk, 0,
+				(int) Math.min(chunk.length, limit + 1 - buffer.size()))) > 0) {
+			buffer.write(chunk, 0, read);
+			if (buffer.size() > limit) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the ratio of requests that were coalesced with an identical request
+	 */
+	public double getCoalescingRatio() {
+		long coalesced = this.coalesced.sum();
+		long total = coalesced + this.sent.sum();
+		return total == 0 ? 0 : (double) coalesced / total;
+	}
+
+	public Client getDelegate() {
+		return this.delegate;
+	}
+
+	private static final class SharedResponse {
+
+		private final int status;
+
+		private final String reason;
+
+		private final Map<String, Collection<String>> headers;
+
+		private final byte[] body;
+
+		private SharedResponse(Response response, byte[] body) {
+			this.status = response.status();
+			this.reason = response.reason();
+			this.headers = response.headers();
+			this.body = body;
+		}
+
+		private Response toResponse(Request request) {
+			return Response.builder().request(request).status(this.status)
+					.reason(this.reason).headers(this.headers).body(this.body).build();
+		}
+
+	}
+
+	private static final class Key {
+
+		private final String url;
+
+		private final Map<String, List<String>> headers = new TreeMap<>(
+				String.CASE_INSENSITIVE_ORDER);
+
+		private final int hash;
+
+		private Key(Request request, Set<String> ignoredHeaders) {
+			this.url = request.url();
+			request.headers().forEach((name, values) -> {
+				if (!ignoredHeaders.contains(name)) {
+					this.headers.put(name, new ArrayList<>(values));
+				}
+			});
+			int hash = this.url.hashCode();
+			for (Map.Entry<String, List<String>> header : this.headers.entrySet()) {
+				hash = 31 * hash + header.getKey().toLowerCase(Locale.ROOT).hashCode();
+				hash = 31 * hash + header.getValue().hashCode();
+			}
+			this.hash = hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key that = (Key) o;
+			return this.url.equals(that.url) && this.headers.equals(that.headers);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+	}
+
+}
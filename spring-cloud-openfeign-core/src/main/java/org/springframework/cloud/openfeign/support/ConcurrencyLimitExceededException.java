@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+/**
+ * Thrown when a request is rejected because the concurrency limit of its client, or of
+ * the instance it is sent to, is reached. The request is not sent.
+ *
+ * @since 3.0.0
+ * @see ConcurrencyLimitingClient
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+	private final int limit;
+
+	public ConcurrencyLimitExceededException(String message, int limit) {
+		super(message);
+		this.limit = limit;
+	}
+
+	/**
+	 * @return the concurrency limit when the request was rejected
+	 */
+	public int getLimit() {
+		return this.limit;
+	}
+
+}
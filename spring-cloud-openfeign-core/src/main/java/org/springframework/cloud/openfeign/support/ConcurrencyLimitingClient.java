@@ -0,0 +1,211 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.openfeign.FeignClientProperties;
+import org.springframework.cloud.openfeign.loadbalancer.RequestInstance;
+
+/**
+ * A {@link Client} limiting the number of concurrent requests of a client, or of each
+ * instance it sends requests to, with a limit adapted from the observed latencies and
+ * failures. Requests over the limit are rejected with a
+ * {@link ConcurrencyLimitExceededException} without being sent, so that callers fail
+ * fast instead of queueing behind a slow server. The limit, the requests in flight and
+ * the rejected requests are published as the {@code feign.client.concurrency.limit},
+ * {@code feign.client.concurrency.inflight} and
+ * {@code feign.client.concurrency.rejected} metrics. Per-instance limits that get no
+ * request for the configured instance idle timeout are dropped along with their
+ * metrics, so that instances going away do not leak.
+ *
+ * @since 3.0.0
+ * @see FeignClientProperties.ConcurrencyLimitConfiguration
+ */
+public class ConcurrencyLimitingClient implements Client {
+
+	private static final String ALL_INSTANCES = "";
+
+	private final Client delegate;
+
+	private final String clientName;
+
+	private final FeignClientProperties.ConcurrencyLimitConfiguration config;
+
+	private final FeignMetricsRegistrar metrics;
+
+	private final LongSupplier nanoTime;
+
+	private final ConcurrentMap<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
+	// guards the creation and removal of limits, so that their metrics stay in sync
+	private final Lock lock = new ReentrantLock();
+
+	private volatile long nextSweep;
+
+	/**
+	 * @param delegate the client sending the requests, which must already be sent to a
+	 * single instance for per-instance limits
+	 * @param clientName the context id of the client
+	 * @param config the configuration of the limit
+	 * @param metrics the registrar of the limit metrics
+	 */
+	public ConcurrencyLimitingClient(Client delegate, String clientName,
+			FeignClientProperties.ConcurrencyLimitConfiguration config,
+			FeignMetricsRegistrar metrics) {
+		this(delegate, clientName, config, metrics, System::nanoTime);
+	}
+
+	ConcurrencyLimitingClient(Client delegate, String clientName,
+			FeignClientProperties.ConcurrencyLimitConfiguration config,
+			FeignMetricsRegistrar metrics, LongSupplier nanoTime) {
+		this.delegate = delegate;
+		this.clientName = clientName;
+		this.config = config;
+		this.metrics = metrics;
+		this.nanoTime = nanoTime;
+		this.nextSweep = nanoTime.getAsLong() + idleTimeoutNanos();
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		String instance = this.config.isPerInstance() ? instanceOf(request)
+				: ALL_INSTANCES;
+		long start = this.nanoTime.getAsLong();
+		if (this.config.isPerInstance() && start - this.nextSweep >= 0) {
+			removeIdleLimits(start);
+		}
+		AdaptiveConcurrencyLimit limit = getOrCreateLimit(instance);
+		limit.markUsed(start);
+		if (!limit.tryAcquire()) {
+			throw new ConcurrencyLimitExceededException("Concurrency limit of "
+					+ limit.getLimit() + " reached for " + this.clientName
+					+ (instance.isEmpty() ? "" : " on " + instance), limit.getLimit());
+		}
+		boolean dropped = true;
+		try {
+			Response response = this.delegate.execute(request, options);
+			dropped = response.status() == 429 || response.status() == 503;
+			return response;
+		}
+		finally {
+			long end = this.nanoTime.getAsLong();
+			limit.markUsed(end);
+			limit.release(end - start, dropped);
+		}
+	}
+
+	/**
+	 * @param instance the host and port of an instance, or an empty string for the limit
+	 * of the client when limits are not per instance
+	 * @return the current concurrency limit, or {@code -1} if no request was sent yet
+	 */
+	public int getLimit(String instance) {
+		AdaptiveConcurrencyLimit limit = this.limits.get(instance);
+		return limit != null ? limit.getLimit() : -1;
+	}
+
+	public Client getDelegate() {
+		return this.delegate;
+	}
+
+	private AdaptiveConcurrencyLimit getOrCreateLimit(String instance) {
+		AdaptiveConcurrencyLimit limit = this.limits.get(instance);
+		if (limit == null) {
+			this.lock.lock();
+			try {
+				limit = this.limits.get(instance);
+				if (limit == null) {
+					limit = new AdaptiveConcurrencyLimit(this.config);
+					this.limits.put(instance, limit);
+					registerMetrics(instance, limit);
+				}
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+		return limit;
+	}
+
+	private void removeIdleLimits(long now) {
+		if (!this.lock.tryLock()) {
+			// another thread is already at it
+			return;
+		}
+		try {
+			long timeout = idleTimeoutNanos();
+			this.nextSweep = now + timeout;
+			this.limits.forEach((instance, limit) -> {
+				if (!instance.equals(ALL_INSTANCES) && limit.isIdle(now, timeout)
+						&& this.limits.remove(instance, limit)) {
+					String[] tags = tags(instance);
+					this.metrics.remove("feign.client.concurrency.limit", tags);
+					this.metrics.remove("feign.client.concurrency.inflight", tags);
+					this.metrics.remove("feign.client.concurrency.rejected", tags);
+				}
+			});
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private long idleTimeoutNanos() {
+		return this.config.getInstanceIdleTimeout().toNanos();
+	}
+
+	private String[] tags(String instance) {
+		return instance.isEmpty() ? new String[] { "client", this.clientName }
+				: new String[] { "client", this.clientName, "instance", instance };
+	}
+
+	private void registerMetrics(String instance, AdaptiveConcurrencyLimit limit) {
+		String[] tags = tags(instance);
+		this.metrics.gauge("feign.client.concurrency.limit",
+				"Number of concurrent requests currently allowed", limit::getLimit,
+				tags);
+		this.metrics.gauge("feign.client.concurrency.inflight",
+				"Number of requests in flight", limit::getInFlight, tags);
+		this.metrics.counter("feign.client.concurrency.rejected",
+				"Requests rejected because the concurrency limit was reached",
+				limit::getRejected, tags);
+	}
+
+	private static String instanceOf(Request request) {
+		ServiceInstance chosen = RequestInstance.get();
+		if (chosen != null) {
+			// already chosen by the load balancer, no need to parse the URL
+			return chosen.getHost() + ":" + chosen.getPort();
+		}
+		URI uri = URI.create(request.url());
+		return uri.getPort() != -1 ? uri.getHost() + ":" + uri.getPort()
+				: uri.getHost();
+	}
+
+}
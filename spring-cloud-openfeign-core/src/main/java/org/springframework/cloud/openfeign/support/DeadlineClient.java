@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.support;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * {@link Client} capping the connect and read timeouts of the requests to the time left
+ * until the {@link FeignDeadline} of the current thread, and failing the requests sent
+ * once it has passed.
+ *
+ * @since 3.0.0
+ */
+public class DeadlineClient implements Client {
+
+	private final Client delegate;
+
+	public DeadlineClient(Client delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		FeignDeadline deadline = FeignDeadline.current();
+		if (deadline == null) {
+			return this.delegate.execute(request, options);
+		}
+		long remaining = deadline.remainingMillis();
+		if (remaining <= 0) {
+			throw new SocketTimeoutException(
+					"Deadline exceeded before sending request to " + request.url());
+		}
+		int timeout = (int) Math.min(remaining, Integer.MAX_VALUE);
+		if (options.connectTimeoutMillis() <= timeout
+				&& options.readTimeoutMillis() <= timeout) {
+			return this.delegate.execute(request, options);
+		}
+		return this.delegate.execute(request,
+				new Request.Options(Math.min(options.connectTimeoutMillis(), timeout),
+						Math.min(options.readTimeoutMillis(), timeout),
+						options.isFollowRedirects()));
+	}
+
+	public Client getDelegate() {
+		return this.delegate;
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.support;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which the requests sent by the current thread must complete. A
+ * {@link DeadlineClient} caps the timeouts of these requests to the time left, so that a
+ * slow call fails at the deadline instead of holding its thread for its full read
+ * timeout.
+ *
+ * @since 3.0.0
+ */
+public final class FeignDeadline {
+
+	private static final ThreadLocal<FeignDeadline> CURRENT = new ThreadLocal<>();
+
+	private final long nanoTime;
+
+	private FeignDeadline(long nanoTime) {
+		this.nanoTime = nanoTime;
+	}
+
+	/**
+	 * @param timeout the time left until the deadline
+	 * @return the deadline after the given timeout from now
+	 */
+	public static FeignDeadline after(Duration timeout) {
+		return new FeignDeadline(System.nanoTime() + timeout.toNanos());
+	}
+
+	/**
+	 * @return the deadline of the current thread, or {@code null} if there is none
+	 */
+	public static FeignDeadline current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * @param deadline the deadline to bind to the current thread
+	 * @return the deadline previously bound, to {@link #restore(FeignDeadline) restore}
+	 * once the requests are sent
+	 */
+	public static FeignDeadline bind(FeignDeadline deadline) {
+		FeignDeadline previous = CURRENT.get();
+		CURRENT.set(deadline);
+		return previous;
+	}
+
+	/**
+	 * @param previous the deadline previously bound, may be {@code null}
+	 */
+	public static void restore(FeignDeadline previous) {
+		if (previous != null) {
+			CURRENT.set(previous);
+		}
+		else {
+			CURRENT.remove();
+		}
+	}
+
+	/**
+	 * @return the time left until the deadline, in nanoseconds, negative once it has
+	 * passed
+	 */
+	public long remainingNanos() {
+		return this.nanoTime - System.nanoTime();
+	}
+
+	/**
+	 * @return the time left until the deadline, in milliseconds, zero once it has passed
+	 */
+	public long remainingMillis() {
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(remainingNanos()));
+	}
+
+	@Override
+	public String toString() {
+		return "FeignDeadline{remaining=" + remainingMillis() + "ms}";
+	}
+
+}
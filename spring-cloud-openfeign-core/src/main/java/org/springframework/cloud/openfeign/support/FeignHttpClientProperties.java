@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.openfeign.support;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -82,6 +83,8 @@ public class FeignHttpClientProperties {
 
 	private int connectionTimerRepeat = DEFAULT_CONNECTION_TIMER_REPEAT;
 
+	private Dns dns = new Dns();
+
 	public int getConnectionTimerRepeat() {
 		return this.connectionTimerRepeat;
 	}
@@ -146,4 +149,46 @@ public class FeignHttpClientProperties {
 		this.connectionTimeout = connectionTimeout;
 	}
 
+	public Dns getDns() {
+		return this.dns;
+	}
+
+	public void setDns(Dns dns) {
+		this.dns = dns;
+	}
+
+	/**
+	 * Resolution of the host names the clients connect to.
+	 */
+	public static class Dns {
+
+		/**
+		 * Whether host names are resolved by a caching resolver spreading the
+		 * connections over all the addresses of a host.
+		 */
+		private boolean enabled;
+
+		/**
+		 * How long the addresses of a host name are used before being resolved again.
+		 */
+		private Duration ttl = Duration.ofSeconds(30);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getTtl() {
+			return this.ttl;
+		}
+
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+
+	}
+
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.lang.reflect.Method;
+
+import feign.Feign;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Target;
+
+import org.springframework.cloud.openfeign.Idempotent;
+import org.springframework.cloud.openfeign.MethodHandlerDecorator;
+import org.springframework.core.Ordered;
+
+/**
+ * Exposes the client method being invoked to the {@link feign.Client} executing its
+ * request, which lets client decorators apply per-method settings.
+ *
+ * @since 3.0.0
+ */
+public final class FeignInvocationContext {
+
+	private static final ThreadLocal<FeignInvocationContext> CURRENT = new ThreadLocal<>();
+
+	private final String clientName;
+
+	private final String methodKey;
+
+	private final Method method;
+
+	private FeignInvocationContext(String clientName, String methodKey, Method method) {
+		this.clientName = clientName;
+		this.methodKey = methodKey;
+		this.method = method;
+	}
+
+	/**
+	 * @return the context of the invocation running on the current thread, or
+	 * {@code null} if there is none
+	 */
+	public static FeignInvocationContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * @param request a request of the invocation running on the current thread
+	 * @return whether the request can be sent again: {@code GET}, {@code HEAD},
+	 * {@code OPTIONS}, {@code PUT}, {@code DELETE} and {@code TRACE} requests, or the
+	 * requests of client methods annotated with {@link Idempotent}
+	 */
+	public static boolean isIdempotent(Request request) {
+		switch (request.httpMethod()) {
+		case GET:
+		case HEAD:
+		case OPTIONS:
+		case PUT:
+		case DELETE:
+		case TRACE:
+			return true;
+		default:
+			FeignInvocationContext context = current();
+			return context != null
+					&& context.getMethod().isAnnotationPresent(Idempotent.class);
+		}
+	}
+
+	/**
+	 * @param clientName the context id of the client
+	 * @return a decorator binding the context of each invocation to the thread running
+	 * it
+	 */
+	public static MethodHandlerDecorator decorator(String clientName) {
+		return new ContextMethodHandlerDecorator(clientName);
+	}
+
+	/**
+	 * @return the context id of the client
+	 */
+	public String getClientName() {
+		return this.clientName;
+	}
+
+	/**
+	 * @return the config key of the method, such as {@code StoreClient#getStore(Long)}
+	 */
+	public String getMethodKey() {
+		return this.methodKey;
+	}
+
+	public Method getMethod() {
+		return this.method;
+	}
+
+	private static final class ContextMethodHandlerDecorator
+			implements MethodHandlerDecorator {
+
+		private final String clientName;
+
+		private ContextMethodHandlerDecorator(String clientName) {
+			this.clientName = clientName;
+		}
+
+		@Override
+		public MethodHandler decorate(Target<?> target, Method method,
+				MethodHandler handler) {
+			FeignInvocationContext context = new FeignInvocationContext(this.clientName,
+					Feign.configKey(target.type(), method), method);
+			return argv -> {
+				FeignInvocationContext previous = CURRENT.get();
+				CURRENT.set(context);
+				try {
+					return handler.invoke(argv);
+				}
+				finally {
+					if (previous != null) {
+						CURRENT.set(previous);
+					}
+					else {
+						CURRENT.remove();
+					}
+				}
+			};
+		}
+
+		@Override
+		public int getOrder() {
+			// innermost, so that the context is bound to the thread making the request
+			return Ordered.LOWEST_PRECEDENCE;
+		}
+
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Registers the metrics published by Feign client components, without tying them to a
+ * particular metrics library. Tags are given as alternating keys and values.
+ *
+ * @since 3.0.0
+ */
+public interface FeignMetricsRegistrar {
+
+	/**
+	 * A registrar ignoring all metrics.
+	 */
+	FeignMetricsRegistrar NONE = new FeignMetricsRegistrar() {
+
+		@Override
+		public void gauge(String name, String description, Supplier<Number> value,
+				String... tags) {
+		}
+
+		@Override
+		public void counter(String name, String description, Supplier<Number> value,
+				String... tags) {
+		}
+
+	};
+
+	/**
+	 * Registers a value that can go up and down.
+	 * @param name the name of the metric
+	 * @param description the description of the metric
+	 * @param value supplies the current value
+	 * @param tags the tags of the metric
+	 */
+	void gauge(String name, String description, Supplier<Number> value, String... tags);
+
+	/**
+	 * Registers a monotonically increasing count.
+	 * @param name the name of the metric
+	 * @param description the description of the metric
+	 * @param value supplies the current count
+	 * @param tags the tags of the metric
+	 */
+	void counter(String name, String description, Supplier<Number> value,
+			String... tags);
+
+	/**
+	 * Registers a distribution of recorded values, such as sizes. Ignores the values by
+	 * default.
+	 * @param name the name of the metric
+	 * @param description the description of the metric
+	 * @param baseUnit the unit of the values, may be {@code null}
+	 * @param tags the tags of the metric
+	 * @return records a value of the distribution
+	 */
+	default DoubleConsumer distribution(String name, String description,
+			String baseUnit, String... tags) {
+		return value -> {
+		};
+	}
+
+	/**
+	 * Registers a distribution of recorded durations. Ignores the durations by default.
+	 * @param name the name of the metric
+	 * @param description the description of the metric
+	 * @param tags the tags of the metric
+	 * @return records a duration of the distribution, in nanoseconds
+	 */
+	default LongConsumer timer(String name, String description, String... tags) {
+		return nanos -> {
+		};
+	}
+
+	/**
+	 * Removes a metric registered before, once what it measures is gone. Does nothing by
+	 * default.
+	 * @param name the name of the metric
+	 * @param tags the tags of the metric
+	 */
+	default void remove(String name, String... tags) {
+	}
+
+}
@@ -16,11 +16,17 @@
 
 package org.springframework.cloud.openfeign.support;
 
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import feign.Response;
 
 import org.springframework.http.HttpHeaders;
 
@@ -62,4 +68,30 @@ public final class FeignUtils {
 		return params;
 	}
 
+	/**
+	 * Parses the {@code Retry-After} header of a response, given either in seconds or
+	 * as an HTTP date.
+	 * @param response the response of a throttled or unavailable server
+	 * @return the time to wait before retrying, in milliseconds, negative if the date
+	 * has passed, or {@code null} if the header is missing or invalid
+	 * @since 3.0.0
+	 */
+	public static Long getRetryAfterMillis(Response response) {
+		Collection<String> values = response.headers().get("Retry-After");
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		String value = values.iterator().next().trim();
+		if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+			return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+		}
+		try {
+			return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+					.toInstant().toEpochMilli() - System.currentTimeMillis();
+		}
+		catch (DateTimeParseException ex) {
+			return null;
+		}
+	}
+
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of call latencies, used to estimate latency quantiles over a
+ * sliding time window. Latencies are counted in logarithmic buckets growing by 10%, so a
+ * quantile is accurate to within 10% of its true value.
+ * <p>
+ * The window is made of two halves: samples are recorded into the current half and
+ * quantiles are computed over both, the older half being discarded each time the
+ * current one is older than half the window.
+ *
+ * @since 3.0.0
+ */
+public class LatencyHistogram {
+
+	private static final double GROWTH = 1.1;
+
+	private static final double LOG_GROWTH = Math.log(GROWTH);
+
+	private static final long MIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private static final int BUCKETS = bucketOf(TimeUnit.MINUTES.toNanos(10)) + 1;
+
+	private final long halfWindowNanos;
+
+	private final AtomicReference<Window[]> windows;
+
+	/**
+	 * @param window the duration over which quantiles are computed
+	 * @param unit the unit of {@code window}
+	 */
+	public LatencyHistogram(long window, TimeUnit unit) {
+		this.halfWindowNanos = Math.max(1, unit.toNanos(window) / 2);
+		long now = System.nanoTime();
+		this.windows = new AtomicReference<>(
+				new Window[] { new Window(now), new Window(now) });
+	}
+
+	private static int bucketOf(long nanos) {
+		if (nanos <= MIN_NANOS) {
+			return 0;
+		}
+		return 1 + (int) (Math.log((double) nanos / MIN_NANOS) / LOG_GROWTH);
+	}
+
+	private static long upperBoundOf(int bucket) {
+		return (long) (MIN_NANOS * Math.pow(GROWTH, bucket));
+	}
+
+	/**
+	 * Records the latency of a call.
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		current().record(Math.min(bucketOf(Math.max(0, nanos)), BUCKETS - 1));
+	}
+
+	/**
+	 * @return the number of samples in the window
+	 */
+	public long count() {
+		Window[] current = rotateIfNeeded();
+		return current[0].count.sum() + current[1].count.sum();
+	}
+
+	/**
+	 * @param quantile the quantile to estimate, between 0 and 1
+	 * @return the estimated latency in nanoseconds at the given quantile, or {@code -1}
+	 * if no latency has been recorded in the window
+	 */
+	public long quantile(double quantile) {
+		Window[] current = rotateIfNeeded();
+		long total = current[0].count.sum() + current[1].count.sum();
+		if (total == 0) {
+			return -1;
+		}
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += current[0].counts.get(bucket) + current[1].counts.get(bucket);
+			if (seen >= rank) {
+				return upperBoundOf(bucket);
+			}
+		}
+		return upperBoundOf(BUCKETS - 1);
+	}
+
+	private Window current() {
+		return rotateIfNeeded()[0];
+	}
+
+	private Window[] rotateIfNeeded() {
+		Window[] current = this.windows.get();
+		long now = System.nanoTime();
+		if (now - current[0].start < this.halfWindowNanos) {
+			return current;
+		}
+		Window[] rotated = now - current[0].start < 2 * this.halfWindowNanos
+				? new Window[] { new Window(now), current[0] }
+				: new Window[] { new Window(now), new Window(now) };
+		// losing the race means another thread has just rotated
+		return this.windows.compareAndSet(current, rotated) ? rotated
+				: this.windows.get();
+	}
+
+	private static final class Window {
+
+		private final long start;
+
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+		private final LongAdder count = new LongAdder();
+
+		private Window(long start) {
+			this.start = start;
+		}
+
+		private void record(int bucket) {
+			this.counts.incrementAndGet(bucket);
+			this.count.increment();
+		}
+
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.support;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import org.springframework.cloud.openfeign.Broadcast;
+
+/**
+ * Broadcast of the calls of a Feign client method to all the instances of its service,
+ * as declared by {@link Broadcast}.
+ *
+ * @since 3.0.0
+ */
+public final class MethodBroadcast {
+
+	private final int maxConcurrency;
+
+	private final Duration timeout;
+
+	public MethodBroadcast(int maxConcurrency, Duration timeout) {
+		this.maxConcurrency = maxConcurrency;
+		this.timeout = timeout;
+	}
+
+	public int getMaxConcurrency() {
+		return this.maxConcurrency;
+	}
+
+	public Duration getTimeout() {
+		return this.timeout;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		MethodBroadcast that = (MethodBroadcast) o;
+		return this.maxConcurrency == that.maxConcurrency
+				&& Objects.equals(this.timeout, that.timeout);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.maxConcurrency, this.timeout);
+	}
+
+	@Override
+	public String toString() {
+		return "MethodBroadcast{" + "maxConcurrency=" + this.maxConcurrency
+				+ ", timeout=" + this.timeout + "}";
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import org.springframework.cloud.openfeign.CollapsedInto;
+
+/**
+ * Collapsing of the calls of a single Feign client method into a batch method, as
+ * declared by {@link CollapsedInto}.
+ *
+ * @since 3.0.0
+ */
+public final class MethodCollapsing {
+
+	private final String batchMethod;
+
+	private final String resultKey;
+
+	private final Duration window;
+
+	private final int maxBatchSize;
+
+	public MethodCollapsing(String batchMethod, String resultKey, Duration window,
+			int maxBatchSize) {
+		this.batchMethod = batchMethod;
+		this.resultKey = resultKey;
+		this.window = window;
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	public String getBatchMethod() {
+		return this.batchMethod;
+	}
+
+	/**
+	 * @return the property of the batch results holding their key, or {@code null} if
+	 * the batch method returns a map
+	 */
+	public String getResultKey() {
+		return this.resultKey;
+	}
+
+	public Duration getWindow() {
+		return this.window;
+	}
+
+	public int getMaxBatchSize() {
+		return this.maxBatchSize;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		MethodCollapsing that = (MethodCollapsing) o;
+		return this.maxBatchSize == that.maxBatchSize
+				&& Objects.equals(this.batchMethod, that.batchMethod)
+				&& Objects.equals(this.resultKey, that.resultKey)
+				&& Objects.equals(this.window, that.window);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.batchMethod, this.resultKey, this.window,
+				this.maxBatchSize);
+	}
+
+	@Override
+	public String toString() {
+		return "MethodCollapsing{" + "batchMethod='" + this.batchMethod + "'"
+				+ ", resultKey='" + this.resultKey + "', window=" + this.window
+				+ ", maxBatchSize=" + this.maxBatchSize + "}";
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * {@link Client} applying the request options of the method being invoked, as exposed
+ * by the {@link FeignInvocationContext}, on top of the options of the client.
+ *
+ * @since 3.0.0
+ */
+public class MethodOptionsClient implements Client {
+
+	private final Client delegate;
+
+	private final Function<String, MethodRequestOptions> optionsResolver;
+
+	private final ConcurrentMap<String, MethodRequestOptions> options = new ConcurrentHashMap<>();
+
+	/**
+	 * @param delegate the client executing the requests
+	 * @param optionsResolver resolves the options of a method from its config key, may
+	 * return {@code null} if the method has no specific options
+	 */
+	public MethodOptionsClient(Client delegate,
+			Function<String, MethodRequestOptions> optionsResolver) {
+		this.delegate = delegate;
+		this.optionsResolver = optionsResolver;
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		FeignInvocationContext context = FeignInvocationContext.current();
+		if (context == null) {
+			return this.delegate.execute(request, options);
+		}
+		MethodRequestOptions methodOptions = getMethodOptions(context.getMethodKey());
+		return this.delegate.execute(request, methodOptions.applyTo(options));
+	}
+
+	/**
+	 * @param methodKey the config key of a client method
+	 * @return the options applied to the method
+	 */
+	public MethodRequestOptions getMethodOptions(String methodKey) {
+		return this.options.computeIfAbsent(methodKey, key -> {
+			MethodRequestOptions resolved = this.optionsResolver.apply(key);
+			return resolved != null ? resolved : MethodRequestOptions.NONE;
+		});
+	}
+
+	public Client getDelegate() {
+		return this.delegate;
+	}
+
+}
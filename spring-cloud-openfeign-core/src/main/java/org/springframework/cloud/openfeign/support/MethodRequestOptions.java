@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.util.Objects;
+
+import feign.Request;
+
+/**
+ * Request options of a single Feign client method. Options that are {@code null} fall
+ * back to the options of the client.
+ *
+ * @since 3.0.0
+ */
+public final class MethodRequestOptions {
+
+	/**
+	 * Options that do not override anything.
+	 */
+	public static final MethodRequestOptions NONE = new MethodRequestOptions(null, null,
+			null);
+
+	private final Integer connectTimeout;
+
+	private final Integer readTimeout;
+
+	private final Boolean followRedirects;
+
+	public MethodRequestOptions(Integer connectTimeout, Integer readTimeout,
+			Boolean followRedirects) {
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+		this.followRedirects = followRedirects;
+	}
+
+	public Integer getConnectTimeout() {
+		return this.connectTimeout;
+	}
+
+	public Integer getReadTimeout() {
+		return this.readTimeout;
+	}
+
+	public Boolean getFollowRedirects() {
+		return this.followRedirects;
+	}
+
+	public boolean isEmpty() {
+		return this.connectTimeout == null && this.readTimeout == null
+				&& this.followRedirects == null;
+	}
+
+	/**
+	 * @param other the options taking precedence, may be {@code null}
+	 * @return options combining {@code other} with these options
+	 */
+	public MethodRequestOptions overriddenBy(MethodRequestOptions other) {
+		if (other == null || other.isEmpty()) {
+			return this;
+		}
+		return new MethodRequestOptions(
+				other.connectTimeout != null ? other.connectTimeout : this.connectTimeout,
+				other.readTimeout != null ? other.readTimeout : this.readTimeout,
+				other.followRedirects != null ? other.followRedirects
+						: this.followRedirects);
+	}
+
+	/**
+	 * @param options the options of the client
+	 * @return the options of the client with these options applied
+	 */
+	public Request.Options applyTo(Request.Options options) {
+		if (isEmpty()) {
+			return options;
+		}
+		return new Request.Options(
+				this.connectTimeout != null ? this.connectTimeout
+						: options.connectTimeoutMillis(),
+				this.readTimeout != null ? this.readTimeout
+						: options.readTimeoutMillis(),
+				this.followRedirects != null ? this.followRedirects
+						: options.isFollowRedirects());
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		MethodRequestOptions that = (MethodRequestOptions) o;
+		return Objects.equals(this.connectTimeout, that.connectTimeout)
+				&& Objects.equals(this.readTimeout, that.readTimeout)
+				&& Objects.equals(this.followRedirects, that.followRedirects);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.connectTimeout, this.readTimeout,
+				this.followRedirects);
+	}
+
+	@Override
+	public String toString() {
+		return "MethodRequestOptions{" + "connectTimeout=" + this.connectTimeout
+				+ ", readTimeout=" + this.readTimeout + ", followRedirects="
+				+ this.followRedirects + "}";
+	}
+
+}
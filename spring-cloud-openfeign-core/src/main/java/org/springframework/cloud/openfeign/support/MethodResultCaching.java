@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import org.springframework.cloud.openfeign.CachedResult;
+
+/**
+ * Caching of the results of a single Feign client method, as declared by
+ * {@link CachedResult}.
+ *
+ * @since 3.0.0
+ */
+public final class MethodResultCaching {
+
+	private final Duration ttl;
+
+	private final int maxEntries;
+
+	private final CachedResult.Scope scope;
+
+	public MethodResultCaching(Duration ttl, int maxEntries, CachedResult.Scope scope) {
+		this.ttl = ttl;
+		this.maxEntries = maxEntries;
+		this.scope = scope;
+	}
+
+	public Duration getTtl() {
+		return this.ttl;
+	}
+
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	public CachedResult.Scope getScope() {
+		return this.scope;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		MethodResultCaching that = (MethodResultCaching) o;
+		return this.maxEntries == that.maxEntries && Objects.equals(this.ttl, that.ttl)
+				&& this.scope == that.scope;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.ttl, this.maxEntries, this.scope);
+	}
+
+	@Override
+	public String toString() {
+		return "MethodResultCaching{" + "ttl=" + this.ttl + ", maxEntries="
+				+ this.maxEntries + ", scope=" + this.scope + "}";
+	}
+
+}
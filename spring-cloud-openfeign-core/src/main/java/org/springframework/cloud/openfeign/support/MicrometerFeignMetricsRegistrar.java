@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * A {@link FeignMetricsRegistrar} publishing metrics to a Micrometer
+ * {@link MeterRegistry}, if one is available when the metric is registered.
+ *
+ * @since 3.0.0
+ */
+public class MicrometerFeignMetricsRegistrar implements FeignMetricsRegistrar {
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	// Micrometer only keeps weak references to the measured objects
+	private final Map<Meter.Id, Supplier<Number>> values = new ConcurrentHashMap<>();
+
+	public MicrometerFeignMetricsRegistrar(ObjectProvider<MeterRegistry> meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public void gauge(String name, String description, Supplier<Number> value,
+			String... tags) {
+		MeterRegistry registry = this.meterRegistry.getIfAvailable();
+		if (registry != null) {
+			Gauge gauge = Gauge
+					.builder(name, value, MicrometerFeignMetricsRegistrar::toDouble)
+					.description(description).tags(tags).register(registry);
+			this.values.put(gauge.getId(), value);
+		}
+	}
+
+	@Override
+	public void counter(String name, String description, Supplier<Number> value,
+			String... tags) {
+		MeterRegistry registry = this.meterRegistry.getIfAvailable();
+		if (registry != null) {
+			FunctionCounter counter = FunctionCounter
+					.builder(name, value, MicrometerFeignMetricsRegistrar::toDouble)
+					.description(description).tags(tags).register(registry);
+			this.values.put(counter.getId(), value);
+		}
+	}
+
+	@Override
+	public DoubleConsumer distribution(String name, String description,
+			String baseUnit, String... tags) {
+		MeterRegistry registry = this.meterRegistry.getIfAvailable();
+		if (registry == null) {
+			return FeignMetricsRegistrar.super.distribution(name, description, baseUnit,
+					tags);
+		}
+		return DistributionSummary.builder(name).description(description)
+				.baseUnit(baseUnit).tags(tags).publishPercentileHistogram()
+				.register(registry)::record;
+	}
+
+	@Override
+	public LongConsumer timer(String name, String description, String... tags) {
+		MeterRegistry registry = this.meterRegistry.getIfAvailable();
+		if (registry == null) {
+			return FeignMetricsRegistrar.super.timer(name, description, tags);
+		}
+		Timer timer = Timer.builder(name).description(description).tags(tags)
+				.publishPercentileHistogram().register(registry);
+		return nanos -> timer.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void remove(String name, String... tags) {
+		MeterRegistry registry = this.meterRegistry.getIfAvailable();
+		if (registry != null) {
+			for (Meter meter : registry.find(name).tags(tags).meters()) {
+				registry.remove(meter);
+				this.values.remove(meter.getId());
+			}
+		}
+	}
+
+	private static double toDouble(Supplier<Number> value) {
+		Number number = value.get();
+		return number != null ? number.doubleValue() : Double.NaN;
+	}
+
+}
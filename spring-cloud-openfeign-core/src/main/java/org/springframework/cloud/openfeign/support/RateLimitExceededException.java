@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is rejected because the rate limit of its client or method
+ * would make it wait longer than allowed. The request is not sent.
+ *
+ * @since 3.0.0
+ * @see RateLimitingClient
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+	private final Duration requiredWait;
+
+	public RateLimitExceededException(String message, Duration requiredWait) {
+		super(message);
+		this.requiredWait = requiredWait;
+	}
+
+	/**
+	 * @return how long the request would have had to wait for a permit
+	 */
+	public Duration getRequiredWait() {
+		return this.requiredWait;
+	}
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import org.springframework.cloud.openfeign.FeignClientProperties;
+
+/**
+ * A {@link Client} limiting the rate of the requests of a client, or of some of its
+ * methods, with token buckets. A request waits for a permit up to the configured
+ * maximum wait, and is rejected with a {@link RateLimitExceededException} without being
+ * sent otherwise. The rate is lowered from the {@code Retry-After} header of throttled
+ * responses and from the {@code RateLimit-Remaining} and {@code RateLimit-Reset}
+ * headers, or their {@code X-} prefixed variants, so that the quota of the server is
+ * spread over its window instead of being exhausted at once. The rejected requests and
+ * the current rate are published as the {@code feign.client.ratelimit.rejected} and
+ * {@code feign.client.ratelimit.rate} metrics.
+ *
+ * @since 3.0.0
+ * @see FeignClientProperties.RateLimitConfiguration
+ */
+public class RateLimitingClient implements Client {
+
+	/**
+	 * Reset values above this are epoch seconds rather than delays.
+	 */
+	private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+	private final Client delegate;
+
+	private final String clientName;
+
+	private final Function<String, FeignClientProperties.RateLimitConfiguration> methodConfigs;
+
+	private final FeignMetricsRegistrar metrics;
+
+	private final LongSupplier nanoClock;
+
+	private final Limiter clientLimiter;
+
+	private final ConcurrentMap<String, Optional<Limiter>> limiters = new ConcurrentHashMap<>();
+
+	/**
+	 * @param delegate the client sending the requests
+	 * @param clientName the context id of the client
+	 * @param config the rate limit of the client, may be {@code null} if only some
+	 * methods are limited
+	 * @param methodConfigs resolves the rate limit of a method from its config key, may
+	 * return {@code null} if the method uses the limit of the client
+	 * @param metrics the registrar of the rate limit metrics
+	 */
+	public RateLimitingClient(Client delegate, String clientName,
+			FeignClientProperties.RateLimitConfiguration config,
+			Function<String, FeignClientProperties.RateLimitConfiguration> methodConfigs,
+			FeignMetricsRegistrar metrics) {
+		this(delegate, clientName, config, methodConfigs, metrics, System::nanoTime);
+	}
+
+	RateLimitingClient(Client delegate, String clientName,
+			FeignClientProperties.RateLimitConfiguration config,
+			Function<String, FeignClientProperties.RateLimitConfiguration> methodConfigs,
+			FeignMetricsRegistrar metrics, LongSupplier nanoClock) {
+		this.delegate = delegate;
+		this.clientName = clientName;
+		this.methodConfigs = methodConfigs;
+		this.metrics = metrics;
+		this.nanoClock = nanoClock;
+		this.clientLimiter = config != null && config.isEnabled()
+				? new Limiter(config, null) : null;
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		Limiter limiter = getLimiter();
+		if (limiter == null) {
+			return this.delegate.execute(request, options);
+		}
+		limiter.acquire();
+		Response response = this.delegate.execute(request, options);
+		if (limiter.config.isAdaptToResponses()) {
+			limiter.adapt(response);
+		}
+		return response;
+	}
+
+	public Client getDelegate() {
+		return this.delegate;
+	}
+
+	private Limiter getLimiter() {
+		FeignInvocationContext context = FeignInvocationContext.current();
+		if (context == null) {
+			return this.clientLimiter;
+		}
+		return this.limiters.computeIfAbsent(context.getMethodKey(), methodKey -> {
+			FeignClientProperties.RateLimitConfiguration config = this.methodConfigs
+					.apply(methodKey);
+			if (config == null) {
+				return Optional.ofNullable(this.clientLimiter);
+			}
+			return config.isEnabled() ? Optional.of(new Limiter(config, methodKey))
+					: Optional.empty();
+		}).orElse(null);
+	}
+
+	private static Long parseLong(Response response, String... names) {
+		for (String name : names) {
+			Collection<String> values = response.headers().get(name);
+			if (values != null && !values.isEmpty()) {
+				String value = values.iterator().next().trim();
+				int end = 0;
+				while (end < value.length() && Character.isDigit(value.charAt(end))) {
+					end++;
+				}
+				if (end > 0) {
+					return Long.parseLong(value.substring(0, end));
+				}
+			}
+		}
+		return null;
+	}
+
+	private final class Limiter {
+
+		private final FeignClientProperties.RateLimitConfiguration config;
+
+		private final String methodKey;
+
+		private final TokenBucket bucket;
+
+		private final LongAdder rejected = new LongAdder();
+
+		Limiter(FeignClientProperties.RateLimitConfiguration config, String methodKey) {
+			this.config = config;
+			this.methodKey = methodKey;
+			this.bucket = new TokenBucket(config.getPermitsPerSecond(),
+					config.getBurst(), RateLimitingClient.this.nanoClock);
+			String clientName = RateLimitingClient.this.clientName;
+			String[] tags = methodKey != null
+					? new String[] { "client", clientName, "method", methodKey }
+					: new String[] { "client", clientName };
+			FeignMetricsRegistrar metrics = RateLimitingClient.this.metrics;
+			metrics.counter("feign.client.ratelimit.rejected",
+					"Requests rejected because the rate limit was exceeded",
+					this.rejected::sum, tags);
+			metrics.gauge("feign.client.ratelimit.rate",
+					"Number of requests currently allowed per second",
+					this.bucket::getPermitsPerSecond, tags);
+		}
+
+		void acquire() throws InterruptedIOException {
+			long wait = this.bucket.reserve(this.config.getMaxWait().toNanos());
+			if (wait < 0) {
+				this.rejected.increment();
+				throw new RateLimitExceededException("Rate limit exceeded for "
+						+ (this.methodKey != null ? this.methodKey
+								: RateLimitingClient.this.clientName)
+						+ ", next permit available in "
+						+ TimeUnit.NANOSECONDS.toMillis(-wait) + "ms",
+						Duration.ofNanos(-wait));
+			}
+			if (wait > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(wait);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					InterruptedIOException interrupted = new InterruptedIOException(
+							"Interrupted while waiting for a rate limit permit");
+					interrupted.initCause(ex);
+					throw interrupted;
+				}
+			}
+		}
+
+		void adapt(Response response) {
+			if (response.status() == 429 || response.status() == 503) {
+				Long retryAfter = FeignUtils.getRetryAfterMillis(response);
+				if (retryAfter != null && retryAfter > 0) {
+					this.bucket.pause(TimeUnit.MILLISECONDS.toNanos(retryAfter));
+				}
+			}
+			Long remaining = parseLong(response, "RateLimit-Remaining",
+					"X-RateLimit-Remaining");
+			Long reset = parseLong(response, "RateLimit-Reset", "X-RateLimit-Reset");
+			if (remaining != null && reset != null) {
+				long resetSeconds = reset > EPOCH_SECONDS_THRESHOLD
+						? reset - TimeUnit.MILLISECONDS
+								.toSeconds(System.currentTimeMillis())
+						: reset;
+				if (resetSeconds > 0) {
+					this.bucket.adapt(remaining, TimeUnit.SECONDS.toNanos(resetSeconds));
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket capping additional requests, such as retries or hedged requests, to a
+ * percentage of the regular traffic. Each regular request deposits a fraction of a token
+ * and each additional request withdraws a whole one.
+ *
+ * @since 3.0.0
+ */
+public class RequestBudget {
+
+	private static final long TOKEN = 1000;
+
+	private final long deposit;
+
+	private final long maxBalance;
+
+	private final AtomicLong balance;
+
+	/**
+	 * @param percent the maximum additional requests, as a percentage of the regular
+	 * ones
+	 * @param reserve the number of additional requests allowed regardless of traffic,
+	 * which is also the initial balance of the budget
+	 */
+	public RequestBudget(double percent, int reserve) {
+		this.deposit = (long) (percent * TOKEN / 100);
+		this.maxBalance = Math.max(reserve, 1) * TOKEN;
+		this.balance = new AtomicLong(reserve * TOKEN);
+	}
+
+	/**
+	 * Called for each regular request.
+	 */
+	public void deposit() {
+		long current;
+		do {
+			current = this.balance.get();
+			if (current >= this.maxBalance) {
+				return;
+			}
+		}
+		while (!this.balance.compareAndSet(current,
+				Math.min(this.maxBalance, current + this.deposit)));
+	}
+
+	/**
+	 * Called before an additional request.
+	 * @return whether the request fits in the budget
+	 */
+	public boolean tryWithdraw() {
+		long current;
+		do {
+			current = this.balance.get();
+			if (current < TOKEN) {
+				return false;
+			}
+		}
+		while (!this.balance.compareAndSet(current, current - TOKEN));
+		return true;
+	}
+
+}
@@ -19,7 +19,10 @@ package org.springframework.cloud.openfeign.support;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -28,6 +31,8 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import feign.Contract;
 import feign.Feign;
@@ -35,13 +40,20 @@ import feign.MethodMetadata;
 import feign.Param;
 import feign.Request;
 
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.cloud.openfeign.AnnotatedParameterProcessor;
+import org.springframework.cloud.openfeign.Broadcast;
+import org.springframework.cloud.openfeign.BroadcastResult;
+import org.springframework.cloud.openfeign.CachedResult;
+import org.springframework.cloud.openfeign.CollapsedInto;
+import org.springframework.cloud.openfeign.RequestOptions;
 import org.springframework.cloud.openfeign.annotation.MatrixVariableParameterProcessor;
 import org.springframework.cloud.openfeign.annotation.PathVariableParameterProcessor;
 import org.springframework.cloud.openfeign.annotation.QueryMapParameterProcessor;
 import org.springframework.cloud.openfeign.annotation.RequestHeaderParameterProcessor;
 import org.springframework.cloud.openfeign.annotation.RequestParamParameterProcessor;
 import org.springframework.cloud.openfeign.annotation.RequestPartParameterProcessor;
+import org.springframework.cloud.openfeign.annotation.RoutingKeyParameterProcessor;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.DefaultParameterNameDiscoverer;
@@ -92,6 +104,14 @@ public class SpringMvcContract extends Contract.BaseContract
 
 	private final Map<String, Method> processedMethods = new HashMap<>();
 
+	private final Map<String, MethodRequestOptions> methodRequestOptions = new ConcurrentHashMap<>();
+
+	private final Map<String, MethodResultCaching> methodResultCaching = new ConcurrentHashMap<>();
+
+	private final Map<String, MethodCollapsing> methodCollapsing = new ConcurrentHashMap<>();
+
+	private final Map<String, MethodBroadcast> methodBroadcast = new ConcurrentHashMap<>();
+
 	private final ConversionService conversionService;
 
 	private final ConvertingExpanderFactory convertingExpanderFactory;
@@ -203,9 +223,109 @@ public class SpringMvcContract extends Contract.BaseContract
 			// present
 			parseHeaders(md, method, classAnnotation);
 		}
+
+		// asynchronous methods are executed synchronously on another thread, so the
+		// response has to be decoded into the type the future completes with
+		if (CompletableFuture.class.equals(method.getReturnType())) {
+			md.returnType(resolveFutureResultType(md.returnType()));
+		}
+
+		RequestOptions requestOptions = findMergedAnnotation(method,
+				RequestOptions.class);
+		if (requestOptions != null) {
+			this.methodRequestOptions.put(md.configKey(),
+					parseRequestOptions(method, requestOptions));
+		}
+
+		CachedResult cachedResult = findMergedAnnotation(method, CachedResult.class);
+		if (cachedResult != null) {
+			this.methodResultCaching.put(md.configKey(),
+					parseResultCaching(method, cachedResult));
+		}
+
+		CollapsedInto collapsedInto = findMergedAnnotation(method, CollapsedInto.class);
+		if (collapsedInto != null) {
+			this.methodCollapsing.put(md.configKey(),
+					parseCollapsing(method, collapsedInto));
+		}
+
+		// each instance answers a broadcast with a response of the type of the results
+		Broadcast broadcast = findMergedAnnotation(method, Broadcast.class);
+		if (broadcast != null) {
+			md.returnType(resolveBroadcastResultType(method, md.returnType()));
+			this.methodBroadcast.put(md.configKey(), parseBroadcast(method, broadcast));
+		}
 		return md;
 	}
 
+	/**
+	 * @param methodKey the config key of a parsed method
+	 * @return the request options declared by the {@link RequestOptions} annotation of
+	 * the method, or {@code null} if the method is not annotated
+	 */
+	public MethodRequestOptions getMethodRequestOptions(String methodKey) {
+		return this.methodRequestOptions.get(methodKey);
+	}
+
+	/**
+	 * @param methodKey the config key of a parsed method
+	 * @return the caching of the results declared by the {@link CachedResult}
+	 * annotation of the method, or {@code null} if the method is not annotated
+	 */
+	public MethodResultCaching getMethodResultCaching(String methodKey) {
+		return this.methodResultCaching.get(methodKey);
+	}
+
+	/**
+	 * @param methodKey the config key of a parsed method
+	 * @return the collapsing of the calls declared by the {@link CollapsedInto}
+	 * annotation of the method, or {@code null} if the method is not annotated
+	 */
+	public MethodCollapsing getMethodCollapsing(String methodKey) {
+		return this.methodCollapsing.get(methodKey);
+	}
+
+	/**
+	 * @param methodKey the config key of a parsed method
+	 * @return the broadcast of the calls declared by the {@link Broadcast} annotation of
+	 * the method, or {@code null} if the method is not annotated
+	 */
+	public MethodBroadcast getMethodBroadcast(String methodKey) {
+		return this.methodBroadcast.get(methodKey);
+	}
+
+	private static Type resolveBroadcastResultType(Method method, Type listType) {
+		Type resultType = null;
+		if (method.getReturnType().isAssignableFrom(ArrayList.class)
+				&& listType instanceof ParameterizedType) {
+			resultType = ((ParameterizedType) listType).getActualTypeArguments()[0];
+			if (resultType instanceof WildcardType) {
+				resultType = ((WildcardType) resultType).getUpperBounds()[0];
+			}
+		}
+		checkState(resultType instanceof ParameterizedType
+				&& BroadcastResult.class
+						.equals(((ParameterizedType) resultType).getRawType()),
+				"Method %s must return a list of BroadcastResult to be broadcast",
+				method.getName());
+		Type valueType = ((ParameterizedType) resultType).getActualTypeArguments()[0];
+		if (valueType instanceof WildcardType) {
+			valueType = ((WildcardType) valueType).getUpperBounds()[0];
+		}
+		return Void.class.equals(valueType) ? void.class : valueType;
+	}
+
+	private static Type resolveFutureResultType(Type futureType) {
+		if (!(futureType instanceof ParameterizedType)) {
+			return Object.class;
+		}
+		Type resultType = ((ParameterizedType) futureType).getActualTypeArguments()[0];
+		if (resultType instanceof WildcardType) {
+			resultType = ((WildcardType) resultType).getUpperBounds()[0];
+		}
+		return Void.class.equals(resultType) ? void.class : resultType;
+	}
+
 	@Override
 	protected void processAnnotationOnMethod(MethodMetadata data,
 			Annotation methodAnnotation, Method method) {
@@ -256,6 +376,102 @@ public class SpringMvcContract extends Contract.BaseContract
 		return value;
 	}
 
+	private MethodRequestOptions parseRequestOptions(Method method,
+			RequestOptions requestOptions) {
+		return new MethodRequestOptions(
+				parseTimeout(method, requestOptions.connectTimeout(), "connectTimeout"),
+				parseTimeout(method, requestOptions.readTimeout(), "readTimeout"),
+				parseFollowRedirects(method, requestOptions.followRedirects()));
+	}
+
+	private MethodResultCaching parseResultCaching(Method method,
+			CachedResult cachedResult) {
+		checkState(method.getReturnType() != void.class,
+				"Method %s returns nothing, its result cannot be cached",
+				method.getName());
+		checkState(cachedResult.maxEntries() > 0,
+				"Method %s has an invalid maxEntries value: %s", method.getName(),
+				cachedResult.maxEntries());
+		Duration ttl = parsePositiveDuration(method, cachedResult.ttl(), "ttl");
+		return new MethodResultCaching(ttl, cachedResult.maxEntries(),
+				cachedResult.scope());
+	}
+
+	private MethodCollapsing parseCollapsing(Method method,
+			CollapsedInto collapsedInto) {
+		checkState(method.getParameterCount() == 1,
+				"Method %s must take the key of the item as its only parameter to be collapsed",
+				method.getName());
+		checkState(StringUtils.hasText(collapsedInto.value()),
+				"Method %s must name the batch method it is collapsed into",
+				method.getName());
+		checkState(collapsedInto.maxBatchSize() > 0,
+				"Method %s has an invalid maxBatchSize value: %s", method.getName(),
+				collapsedInto.maxBatchSize());
+		Duration window = parsePositiveDuration(method, collapsedInto.window(),
+				"window");
+		return new MethodCollapsing(collapsedInto.value(),
+				emptyToNull(collapsedInto.resultKey()), window,
+				collapsedInto.maxBatchSize());
+	}
+
+	private MethodBroadcast parseBroadcast(Method method, Broadcast broadcast) {
+		checkState(broadcast.maxConcurrency() > 0,
+				"Method %s has an invalid maxConcurrency value: %s", method.getName(),
+				broadcast.maxConcurrency());
+		Duration timeout = parsePositiveDuration(method, broadcast.timeout(),
+				"timeout");
+		return new MethodBroadcast(broadcast.maxConcurrency(), timeout);
+	}
+
+	private Duration parsePositiveDuration(Method method, String value,
+			String fieldName) {
+		String resolved = resolve(value);
+		Duration duration = null;
+		try {
+			duration = DurationStyle.detectAndParse(resolved.trim());
+		}
+		catch (IllegalArgumentException ex) {
+			// reported below
+		}
+		checkState(duration != null && !duration.isNegative() && !duration.isZero(),
+				"Method %s has an invalid %s value: %s", method.getName(), fieldName,
+				resolved);
+		return duration;
+	}
+
+	private Integer parseTimeout(Method method, String value, String fieldName) {
+		String timeout = emptyToNull(resolve(value));
+		if (timeout == null) {
+			return null;
+		}
+		Integer millis = null;
+		try {
+			millis = Integer.valueOf(timeout.trim());
+		}
+		catch (NumberFormatException ex) {
+			// reported below
+		}
+		checkState(millis != null && millis >= 0,
+				"Method %s has an invalid %s value: %s", method.getName(), fieldName,
+				timeout);
+		return millis;
+	}
+
+	private Boolean parseFollowRedirects(Method method, String value) {
+		String followRedirects = emptyToNull(resolve(value));
+		if (followRedirects == null) {
+			return null;
+		}
+		followRedirects = followRedirects.trim();
+		checkState(
+				"true".equalsIgnoreCase(followRedirects)
+						|| "false".equalsIgnoreCase(followRedirects),
+				"Method %s has an invalid followRedirects value: %s", method.getName(),
+				followRedirects);
+		return Boolean.valueOf(followRedirects);
+	}
+
 	private void checkAtMostOne(Method method, Object[] values, String fieldName) {
 		checkState(values != null && (values.length == 0 || values.length == 1),
 				"Method %s can only contain at most 1 %s field. Found: %s",
@@ -358,6 +574,7 @@ public class SpringMvcContract extends Contract.BaseContract
 		annotatedArgumentResolvers.add(new RequestHeaderParameterProcessor());
 		annotatedArgumentResolvers.add(new QueryMapParameterProcessor());
 		annotatedArgumentResolvers.add(new RequestPartParameterProcessor());
+		annotatedArgumentResolvers.add(new RoutingKeyParameterProcessor());
 
 		return annotatedArgumentResolvers;
 	}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.support;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import org.springframework.cloud.openfeign.FeignClientProperties;
+import org.springframework.cloud.openfeign.FeignClientProperties.StaticUrlsConfiguration.Balancing;
+
+/**
+ * A {@link Client} balancing the requests of a client over several URLs, without service
+ * discovery. The requests are sent to each URL in turn, or to the one with the fewest
+ * requests in flight. A URL failing repeatedly, with I/O errors or server errors, is not
+ * used for the configured down time. The requests that could not connect are sent again
+ * to another URL, as are the idempotent requests failing with an I/O error or a
+ * {@code 502}, {@code 503} or {@code 504} status, while the other server errors are
+ * returned as they are. The host names of the URLs are resolved again periodically, in
+ * the background: a host name that does not resolve is not used, and one resolving to
+ * other addresses is given a fresh start. The requests sent to each URL are published as
+ * the {@code feign.client.urls.requests} counter.
+ *
+ * @since 3.0.0
+ * @see FeignClientProperties.StaticUrlsConfiguration
+ */
+public class StaticUrlsClient implements Client {
+
+	private final Client delegate;
+
+	private final String targetUrl;
+
+	private final FeignClientProperties.StaticUrlsConfiguration config;
+
+	private final HostResolver resolver;
+
+	private final Executor resolverExecutor;
+
+	private final LongSupplier nanoClock;
+
+	private final List<Endpoint> endpoints = new ArrayList<>();
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * @param delegate the client sending the requests
+	 * @param clientName the context id of the client
+	 * @param targetUrl the URL of the target of the client, replaced with the chosen URL
+	 * in the requests
+	 * @param urls the URLs to balance the requests over
+	 * @param config the balancing of the client
+	 * @param metrics the registrar of the request metrics
+	 * @param resolverExecutor the executor resolving the host names of the URLs again
+	 */
+	public StaticUrlsClient(Client delegate, String clientName, String targetUrl,
+			List<String> urls, FeignClientProperties.StaticUrlsConfiguration config,
+			FeignMetricsRegistrar metrics, Executor resolverExecutor) {
+		this(delegate, clientName, targetUrl, urls, config, metrics,
+				InetAddress::getAllByName, resolverExecutor, System::nanoTime);
+	}
+
+	StaticUrlsClient(Client delegate, String clientName, String targetUrl,
+			List<String> urls, FeignClientProperties.StaticUrlsConfiguration config,
+			FeignMetricsRegistrar metrics, HostResolver resolver,
+			Executor resolverExecutor, LongSupplier nanoClock) {
+		this.delegate = delegate;
+		this.targetUrl = targetUrl;
+		this.config = config;
+		this.resolver = resolver;
+		this.resolverExecutor = resolverExecutor;
+		this.nanoClock = nanoClock;
+		for (String url : urls) {
+			Endpoint endpoint = new Endpoint(url);
+			this.endpoints.add(endpoint);
+			metrics.counter("feign.client.urls.requests", "Requests sent to each URL",
+					endpoint.requests::sum, "client", clientName, "url", endpoint.url);
+		}
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		Set<Endpoint> tried = new HashSet<>();
+		while (true) {
+			Endpoint endpoint = choose(tried);
+			tried.add(endpoint);
+			endpoint.inFlight.incrementAndGet();
+			endpoint.requests.increment();
+			try {
+				Response response = this.delegate.execute(rewrite(request, endpoint),
+						options);
+				if (response.status() < 500) {
+					endpoint.consecutiveFailures.set(0);
+					return response;
+				}
+				endpoint.onFailure(this.nanoClock.getAsLong());
+				if (!isUnavailable(response.status())
+						|| !FeignInvocationContext.isIdempotent(request)
+						|| tried.size() == this.endpoints.size()) {
+					return response;
+				}
+				response.close();
+			}
+			catch (InterruptedIOException e) {
+				throw e;
+			}
+			catch (IOException e) {
+				endpoint.onFailure(this.nanoClock.getAsLong());
+				boolean retryable = e instanceof ConnectException
+						|| FeignInvocationContext.isIdempotent(request);
+				if (!retryable || tried.size() == this.endpoints.size()) {
+					throw e;
+				}
+			}
+			finally {
+				endpoint.inFlight.decrementAndGet();
+			}
+		}
+	}
+
+	private static boolean isUnavailable(int status) {
+		return status == 502 || status == 503 || status == 504;
+	}
+
+	private Endpoint choose(Set<Endpoint> tried) {
+		long now = this.nanoClock.getAsLong();
+		List<Endpoint> available = new ArrayList<>(this.endpoints.size());
+		for (Endpoint endpoint : this.endpoints) {
+			endpoint.refresh(now);
+			if (!tried.contains(endpoint) && endpoint.isAvailable(now)) {
+				available.add(endpoint);
+			}
+		}
+		if (available.isEmpty()) {
+			// when every URL is down, none is
+			for (Endpoint endpoint : this.endpoints) {
+				if (!tried.contains(endpoint)) {
+					available.add(endpoint);
+				}
+			}
+		}
+		int start = Math.floorMod(this.next.getAndIncrement(), available.size());
+		Endpoint chosen = available.get(start);
+		if (this.config.getBalancing() == Balancing.LEAST_IN_FLIGHT) {
+			// from the next URL in turn, so that ties are spread over the URLs
+			for (int i = 1; i < available.size(); i++) {
+				Endpoint endpoint = available.get((start + i) % available.size());
+				if (endpoint.inFlight.get() < chosen.inFlight.get()) {
+					chosen = endpoint;
+				}
+			}
+		}
+		return chosen;
+	}
+
+	private Request rewrite(Request request, Endpoint endpoint) {
+		String url = request.url();
+		if (!url.startsWith(this.targetUrl)) {
+			return request;
+		}
+		return Request.create(request.httpMethod(),
+				endpoint.url + url.substring(this.targetUrl.length()), request.headers(),
+				request.requestBody(), request.requestTemplate());
+	}
+
+	public Client getDelegate() {
+		return this.delegate;
+	}
+
+	/**
+	 * Resolves the addresses of a host name.
+	 */
+	@FunctionalInterface
+	interface HostResolver {
+
+		InetAddress[] resolve(String host) throws UnknownHostException;
+
+	}
+
+	/**
+	 * One of the URLs of the client, with its health.
+	 */
+	private final class Endpoint {
+
+		private final String url;
+
+		private final String host;
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+		private final LongAdder requests = new LongAdder();
+
+		private final AtomicBoolean resolving = new AtomicBoolean();
+
+		private volatile long downUntil;
+
+		private volatile boolean down;
+
+		private volatile Set<InetAddress> addresses;
+
+		private volatile boolean unresolved;
+
+		private volatile long resolvedAt;
+
+		private volatile boolean resolved;
+
+		Endpoint(String url) {
+			this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+			this.host = URI.create(this.url).getHost();
+		}
+
+		boolean isAvailable(long now) {
+			return !this.unresolved && (!this.down || now - this.downUntil >= 0);
+		}
+
+		void onFailure(long now) {
+			if (this.consecutiveFailures.incrementAndGet() >= StaticUrlsClient.this.config
+					.getFailureThreshold()) {
+				this.downUntil = now
+						+ StaticUrlsClient.this.config.getDownTime().toNanos();
+				this.down = true;
+				this.consecutiveFailures.set(0);
+			}
+		}
+
+		/**
+		 * Resolves the host name again in the background once the refresh interval
+		 * elapsed, so that the threads sending requests never wait for the DNS.
+		 */
+		void refresh(long now) {
+			long interval = StaticUrlsClient.this.config.getDnsRefreshInterval()
+					.toNanos();
+			if (interval <= 0 || this.host == null
+					|| this.resolved && now - this.resolvedAt < interval
+					|| !this.resolving.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				StaticUrlsClient.this.resolverExecutor.execute(this::resolve);
+			}
+			catch (RejectedExecutionException e) {
+				// resolved again on a later request
+				this.resolving.set(false);
+			}
+		}
+
+		private void resolve() {
+			try {
+				Set<InetAddress> addresses = new HashSet<>(
+						Arrays.asList(StaticUrlsClient.this.resolver.resolve(this.host)));
+				if (this.addresses != null && !addresses.equals(this.addresses)) {
+					// the host moved, its failures were those of the previous addresses
+					this.down = false;
+					this.consecutiveFailures.set(0);
+				}
+				this.addresses = addresses;
+				this.unresolved = false;
+			}
+			catch (UnknownHostException e) {
+				this.unresolved = true;
+			}
+			finally {
+				this.resolvedAt = StaticUrlsClient.this.nanoClock.getAsLong();
+				this.resolved = true;
+				this.resolving.set(false);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A lock-free token bucket, implemented as a generic cell rate algorithm: instead of
+ * counting tokens, it keeps the theoretical arrival time of the next request, which
+ * permits are reserved against with a compare-and-set. Its rate can be lowered for a
+ * while, and it can be paused for a while.
+ */
+class TokenBucket {
+
+	private final long configuredInterval;
+
+	private final int burst;
+
+	private final LongSupplier nanoClock;
+
+	private final AtomicLong theoreticalArrival;
+
+	private volatile long adaptedInterval;
+
+	private volatile long adaptedUntil;
+
+	/**
+	 * @param permitsPerSecond the configured rate of the bucket
+	 * @param burst the number of permits available at once
+	 * @param nanoClock the clock of the bucket, in nanoseconds
+	 */
+	TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+		this.configuredInterval = (long) (TimeUnit.SECONDS.toNanos(1)
+				/ permitsPerSecond);
+		this.burst = Math.max(burst, 1);
+		this.nanoClock = nanoClock;
+		long now = nanoClock.getAsLong();
+		this.theoreticalArrival = new AtomicLong(now);
+		this.adaptedInterval = this.configuredInterval;
+		this.adaptedUntil = now;
+	}
+
+	/**
+	 * Reserves a permit, unless it would have to wait longer than allowed.
+	 * @param maxWaitNanos the maximum time to wait for the permit
+	 * @return the time to wait before using the reserved permit, or the opposite of the
+	 * required wait if no permit was reserved
+	 */
+	long reserve(long maxWaitNanos) {
+		while (true) {
+			long now = this.nanoClock.getAsLong();
+			long interval = interval(now);
+			long tolerance = interval * (this.burst - 1);
+			long arrival = this.theoreticalArrival.get();
+			long wait = Math.max(0, arrival - tolerance - now);
+			if (wait > maxWaitNanos) {
+				return -wait;
+			}
+			long next = Math.max(arrival, now) + interval;
+			if (this.theoreticalArrival.compareAndSet(arrival, next)) {
+				return wait;
+			}
+		}
+	}
+
+	/**
+	 * Lowers the rate of the bucket for a while. The configured rate is never exceeded.
+	 * @param permits the number of permits allowed during the period
+	 * @param periodNanos the length of the period
+	 */
+	void adapt(long permits, long periodNanos) {
+		if (permits <= 0) {
+			pause(periodNanos);
+			return;
+		}
+		long now = this.nanoClock.getAsLong();
+		// written before the end of the period, which is read first
+		this.adaptedInterval = Math.max(this.configuredInterval,
+				periodNanos / permits);
+		this.adaptedUntil = now + periodNanos;
+	}
+
+	/**
+	 * Rejects or delays all permits for a while.
+	 * @param nanos how long the permits are unavailable
+	 */
+	void pause(long nanos) {
+		long now = this.nanoClock.getAsLong();
+		long tolerance = interval(now) * (this.burst - 1);
+		this.theoreticalArrival.accumulateAndGet(now + nanos + tolerance, Math::max);
+	}
+
+	/**
+	 * @return the current rate of the bucket, in permits per second
+	 */
+	double getPermitsPerSecond() {
+		return (double) TimeUnit.SECONDS.toNanos(1)
+				/ interval(this.nanoClock.getAsLong());
+	}
+
+	private long interval(long now) {
+		return now - this.adaptedUntil < 0 ? this.adaptedInterval
+				: this.configuredInterval;
+	}
+
+}
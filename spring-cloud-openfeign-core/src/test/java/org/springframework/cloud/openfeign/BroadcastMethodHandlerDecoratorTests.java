@@ -0,0 +1,232 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.openfeign.loadbalancer.PinnedInstance;
+import org.springframework.cloud.openfeign.support.FeignDeadline;
+import org.springframework.cloud.openfeign.support.MethodBroadcast;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BroadcastMethodHandlerDecorator}.
+ */
+class BroadcastMethodHandlerDecoratorTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final Target<BroadcastClient> target = new Target.HardCodedTarget<>(
+			BroadcastClient.class, "broadcast", "http://broadcast");
+
+	private final Map<String, List<ServiceInstance>> instances = new ConcurrentHashMap<>();
+
+	private MethodBroadcast broadcast = new MethodBroadcast(8, Duration.ofSeconds(5));
+
+	@AfterEach
+	void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void shouldNotDecorateMethodsNotBroadcast() throws Exception {
+		MethodHandler handler = argv -> "result";
+		this.broadcast = null;
+
+		assertThat(decorator().decorate(this.target,
+				BroadcastClient.class.getMethod("refresh"), handler)).isSameAs(handler);
+	}
+
+	@Test
+	void shouldCallEveryInstanceOfTheService() throws Throwable {
+		this.instances.put("broadcast",
+				Arrays.asList(instance("a"), instance("b"), instance("c")));
+		MethodHandler handler = broadcast(argv -> PinnedInstance.get().getHost());
+
+		List<BroadcastResult<Object>> results = invoke(handler);
+
+		assertThat(results).extracting(BroadcastResult::getValue)
+				.containsExactly("a", "b", "c");
+		assertThat(results).allMatch(BroadcastResult::isSuccess);
+		assertThat(PinnedInstance.get()).isNull();
+	}
+
+	@Test
+	void shouldReturnNoResultsWithoutInstances() throws Throwable {
+		MethodHandler handler = broadcast(argv -> "result");
+
+		assertThat(invoke(handler)).isEmpty();
+	}
+
+	@Test
+	void shouldReportFailuresPerInstance() throws Throwable {
+		this.instances.put("broadcast", Arrays.asList(instance("a"), instance("b")));
+		MethodHandler handler = broadcast(argv -> {
+			if ("b".equals(PinnedInstance.get().getHost())) {
+				throw new IllegalStateException("failed");
+			}
+			return "ok";
+		});
+
+		List<BroadcastResult<Object>> results = invoke(handler);
+
+		assertThat(results.get(0).isSuccess()).isTrue();
+		assertThat(results.get(1).isSuccess()).isFalse();
+		assertThat(results.get(1).getInstance().getHost()).isEqualTo("b");
+		assertThat(results.get(1).getException())
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void shouldBoundConcurrentCalls() throws Throwable {
+		this.broadcast = new MethodBroadcast(2, Duration.ofSeconds(5));
+		this.instances.put("broadcast", Arrays.asList(instance("a"), instance("b"),
+				instance("c"), instance("d"), instance("e")));
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		MethodHandler handler = broadcast(argv -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(20);
+			running.decrementAndGet();
+			return "ok";
+		});
+
+		List<BroadcastResult<Object>> results = invoke(handler);
+
+		assertThat(results).hasSize(5).allMatch(BroadcastResult::isSuccess);
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void shouldReportSlowInstancesAsTimedOut() throws Throwable {
+		this.broadcast = new MethodBroadcast(8, Duration.ofMillis(100));
+		this.instances.put("broadcast", Arrays.asList(instance("fast"),
+				instance("slow")));
+		MethodHandler handler = broadcast(argv -> {
+			if ("slow".equals(PinnedInstance.get().getHost())) {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+			}
+			return "ok";
+		});
+
+		long start = System.nanoTime();
+		List<BroadcastResult<Object>> results = invoke(handler);
+
+		assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+		assertThat(results.get(0).getValue()).isEqualTo("ok");
+		assertThat(results.get(1).getException())
+				.isInstanceOf(TimeoutException.class);
+	}
+
+	@Test
+	void shouldBindSoonerDeadlineToCalls() throws Throwable {
+		this.instances.put("broadcast", Arrays.asList(instance("a"), instance("b")));
+		MethodHandler handler = broadcast(argv -> FeignDeadline.current());
+
+		FeignDeadline callerDeadline = FeignDeadline.after(Duration.ofSeconds(1));
+		FeignDeadline previous = FeignDeadline.bind(callerDeadline);
+		List<BroadcastResult<Object>> results;
+		try {
+			results = invoke(handler);
+		}
+		finally {
+			FeignDeadline.restore(previous);
+		}
+
+		assertThat(results).extracting(BroadcastResult::getValue)
+				.containsOnly(callerDeadline);
+		assertThat(invoke(handler)).extracting(BroadcastResult::getValue)
+				.allSatisfy(deadline -> assertThat(((FeignDeadline) deadline)
+						.remainingNanos()).isGreaterThan(TimeUnit.SECONDS.toNanos(1)));
+	}
+
+	@Test
+	void shouldStopCallingInstancesAtDeadlineWhenExecutorIsSaturated()
+			throws Throwable {
+		this.executor.shutdown();
+		this.broadcast = new MethodBroadcast(8, Duration.ofMillis(100));
+		this.instances.put("broadcast",
+				Arrays.asList(instance("slow"), instance("b"), instance("c")));
+		AtomicInteger calls = new AtomicInteger();
+		MethodHandler handler = broadcast(argv -> {
+			calls.incrementAndGet();
+			// as the read timeout capped to the deadline would
+			Thread.sleep(FeignDeadline.current().remainingMillis());
+			throw new SocketTimeoutException("Read timed out");
+		});
+
+		long start = System.nanoTime();
+		List<BroadcastResult<Object>> results = invoke(handler);
+
+		assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(results.get(0).getException())
+				.isInstanceOf(SocketTimeoutException.class);
+		assertThat(results.subList(1, 3)).allSatisfy(result -> assertThat(
+				result.getException()).isInstanceOf(TimeoutException.class));
+	}
+
+	private BroadcastMethodHandlerDecorator decorator() {
+		return new BroadcastMethodHandlerDecorator(methodKey -> this.broadcast,
+				() -> serviceId -> this.instances.getOrDefault(serviceId,
+						Collections.emptyList()),
+				() -> this.executor);
+	}
+
+	private MethodHandler broadcast(MethodHandler handler) throws Exception {
+		return decorator().decorate(this.target,
+				BroadcastClient.class.getMethod("refresh"), handler);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<BroadcastResult<Object>> invoke(MethodHandler handler)
+			throws Throwable {
+		return (List<BroadcastResult<Object>>) handler.invoke(new Object[0]);
+	}
+
+	private static ServiceInstance instance(String host) {
+		return new DefaultServiceInstance(host, "broadcast", host, 8080, false);
+	}
+
+	interface BroadcastClient {
+
+		@Broadcast
+		List<BroadcastResult<String>> refresh();
+
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import feign.FeignException;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Response;
+import feign.Target;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link CircuitBreakerMethodHandlerDecorator}.
+ */
+class CircuitBreakerMethodHandlerDecoratorTests {
+
+	private final TestCircuitBreaker circuitBreaker = new TestCircuitBreaker();
+
+	private final CircuitBreakerFactory circuitBreakerFactory = mock(
+			CircuitBreakerFactory.class);
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		when(this.circuitBreakerFactory.create(anyString()))
+				.thenReturn(this.circuitBreaker);
+	}
+
+	@Test
+	void shouldCreateOneCircuitBreakerPerMethod() throws Exception {
+		decorate(null, false, argv -> "store");
+
+		verify(this.circuitBreakerFactory).create("stores.getStore(Long)");
+	}
+
+	@Test
+	void shouldReturnResultOfSuccessfulCalls() throws Throwable {
+		MethodHandler handler = decorate(new FallbackFactory.Default<>(new Fallback()),
+				false, argv -> "store " + this.calls.incrementAndGet());
+
+		assertThat(handler.invoke(new Object[] { 1L })).isEqualTo("store 1");
+		assertThat(this.circuitBreaker.failures).isZero();
+	}
+
+	@Test
+	void shouldHandFailuresToFallback() throws Throwable {
+		AtomicReference<Throwable> cause = new AtomicReference<>();
+		MethodHandler handler = decorate(failure -> {
+			cause.set(failure);
+			return new Fallback();
+		}, false, argv -> {
+			throw new IOException("connection refused");
+		});
+
+		assertThat(handler.invoke(new Object[] { 1L })).isEqualTo("fallback store 1");
+		assertThat(cause.get()).isInstanceOf(IOException.class);
+		assertThat(this.circuitBreaker.failures).isEqualTo(1);
+	}
+
+	@Test
+	void shouldShortCircuitToFallbackWhenOpen() throws Throwable {
+		MethodHandler handler = decorate(new FallbackFactory.Default<>(new Fallback()),
+				false, argv -> "store " + this.calls.incrementAndGet());
+		this.circuitBreaker.open = true;
+
+		assertThat(handler.invoke(new Object[] { 1L })).isEqualTo("fallback store 1");
+		assertThat(this.calls).hasValue(0);
+	}
+
+	@Test
+	void shouldRethrowFailuresWithoutFallback() throws Exception {
+		MethodHandler handler = decorate(null, false, argv -> {
+			throw new IOException("connection refused");
+		});
+
+		assertThatThrownBy(() -> handler.invoke(new Object[] { 1L }))
+				.isInstanceOf(IOException.class).hasMessage("connection refused");
+		assertThat(this.circuitBreaker.failures).isEqualTo(1);
+	}
+
+	@Test
+	void shouldThrowIgnoredClientErrorsWithoutRecordingThem() throws Exception {
+		MethodHandler handler = decorate(new FallbackFactory.Default<>(new Fallback()),
+				true, argv -> {
+					throw notFound();
+				});
+
+		assertThatThrownBy(() -> handler.invoke(new Object[] { 1L }))
+				.isInstanceOf(FeignException.NotFound.class);
+		assertThat(this.circuitBreaker.failures).isZero();
+	}
+
+	@Test
+	void shouldHandClientErrorsToFallbackByDefault() throws Throwable {
+		MethodHandler handler = decorate(new FallbackFactory.Default<>(new Fallback()),
+				false, argv -> {
+					throw notFound();
+				});
+
+		assertThat(handler.invoke(new Object[] { 1L })).isEqualTo("fallback store 1");
+		assertThat(this.circuitBreaker.failures).isEqualTo(1);
+	}
+
+	private MethodHandler decorate(FallbackFactory<?> fallbackFactory,
+			boolean ignoreClientErrors, MethodHandler handler) throws Exception {
+		CircuitBreakerMethodHandlerDecorator decorator = new CircuitBreakerMethodHandlerDecorator(
+				"stores", this.circuitBreakerFactory, fallbackFactory,
+				ignoreClientErrors);
+		Method method = StoreClient.class.getMethod("getStore", Long.class);
+		return decorator.decorate(
+				new Target.HardCodedTarget<>(StoreClient.class, "stores",
+						"http://stores"),
+				method, handler);
+	}
+
+	private static FeignException notFound() {
+		Request request = Request.create(Request.HttpMethod.GET, "http://stores/1",
+				Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+		return FeignException.errorStatus("StoreClient#getStore(Long)",
+				Response.builder().status(404).reason("Not Found").request(request)
+						.headers(Collections.emptyMap()).build());
+	}
+
+	interface StoreClient {
+
+		String getStore(Long id);
+
+	}
+
+	static class Fallback implements StoreClient {
+
+		@Override
+		public String getStore(Long id) {
+			return "fallback store " + id;
+		}
+
+	}
+
+	/**
+	 * Counts the failures, and rejects all calls when open.
+	 */
+	static class TestCircuitBreaker implements CircuitBreaker {
+
+		private boolean open;
+
+		private int failures;
+
+		@Override
+		public <T> T run(Supplier<T> toRun, Function<Throwable, T> fallback) {
+			if (this.open) {
+				return fallback.apply(new IllegalStateException("Circuit is open"));
+			}
+			try {
+				return toRun.get();
+			}
+			catch (RuntimeException ex) {
+				this.failures++;
+				return fallback.apply(ex);
+			}
+		}
+
+	}
+
+}
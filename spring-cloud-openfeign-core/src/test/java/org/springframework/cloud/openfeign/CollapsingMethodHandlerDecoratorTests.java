@@ -0,0 +1,301 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+import org.springframework.cloud.openfeign.support.MethodCollapsing;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link CollapsingMethodHandlerDecorator}.
+ */
+class CollapsingMethodHandlerDecoratorTests {
+
+	private final List<Collection<?>> batches = new CopyOnWriteArrayList<>();
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final List<Thread> callers = new CopyOnWriteArrayList<>();
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void shouldCollapseConcurrentCallsIntoOneBatch() throws Exception {
+		MethodHandler getItem = decorate(
+				new MethodCollapsing("getItems", "id", Duration.ofSeconds(10), 3),
+				this::items);
+
+		Future<Object> first = call(getItem, "1");
+		Future<Object> second = call(getItem, "2");
+		Future<Object> third = call(getItem, "3");
+
+		assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(new Item("1"));
+		assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(new Item("2"));
+		assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo(new Item("3"));
+		assertThat(this.batches).hasSize(1);
+		assertThat(this.batches.get(0)).containsExactlyInAnyOrder("1", "2", "3");
+	}
+
+	@Test
+	void shouldSendBatchWhenWindowElapses() throws Throwable {
+		MethodHandler getItem = decorate(
+				new MethodCollapsing("getItems", "id", Duration.ofMillis(10), 100),
+				this::items);
+
+		assertThat(getItem.invoke(new Object[] { "1" })).isEqualTo(new Item("1"));
+		assertThat(getItem.invoke(new Object[] { "2" })).isEqualTo(new Item("2"));
+		assertThat(this.batches).hasSize(2);
+	}
+
+	@Test
+	void shouldSendDuplicateKeysOnceAndCompleteMissingItemsWithNull()
+			throws Exception {
+		MethodHandler getItem = decorate(
+				new MethodCollapsing("getItems", "id", Duration.ofSeconds(10), 2),
+				this::items);
+
+		Future<Object> first = call(getItem, "1");
+		awaitBlockedCallers(1);
+		Future<Object> duplicate = call(getItem, "1");
+		awaitBlockedCallers(2);
+		Future<Object> missing = call(getItem, "missing");
+
+		assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(new Item("1"));
+		assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(new Item("1"));
+		assertThat(missing.get(5, TimeUnit.SECONDS)).isNull();
+		assertThat(this.batches).hasSize(1);
+		assertThat(this.batches.get(0)).containsExactly("1", "missing");
+	}
+
+	@Test
+	void shouldLookUpItemsReturnedAsMap() throws Throwable {
+		MethodHandler getItem = decorate(
+				new MethodCollapsing("getItemsById", null, Duration.ofMillis(1), 100),
+				keys -> items(keys).stream()
+						.collect(Collectors.toMap(Item::getId, Function.identity())));
+
+		assertThat(getItem.invoke(new Object[] { "1" })).isEqualTo(new Item("1"));
+		assertThat(this.batches.get(0)).isInstanceOf(Set.class);
+	}
+
+	@Test
+	void shouldConvertKeysOfItemsToTypeOfArgument() throws Throwable {
+		MethodHandler getItem = decorate(
+				ItemClient.class.getMethod("getItemByNumber", Long.class),
+				new MethodCollapsing("getItemsByNumbers", "id", Duration.ofMillis(1),
+						100),
+				keys -> keys.stream().map(key -> new Item(key.toString()))
+						.collect(Collectors.toList()));
+
+		assertThat(getItem.invoke(new Object[] { 1L })).isEqualTo(new Item("1"));
+		assertThat(this.batches.get(0)).containsExactly(1L);
+	}
+
+	@Test
+	void shouldConvertKeysOfMapToTypeOfArgument() throws Throwable {
+		MethodHandler getItem = decorate(
+				ItemClient.class.getMethod("getItemByNumber", Long.class),
+				new MethodCollapsing("getItemsByNumber", null, Duration.ofMillis(1), 100),
+				keys -> {
+					// decoded from a JSON object, whose keys are strings
+					Map<String, Item> items = new HashMap<>();
+					items.put("unknown", new Item("unknown"));
+					keys.forEach(key -> items.put(key.toString(),
+							new Item(key.toString())));
+					return items;
+				});
+
+		assertThat(getItem.invoke(new Object[] { 1L })).isEqualTo(new Item("1"));
+	}
+
+	@Test
+	void shouldFailAllCallsWhenBatchFails() throws Exception {
+		MethodHandler getItem = decorate(
+				new MethodCollapsing("getItems", "id", Duration.ofSeconds(10), 2),
+				keys -> {
+					throw new IllegalArgumentException("unavailable");
+				});
+
+		Future<Object> first = call(getItem, "1");
+		Future<Object> second = call(getItem, "2");
+
+		assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+				.hasCauseInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+				.hasCauseInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldRejectMissingBatchMethod() {
+		assertThatThrownBy(() -> decorate(
+				new MethodCollapsing("findItems", "id", Duration.ofMillis(10), 10),
+				this::items)).isInstanceOf(IllegalStateException.class)
+						.hasMessageContaining("findItems");
+	}
+
+	@Test
+	void shouldNotDecorateMethodsWithoutCollapsing() throws Exception {
+		CollapsingMethodHandlerDecorator decorator = new CollapsingMethodHandlerDecorator(
+				"items", methodKey -> null, FeignMetricsRegistrar.NONE,
+				DefaultConversionService.getSharedInstance());
+		MethodHandler handler = argv -> null;
+
+		assertThat(decorator.decorate(target(),
+				ItemClient.class.getMethod("getItem", String.class), handler))
+						.isSameAs(handler);
+	}
+
+	private List<Item> items(Collection<?> keys) {
+		return keys.stream().filter(key -> !"missing".equals(key))
+				.map(key -> new Item((String) key)).collect(Collectors.toList());
+	}
+
+	private MethodHandler decorate(MethodCollapsing collapsing,
+			Function<Collection<?>, Object> batch) throws NoSuchMethodException {
+		return decorate(ItemClient.class.getMethod("getItem", String.class), collapsing,
+				batch);
+	}
+
+	private MethodHandler decorate(Method collapsed, MethodCollapsing collapsing,
+			Function<Collection<?>, Object> batch) throws NoSuchMethodException {
+		CollapsingMethodHandlerDecorator decorator = new CollapsingMethodHandlerDecorator(
+				"items", methodKey -> methodKey.startsWith(
+						"ItemClient#" + collapsed.getName() + "(") ? collapsing : null,
+				FeignMetricsRegistrar.NONE, DefaultConversionService.getSharedInstance());
+		MethodHandler getItem = decorator.decorate(target(), collapsed, argv -> {
+			throw new AssertionError("Single calls should be collapsed");
+		});
+		MethodHandler batchHandler = argv -> {
+			Collection<?> keys = (Collection<?>) argv[0];
+			this.batches.add(keys);
+			return batch.apply(keys);
+		};
+		decorator.decorate(target(), ItemClient.class.getMethod("getItems", List.class),
+				batchHandler);
+		decorator.decorate(target(),
+				ItemClient.class.getMethod("getItemsById", Set.class), batchHandler);
+		decorator.decorate(target(),
+				ItemClient.class.getMethod("getItemsByNumbers", List.class),
+				batchHandler);
+		decorator.decorate(target(),
+				ItemClient.class.getMethod("getItemsByNumber", Set.class), batchHandler);
+		return getItem;
+	}
+
+	private Future<Object> call(MethodHandler handler, String key) {
+		return this.executor.submit(() -> {
+			this.callers.add(Thread.currentThread());
+			try {
+				return handler.invoke(new Object[] { key });
+			}
+			catch (Exception | Error ex) {
+				throw ex;
+			}
+			catch (Throwable ex) {
+				throw new IllegalStateException(ex);
+			}
+		});
+	}
+
+	/**
+	 * Waits until the callers are blocked, either waiting for more calls in their batch
+	 * or for the batch to be sent.
+	 */
+	private void awaitBlockedCallers(int count) throws InterruptedException {
+		while (this.callers.size() < count || this.callers.stream()
+				.anyMatch(thread -> thread.getState() != Thread.State.WAITING
+						&& thread.getState() != Thread.State.TIMED_WAITING)) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static Target<ItemClient> target() {
+		return new Target.HardCodedTarget<>(ItemClient.class, "items", "http://items");
+	}
+
+	interface ItemClient {
+
+		Item getItem(String id);
+
+		List<Item> getItems(List<String> ids);
+
+		Map<String, Item> getItemsById(Set<String> ids);
+
+		Item getItemByNumber(Long number);
+
+		List<Item> getItemsByNumbers(List<Long> numbers);
+
+		Map<String, Item> getItemsByNumber(Set<Long> numbers);
+
+	}
+
+	public static class Item {
+
+		private final String id;
+
+		Item(String id) {
+			this.id = id;
+		}
+
+		public String getId() {
+			return this.id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Item && ((Item) o).id.equals(this.id);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.id.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "Item{id='" + this.id + "'}";
+		}
+
+	}
+
+}
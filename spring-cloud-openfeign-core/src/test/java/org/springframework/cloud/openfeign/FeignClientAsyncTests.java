@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import feign.RequestInterceptor;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.openfeign.test.NoSecurityConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.SocketUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.DEFINED_PORT;
+
+/**
+ * Tests for Feign clients with methods returning {@link CompletableFuture}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = FeignClientAsyncTests.Application.class,
+		webEnvironment = DEFINED_PORT,
+		value = { "spring.application.name=feignclientasynctest",
+				"feign.client.config.asyncClient.async.core-pool-size=2",
+				"feign.client.config.asyncClient.async.max-pool-size=2",
+				"feign.client.config.asyncClient.async.queue-capacity=10" })
+@DirtiesContext
+public class FeignClientAsyncTests {
+
+	static final AtomicReference<String> interceptorThread = new AtomicReference<>();
+
+	static int port;
+
+	@Autowired
+	private AsyncClient asyncClient;
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@BeforeClass
+	public static void beforeClass() {
+		port = SocketUtils.findAvailableTcpPort();
+		System.setProperty("server.port", String.valueOf(port));
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		System.clearProperty("server.port");
+	}
+
+	@Test
+	public void asyncMethodCompletesWithDecodedBody() throws Exception {
+		CompletableFuture<String> future = this.asyncClient.hello("async");
+
+		assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("hello async");
+		assertThat(interceptorThread.get()).startsWith("feign-async-asyncClient-");
+	}
+
+	@Test
+	public void syncMethodRunsOnCallerThread() {
+		String hello = this.asyncClient.helloSync("sync");
+
+		assertThat(hello).isEqualTo("hello sync");
+		assertThat(interceptorThread.get()).isEqualTo(Thread.currentThread().getName());
+	}
+
+	@Test
+	public void asyncMethodCompletesExceptionallyOnError() {
+		CompletableFuture<String> future = this.asyncClient.fail();
+
+		assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class);
+	}
+
+	@Test
+	public void builderUsesGivenExecutor() throws Exception {
+		AsyncClient client = new FeignClientBuilder(this.applicationContext)
+				.forType(AsyncClient.class, "builtAsyncClient")
+				.url("http://localhost:" + port).asyncExecutor(runnable -> {
+					Thread thread = new Thread(runnable, "custom-executor");
+					thread.start();
+				}).build();
+
+		assertThat(client.hello("builder").get(5, TimeUnit.SECONDS))
+				.isEqualTo("hello builder");
+		assertThat(interceptorThread.get()).isEqualTo("custom-executor");
+	}
+
+	@FeignClient(name = "asyncClient", url = "http://localhost:${server.port}")
+	protected interface AsyncClient {
+
+		@GetMapping("/hello/{name}")
+		CompletableFuture<String> hello(@PathVariable("name") String name);
+
+		@GetMapping("/hello/{name}")
+		String helloSync(@PathVariable("name") String name);
+
+		@GetMapping("/fail")
+		CompletableFuture<String> fail();
+
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@EnableAutoConfiguration
+	@RestController
+	@EnableFeignClients(clients = AsyncClient.class)
+	@Import(NoSecurityConfiguration.class)
+	protected static class Application {
+
+		@Bean
+		public RequestInterceptor threadRecordingInterceptor() {
+			return template -> interceptorThread
+					.set(Thread.currentThread().getName());
+		}
+
+		@GetMapping("/hello/{name}")
+		public String hello(@PathVariable("name") String name) {
+			return "hello " + name;
+		}
+
+		@GetMapping("/fail")
+		public String fail() {
+			throw new IllegalStateException("failed");
+		}
+
+	}
+
+}
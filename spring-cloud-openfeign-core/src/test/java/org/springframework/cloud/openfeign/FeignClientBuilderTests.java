@@ -142,6 +142,19 @@ public class FeignClientBuilderTests {
 
 	}
 
+	@Test
+	public void forType_fallbacksSetOnBuilder() {
+		// when:
+		final FeignClientBuilder.Builder<TestFeignClient> builder = this.feignClientBuilder
+				.forType(TestFeignClient.class, "TestClient")
+				.fallback(TestFallback.class)
+				.fallbackFactory(TestFallbackFactory.class);
+
+		// then:
+		assertFactoryBeanField(builder, "fallback", TestFallback.class);
+		assertFactoryBeanField(builder, "fallbackFactory", TestFallbackFactory.class);
+	}
+
 	@Test
 	public void forType_build() {
 		// given:
@@ -162,4 +175,12 @@ public class FeignClientBuilderTests {
 
 	}
 
+	private static class TestFallback implements TestFeignClient {
+
+	}
+
+	private static class TestFallbackFactory {
+
+	}
+
 }
@@ -32,6 +32,18 @@ import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.cloud.loadbalancer.blocking.client.BlockingLoadBalancerClient;
 import org.springframework.cloud.loadbalancer.config.LoadBalancerAutoConfiguration;
 import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.FeignClientProperties.AdaptiveTimeoutConfiguration;
+import org.springframework.cloud.openfeign.FeignClientProperties.FeignClientConfiguration;
+import org.springframework.cloud.openfeign.FeignClientProperties.MethodConfiguration;
+import org.springframework.cloud.openfeign.FeignClientProperties.RateLimitConfiguration;
+import org.springframework.cloud.openfeign.FeignClientProperties.RetryConfiguration;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.RetryableFeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.support.AdaptiveTimeoutClient;
+import org.springframework.cloud.openfeign.support.DeadlineClient;
+import org.springframework.cloud.openfeign.support.MethodOptionsClient;
+import org.springframework.cloud.openfeign.support.MethodRequestOptions;
+import org.springframework.cloud.openfeign.support.RateLimitingClient;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -71,6 +83,118 @@ public class FeignClientFactoryTests {
 				.run(this::defaultClientUsed);
 	}
 
+	@Test
+	public void shouldApplyDefaultMethodConfigurationsToConfiguredClient() {
+		new ApplicationContextRunner().withUserConfiguration(TestConfig.class)
+				.run(context -> {
+					MethodConfiguration hello = new MethodConfiguration();
+					hello.setReadTimeout(30000);
+					FeignClientConfiguration defaults = new FeignClientConfiguration();
+					defaults.setMethods(
+							Collections.singletonMap("TestType#hello()", hello));
+					FeignClientConfiguration test = new FeignClientConfiguration();
+					test.setConnectTimeout(1000);
+					FeignClientProperties properties = context
+							.getBean(FeignClientProperties.class);
+					properties.getConfig().put("default", defaults);
+					properties.getConfig().put("test", test);
+
+					Client client = context.getBean(FeignClientFactoryBean.class)
+							.decorateClient(new Client.Default(null, null));
+
+					assertThat(client).isInstanceOf(MethodOptionsClient.class);
+					assertThat(((MethodOptionsClient) client)
+							.getMethodOptions("TestType#hello()"))
+									.isEqualTo(new MethodRequestOptions(null, 30000, null));
+				});
+	}
+
+	@Test
+	public void shouldNotApplyMethodOptionsForRateLimitsOnly() {
+		new ApplicationContextRunner().withUserConfiguration(TestConfig.class)
+				.run(context -> {
+					MethodConfiguration hello = new MethodConfiguration();
+					hello.setRateLimit(new RateLimitConfiguration());
+					FeignClientConfiguration test = new FeignClientConfiguration();
+					test.setMethods(Collections.singletonMap("TestType#hello()", hello));
+					context.getBean(FeignClientProperties.class).getConfig().put("test",
+							test);
+
+					Client client = context.getBean(FeignClientFactoryBean.class)
+							.decorateClient(new Client.Default(null, null));
+
+					assertThat(client).isInstanceOf(RateLimitingClient.class);
+					assertThat(((RateLimitingClient) client).getDelegate())
+							.isInstanceOf(Client.Default.class);
+				});
+	}
+
+	@Test
+	public void shouldPropagateDeadlineOfConfiguredClient() {
+		new ApplicationContextRunner().withUserConfiguration(TestConfig.class)
+				.run(context -> {
+					FeignClientConfiguration test = new FeignClientConfiguration();
+					test.setPropagateDeadline(true);
+					context.getBean(FeignClientProperties.class).getConfig().put("test",
+							test);
+
+					Client client = context.getBean(FeignClientFactoryBean.class)
+							.decorateClient(new Client.Default(null, null));
+
+					assertThat(client).isInstanceOf(DeadlineClient.class);
+				});
+	}
+
+	@Test
+	public void shouldLimitRateOfSingleAttempts() {
+		new ApplicationContextRunner().withUserConfiguration(TestConfig.class)
+				.run(context -> {
+					FeignClientConfiguration test = new FeignClientConfiguration();
+					test.setRateLimit(new RateLimitConfiguration());
+					test.setRetry(new RetryConfiguration());
+					context.getBean(FeignClientProperties.class).getConfig().put("test",
+							test);
+					FeignBlockingLoadBalancerClient loadBalancing = new FeignBlockingLoadBalancerClient(
+							new Client.Default(null, null),
+							context.getBean(BlockingLoadBalancerClient.class));
+
+					Client client = context.getBean(FeignClientFactoryBean.class)
+							.decorateClient(loadBalancing);
+
+					assertThat(client)
+							.isInstanceOf(RetryableFeignBlockingLoadBalancerClient.class);
+					Client attempts = ((RetryableFeignBlockingLoadBalancerClient) client)
+							.getDelegate();
+					assertThat(((FeignBlockingLoadBalancerClient) attempts).getDelegate())
+							.isInstanceOf(RateLimitingClient.class);
+				});
+	}
+
+	@Test
+	public void shouldApplyAdaptiveTimeoutsToSingleAttempts() {
+		new ApplicationContextRunner().withUserConfiguration(TestConfig.class)
+				.run(context -> {
+					FeignClientConfiguration test = new FeignClientConfiguration();
+					test.setAdaptiveTimeout(new AdaptiveTimeoutConfiguration());
+					test.setRetry(new RetryConfiguration());
+					context.getBean(FeignClientProperties.class).getConfig().put("test",
+							test);
+					FeignBlockingLoadBalancerClient loadBalancing = new FeignBlockingLoadBalancerClient(
+							new Client.Default(null, null),
+							context.getBean(BlockingLoadBalancerClient.class));
+
+					Client client = context.getBean(FeignClientFactoryBean.class)
+							.decorateClient(loadBalancing);
+
+					assertThat(client)
+							.isInstanceOf(RetryableFeignBlockingLoadBalancerClient.class);
+					Client attempts = ((RetryableFeignBlockingLoadBalancerClient) client)
+							.getDelegate();
+					assertThat(((FeignBlockingLoadBalancerClient) attempts).getDelegate())
+							.isInstanceOf(AdaptiveTimeoutClient.class);
+				});
+	}
+
 	@SuppressWarnings({ "unchecked", "ConstantConditions" })
 	private void defaultClientUsed(AssertableApplicationContext context) {
 		Proxy target = context.getBean(FeignClientFactoryBean.class).getTarget();
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.RequestInterceptor;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Load test running 10k calls of a client in virtual thread mode against a local stub
+ * holding each request until 1000 of them are in flight, far more than the async pool
+ * would run. The calls only run on Java 21 or later: older JVMs check that the client
+ * fails to be created, and {@link VirtualThreadMethodHandlerDecoratorTests} covers the
+ * decorator on any JVM.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = FeignClientVirtualThreadsTests.Application.class,
+		webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		value = { "spring.application.name=feignclientvirtualthreadstest",
+				"feign.client.config.virtualClient.virtual-threads=true",
+				"feign.client.config.virtualClient.read-timeout=60000",
+				"feign.client.config.virtualClient.connect-timeout=60000",
+				"feign.httpclient.max-connections="
+						+ FeignClientVirtualThreadsTests.IN_FLIGHT,
+				"feign.httpclient.max-connections-per-route="
+						+ FeignClientVirtualThreadsTests.IN_FLIGHT })
+@DirtiesContext
+public class FeignClientVirtualThreadsTests {
+
+	static final int CALLS = 10_000;
+
+	static final int IN_FLIGHT = 1000;
+
+	private static final boolean VIRTUAL_THREADS = ClassUtils.hasMethod(Thread.class,
+			"ofVirtual");
+
+	private static final CountDownLatch inFlight = new CountDownLatch(IN_FLIGHT);
+
+	private static HttpServer stub;
+
+	private static ExecutorService stubExecutor;
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@BeforeClass
+	public static void beforeClass() throws Exception {
+		if (!VIRTUAL_THREADS) {
+			return;
+		}
+		stubExecutor = FeignClientExecutors.newVirtualThreadPerTaskExecutor("stub-");
+		stub = HttpServer.create(new InetSocketAddress("localhost", 0), CALLS);
+		stub.createContext("/held", exchange -> {
+			inFlight.countDown();
+			boolean reached = false;
+			try {
+				reached = inFlight.await(1, TimeUnit.MINUTES);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = (reached ? "ok" : "too few in flight")
+					.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		stub.createContext("/ok", exchange -> {
+			byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		stub.setExecutor(stubExecutor);
+		stub.start();
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		if (stub != null) {
+			stub.stop(0);
+			stubExecutor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void completesTenThousandConcurrentCalls() throws Exception {
+		assumeTrue(VIRTUAL_THREADS);
+		VirtualClient client = new FeignClientBuilder(this.applicationContext)
+				.forType(VirtualClient.class, "virtualClient")
+				.url("http://localhost:" + stub.getAddress().getPort()).build();
+
+		List<CompletableFuture<String>> calls = new ArrayList<>(CALLS);
+		for (int i = 0; i < CALLS; i++) {
+			calls.add(client.held());
+		}
+		CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).get(2,
+				TimeUnit.MINUTES);
+
+		// the async pool of 200 threads could not hold enough calls in flight
+		assertThat(calls).allMatch(call -> "ok".equals(call.join()));
+	}
+
+	@Test
+	public void runsBlockingCallsOnVirtualThreads() {
+		assumeTrue(VIRTUAL_THREADS);
+		VirtualClient client = new FeignClientBuilder(this.applicationContext)
+				.forType(VirtualClient.class, "virtualClient")
+				.url("http://localhost:" + stub.getAddress().getPort()).build();
+		Application.virtualInterceptions.set(0);
+
+		assertThat(client.ok()).isEqualTo("ok");
+		assertThat(Application.virtualInterceptions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void failsWithoutVirtualThreads() {
+		assumeFalse(VIRTUAL_THREADS);
+
+		assertThatThrownBy(() -> new FeignClientBuilder(this.applicationContext)
+				.forType(VirtualClient.class, "virtualClient").url("http://localhost")
+				.build()).hasStackTraceContaining("requires Java 21 or later");
+	}
+
+	protected interface VirtualClient {
+
+		@GetMapping("/held")
+		CompletableFuture<String> held();
+
+		@GetMapping("/ok")
+		String ok();
+
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@EnableAutoConfiguration
+	protected static class Application {
+
+		static final AtomicInteger virtualInterceptions = new AtomicInteger();
+
+		@Bean
+		public RequestInterceptor virtualThreadRecorder() {
+			return template -> {
+				if (VirtualThreadMethodHandlerDecorator
+						.isVirtual(Thread.currentThread())) {
+					virtualInterceptions.incrementAndGet();
+				}
+			};
+		}
+
+	}
+
+}
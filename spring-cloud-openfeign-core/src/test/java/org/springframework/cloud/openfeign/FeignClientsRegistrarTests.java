@@ -73,6 +73,18 @@ public class FeignClientsRegistrarTests {
 		assertThat(name).as("name was wrong").isEqualTo("https://goodname");
 	}
 
+	@Test
+	public void goodUrls() {
+		String url = FeignClientsRegistrar
+				.getUrl("https://a.example.com, b.example.com:8080/api,");
+		assertThat(url).isEqualTo("https://a.example.com,http://b.example.com:8080/api");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void badUrls() {
+		FeignClientsRegistrar.getUrl("https://a.example.com,foo://bad");
+	}
+
 	private String testGetName(String name) {
 		FeignClientsRegistrar registrar = new FeignClientsRegistrar();
 		registrar.setEnvironment(new MockEnvironment());
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.openfeign.loadbalancer.ChosenInstances;
+import org.springframework.cloud.openfeign.support.FeignDeadline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link HedgingMethodHandlerDecorator}.
+ */
+class HedgingMethodHandlerDecoratorTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final Target<HedgedClient> target = new Target.HardCodedTarget<>(
+			HedgedClient.class, "hedged", "http://hedged");
+
+	private final FeignClientProperties.HedgingConfiguration config = new FeignClientProperties.HedgingConfiguration();
+
+	@AfterEach
+	void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void shouldNotDecorateMethodsNotIdempotent() throws Exception {
+		MethodHandler handler = argv -> "result";
+		Method method = HedgedClient.class.getMethod("update");
+
+		assertThat(decorator().decorate(this.target, method, handler)).isSameAs(handler);
+	}
+
+	@Test
+	void shouldDecorateMethodsConfiguredAsIdempotent() throws Exception {
+		this.config.getMethods().add("HedgedClient#update()");
+		MethodHandler handler = argv -> "result";
+		Method method = HedgedClient.class.getMethod("update");
+
+		assertThat(decorator().decorate(this.target, method, handler))
+				.isNotSameAs(handler);
+	}
+
+	@Test
+	void shouldReturnFastResponseWithoutHedging() throws Throwable {
+		AtomicInteger calls = new AtomicInteger();
+		MethodHandler handler = hedged(argv -> {
+			calls.incrementAndGet();
+			return "fast";
+		});
+
+		assertThat(handler.invoke(new Object[0])).isEqualTo("fast");
+		assertThat(calls.get()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldHedgeSlowCallAndReturnFirstResponse() throws Throwable {
+		this.config.setDelay(Duration.ofMillis(50));
+		AtomicInteger calls = new AtomicInteger();
+		MethodHandler handler = hedged(argv -> {
+			if (calls.incrementAndGet() == 1) {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+				return "slow";
+			}
+			return "hedged";
+		});
+
+		long start = System.nanoTime();
+		Object result = handler.invoke(new Object[0]);
+
+		assertThat(result).isEqualTo("hedged");
+		assertThat(calls.get()).isEqualTo(2);
+		assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+	}
+
+	@Test
+	void shouldPropagateErrorWhenBothAttemptsFail() throws Exception {
+		this.config.setDelay(Duration.ofMillis(10));
+		MethodHandler handler = hedged(argv -> {
+			Thread.sleep(50);
+			throw new IllegalStateException("failed");
+		});
+
+		assertThatThrownBy(() -> handler.invoke(new Object[0]))
+				.isInstanceOf(IllegalStateException.class).hasMessage("failed");
+	}
+
+	@Test
+	void shouldNotHedgeWhenBudgetIsExhausted() throws Throwable {
+		this.config.setDelay(Duration.ofMillis(1));
+		this.config.setBudgetPercent(0);
+		AtomicInteger calls = new AtomicInteger();
+		MethodHandler handler = hedged(argv -> {
+			calls.incrementAndGet();
+			Thread.sleep(20);
+			return "slow";
+		});
+
+		for (int i = 0; i < 15; i++) {
+			handler.invoke(new Object[0]);
+		}
+
+		// at most 10 hedged calls are allowed by the reserve of the budget
+		assertThat(calls.get()).isGreaterThan(15).isLessThanOrEqualTo(25);
+	}
+
+	@Test
+	void shouldRecordLatencyOfFailedAttempts() throws Throwable {
+		this.config.setAdaptive(true);
+		this.config.setDelay(Duration.ofMillis(1));
+		this.config.setBudgetPercent(100);
+		AtomicBoolean failing = new AtomicBoolean(true);
+		AtomicInteger calls = new AtomicInteger();
+		MethodHandler handler = hedged(argv -> {
+			if (failing.get()) {
+				Thread.sleep(50);
+				throw new IllegalStateException("failed");
+			}
+			calls.incrementAndGet();
+			Thread.sleep(20);
+			return "result";
+		});
+		for (int i = 0; i < HedgingMethodHandlerDecorator.MIN_SAMPLES; i++) {
+			assertThatThrownBy(() -> handler.invoke(new Object[0]))
+					.isInstanceOf(IllegalStateException.class);
+		}
+		failing.set(false);
+
+		handler.invoke(new Object[0]);
+
+		// the delay is derived from the latency of the failed attempts
+		assertThat(calls.get()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldCallOnCallerThreadWhenExecutorIsBusy() throws Throwable {
+		ThreadPoolExecutor busy = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>());
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			busy.execute(() -> {
+				started.countDown();
+				try {
+					release.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			started.await(5, TimeUnit.SECONDS);
+			MethodHandler handler = new HedgingMethodHandlerDecorator(this.config,
+					() -> busy).decorate(this.target,
+							HedgedClient.class.getMethod("get"),
+							argv -> Thread.currentThread());
+
+			assertThat(handler.invoke(new Object[0])).isSameAs(Thread.currentThread());
+			assertThat(busy.getQueue()).isEmpty();
+		}
+		finally {
+			release.countDown();
+			busy.shutdownNow();
+		}
+	}
+
+	@Test
+	void shouldCarryCallerContextOverToAttempts() throws Throwable {
+		FeignDeadline deadline = FeignDeadline.after(Duration.ofSeconds(5));
+		FeignDeadline previous = FeignDeadline.bind(deadline);
+		try {
+			MethodHandler handler = hedged(argv -> FeignDeadline.current());
+
+			assertThat(handler.invoke(new Object[0])).isSameAs(deadline);
+		}
+		finally {
+			FeignDeadline.restore(previous);
+		}
+	}
+
+	@Test
+	void shouldShareChosenInstancesBetweenAttempts() throws Throwable {
+		this.config.setDelay(Duration.ofMillis(50));
+		Set<ChosenInstances> chosen = ConcurrentHashMap.newKeySet();
+		AtomicInteger calls = new AtomicInteger();
+		MethodHandler handler = hedged(argv -> {
+			chosen.add(ChosenInstances.current());
+			if (calls.incrementAndGet() == 1) {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+			}
+			return "result";
+		});
+
+		handler.invoke(new Object[0]);
+
+		assertThat(calls.get()).isEqualTo(2);
+		assertThat(chosen).hasSize(1).doesNotContainNull();
+		assertThat(ChosenInstances.current()).isNull();
+	}
+
+	private HedgingMethodHandlerDecorator decorator() {
+		return new HedgingMethodHandlerDecorator(this.config, () -> this.executor);
+	}
+
+	private MethodHandler hedged(MethodHandler handler) throws Exception {
+		return decorator().decorate(this.target, HedgedClient.class.getMethod("get"),
+				handler);
+	}
+
+	interface HedgedClient {
+
+		@Idempotent
+		String get();
+
+		String update();
+
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.openfeign.cache.FeignResultCaches;
+import org.springframework.cloud.openfeign.support.MethodResultCaching;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ResultCacheMethodHandlerDecorator}.
+ */
+class ResultCacheMethodHandlerDecoratorTests {
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private final MethodHandler handler = argv -> "store "
+			+ this.calls.incrementAndGet();
+
+	private final FeignResultCaches caches = new FeignResultCaches();
+
+	@AfterEach
+	void resetRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void shouldCacheResultsGlobally() throws Throwable {
+		MethodHandler cached = decorate("getStore", CachedResult.Scope.GLOBAL);
+
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("store 1");
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("store 1");
+		assertThat(cached.invoke(new Object[] { 2L })).isEqualTo("store 2");
+		assertThat(this.caches.getSizes()).containsKey("stores");
+		assertThat(this.caches.getSizes().get("stores")).containsValue(2);
+	}
+
+	@Test
+	void shouldCallAgainAfterEviction() throws Throwable {
+		MethodHandler cached = decorate("getStore", CachedResult.Scope.GLOBAL);
+		cached.invoke(new Object[] { 1L });
+
+		this.caches.evict("stores");
+
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("store 2");
+	}
+
+	@Test
+	void shouldOnlyCacheRequestScopedResultsWithinRequest() throws Throwable {
+		MethodHandler cached = decorate("getStore", CachedResult.Scope.REQUEST);
+
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("store 1");
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("store 2");
+
+		RequestContextHolder.setRequestAttributes(
+				new ServletRequestAttributes(new MockHttpServletRequest()));
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("store 3");
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("store 3");
+
+		RequestContextHolder.setRequestAttributes(
+				new ServletRequestAttributes(new MockHttpServletRequest()));
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("store 4");
+	}
+
+	@Test
+	void shouldNotDecorateMethodsWithoutCaching() throws Throwable {
+		ResultCacheMethodHandlerDecorator decorator = new ResultCacheMethodHandlerDecorator(
+				"stores", methodKey -> null, this.caches);
+
+		assertThat(decorator.decorate(target(), method("getStore"), this.handler))
+				.isSameAs(this.handler);		assertThat(decorator.store().decorate(target(), method("getStore"),
+				this.handler)).isSameAs(this.handler);
+	}
+
+	@Test
+	void shouldReturnCachedResultsOfAsyncMethodsWithoutExecutor() throws Throwable {
+		AtomicInteger executions = new AtomicInteger();
+		MethodHandlerDecorator async = new AsyncMethodHandlerDecorator(
+				() -> command -> {
+					executions.incrementAndGet();
+					command.run();
+				});
+		MethodHandler cached = decorate("getStoreAsync", CachedResult.Scope.GLOBAL,
+				stored -> async.decorate(target(), method("getStoreAsync"), stored));
+
+		assertThat(((CompletableFuture<?>) cached.invoke(new Object[] { 1L })).get())
+				.isEqualTo("store 1");
+		CompletableFuture<?> hit = (CompletableFuture<?>) cached
+				.invoke(new Object[] { 1L });
+
+		assertThat(hit).isCompletedWithValue("store 1");
+		assertThat(executions.get()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldNotCacheFallbackResults() throws Throwable {
+		AtomicBoolean failing = new AtomicBoolean(true);
+		MethodHandler cached = decorate("getStore", CachedResult.Scope.GLOBAL,
+				stored -> argv -> {
+					if (failing.get()) {
+						return "fallback";
+					}
+					return stored.invoke(argv);
+				});
+
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("fallback");
+		failing.set(false);
+
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("store 1");
+		assertThat(cached.invoke(new Object[] { 1L })).isEqualTo("store 1");
+	}
+
+	private MethodHandler decorate(String methodName, CachedResult.Scope scope)
+			throws NoSuchMethodException {
+		return decorate(methodName, scope, stored -> stored);
+	}
+
+	/**
+	 * @param between decorates the handler caching the results with the decorators
+	 * applied between it and the one returning the cached results
+	 */
+	private MethodHandler decorate(String methodName, CachedResult.Scope scope,
+			Between between) throws NoSuchMethodException {
+		MethodResultCaching caching = new MethodResultCaching(Duration.ofMinutes(1), 10,
+				scope);
+		ResultCacheMethodHandlerDecorator decorator = new ResultCacheMethodHandlerDecorator(
+				"stores", methodKey -> methodKey.startsWith("StoreClient#getStore")
+						? caching : null,
+				this.caches);
+		MethodHandler stored = decorator.store().decorate(target(), method(methodName),
+				this.handler);
+		return decorator.decorate(target(), method(methodName), between.apply(stored));
+	}
+
+	private static Target<StoreClient> target() {
+		return new Target.HardCodedTarget<>(StoreClient.class, "stores",
+				"http://stores");
+	}
+
+	private static Method method(String name) throws NoSuchMethodException {
+		return StoreClient.class.getMethod(name, Long.class);
+	}
+
+	interface StoreClient {
+
+		String getStore(Long id);
+
+		CompletableFuture<String> getStoreAsync(Long id);
+
+	}
+
+	@FunctionalInterface
+	interface Between {
+
+		MethodHandler apply(MethodHandler stored) throws NoSuchMethodException;
+
+	}
+
+}
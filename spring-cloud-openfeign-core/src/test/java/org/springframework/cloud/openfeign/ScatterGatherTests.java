@@ -0,0 +1,240 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.openfeign.support.FeignDeadline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ScatterGather}.
+ */
+class ScatterGatherTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void shouldGatherResultsOfAllCalls() throws Exception {
+		ScatterGather scatterGather = start(Duration.ofSeconds(5));
+		ScatterGather.Call<String> store = scatterGather.submit(() -> "store");
+		ScatterGather.Call<Integer> stock = scatterGather.submit(() -> 42);
+
+		assertThat(scatterGather.gather()).isTrue();
+		assertThat(store.getValue()).isEqualTo("store");
+		assertThat(stock.getValue()).isEqualTo(42);
+		assertThat(stock.getException()).isNull();
+	}
+
+	@Test
+	void shouldBindDeadlineToCalls() throws Exception {
+		ScatterGather scatterGather = start(Duration.ofSeconds(5));
+		ScatterGather.Call<Long> remaining = scatterGather
+				.submit(() -> FeignDeadline.current().remainingMillis());
+
+		scatterGather.gather();
+
+		assertThat(remaining.getValue()).isBetween(1L, 5000L);
+		assertThat(FeignDeadline.current()).isNull();
+	}
+
+	@Test
+	void shouldBindDeadlineToHedgedAttempts() throws Exception {
+		FeignClientProperties.HedgingConfiguration hedging = new FeignClientProperties.HedgingConfiguration();
+		hedging.setDelay(Duration.ofMillis(50));
+		Set<FeignDeadline> deadlines = ConcurrentHashMap.newKeySet();
+		AtomicInteger attempts = new AtomicInteger();
+		MethodHandler handler = new HedgingMethodHandlerDecorator(hedging,
+				() -> this.executor).decorate(target(),
+						GatheredClient.class.getMethod("get"), argv -> {
+							deadlines.add(FeignDeadline.current());
+							if (attempts.incrementAndGet() == 1) {
+								Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+							}
+							return "hedged";
+						});
+		ScatterGather scatterGather = start(Duration.ofSeconds(5));
+		ScatterGather.Call<Object> call = scatterGather
+				.submit(() -> handler.invoke(new Object[0]));
+
+		assertThat(scatterGather.gather()).isTrue();
+
+		assertThat(call.getValue()).isEqualTo("hedged");
+		assertThat(attempts.get()).isEqualTo(2);
+		assertThat(deadlines).hasSize(1).doesNotContainNull();
+	}
+
+	@Test
+	void shouldBindDeadlineToAsyncCalls() throws Exception {
+		MethodHandler handler = new AsyncMethodHandlerDecorator(() -> this.executor)
+				.decorate(target(), GatheredClient.class.getMethod("getAsync"),
+						argv -> FeignDeadline.current());
+		ScatterGather scatterGather = start(Duration.ofSeconds(5));
+		ScatterGather.Call<Object> call = scatterGather.submit(() -> {
+			FeignDeadline deadline = FeignDeadline.current();
+			Object async = ((CompletableFuture<?>) handler.invoke(new Object[0])).get();
+			return async == deadline;
+		});
+
+		scatterGather.gather();
+
+		assertThat(call.getValue()).isEqualTo(true);
+	}
+
+	@Test
+	void shouldKeepPartialResults() throws Exception {
+		ScatterGather scatterGather = start(Duration.ofSeconds(5));
+		ScatterGather.Call<String> store = scatterGather.submit(() -> "store");
+		ScatterGather.Call<String> stock = scatterGather.submit(() -> {
+			throw new IllegalStateException("failed");
+		});
+
+		assertThat(scatterGather.gather()).isTrue();
+		assertThat(store.isSuccess()).isTrue();
+		assertThat(stock.isSuccess()).isFalse();
+		assertThat(stock.getValueOrElse("unknown")).isEqualTo("unknown");
+		assertThat(stock.getException()).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void shouldCancelCallsRunningAtDeadline() throws Exception {
+		AtomicBoolean interrupted = new AtomicBoolean();
+		ScatterGather scatterGather = start(Duration.ofMillis(100));
+		ScatterGather.Call<String> fast = scatterGather.submit(() -> "fast");
+		ScatterGather.Call<String> slow = scatterGather.submit(() -> {
+			try {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+			}
+			catch (InterruptedException ex) {
+				interrupted.set(true);
+				throw ex;
+			}
+			return "slow";
+		});
+
+		long start = System.nanoTime();
+		assertThat(scatterGather.gather()).isFalse();
+
+		assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+		assertThat(fast.getValue()).isEqualTo("fast");
+		assertThat(slow.getException()).isInstanceOf(TimeoutException.class);
+		this.executor.shutdown();
+		this.executor.awaitTermination(5, TimeUnit.SECONDS);
+		assertThat(interrupted).isTrue();
+	}
+
+	@Test
+	void shouldFailCallsRejectedByExecutor() throws Exception {
+		this.executor.shutdown();
+		ScatterGather scatterGather = start(Duration.ofSeconds(5));
+		ScatterGather.Call<String> call = scatterGather.submit(() -> "store");
+
+		assertThat(scatterGather.gather()).isTrue();
+		assertThat(call.getException())
+				.isInstanceOf(RejectedExecutionException.class);
+	}
+
+	@Test
+	void shouldNotAcceptCallsOnceGathered() throws Exception {
+		ScatterGather scatterGather = start(Duration.ofSeconds(5));
+		scatterGather.gather();
+
+		assertThatThrownBy(() -> scatterGather.submit(() -> "late"))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void shouldNotHoldMonitorWhileGathering() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		ScatterGather scatterGather = start(Duration.ofSeconds(30));
+		ScatterGather.Call<String> call = scatterGather.submit(() -> {
+			release.await();
+			return "store";
+		});
+		CompletableFuture<Boolean> gathered = new CompletableFuture<>();
+		Thread gathering = new Thread(() -> {
+			try {
+				gathered.complete(scatterGather.gather());
+			}
+			catch (Throwable t) {
+				gathered.completeExceptionally(t);
+			}
+		});
+		gathering.start();
+		for (int i = 0; i < 500
+				&& gathering.getState() != Thread.State.TIMED_WAITING; i++) {
+			Thread.sleep(10);
+		}
+
+		// a monitor held while waiting would pin the carrier of a virtual thread
+		CompletableFuture<Void> locked = new CompletableFuture<>();
+		Thread locking = new Thread(() -> {
+			synchronized (scatterGather) {
+				locked.complete(null);
+			}
+		});
+		locking.start();
+		locked.get(5, TimeUnit.SECONDS);
+		release.countDown();
+
+		assertThat(gathered.get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(call.getValue()).isEqualTo("store");
+	}
+
+	private ScatterGather start(Duration timeout) {
+		return new ScatterGather(this.executor, timeout);
+	}
+
+	private Target<GatheredClient> target() {
+		return new Target.HardCodedTarget<>(GatheredClient.class, "gathered",
+				"http://gathered");
+	}
+
+	interface GatheredClient {
+
+		@Idempotent
+		String get();
+
+		CompletableFuture<String> getAsync();
+
+	}
+
+}
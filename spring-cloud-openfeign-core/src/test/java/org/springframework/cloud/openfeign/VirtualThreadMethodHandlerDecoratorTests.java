@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import org.springframework.cloud.openfeign.support.FeignDeadline;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link VirtualThreadMethodHandlerDecorator}.
+ */
+class VirtualThreadMethodHandlerDecoratorTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final Target<VirtualClient> target = new Target.HardCodedTarget<>(
+			VirtualClient.class, "virtual", "http://virtual");
+
+	@AfterEach
+	void tearDown() {
+		this.executor.shutdownNow();
+		FeignDeadline.restore(null);
+		RequestContextHolder.resetRequestAttributes();
+		MDC.clear();
+	}
+
+	@Test
+	void shouldNotDecorateAsyncMethods() throws Exception {
+		MethodHandler handler = argv -> "result";
+
+		assertThat(decorator().decorate(this.target,
+				VirtualClient.class.getMethod("getAsync"), handler)).isSameAs(handler);
+	}
+
+	@Test
+	void shouldRunBlockingMethodsOnExecutor() throws Throwable {
+		Thread caller = Thread.currentThread();
+		AtomicReference<Thread> thread = new AtomicReference<>();
+		MethodHandler handler = blocking(argv -> {
+			thread.set(Thread.currentThread());
+			return "result";
+		});
+
+		assertThat(handler.invoke(new Object[0])).isEqualTo("result");
+		assertThat(thread.get()).isNotNull().isNotSameAs(caller);
+	}
+
+	@Test
+	void shouldPropagateExceptionOfCall() throws Exception {
+		MethodHandler handler = blocking(argv -> {
+			throw new IllegalStateException("failed");
+		});
+
+		assertThatThrownBy(() -> handler.invoke(new Object[0]))
+				.isInstanceOf(IllegalStateException.class).hasMessage("failed");
+	}
+
+	@Test
+	void shouldCarryCallerContextOver() throws Throwable {
+		FeignDeadline deadline = FeignDeadline.after(Duration.ofSeconds(5));
+		FeignDeadline.bind(deadline);
+		RequestAttributes attributes = new ServletRequestAttributes(
+				new MockHttpServletRequest());
+		RequestContextHolder.setRequestAttributes(attributes);
+		MDC.put("traceId", "abc");
+		MethodHandler handler = blocking(argv -> new Object[] { FeignDeadline.current(),
+				RequestContextHolder.getRequestAttributes(), MDC.get("traceId") });
+
+		Object[] context = (Object[]) handler.invoke(new Object[0]);
+
+		assertThat(context).containsExactly(deadline, attributes, "abc");
+	}
+
+	private VirtualThreadMethodHandlerDecorator decorator() {
+		return new VirtualThreadMethodHandlerDecorator(() -> this.executor);
+	}
+
+	private MethodHandler blocking(MethodHandler handler) throws Exception {
+		return decorator().decorate(this.target, VirtualClient.class.getMethod("get"),
+				handler);
+	}
+
+	interface VirtualClient {
+
+		String get();
+
+		CompletableFuture<String> getAsync();
+
+	}
+
+}
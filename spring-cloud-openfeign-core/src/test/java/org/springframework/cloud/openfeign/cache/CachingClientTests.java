@@ -0,0 +1,302 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link CachingClient}.
+ */
+class CachingClientTests {
+
+	private final MutableClock clock = new MutableClock();
+
+	private final Deque<Response.Builder> responses = new ArrayDeque<>();
+
+	private final List<Request> sentRequests = new ArrayList<>();
+
+	private final Client delegate = (request, options) -> {
+		this.sentRequests.add(request);
+		return this.responses.pop().request(request).build();
+	};
+
+	private final CachingClient client = new CachingClient(this.delegate, "test",
+			new InMemoryResponseCache(1024 * 1024), 1024, Runnable::run,
+			FeignMetricsRegistrar.NONE, this.clock);
+
+	@Test
+	void shouldServeFreshResponseFromCache() throws IOException {
+		this.responses.add(response(200, "stores", "Cache-Control", "max-age=60"));
+
+		assertThat(body(get())).isEqualTo("stores");
+		this.clock.advance(59_000);
+		assertThat(body(get())).isEqualTo("stores");
+
+		assertThat(this.sentRequests).hasSize(1);
+		assertThat(this.client.getHitRatio()).isEqualTo(0.5);
+	}
+
+	@Test
+	void shouldRevalidateStaleResponseWithETag() throws IOException {
+		this.responses.add(response(200, "stores", "Cache-Control", "max-age=60",
+				"ETag", "\"v1\""));
+		this.responses.add(response(304, null, "Cache-Control", "max-age=60"));
+
+		get().close();
+		this.clock.advance(61_000);
+		Response revalidated = get();
+
+		assertThat(revalidated.status()).isEqualTo(200);
+		assertThat(body(revalidated)).isEqualTo("stores");
+		assertThat(this.sentRequests.get(1).headers().get("If-None-Match"))
+				.containsExactly("\"v1\"");
+		this.clock.advance(30_000);
+		assertThat(body(get())).isEqualTo("stores");
+		assertThat(this.sentRequests).hasSize(2);
+	}
+
+	@Test
+	void shouldNotCacheNoStoreResponse() throws IOException {
+		this.responses.add(response(200, "first", "Cache-Control", "no-store"));
+		this.responses.add(response(200, "second", "Cache-Control", "max-age=60"));
+
+		assertThat(body(get())).isEqualTo("first");
+		assertThat(body(get())).isEqualTo("second");
+		assertThat(this.client.getCache().size()).isGreaterThan(0);
+	}
+
+	@Test
+	void shouldNotCachePrivateResponse() throws IOException {
+		this.responses.add(
+				response(200, "alice", "Cache-Control", "private, max-age=60"));
+		this.responses.add(
+				response(200, "bob", "Cache-Control", "private, max-age=60"));
+
+		assertThat(body(get())).isEqualTo("alice");
+		assertThat(body(get())).isEqualTo("bob");
+		assertThat(this.sentRequests).hasSize(2);
+		assertThat(this.client.getCache().size()).isZero();
+	}
+
+	@Test
+	void shouldNotCacheResponseToAuthorizedRequest() throws IOException {
+		this.responses.add(response(200, "alice", "Cache-Control", "max-age=60"));
+		this.responses.add(response(200, "bob", "Cache-Control", "max-age=60"));
+
+		assertThat(body(get("Authorization", "Bearer alice"))).isEqualTo("alice");
+		assertThat(body(get("Authorization", "Bearer bob"))).isEqualTo("bob");
+		assertThat(this.sentRequests).hasSize(2);
+		assertThat(this.client.getCache().size()).isZero();
+	}
+
+	@Test
+	void shouldCachePublicResponseToAuthorizedRequest() throws IOException {
+		this.responses.add(
+				response(200, "stores", "Cache-Control", "public, max-age=60"));
+
+		assertThat(body(get("Authorization", "Bearer alice"))).isEqualTo("stores");
+		assertThat(body(get("Authorization", "Bearer bob"))).isEqualTo("stores");
+		assertThat(this.sentRequests).hasSize(1);
+	}
+
+	@Test
+	void shouldNotServeResponseSelectedByOtherVaryingHeader() throws IOException {
+		this.responses.add(response(200, "json", "Cache-Control", "max-age=60", "Vary",
+				"Accept"));
+		this.responses.add(response(200, "xml", "Cache-Control", "max-age=60", "Vary",
+				"Accept"));
+
+		assertThat(body(get("Accept", "application/json"))).isEqualTo("json");
+		assertThat(body(get("Accept", "application/xml"))).isEqualTo("xml");
+		assertThat(this.sentRequests).hasSize(2);
+	}
+
+	@Test
+	void shouldServeStaleResponseWhileRevalidating() throws IOException {
+		this.responses.add(response(200, "v1",
+				"Cache-Control", "max-age=60, stale-while-revalidate=30"));
+		this.responses.add(response(200, "v2", "Cache-Control", "max-age=60"));
+
+		get().close();
+		this.clock.advance(70_000);
+
+		assertThat(body(get())).isEqualTo("v1");
+		assertThat(body(get())).isEqualTo("v2");
+		assertThat(this.sentRequests).hasSize(2);
+	}
+
+	@Test
+	void shouldServeStaleResponseWhenServerFails() throws IOException {
+		this.responses.add(response(200, "stores",
+				"Cache-Control", "max-age=60, stale-if-error=600"));
+		this.responses.add(response(503, "unavailable"));
+
+		get().close();
+		this.clock.advance(120_000);
+
+		Response stale = get();
+		assertThat(stale.status()).isEqualTo(200);
+		assertThat(body(stale)).isEqualTo("stores");
+	}
+
+	@Test
+	void shouldPreferSharedMaxAgeToMaxAge() throws IOException {
+		this.responses.add(
+				response(200, "v1", "Cache-Control", "s-maxage=10, max-age=600"));
+		this.responses.add(response(200, "v2", "Cache-Control", "max-age=60"));
+
+		assertThat(body(get())).isEqualTo("v1");
+		this.clock.advance(5_000);
+		assertThat(body(get())).isEqualTo("v1");
+		this.clock.advance(10_000);
+		assertThat(body(get())).isEqualTo("v2");
+		assertThat(this.sentRequests).hasSize(2);
+	}
+
+	@Test
+	void shouldNotServeStaleResponseThatProxiesMustRevalidate() throws IOException {
+		this.responses.add(response(200, "stores", "Cache-Control",
+				"max-age=60, stale-if-error=600, stale-while-revalidate=600, "
+						+ "proxy-revalidate"));
+		this.responses.add(response(503, "unavailable"));
+
+		get().close();
+		this.clock.advance(120_000);
+
+		assertThat(get().status()).isEqualTo(503);
+	}
+
+	@Test
+	void shouldServeStaleResponseWhenServerTimesOut() throws IOException {
+		Client timingOut = (request, options) -> {
+			if (!this.sentRequests.isEmpty()) {
+				throw new SocketTimeoutException("Read timed out");
+			}
+			return this.delegate.execute(request, options);
+		};
+		CachingClient client = new CachingClient(timingOut, "test",
+				new InMemoryResponseCache(1024 * 1024), 1024, Runnable::run,
+				FeignMetricsRegistrar.NONE, this.clock);
+		client.setStaleIfError(600_000);
+		this.responses.add(response(200, "stores", "Cache-Control", "max-age=60"));
+		Request request = Request.create(Request.HttpMethod.GET, "http://test/stores",
+				Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+
+		client.execute(request, new Request.Options()).close();
+		this.clock.advance(120_000);
+
+		assertThat(body(client.execute(request, new Request.Options())))
+				.isEqualTo("stores");
+		this.clock.advance(600_000);
+		assertThatThrownBy(() -> client.execute(request, new Request.Options()))
+				.isInstanceOf(SocketTimeoutException.class);
+	}
+
+	@Test
+	void shouldNotCacheResponseLargerThanMaxEntrySize() throws IOException {
+		String large = String.join("", Collections.nCopies(2048, "x"));
+		this.responses.add(response(200, large, "Cache-Control", "max-age=60"));
+
+		assertThat(body(get())).isEqualTo(large);
+		assertThat(this.client.getCache().size()).isZero();
+	}
+
+	private Response get(String... headers) throws IOException {
+		Map<String, Collection<String>> requestHeaders = new LinkedHashMap<>();
+		for (int i = 0; i < headers.length; i += 2) {
+			requestHeaders.put(headers[i], Collections.singletonList(headers[i + 1]));
+		}
+		return this.client.execute(
+				Request.create(Request.HttpMethod.GET, "http://test/stores",
+						requestHeaders, null, StandardCharsets.UTF_8, null),
+				new Request.Options());
+	}
+
+	private static Response.Builder response(int status, String body,
+			String... headers) {
+		Map<String, Collection<String>> responseHeaders = new LinkedHashMap<>();
+		for (int i = 0; i < headers.length; i += 2) {
+			responseHeaders.put(headers[i], Collections.singletonList(headers[i + 1]));
+		}
+		Response.Builder builder = Response.builder().status(status)
+				.headers(responseHeaders);
+		if (body != null) {
+			// no length, so that the body is streamed like a chunked response
+			builder.body(new ByteArrayInputStream(
+					body.getBytes(StandardCharsets.UTF_8)), null);
+		}
+		return builder;
+	}
+
+	private static String body(Response response) throws IOException {
+		try (Response closed = response) {
+			return Util.toString(closed.body().asReader(StandardCharsets.UTF_8));
+		}
+	}
+
+	private static class MutableClock extends Clock {
+
+		private long millis = 1_000_000;
+
+		void advance(long millis) {
+			this.millis += millis;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(this.millis);
+		}
+
+	}
+
+}
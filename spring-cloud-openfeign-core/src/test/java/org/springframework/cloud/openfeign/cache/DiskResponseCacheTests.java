@@ -0,0 +1,191 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DiskResponseCache}.
+ */
+class DiskResponseCacheTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void shouldReadStoredResponse() throws IOException {
+		DiskResponseCache cache = new DiskResponseCache(this.directory, 1024 * 1024);
+		cache.put("GET http://test/catalogue", response("catalogue"));
+
+		CachedResponse cached = cache.get("GET http://test/catalogue");
+
+		assertThat(cached.getStatus()).isEqualTo(200);
+		assertThat(cached.getReason()).isEqualTo("OK");
+		assertThat(cached.getResponseTime()).isEqualTo(42);
+		assertThat(cached.getHeaders().get("cache-control"))
+				.containsExactly("max-age=60");
+		assertThat(cached.getHeaders().get("Vary")).containsExactly("Accept",
+				"Accept-Language");
+		assertThat(cached.getVaryValues().get("Accept"))
+				.containsExactly("application/json");
+		assertThat(new String(cached.getBody(), StandardCharsets.UTF_8))
+				.isEqualTo("catalogue");
+		assertThat(cache.get("GET http://test/other")).isNull();
+	}
+
+	@Test
+	void shouldKeepResponsesAcrossRestarts() throws IOException {
+		DiskResponseCache cache = new DiskResponseCache(this.directory, 1024 * 1024);
+		cache.put("GET http://test/catalogue", response("catalogue"));
+		long size = cache.size();
+
+		DiskResponseCache restarted = new DiskResponseCache(this.directory,
+				1024 * 1024);
+
+		assertThat(restarted.size()).isEqualTo(size);
+		assertThat(restarted.get("GET http://test/catalogue").getBody())
+				.isEqualTo("catalogue".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsedResponsesWhenFull() throws IOException {
+		DiskResponseCache cache = new DiskResponseCache(this.directory, 1024 * 1024);
+		cache.put("a", response(new String(new byte[400_000])));
+		long segmentSize = cache.size();
+		cache = new DiskResponseCache(this.directory, segmentSize * 2);
+		cache.put("b", response(new String(new byte[400_000])));
+		cache.get("a");
+		cache.put("c", response(new String(new byte[400_000])));
+
+		assertThat(cache.get("a")).isNotNull();
+		assertThat(cache.get("b")).isNull();
+		assertThat(cache.get("c")).isNotNull();
+		assertThat(cache.size()).isEqualTo(segmentSize * 2);
+		try (Stream<Path> files = Files.list(this.directory)) {
+			assertThat(files).hasSize(2);
+		}
+	}
+
+	@Test
+	void shouldKeepOrderOfUseAcrossRestarts() throws IOException {
+		DiskResponseCache cache = new DiskResponseCache(this.directory, 1024 * 1024);
+		cache.put("a", response(new String(new byte[400_000])));
+		long segmentSize = cache.size();
+		cache.put("b", response(new String(new byte[400_000])));
+		cache.get("a");
+		cache.close();
+
+		DiskResponseCache restarted = new DiskResponseCache(this.directory,
+				segmentSize * 2);
+		restarted.put("c", response(new String(new byte[400_000])));
+
+		assertThat(restarted.get("a")).isNotNull();
+		assertThat(restarted.get("b")).isNull();
+		assertThat(restarted.get("c")).isNotNull();
+	}
+
+	@Test
+	void shouldNotWriteToSegmentFileOnHit() throws IOException {
+		DiskResponseCache cache = new DiskResponseCache(this.directory, 1024 * 1024);
+		cache.put("a", response("a"));
+		Path file = this.directory
+				.resolve(DiskResponseCache.segmentName("a") + ".segment");
+		FileTime written = FileTime.fromMillis(1_000_000_000_000L);
+		Files.setLastModifiedTime(file, written);
+
+		assertThat(cache.get("a")).isNotNull();
+
+		assertThat(Files.getLastModifiedTime(file)).isEqualTo(written);
+		cache.close();
+		assertThat(Files.getLastModifiedTime(file)).isGreaterThan(written);
+	}
+
+	@Test
+	void shouldKeepRevalidatedHeadersWithoutWritingBodyAgain() throws IOException {
+		DiskResponseCache cache = new DiskResponseCache(this.directory, 1024 * 1024);
+		cache.put("a", response("a"));
+		Path file = this.directory
+				.resolve(DiskResponseCache.segmentName("a") + ".segment");
+		FileTime written = FileTime.fromMillis(1_000_000_000_000L);
+		Files.setLastModifiedTime(file, written);
+		Map<String, Collection<String>> headers = new LinkedHashMap<>();
+		headers.put("Cache-Control", Collections.singletonList("max-age=120"));
+
+		cache.revalidate("a", cache.get("a").revalidated(headers, 84));
+		CachedResponse revalidated = cache.get("a");
+
+		assertThat(revalidated.getHeaders().get("Cache-Control"))
+				.containsExactly("max-age=120");
+		assertThat(revalidated.getResponseTime()).isEqualTo(84);
+		assertThat(revalidated.getBody()).isEqualTo("a".getBytes(StandardCharsets.UTF_8));
+		assertThat(Files.getLastModifiedTime(file)).isEqualTo(written);
+		cache.put("a", response("b"));
+		assertThat(cache.get("a").getResponseTime()).isEqualTo(42);
+	}
+
+	@Test
+	void shouldRemoveResponse() throws IOException {
+		DiskResponseCache cache = new DiskResponseCache(this.directory, 1024 * 1024);
+		cache.put("a", response("a"));
+
+		cache.remove("a");
+
+		assertThat(cache.get("a")).isNull();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void shouldPromoteSecondTierResponsesToFirstTier() throws IOException {
+		InMemoryResponseCache memory = new InMemoryResponseCache(1024 * 1024);
+		DiskResponseCache disk = new DiskResponseCache(this.directory, 1024 * 1024);
+		TieredResponseCache cache = new TieredResponseCache(memory, disk, 100);
+		disk.put("small", response("small"));
+		cache.put("large", response(new String(new byte[200])));
+
+		assertThat(cache.get("small")).isNotNull();
+		assertThat(memory.get("small")).isNotNull();
+		assertThat(cache.get("large")).isNotNull();
+		assertThat(memory.get("large")).isNull();
+	}
+
+	private static CachedResponse response(String body) {
+		Map<String, Collection<String>> headers = new LinkedHashMap<>();
+		headers.put("Cache-Control", Collections.singletonList("max-age=60"));
+		headers.put("Vary", Arrays.asList("Accept", "Accept-Language"));
+		Map<String, Collection<String>> varyValues = new LinkedHashMap<>();
+		varyValues.put("Accept", Collections.singletonList("application/json"));
+		varyValues.put("Accept-Language", Collections.emptyList());
+		return new CachedResponse(200, "OK", headers,
+				body.getBytes(StandardCharsets.UTF_8), 42, varyValues);
+	}
+
+}
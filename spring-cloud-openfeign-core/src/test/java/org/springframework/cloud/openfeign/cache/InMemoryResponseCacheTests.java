@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link InMemoryResponseCache}.
+ */
+class InMemoryResponseCacheTests {
+
+	private final InMemoryResponseCache cache = new InMemoryResponseCache(250);
+
+	@Test
+	void shouldEvictLeastRecentlyUsedResponsesWhenFull() {
+		this.cache.put("a", response(100));
+		this.cache.put("b", response(100));
+		this.cache.get("a");
+		this.cache.put("c", response(100));
+
+		assertThat(this.cache.get("a")).isNotNull();
+		assertThat(this.cache.get("b")).isNull();
+		assertThat(this.cache.get("c")).isNotNull();
+		assertThat(this.cache.size()).isEqualTo(200);
+	}
+
+	@Test
+	void shouldNotCacheResponseLargerThanCache() {
+		this.cache.put("a", response(300));
+
+		assertThat(this.cache.get("a")).isNull();
+		assertThat(this.cache.size()).isZero();
+	}
+
+	@Test
+	void shouldReplaceResponseWithSameKey() {
+		this.cache.put("a", response(100));
+		this.cache.put("a", response(50));
+
+		assertThat(this.cache.get("a").getBody()).hasSize(50);
+		assertThat(this.cache.size()).isEqualTo(50);
+	}
+
+	private static CachedResponse response(int size) {
+		return new CachedResponse(200, null, Collections.emptyMap(), new byte[size], 0,
+				Collections.emptyMap());
+	}
+
+}
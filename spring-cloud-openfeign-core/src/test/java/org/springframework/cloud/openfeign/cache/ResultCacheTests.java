@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ResultCache}.
+ */
+class ResultCacheTests {
+
+	private final AtomicLong nanoTime = new AtomicLong();
+
+	private final ResultCache cache = new ResultCache(TimeUnit.SECONDS.toNanos(60), 2,
+			this.nanoTime::get);
+
+	@Test
+	void shouldExpireResultsAfterTtl() {
+		this.cache.put(new Object[] { 1L }, "store 1");
+
+		this.nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(59));
+		assertThat(this.cache.get(new Object[] { 1L }).get()).isEqualTo("store 1");
+		this.nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertThat(this.cache.get(new Object[] { 1L })).isNull();
+		assertThat(this.cache.size()).isZero();
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsedResults() {
+		this.cache.put(new Object[] { 1L }, "store 1");
+		this.cache.put(new Object[] { 2L }, "store 2");
+		this.cache.get(new Object[] { 1L });
+		this.cache.put(new Object[] { 3L }, "store 3");
+
+		assertThat(this.cache.get(new Object[] { 1L })).isNotNull();
+		assertThat(this.cache.get(new Object[] { 2L })).isNull();
+		assertThat(this.cache.get(new Object[] { 3L })).isNotNull();
+	}
+
+	@Test
+	void shouldEvictBatchOfLeastRecentlyUsedResults() {
+		ResultCache cache = new ResultCache(TimeUnit.SECONDS.toNanos(60), 32,
+				this.nanoTime::get);
+		for (long i = 0; i < 32; i++) {
+			cache.put(new Object[] { i }, "store " + i);
+		}
+		cache.get(new Object[] { 0L });
+		cache.put(new Object[] { 32L }, "store 32");
+
+		// evicted down to 30 entries, so that the next puts do not evict again
+		assertThat(cache.size()).isEqualTo(30);
+		assertThat(cache.get(new Object[] { 0L })).isNotNull();
+		assertThat(cache.get(new Object[] { 1L })).isNull();
+		assertThat(cache.get(new Object[] { 3L })).isNull();
+		assertThat(cache.get(new Object[] { 4L })).isNotNull();
+		assertThat(cache.get(new Object[] { 32L })).isNotNull();
+	}
+
+	@Test
+	void shouldNotBeAffectedByChangesToArguments() {
+		Object[] args = { 1L };
+		this.cache.put(args, "store 1");
+		args[0] = 2L;
+
+		assertThat(this.cache.get(new Object[] { 1L }).get()).isEqualTo("store 1");
+		assertThat(this.cache.get(new Object[] { 2L })).isNull();
+	}
+
+	@Test
+	void shouldCacheNullResults() {
+		this.cache.put(new Object[] { 1L }, null);
+
+		assertThat(this.cache.get(new Object[] { 1L })).isNotNull();
+		assertThat(this.cache.get(new Object[] { 1L }).get()).isNull();
+	}
+
+	@Test
+	void shouldCompareArrayArgumentsByContent() {
+		this.cache.put(new Object[] { new String[] { "a", "b" } }, "ab");
+
+		assertThat(this.cache.get(new Object[] { new String[] { "a", "b" } }).get())
+				.isEqualTo("ab");
+		assertThat(this.cache.get(new Object[] { new String[] { "a" } })).isNull();
+	}
+
+	@Test
+	void shouldCacheResultsOfMethodsWithoutArguments() {
+		this.cache.put(null, "all stores");
+
+		assertThat(this.cache.get(null).get()).isEqualTo("all stores");
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.clientconfig;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link CachingDnsResolver}.
+ */
+class CachingDnsResolverTests {
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final AtomicInteger lookups = new AtomicInteger();
+
+	private final Map<String, InetAddress[]> records = new HashMap<>();
+
+	private final Deque<Runnable> refreshes = new ArrayDeque<>();
+
+	private final CachingDnsResolver resolver = new CachingDnsResolver(host -> {
+		this.lookups.incrementAndGet();
+		InetAddress[] addresses = this.records.get(host);
+		if (addresses == null) {
+			throw new UnknownHostException(host);
+		}
+		return addresses;
+	}, Duration.ofSeconds(30), this.refreshes::add, this.clock::get);
+
+	@Test
+	void shouldCacheAddressesForTimeToLive() throws Exception {
+		this.records.put("api.example.com", addresses("10.0.0.1"));
+
+		this.resolver.resolve("api.example.com");
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(29));
+		this.resolver.resolve("api.example.com");
+
+		assertThat(this.lookups).hasValue(1);
+		assertThat(this.refreshes).isEmpty();
+	}
+
+	@Test
+	void shouldRotateAddresses() throws Exception {
+		this.records.put("api.example.com", addresses("10.0.0.1", "10.0.0.2"));
+
+		List<InetAddress> first = this.resolver.resolve("api.example.com");
+		List<InetAddress> second = this.resolver.resolve("api.example.com");
+
+		assertThat(first).containsExactly(addresses("10.0.0.1", "10.0.0.2"));
+		assertThat(second).containsExactly(addresses("10.0.0.2", "10.0.0.1"));
+	}
+
+	@Test
+	void shouldRefreshExpiredAddressesInBackground() throws Exception {
+		this.records.put("api.example.com", addresses("10.0.0.1"));
+		this.resolver.resolve("api.example.com");
+		this.records.put("api.example.com", addresses("10.0.0.2"));
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+		assertThat(this.resolver.resolve("api.example.com"))
+				.containsExactly(addresses("10.0.0.1"));
+		assertThat(this.resolver.resolve("api.example.com"))
+				.containsExactly(addresses("10.0.0.1"));
+		assertThat(this.refreshes).hasSize(1);
+
+		this.refreshes.poll().run();
+		assertThat(this.resolver.resolve("api.example.com"))
+				.containsExactly(addresses("10.0.0.2"));
+	}
+
+	@Test
+	void shouldKeepAddressesWhenRefreshFails() throws Exception {
+		this.records.put("api.example.com", addresses("10.0.0.1"));
+		this.resolver.resolve("api.example.com");
+		this.records.clear();
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+		this.resolver.resolve("api.example.com");
+		this.refreshes.poll().run();
+
+		assertThat(this.resolver.resolve("api.example.com"))
+				.containsExactly(addresses("10.0.0.1"));
+	}
+
+	@Test
+	void shouldFailForUnknownHost() {
+		assertThatThrownBy(() -> this.resolver.resolve("unknown.example.com"))
+				.isInstanceOf(UnknownHostException.class);
+	}
+
+	@Test
+	void shouldRetireRemovedAddresses() throws Exception {
+		AtomicInteger retirements = new AtomicInteger();
+		this.resolver.addRetirementListener(retirements::incrementAndGet);
+		this.records.put("api.example.com", addresses("10.0.0.1", "10.0.0.2"));
+		this.records.put("cdn.example.com", addresses("10.0.0.2"));
+		this.resolver.resolve("api.example.com");
+		this.resolver.resolve("cdn.example.com");
+		this.records.put("api.example.com", addresses("10.0.0.3"));
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+		this.resolver.resolve("api.example.com");
+		this.refreshes.poll().run();
+
+		assertThat(retirements).hasValue(1);
+		assertThat(this.resolver.isRetired(address("10.0.0.1"))).isTrue();
+		// still an address of another host
+		assertThat(this.resolver.isRetired(address("10.0.0.2"))).isFalse();
+		assertThat(this.resolver.isRetired(address("10.0.0.3"))).isFalse();
+
+		this.records.put("api.example.com", addresses("10.0.0.1"));
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		this.resolver.resolve("api.example.com");
+		this.refreshes.poll().run();
+
+		assertThat(this.resolver.isRetired(address("10.0.0.1"))).isFalse();
+		assertThat(this.resolver.isRetired(address("10.0.0.3"))).isTrue();
+	}
+
+	private static InetAddress[] addresses(String... ips) throws UnknownHostException {
+		InetAddress[] addresses = new InetAddress[ips.length];
+		for (int i = 0; i < ips.length; i++) {
+			addresses[i] = address(ips[i]);
+		}
+		return addresses;
+	}
+
+	private static InetAddress address(String ip) throws UnknownHostException {
+		return InetAddress.getByName(ip);
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link CachingServiceInstanceSource}.
+ */
+class CachingServiceInstanceSourceTests {
+
+	private final ServiceInstanceListSupplier supplier = mock(
+			ServiceInstanceListSupplier.class);
+
+	private CachingServiceInstanceSource source;
+
+	@AfterEach
+	void tearDown() {
+		this.source.destroy();
+	}
+
+	@Test
+	void refreshesInstancesInTheBackground() throws InterruptedException {
+		AtomicInteger fetches = new AtomicInteger();
+		when(this.supplier.get()).thenReturn(Flux.defer(() -> Flux.just(
+				Collections.singletonList(instance("host-" + fetches.incrementAndGet())))));
+		this.source = new CachingServiceInstanceSource(serviceId -> this.supplier,
+				Duration.ofMillis(20), Duration.ofSeconds(5));
+
+		assertThat(this.source.getInstances("test")).extracting("host")
+				.containsExactly("host-1");
+		long deadline = System.currentTimeMillis() + 5000;
+		while (fetches.get() < 3 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(this.source.getInstances("test")).extracting("host")
+				.doesNotContain("host-1");
+	}
+
+	@Test
+	void doesNotWaitForSlowRefreshes() {
+		AtomicInteger fetches = new AtomicInteger();
+		when(this.supplier.get()).thenReturn(Flux.defer(() -> {
+			List<ServiceInstance> instances = Collections
+					.singletonList(instance("host-" + fetches.incrementAndGet()));
+			// every refresh after the first one takes ten seconds
+			return fetches.get() == 1 ? Flux.just(instances)
+					: Flux.just(instances).delayElements(Duration.ofSeconds(10));
+		}));
+		this.source = new CachingServiceInstanceSource(serviceId -> this.supplier,
+				Duration.ofMillis(10), Duration.ofSeconds(5));
+		this.source.getInstances("test");
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 100; i++) {
+			assertThat(this.source.getInstances("test")).hasSize(1);
+		}
+		assertThat(Duration.ofNanos(System.nanoTime() - start))
+				.isLessThan(Duration.ofSeconds(1));
+	}
+
+	@Test
+	void waitsForTheFirstInstancesOnlyOnce() {
+		when(this.supplier.get()).thenReturn(Flux.never());
+		this.source = new CachingServiceInstanceSource(serviceId -> this.supplier,
+				Duration.ofSeconds(1), Duration.ofMillis(100));
+
+		assertThat(this.source.getInstances("test")).isEmpty();
+		long start = System.nanoTime();
+		assertThat(this.source.getInstances("test")).isEmpty();
+		assertThat(Duration.ofNanos(System.nanoTime() - start))
+				.isLessThan(Duration.ofMillis(50));
+	}
+
+	private static ServiceInstance instance(String host) {
+		return new DefaultServiceInstance(host, "test", host, 8080, false);
+	}
+
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import feign.Request;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.openfeign.RoutingKey;
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DefaultFeignLoadBalancer}.
+ */
+class DefaultFeignLoadBalancerTests {
+
+	private final ServiceInstance fast1 = instance("fast-1");
+
+	private final ServiceInstance fast2 = instance("fast-2");
+
+	private final ServiceInstance slow = instance("slow");
+
+	private final List<ServiceInstance> instances = Arrays.asList(this.fast1,
+			this.slow, this.fast2);
+
+	private final FeignLoadBalancerProperties properties = new FeignLoadBalancerProperties();
+
+	private long now;
+
+	private final Map<String, Supplier<Number>> metrics = new HashMap<>();
+
+	private final DefaultFeignLoadBalancer loadBalancer = new DefaultFeignLoadBalancer(
+			serviceId -> this.instances, this.properties, new RecordingMetricsRegistrar(),
+			() -> this.now);
+
+	private final Request request = Request.create(Request.HttpMethod.GET,
+			"http://test/path", Collections.emptyMap(), null, null, null);
+
+	@Test
+	void avoidsSlowInstance() {
+		Map<ServiceInstance, Integer> choices = simulate(1000, instance -> 200);
+
+		assertThat(choices.getOrDefault(this.slow, 0)).isLessThan(100);
+		assertThat(choices.get(this.fast1)).isGreaterThan(300);
+		assertThat(choices.get(this.fast2)).isGreaterThan(300);
+	}
+
+	@Test
+	void avoidsInstanceReturningServerErrors() {
+		this.properties.setFailurePenalty(Duration.ofMillis(500));
+
+		Map<ServiceInstance, Integer> choices = simulate(1000,
+				instance -> instance == this.fast1 ? 503 : 200);
+
+		assertThat(choices.getOrDefault(this.fast1, 0))
+				.isLessThan(choices.get(this.slow));
+	}
+
+	@Test
+	void avoidsInstancesWaitingForTheirFirstResponse() {
+		this.loadBalancer.onRequest("test", this.fast1);
+
+		for (int i = 0; i < 20; i++) {
+			ServiceInstance instance = this.loadBalancer.choose("test", this.request);
+			assertThat(instance).isNotEqualTo(this.fast1);
+			this.loadBalancer.onRequest("test", instance);
+			this.now += TimeUnit.MILLISECONDS.toNanos(10);
+			this.loadBalancer.onResponse("test", instance, 200,
+					TimeUnit.MILLISECONDS.toNanos(10));
+		}
+	}
+
+	@Test
+	void ejectsInstanceAfterConsecutiveFailures() {
+		enableOutlierEjection();
+		for (int i = 0; i < 5; i++) {
+			respond(this.fast1, -1);
+		}
+
+		Map<ServiceInstance, Integer> choices = simulate(100, instance -> 200);
+
+		assertThat(choices).doesNotContainKey(this.fast1);
+		assertThat(this.metrics.get("feign.loadbalancer.ejections[service, test]").get())
+				.isEqualTo(1L);
+		assertThat(this.metrics.get("feign.loadbalancer.ejected[service, test]").get())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void ejectsInstanceAboveFailureRate() {
+		enableOutlierEjection();
+		for (int i = 0; i < 10; i++) {
+			respond(this.fast1, i % 2 == 0 ? 200 : 503);
+		}
+
+		assertThat(simulate(100, instance -> 200)).doesNotContainKey(this.fast1);
+	}
+
+	@Test
+	void doublesEjectionTimeOfInstancesFailingAgain() {
+		enableOutlierEjection();
+		this.properties.getOutlierEjection().setBaseEjectionTime(Duration.ofSeconds(30));
+		failUntilEjected(this.fast1);
+		this.now += TimeUnit.SECONDS.toNanos(31);
+		assertThat(simulate(100, instance -> 200)).containsKey(this.fast1);
+
+		failUntilEjected(this.fast1);
+		this.now += TimeUnit.SECONDS.toNanos(45);
+
+		assertThat(simulate(100, instance -> 200)).doesNotContainKey(this.fast1);
+		this.now += TimeUnit.SECONDS.toNanos(20);
+		assertThat(simulate(100, instance -> 200)).containsKey(this.fast1);
+	}
+
+	@Test
+	void capsEjectedInstances() {
+		enableOutlierEjection();
+		this.properties.getOutlierEjection().setMaxEjectionPercent(50);
+		failUntilEjected(this.fast1);
+		for (int i = 0; i < 10; i++) {
+			respond(this.fast2, -1);
+		}
+
+		assertThat(simulate(100, instance -> 200)).containsKey(this.fast2)
+				.doesNotContainKey(this.fast1);
+	}
+
+	@Test
+	void prefersInstancesInTheZoneOfTheCaller() {
+		DefaultFeignLoadBalancer loadBalancer = zonedLoadBalancer();
+
+		for (int i = 0; i < 50; i++) {
+			ServiceInstance instance = loadBalancer.choose("test", this.request);
+			assertThat(DefaultFeignLoadBalancer.getZone(instance)).isEqualTo("a");
+			loadBalancer.onRequest("test", instance);
+			loadBalancer.onResponse("test", instance, 200, 1000);
+		}
+		assertThat(this.metrics
+				.get("feign.loadbalancer.zone.requests[service, test, locality, local]")
+				.get()).isEqualTo(50L);
+		assertThat(this.metrics
+				.get("feign.loadbalancer.zone.requests[service, test, locality, remote]")
+				.get()).isEqualTo(0L);
+	}
+
+	@Test
+	void spillsOverToOtherZonesWhenLocalInstancesAreBusy() {
+		this.properties.getZoneAffinity().setMaxInFlightPerInstance(2);
+		DefaultFeignLoadBalancer loadBalancer = zonedLoadBalancer();
+		for (int i = 0; i < 4; i++) {
+			// requests that do not complete
+			ServiceInstance instance = loadBalancer.choose("test", this.request);
+			assertThat(DefaultFeignLoadBalancer.getZone(instance)).isEqualTo("a");
+			loadBalancer.onRequest("test", instance);
+		}
+
+		Map<String, Integer> zones = new HashMap<>();
+		for (int i = 0; i < 60; i++) {
+			ServiceInstance instance = loadBalancer.choose("test", this.request);
+			zones.merge(DefaultFeignLoadBalancer.getZone(instance), 1, Integer::sum);
+			loadBalancer.onRequest("test", instance);
+			loadBalancer.onResponse("test", instance, 200, 1000);
+		}
+
+		// the busy local instances only win when both choices are local
+		assertThat(zones.get("b")).isGreaterThan(35);
+	}
+
+	@Test
+	void spillsOverToOtherZonesWhenLocalInstancesFail() {
+		DefaultFeignLoadBalancer loadBalancer = zonedLoadBalancer();
+
+		List<String> zones = new ArrayList<>();
+		for (int i = 0; i < 110; i++) {
+			ServiceInstance instance = loadBalancer.choose("test", this.request);
+			String zone = DefaultFeignLoadBalancer.getZone(instance);
+			zones.add(zone);
+			loadBalancer.onRequest("test", instance);
+			loadBalancer.onResponse("test", instance, "a".equals(zone) ? 503 : 200,
+					1000);
+		}
+
+		// the failure rate is considered from the tenth request on
+		assertThat(zones.subList(0, 10)).containsOnly("a");
+		assertThat(zones.subList(10, 110)).filteredOn("b"::equals)
+				.hasSizeGreaterThan(70);
+	}
+
+	@Test
+	void rampsUpTrafficOfNewInstances() {
+		this.properties.getSlowStart().setEnabled(true);
+		this.properties.getSlowStart().setWindow(Duration.ofSeconds(30));
+		AtomicReference<List<ServiceInstance>> instances = new AtomicReference<>(
+				Arrays.asList(this.fast1, this.fast2));
+		DefaultFeignLoadBalancer loadBalancer = new DefaultFeignLoadBalancer(
+				serviceId -> instances.get(), this.properties,
+				new RecordingMetricsRegistrar(), () -> this.now);
+		Map<ServiceInstance, Integer> initial = simulate(loadBalancer, 200);
+		instances.set(Arrays.asList(this.fast1, this.fast2, this.slow));
+
+		Map<ServiceInstance, Integer> rampingUp = simulate(loadBalancer, 300);
+		this.now += TimeUnit.SECONDS.toNanos(30);
+		Map<ServiceInstance, Integer> rampedUp = simulate(loadBalancer, 300);
+
+		// the instances of the first list are not new
+		assertThat(initial.get(this.fast1)).isGreaterThan(60);
+		assertThat(rampingUp.getOrDefault(this.slow, 0)).isLessThan(40);
+		assertThat(rampedUp.get(this.slow)).isGreaterThan(70);
+	}
+
+	@Test
+	void routesRequestsWithSameKeyToSameInstance() {
+		ServiceInstance owner = this.loadBalancer.choose("test", keyed("user-1"));
+
+		for (int i = 0; i < 20; i++) {
+			ServiceInstance instance = this.loadBalancer.choose("test", keyed("user-1"));
+			assertThat(instance).isEqualTo(owner);
+			respond(instance, 200);
+		}
+	}
+
+	@Test
+	void routesKeyToNextInstanceWhenOwnerIsOverloaded() {
+		ServiceInstance owner = this.loadBalancer.choose("test", keyed("user-1"));
+		for (int i = 0; i < 5; i++) {
+			this.loadBalancer.onRequest("test", owner);
+		}
+
+		assertThat(this.loadBalancer.choose("test", keyed("user-1")))
+				.isNotEqualTo(owner);
+	}
+
+	@Test
+	void movesOnlyKeysOfAddedInstance() {
+		AtomicReference<List<ServiceInstance>> instances = new AtomicReference<>(
+				this.instances);
+		DefaultFeignLoadBalancer loadBalancer = new DefaultFeignLoadBalancer(
+				serviceId -> instances.get(), this.properties);
+		Map<String, ServiceInstance> owners = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			owners.put("user-" + i, loadBalancer.choose("test", keyed("user-" + i)));
+		}
+		ServiceInstance added = instance("added");
+		List<ServiceInstance> more = new ArrayList<>(this.instances);
+		more.add(added);
+		instances.set(more);
+
+		int moved = 0;
+		for (Map.Entry<String, ServiceInstance> entry : owners.entrySet()) {
+			ServiceInstance owner = loadBalancer.choose("test", keyed(entry.getKey()));
+			if (!owner.equals(entry.getValue())) {
+				assertThat(owner).isEqualTo(added);
+				moved++;
+			}
+		}
+		assertThat(moved).isBetween(100, 400);
+	}
+
+	@Test
+	void followsZonesOfSourcesReturningNewLists() {
+		this.properties.getZoneAffinity().setEnabled(true);
+		this.properties.getZoneAffinity().setZone("a");
+		AtomicReference<List<ServiceInstance>> current = new AtomicReference<>(
+				Arrays.asList(instance("a-1", "a"), instance("b-1", "b")));
+		DefaultFeignLoadBalancer loadBalancer = new DefaultFeignLoadBalancer(
+				serviceId -> new ArrayList<>(current.get()), this.properties,
+				new RecordingMetricsRegistrar(), () -> this.now);
+
+		assertThat(loadBalancer.choose("test", this.request).getHost())
+				.isEqualTo("a-1");
+		current.set(Arrays.asList(instance("a-2", "a"), instance("b-1", "b")));
+		assertThat(loadBalancer.choose("test", this.request).getHost())
+				.isEqualTo("a-2");
+		current.set(Arrays.asList(instance("a-2", "b"), instance("b-1", "a")));
+		assertThat(loadBalancer.choose("test", this.request).getHost())
+				.isEqualTo("b-1");
+	}
+
+	@Test
+	void returnsInstancesOfCurrentListWhenOnlyTheirSchemeChanged() {
+		this.properties.getZoneAffinity().setEnabled(true);
+		this.properties.getZoneAffinity().setZone("a");
+		AtomicReference<List<ServiceInstance>> current = new AtomicReference<>(
+				Arrays.asList(instance("a-1", "a"), instance("b-1", "b")));
+		DefaultFeignLoadBalancer loadBalancer = new DefaultFeignLoadBalancer(
+				serviceId -> new ArrayList<>(current.get()), this.properties,
+				new RecordingMetricsRegistrar(), () -> this.now);
+		assertThat(loadBalancer.choose("test", this.request).isSecure()).isFalse();
+		assertThat(loadBalancer.choose("test", keyed("user-1")).isSecure()).isFalse();
+
+		ServiceInstance secure = new DefaultServiceInstance("a-1", "test", "a-1", 8080,
+				true, Collections.singletonMap(DefaultFeignLoadBalancer.ZONE, "a"));
+		current.set(Arrays.asList(secure, instance("b-1", "b")));
+
+		assertThat(loadBalancer.choose("test", this.request)).isSameAs(secure);
+		assertThat(loadBalancer.choose("test", keyed("user-1"))).isSameAs(secure);
+	}
+
+	@Test
+	void comparesInstancesByHostPortAndZone() {
+		List<ServiceInstance> instances = Arrays.asList(instance("a-1", "a"),
+				instance("b-1", "b"));
+
+		assertThat(DefaultFeignLoadBalancer.sameInstances(instances,
+				Arrays.asList(instance("a-1", "a"), instance("b-1", "b")))).isTrue();
+		assertThat(DefaultFeignLoadBalancer.sameInstances(instances,
+				Arrays.asList(instance("a-1", "a"), instance("b-2", "b")))).isFalse();
+		assertThat(DefaultFeignLoadBalancer.sameInstances(instances,
+				Arrays.asList(instance("a-1", "b"), instance("b-1", "b")))).isFalse();
+		assertThat(DefaultFeignLoadBalancer.sameInstances(instances,
+				Collections.singletonList(instance("a-1", "a")))).isFalse();
+	}
+
+	@Test
+	void returnsNullWithoutInstances() {
+		DefaultFeignLoadBalancer loadBalancer = new DefaultFeignLoadBalancer(
+				serviceId -> Collections.emptyList(), this.properties);
+
+		assertThat(loadBalancer.choose("test", this.request)).isNull();
+	}
+
+	private Map<ServiceInstance, Integer> simulate(int requests,
+			ToIntFunction<ServiceInstance> status) {
+		Map<ServiceInstance, Integer> choices = new HashMap<>();
+		for (int i = 0; i < requests; i++) {
+			ServiceInstance instance = this.loadBalancer.choose("test", this.request);
+			choices.merge(instance, 1, Integer::sum);
+			long latency = TimeUnit.MILLISECONDS
+					.toNanos(instance == this.slow ? 100 : 5);
+			this.loadBalancer.onRequest("test", instance);
+			this.now += latency;
+			this.loadBalancer.onResponse("test", instance,
+					status.applyAsInt(instance), latency);
+		}
+		return choices;
+	}
+
+	private Request keyed(String routingKey) {
+		return Request.create(Request.HttpMethod.GET, "http://test/path",
+				Collections.singletonMap(RoutingKey.HEADER,
+						Collections.singletonList(routingKey)),
+				null, null, null);
+	}
+
+	private DefaultFeignLoadBalancer zonedLoadBalancer() {
+		this.properties.getZoneAffinity().setEnabled(true);
+		this.properties.getZoneAffinity().setZone("a");
+		List<ServiceInstance> instances = Arrays.asList(instance("a-1", "a"),
+				instance("b-1", "b"), instance("a-2", "a"), instance("b-2", "b"));
+		return new DefaultFeignLoadBalancer(serviceId -> instances, this.properties,
+				new RecordingMetricsRegistrar(), () -> this.now);
+	}
+
+	private Map<ServiceInstance, Integer> simulate(DefaultFeignLoadBalancer loadBalancer,
+			int requests) {
+		Map<ServiceInstance, Integer> choices = new HashMap<>();
+		for (int i = 0; i < requests; i++) {
+			ServiceInstance instance = loadBalancer.choose("test", this.request);
+			choices.merge(instance, 1, Integer::sum);
+			loadBalancer.onRequest("test", instance);
+			loadBalancer.onResponse("test", instance, 200, 1000);
+		}
+		return choices;
+	}
+
+	private void enableOutlierEjection() {
+		this.properties.getOutlierEjection().setEnabled(true);
+		// so that only ejection keeps failing instances from being chosen
+		this.properties.setFailurePenalty(Duration.ZERO);
+		this.loadBalancer.choose("test", this.request);
+	}
+
+	private void failUntilEjected(ServiceInstance instance) {
+		for (int i = 0; i < 5; i++) {
+			respond(instance, -1);
+		}
+	}
+
+	private void respond(ServiceInstance instance, int status) {
+		long latency = TimeUnit.MILLISECONDS.toNanos(5);
+		this.loadBalancer.onRequest("test", instance);
+		this.now += latency;
+		this.loadBalancer.onResponse("test", instance, status, latency);
+	}
+
+	private static ServiceInstance instance(String host) {
+		return new DefaultServiceInstance(host, "test", host, 8080, false);
+	}
+
+	private static ServiceInstance instance(String host, String zone) {
+		return new DefaultServiceInstance(host, "test", host, 8080, false,
+				Collections.singletonMap(DefaultFeignLoadBalancer.ZONE, zone));
+	}
+
+	private class RecordingMetricsRegistrar implements FeignMetricsRegistrar {
+
+		@Override
+		public void gauge(String name, String description, Supplier<Number> value,
+				String... tags) {
+			DefaultFeignLoadBalancerTests.this.metrics.put(name + Arrays.toString(tags),
+					value);
+		}
+
+		@Override
+		public void counter(String name, String description, Supplier<Number> value,
+				String... tags) {
+			DefaultFeignLoadBalancerTests.this.metrics.put(name + Arrays.toString(tags),
+					value);
+		}
+
+	}
+
+}
@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import feign.Client;
 import feign.Request;
@@ -41,8 +42,10 @@ import org.springframework.http.MediaType;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -124,6 +127,68 @@ class FeignBlockingLoadBalancerClientTests {
 		assertThat(new String(actualRequest.body())).isEqualTo("hello");
 	}
 
+	@Test
+	void shouldRewriteUrlWithoutReconstructingUri() throws IOException {
+		FeignBlockingLoadBalancerClient client = new FeignBlockingLoadBalancerClient(
+				delegate, loadBalancerClient, new LoadBalancedUrlRewriter());
+		Request request = testRequest();
+		Request.Options options = new Request.Options();
+		ServiceInstance serviceInstance = new DefaultServiceInstance("test-1", "test",
+				"test-host", 8888, true);
+		when(loadBalancerClient.choose("test")).thenReturn(serviceInstance);
+
+		client.execute(request, options);
+
+		ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+		verify(delegate, times(1)).execute(captor.capture(), eq(options));
+		verify(loadBalancerClient, never()).reconstructURI(any(), any());
+		Request actualRequest = captor.getValue();
+		assertThat(actualRequest.url()).isEqualTo("https://test-host:8888/path");
+		assertThat(actualRequest.headers()).isEqualTo(request.headers());
+		assertThat(new String(actualRequest.body())).isEqualTo("hello");
+	}
+
+	@Test
+	void shouldExposeChosenInstanceToDelegate() throws IOException {
+		AtomicReference<ServiceInstance> seen = new AtomicReference<>();
+		FeignBlockingLoadBalancerClient client = new FeignBlockingLoadBalancerClient(
+				(request, options) -> {
+					seen.set(RequestInstance.get());
+					return Response.builder().request(request).status(200)
+							.headers(Collections.emptyMap()).build();
+				}, loadBalancerClient, new LoadBalancedUrlRewriter());
+		ServiceInstance serviceInstance = new DefaultServiceInstance("test-1", "test",
+				"test-host", 8888, false);
+		when(loadBalancerClient.choose("test")).thenReturn(serviceInstance);
+
+		client.execute(testRequest(), new Request.Options());
+
+		assertThat(seen.get()).isSameAs(serviceInstance);
+		assertThat(RequestInstance.get()).isNull();
+	}
+
+	@Test
+	void shouldAvoidInstancesChosenForPreviousAttempts() {
+		ServiceInstance first = new DefaultServiceInstance("test-1", "test", "host-1",
+				8888, false);
+		ServiceInstance second = new DefaultServiceInstance("test-2", "test", "host-2",
+				8888, false);
+		when(loadBalancerClient.choose("test")).thenReturn(first, first, second);
+		ChosenInstances chosen = new ChosenInstances();
+		ChosenInstances previous = ChosenInstances.bind(chosen);
+		try {
+			assertThat(feignBlockingLoadBalancerClient.choose("test", testRequest()))
+					.isSameAs(first);
+			assertThat(feignBlockingLoadBalancerClient.choose("test", testRequest()))
+					.isSameAs(second);
+		}
+		finally {
+			ChosenInstances.restore(previous);
+		}
+		assertThat(chosen.contains(first)).isTrue();
+		assertThat(chosen.contains(second)).isTrue();
+	}
+
 	private Request testRequest() {
 		return testRequest("test");
 	}
@@ -25,6 +25,7 @@ import org.junit.Test;
 
 import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClientAutoConfiguration;
 import org.springframework.cloud.commons.httpclient.HttpClientConfiguration;
 import org.springframework.cloud.loadbalancer.blocking.client.BlockingLoadBalancerClient;
 import org.springframework.cloud.loadbalancer.config.BlockingLoadBalancerClientAutoConfiguration;
@@ -62,10 +63,25 @@ public class FeignLoadBalancerAutoConfigurationTests {
 		assertLoadBalanced(context, OkHttpClient.class);
 	}
 
+	@Test
+	public void shouldInstantiateFeignLoadBalancerWhenEnabled() {
+		ConfigurableApplicationContext context = initContext(
+				"feign.loadbalancer.enabled=true");
+		assertThatOneBeanPresent(context, DefaultFeignLoadBalancer.class);
+		assertThatOneBeanPresent(context, FeignBlockingLoadBalancerClient.class);
+	}
+
+	@Test
+	public void shouldNotInstantiateFeignLoadBalancerByDefault() {
+		ConfigurableApplicationContext context = initContext();
+		assertThat(context.getBeansOfType(FeignLoadBalancer.class)).isEmpty();
+	}
+
 	private ConfigurableApplicationContext initContext(String... properties) {
 		return new SpringApplicationBuilder().web(WebApplicationType.NONE)
 				.properties(properties)
 				.sources(HttpClientConfiguration.class,
+						SimpleDiscoveryClientAutoConfiguration.class,
 						LoadBalancerAutoConfiguration.class,
 						BlockingLoadBalancerClientAutoConfiguration.class,
 						FeignLoadBalancerAutoConfiguration.class)
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link LoadBalancedUrlRewriter}.
+ */
+class LoadBalancedUrlRewriterTests {
+
+	private final LoadBalancedUrlRewriter rewriter = new LoadBalancedUrlRewriter();
+
+	private final List<String> urls = Arrays.asList("http://test", "http://test/",
+			"http://test/path", "https://test/path", "http://test/path?a=1&b=%20c",
+			"http://test?a=1", "http://test/a%2Fb/c#fragment",
+			"http://test/path/%E2%82%AC?q=%C3%A9");
+
+	private final List<ServiceInstance> instances = Arrays.asList(
+			new DefaultServiceInstance("test-1", "test", "host", 8080, false),
+			new DefaultServiceInstance("test-2", "test", "10.0.0.1", 8443, true),
+			new DefaultServiceInstance("test-3", "test", "host", 80, false));
+
+	@Test
+	void rewritesUrlsLikeTheLoadBalancer() {
+		for (String url : this.urls) {
+			assertThat(this.rewriter.getServiceId(url)).as(url).isEqualTo("test");
+			for (ServiceInstance instance : this.instances) {
+				assertThat(this.rewriter.rewrite(url, instance)).as(url)
+						.isEqualTo(LoadBalancerUriTools
+								.reconstructURI(instance, URI.create(url)).toString());
+			}
+		}
+	}
+
+	@Test
+	void leavesUnhandledUrlsToTheLoadBalancer() {
+		assertThat(this.rewriter.getServiceId("http://user@test/path")).isNull();
+		assertThat(this.rewriter.getServiceId("http://test:8080/path")).isNull();
+		assertThat(this.rewriter.getServiceId("ftp://test/path")).isNull();
+		assertThat(this.rewriter.getServiceId("http://my_service/path")).isNull();
+		assertThat(this.rewriter.rewrite("http://test:8080/path", this.instances.get(0)))
+				.isNull();
+	}
+
+	@Test
+	void leavesUnhandledInstancesToTheLoadBalancer() {
+		assertThat(this.rewriter.rewrite("http://test/path",
+				new DefaultServiceInstance("test-1", "test", "host", -1, false)))
+						.isNull();
+		assertThat(this.rewriter.rewrite("http://test/path",
+				new DefaultServiceInstance("test-1", "test", "::1", 8080, false)))
+						.isNull();
+	}
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.loadbalancer;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.openfeign.FeignClientProperties;
+import org.springframework.cloud.openfeign.support.FeignMetricsRegistrar;
+import org.springframework.cloud.openfeign.support.RateLimitExceededException;
+import org.springframework.cloud.openfeign.support.RateLimitingClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link RetryableFeignBlockingLoadBalancerClient}.
+ */
+class RetryableFeignBlockingLoadBalancerClientTests {
+
+	private final LoadBalancerClient loadBalancerClient = mock(LoadBalancerClient.class);
+
+	private final List<String> urls = new ArrayList<>();
+
+	private final Deque<Object> outcomes = new ArrayDeque<>();
+
+	private int defaultStatus = 200;
+
+	private Map<String, Collection<String>> headers = Collections.emptyMap();
+
+	private final List<Long> sleeps = new ArrayList<>();
+
+	private final FeignClientProperties.RetryConfiguration config = new FeignClientProperties.RetryConfiguration();
+
+	@BeforeEach
+	void setUp() {
+		this.config.setInitialBackoff(Duration.ofMillis(1));
+		this.config.setMaxBackoff(Duration.ofMillis(1));
+		this.config.setBudgetPercent(100);
+		ServiceInstance first = new DefaultServiceInstance("test-1", "test", "host-1",
+				8080, false);
+		ServiceInstance second = new DefaultServiceInstance("test-2", "test", "host-2",
+				8080, false);
+		when(this.loadBalancerClient.choose(anyString())).thenReturn(first, first,
+				second, first, second);
+		when(this.loadBalancerClient.reconstructURI(any(ServiceInstance.class),
+				any(URI.class))).thenAnswer(invocation -> {
+					ServiceInstance instance = invocation.getArgument(0);
+					URI uri = invocation.getArgument(1);
+					return URI.create("http://" + instance.getHost() + ":"
+							+ instance.getPort() + uri.getPath());
+				});
+	}
+
+	@Test
+	void retriesOnAnotherInstance() throws IOException {
+		this.outcomes.add(new IOException("Connection reset"));
+		this.outcomes.add(200);
+
+		Response response = execute(Request.HttpMethod.GET);
+
+		assertThat(response.status()).isEqualTo(200);
+		assertThat(this.urls).containsExactly("http://host-1:8080/path",
+				"http://host-2:8080/path");
+	}
+
+	@Test
+	void doesNotRetryNonIdempotentRequestsAfterTheyWereSent() {
+		this.outcomes.add(new IOException("Connection reset"));
+		this.outcomes.add(200);
+
+		assertThatThrownBy(() -> execute(Request.HttpMethod.POST))
+				.isInstanceOf(IOException.class).hasMessage("Connection reset");
+		assertThat(this.urls).hasSize(1);
+	}
+
+	@Test
+	void retriesRequestsThatCouldNotConnect() throws IOException {
+		this.outcomes.add(new ConnectException("Connection refused"));
+		this.outcomes.add(200);
+
+		Response response = execute(Request.HttpMethod.POST);
+
+		assertThat(response.status()).isEqualTo(200);
+		assertThat(this.urls).hasSize(2);
+	}
+
+	@Test
+	void retriesRetryableStatusesAndReturnsTheLastResponse() throws IOException {
+		this.config.setRetryableStatusCodes(Collections.singleton(503));
+		this.outcomes.addAll(Arrays.asList(503, 503, 503, 200));
+
+		Response response = execute(Request.HttpMethod.POST);
+
+		assertThat(response.status()).isEqualTo(503);
+		assertThat(this.urls).hasSize(3);
+	}
+
+	@Test
+	void waitsForRetryAfterOfRetriedResponse() throws IOException {
+		this.config.setMaxBackoff(Duration.ofSeconds(10));
+		this.config.setRetryableStatusCodes(Collections.singleton(503));
+		this.headers = Collections.singletonMap("Retry-After",
+				Collections.singletonList("2"));
+		this.outcomes.addAll(Arrays.asList(503, 200));
+
+		Response response = execute(Request.HttpMethod.GET);
+
+		assertThat(response.status()).isEqualTo(200);
+		assertThat(this.sleeps).containsExactly(2000L);
+	}
+
+	@Test
+	void capsRetryAfterToMaxBackoff() throws IOException {
+		this.config.setMaxBackoff(Duration.ofMillis(500));
+		this.config.setRetryableStatusCodes(Collections.singleton(429));
+		this.headers = Collections.singletonMap("Retry-After",
+				Collections.singletonList("60"));
+		this.outcomes.addAll(Arrays.asList(429, 200));
+
+		Response response = execute(Request.HttpMethod.GET);
+
+		assertThat(response.status()).isEqualTo(200);
+		assertThat(this.sleeps).containsExactly(500L);
+	}
+
+	@Test
+	void stopsRetryingWhenTheBudgetIsExhausted() throws IOException {
+		this.config.setBudgetPercent(0);
+		this.config.setRetryableStatusCodes(Collections.singleton(503));
+		this.defaultStatus = 503;
+		RetryableFeignBlockingLoadBalancerClient client = client();
+
+		for (int i = 0; i < 8; i++) {
+			assertThat(client.execute(request(Request.HttpMethod.GET),
+					new Request.Options()).status()).isEqualTo(503);
+		}
+
+		// the reserve of 10 retries is spent by the first 5 requests
+		assertThat(this.urls).hasSize(5 * 3 + 3);
+	}
+
+	@Test
+	void takesRateLimitPermitForEachAttempt() {
+		this.config.setRetryableStatusCodes(Collections.singleton(503));
+		this.outcomes.addAll(Arrays.asList(503, 503, 503));
+		FeignClientProperties.RateLimitConfiguration rateLimit = new FeignClientProperties.RateLimitConfiguration();
+		rateLimit.setPermitsPerSecond(0.01);
+		rateLimit.setBurst(2);
+		RetryableFeignBlockingLoadBalancerClient client = client(
+				delegate -> new RateLimitingClient(delegate, "test", rateLimit,
+						methodKey -> null, FeignMetricsRegistrar.NONE));
+
+		assertThatThrownBy(() -> client.execute(request(Request.HttpMethod.GET),
+				new Request.Options())).isInstanceOf(RateLimitExceededException.class);
+		assertThat(this.urls).hasSize(2);
+	}
+
+	private Response execute(Request.HttpMethod method) throws IOException {
+		return client().execute(request(method), new Request.Options());
+	}
+
+	private RetryableFeignBlockingLoadBalancerClient client() {
+		return client(Function.identity());
+	}
+
+	private RetryableFeignBlockingLoadBalancerClient client(
+			Function<Client, Client> decorator) {
+		Client delegate = (request, options) -> {
+			this.urls.add(request.url());
+			Object outcome = this.outcomes.poll();
+			if (outcome instanceof IOException) {
+				throw (IOException) outcome;
+			}
+			return Response.builder().request(request)
+					.status(outcome != null ? (Integer) outcome : this.defaultStatus)
+					.headers(this.headers).build();
+		};
+		return new RetryableFeignBlockingLoadBalancerClient(
+				new FeignBlockingLoadBalancerClient(decorator.apply(delegate),
+						this.loadBalancerClient),
+				"test", this.config, FeignMetricsRegistrar.NONE, this.sleeps::add);
+	}
+
+	private static Request request(Request.HttpMethod method) {
+		return Request.create(method, "http://test/path", Collections.emptyMap(),
+				null, null, null);
+	}
+
+}
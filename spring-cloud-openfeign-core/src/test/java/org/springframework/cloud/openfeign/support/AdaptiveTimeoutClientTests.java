@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import feign.Client;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Response;
+import feign.Target;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.openfeign.FeignClientProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AdaptiveTimeoutClient}.
+ */
+class AdaptiveTimeoutClientTests {
+
+	private final List<Request.Options> sentOptions = new ArrayList<>();
+
+	private final List<String> gauges = new ArrayList<>();
+
+	private final Client delegate = (request, options) -> {
+		this.sentOptions.add(options);
+		return Response.builder().request(request).status(200)
+				.headers(Collections.emptyMap())
+				.body("ok", StandardCharsets.UTF_8).build();
+	};
+
+	private final FeignClientProperties.AdaptiveTimeoutConfiguration config = new FeignClientProperties.AdaptiveTimeoutConfiguration();
+
+	private final AdaptiveTimeoutClient client = new AdaptiveTimeoutClient(
+			this.delegate, "test", this.config, new RecordingMetricsRegistrar());
+
+	@Test
+	void shouldUseStaticTimeoutBoundedByCeilingUntilEnoughSamples() throws Throwable {
+		this.config.setMinSamples(10);
+		this.config.setMaxReadTimeout(Duration.ofSeconds(30));
+
+		call();
+
+		assertThat(this.sentOptions.get(0).readTimeoutMillis()).isEqualTo(30_000);
+		assertThat(this.sentOptions.get(0).connectTimeoutMillis()).isEqualTo(1000);
+		assertThat(this.client.getReadTimeoutMillis("TestClient#get()"))
+				.isEqualTo(30_000);
+	}
+
+	@Test
+	void shouldAdaptTimeoutToObservedLatencyBoundedByFloor() throws Throwable {
+		this.config.setMinSamples(10);
+		this.config.setMinReadTimeout(Duration.ofMillis(250));
+
+		for (int i = 0; i < 11; i++) {
+			call();
+		}
+
+		assertThat(this.sentOptions.get(10).readTimeoutMillis()).isEqualTo(250);
+		assertThat(this.client.getReadTimeoutMillis("TestClient#get()"))
+				.isEqualTo(250);
+	}
+
+	@Test
+	void shouldPublishTimeoutOfEachMethod() throws Throwable {
+		call();
+
+		assertThat(this.gauges).containsExactly(
+				"feign.client.read.timeout[client, test, method, TestClient#get()]");
+	}
+
+	private void call() throws Throwable {
+		MethodHandler handler = argv -> this.client.execute(
+				Request.create(Request.HttpMethod.GET, "http://test/get",
+						Collections.emptyMap(), null, StandardCharsets.UTF_8, null),
+				new Request.Options(1000, 60_000));
+		FeignInvocationContext
+				.decorator("test").decorate(new Target.HardCodedTarget<>(
+						TestClient.class, "test", "http://test"),
+						TestClient.class.getMethod("get"), handler)
+				.invoke(new Object[0]);
+	}
+
+	interface TestClient {
+
+		String get();
+
+	}
+
+	private class RecordingMetricsRegistrar implements FeignMetricsRegistrar {
+
+		@Override
+		public void gauge(String name, String description, Supplier<Number> value,
+				String... tags) {
+			AdaptiveTimeoutClientTests.this.gauges
+					.add(name + Arrays.toString(tags));
+		}
+
+		@Override
+		public void counter(String name, String description, Supplier<Number> value,
+				String... tags) {
+		}
+
+	}
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link CoalescingClient}.
+ */
+class CoalescingClientTests {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private final List<Thread> callers = Collections.synchronizedList(new ArrayList<>());
+
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable);
+		this.callers.add(thread);
+		return thread;
+	});
+
+	private volatile IOException failure;
+
+	private final Client delegate = (request, options) -> {
+		int call = this.calls.incrementAndGet();
+		try {
+			this.release.await();
+		}
+		catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+		if (this.failure != null) {
+			throw this.failure;
+		}
+		return Response.builder().request(request).status(200)
+				.headers(Collections.emptyMap())
+				.body("response " + call, StandardCharsets.UTF_8).build();
+	};
+
+	private final CoalescingClient client = new CoalescingClient(this.delegate, "test",
+			1024, Collections.singletonList("X-B3-TraceId"),
+			FeignMetricsRegistrar.NONE);
+
+	@AfterEach
+	void shutdown() {
+		this.release.countDown();
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void shouldShareResponseOfIdenticalConcurrentRequests() throws Exception {
+		List<Future<String>> responses = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			responses.add(get(Request.HttpMethod.GET, "X-B3-TraceId", "trace-" + i));
+		}
+		awaitWaitingCallers(10);
+		this.release.countDown();
+
+		for (Future<String> response : responses) {
+			assertThat(response.get()).isEqualTo("response 1");
+		}
+		assertThat(this.calls).hasValue(1);
+		assertThat(this.client.getCoalescingRatio()).isEqualTo(0.9);
+	}
+
+	@Test
+	void shouldNotShareResponseOfRequestsWithDifferentHeaders() throws Exception {
+		Future<String> first = get(Request.HttpMethod.GET, "Authorization", "alice");
+		Future<String> second = get(Request.HttpMethod.GET, "Authorization", "bob");
+		awaitWaitingCallers(2);
+		this.release.countDown();
+
+		assertThat(first.get()).isNotEqualTo(second.get());
+		assertThat(this.calls).hasValue(2);
+	}
+
+	@Test
+	void shouldNotCoalesceOtherMethodsThanGet() throws Exception {
+		Future<String> first = get(Request.HttpMethod.POST);
+		Future<String> second = get(Request.HttpMethod.POST);
+		awaitWaitingCallers(2);
+		this.release.countDown();
+
+		assertThat(first.get()).isNotEqualTo(second.get());
+		assertThat(this.calls).hasValue(2);
+	}
+
+	@Test
+	void shouldShareFailureOfIdenticalConcurrentRequests() throws Exception {
+		this.failure = new IOException("Connection refused");
+		Future<String> first = get(Request.HttpMethod.GET);
+		Future<String> second = get(Request.HttpMethod.GET);
+		awaitWaitingCallers(2);
+		this.release.countDown();
+
+		Throwable firstFailure = failureOf(first);
+		Throwable secondFailure = failureOf(second);
+		assertThat(this.calls).hasValue(1);
+		// the caller that sent the request gets its failure, the waiting one its own
+		Throwable waiting = firstFailure == this.failure ? secondFailure : firstFailure;
+		assertThat(waiting).isNotSameAs(this.failure).isInstanceOf(IOException.class)
+				.hasCause(this.failure);
+	}
+
+	@Test
+	void shouldStopWaitingForIdenticalRequestAfterReadTimeout() throws Exception {
+		Future<String> first = get(new Request.Options(), Request.HttpMethod.GET);
+		awaitWaitingCallers(1);
+		Future<String> second = get(new Request.Options(1000, 100),
+				Request.HttpMethod.GET);
+
+		assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+				.hasCauseInstanceOf(SocketTimeoutException.class);
+		this.release.countDown();
+		assertThat(first.get()).isEqualTo("response 1");
+		assertThat(this.calls).hasValue(1);
+	}
+
+	@Test
+	void shouldStopWaitingForIdenticalRequestAtDeadline() throws Exception {
+		Future<String> first = get(new Request.Options(), Request.HttpMethod.GET);
+		awaitWaitingCallers(1);
+		Request request = Request.create(Request.HttpMethod.GET,
+				"http://test/products/1", Collections.emptyMap(), null,
+				StandardCharsets.UTF_8, null);
+		Future<Response> second = this.executor.submit(() -> {
+			FeignDeadline previous = FeignDeadline
+					.bind(FeignDeadline.after(Duration.ofMillis(100)));
+			try {
+				return this.client.execute(request, new Request.Options());
+			}
+			finally {
+				FeignDeadline.restore(previous);
+			}
+		});
+
+		assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+				.hasCauseInstanceOf(SocketTimeoutException.class);
+		this.release.countDown();
+		assertThat(first.get()).isEqualTo("response 1");
+	}
+
+	private Throwable failureOf(Future<String> response) {
+		try {
+			response.get();
+		}
+		catch (ExecutionException ex) {
+			return ex.getCause();
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+		throw new AssertionError("Expected the request to fail");
+	}
+
+	private Future<String> get(Request.HttpMethod method, String... headers) {
+		return get(new Request.Options(), method, headers);
+	}
+
+	private Future<String> get(Request.Options options, Request.HttpMethod method,
+			String... headers) {
+		Map<String, Collection<String>> requestHeaders = new LinkedHashMap<>();
+		for (int i = 0; i < headers.length; i += 2) {
+			requestHeaders.put(headers[i], Collections.singletonList(headers[i + 1]));
+		}
+		Request request = Request.create(method, "http://test/products/1",
+				requestHeaders, null, StandardCharsets.UTF_8, null);
+		return this.executor.submit(() -> {
+			try (Response response = this.client.execute(request, options)) {
+				return Util.toString(response.body().asReader(StandardCharsets.UTF_8));
+			}
+		});
+	}
+
+	/**
+	 * Waits until all callers are blocked, either sending their request or waiting for
+	 * an identical one.
+	 */
+	private void awaitWaitingCallers(int count) throws InterruptedException {
+		while (this.callers.size() < count || this.callers.stream()
+				.anyMatch(thread -> thread.getState() != Thread.State.WAITING
+						&& thread.getState() != Thread.State.TIMED_WAITING)) {
+			Thread.sleep(10);
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.openfeign.FeignClientProperties;
+import org.springframework.cloud.openfeign.FeignClientProperties.ConcurrencyLimitConfiguration.Algorithm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ConcurrencyLimitingClient} and {@link AdaptiveConcurrencyLimit}.
+ */
+class ConcurrencyLimitingClientTests {
+
+	private final FeignClientProperties.ConcurrencyLimitConfiguration config = new FeignClientProperties.ConcurrencyLimitConfiguration();
+
+	private final AtomicInteger sent = new AtomicInteger();
+
+	@Test
+	void shouldRejectRequestsOverLimitWithoutSendingThem() throws Exception {
+		this.config.setInitialLimit(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch received = new CountDownLatch(1);
+		ConcurrencyLimitingClient client = client((request, options) -> {
+			received.countDown();
+			try {
+				release.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return response(request, 200);
+		});
+		CompletableFuture<Response> first = CompletableFuture
+				.supplyAsync(() -> execute(client, "http://stores/1"));
+		assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThatThrownBy(() -> client.execute(request("http://stores/2"),
+				new Request.Options()))
+						.isInstanceOf(ConcurrencyLimitExceededException.class)
+						.hasMessageContaining("stores");
+		release.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS).status()).isEqualTo(200);
+		assertThat(this.sent).hasValue(1);
+	}
+
+	@Test
+	void shouldBackOffWhenServerThrottlesWithAimd() throws Exception {
+		this.config.setAlgorithm(Algorithm.AIMD);
+		this.config.setInitialLimit(10);
+		ConcurrencyLimitingClient client = client(
+				(request, options) -> response(request, 503));
+
+		client.execute(request("http://stores/1"), new Request.Options());
+		assertThat(client.getLimit("")).isEqualTo(9);
+		client.execute(request("http://stores/1"), new Request.Options());
+		assertThat(client.getLimit("")).isEqualTo(8);
+	}
+
+	@Test
+	void shouldGrowUsedLimitWithAimd() throws Exception {
+		this.config.setAlgorithm(Algorithm.AIMD);
+		this.config.setInitialLimit(2);
+		ConcurrencyLimitingClient client = client(
+				(request, options) -> response(request, 200));
+
+		client.execute(request("http://stores/1"), new Request.Options());
+
+		assertThat(client.getLimit("")).isEqualTo(3);
+	}
+
+	@Test
+	void shouldKeepOneLimitPerInstance() throws Exception {
+		this.config.setPerInstance(true);
+		ConcurrencyLimitingClient client = client(
+				(request, options) -> response(request, 200));
+
+		client.execute(request("http://10.0.0.1:8080/stores"), new Request.Options());
+		client.execute(request("http://10.0.0.2:8080/stores"), new Request.Options());
+
+		assertThat(client.getLimit("10.0.0.1:8080")).isPositive();
+		assertThat(client.getLimit("10.0.0.2:8080")).isPositive();
+		assertThat(client.getLimit("")).isEqualTo(-1);
+	}
+
+	@Test
+	void shouldDropIdleInstanceLimitsAndTheirMetrics() throws Exception {
+		this.config.setPerInstance(true);
+		this.config.setInstanceIdleTimeout(Duration.ofMinutes(1));
+		AtomicLong now = new AtomicLong();
+		List<String> removed = new CopyOnWriteArrayList<>();
+		FeignMetricsRegistrar metrics = new FeignMetricsRegistrar() {
+			@Override
+			public void gauge(String name, String description, Supplier<Number> value,
+					String... tags) {
+			}
+
+			@Override
+			public void counter(String name, String description,
+					Supplier<Number> value, String... tags) {
+			}
+
+			@Override
+			public void remove(String name, String... tags) {
+				removed.add(name + Arrays.toString(tags));
+			}
+		};
+		ConcurrencyLimitingClient client = new ConcurrencyLimitingClient(
+				(request, options) -> response(request, 200), "stores", this.config,
+				metrics, now::get);
+		client.execute(request("http://10.0.0.1:8080/stores"), new Request.Options());
+		now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		client.execute(request("http://10.0.0.2:8080/stores"), new Request.Options());
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(40));
+		client.execute(request("http://10.0.0.2:8080/stores"), new Request.Options());
+
+		assertThat(client.getLimit("10.0.0.1:8080")).isEqualTo(-1);
+		assertThat(client.getLimit("10.0.0.2:8080")).isPositive();
+		assertThat(removed).containsExactlyInAnyOrder(
+				"feign.client.concurrency.limit[client, stores, instance, 10.0.0.1:8080]",
+				"feign.client.concurrency.inflight[client, stores, instance, 10.0.0.1:8080]",
+				"feign.client.concurrency.rejected[client, stores, instance, 10.0.0.1:8080]");
+	}
+
+	@Test
+	void shouldLowerLimitWhenLatencyGrowsWithGradient() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(this.config);
+		for (int i = 0; i < 100; i++) {
+			saturate(limit, TimeUnit.MILLISECONDS.toNanos(10));
+		}
+		int steady = limit.getLimit();
+
+		for (int i = 0; i < 5; i++) {
+			saturate(limit, TimeUnit.MILLISECONDS.toNanos(100));
+		}
+
+		assertThat(steady).isGreaterThan(this.config.getInitialLimit());
+		assertThat(limit.getLimit()).isLessThan(steady);
+	}
+
+	@Test
+	void shouldNotGrowLimitThatIsNotUsedWithGradient() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(this.config);
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(limit.tryAcquire()).isTrue();
+			limit.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+		}
+
+		assertThat(limit.getLimit()).isEqualTo(this.config.getInitialLimit());
+	}
+
+	/**
+	 * Sends as many requests as the limit allows, then completes them all.
+	 */
+	private static void saturate(AdaptiveConcurrencyLimit limit, long rttNanos) {
+		int acquired = 0;
+		while (limit.tryAcquire()) {
+			acquired++;
+		}
+		for (int i = 0; i < acquired; i++) {
+			limit.release(rttNanos, false);
+		}
+	}
+
+	private ConcurrencyLimitingClient client(Client delegate) {
+		return new ConcurrencyLimitingClient((request, options) -> {
+			this.sent.incrementAndGet();
+			return delegate.execute(request, options);
+		}, "stores", this.config, FeignMetricsRegistrar.NONE);
+	}
+
+	private static Response execute(Client client, String url) {
+		try {
+			return client.execute(request(url), new Request.Options());
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static Request request(String url) {
+		return Request.create(Request.HttpMethod.GET, url, Collections.emptyMap(),
+				null, StandardCharsets.UTF_8, null);
+	}
+
+	private static Response response(Request request, int status) {
+		return Response.builder().request(request).status(status)
+				.headers(Collections.emptyMap()).body("", StandardCharsets.UTF_8)
+				.build();
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.support;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link DeadlineClient}.
+ */
+class DeadlineClientTests {
+
+	private final List<Request.Options> sentOptions = new ArrayList<>();
+
+	private final Client delegate = (request, options) -> {
+		this.sentOptions.add(options);
+		return Response.builder().request(request).status(200)
+				.headers(Collections.emptyMap())
+				.body("ok", StandardCharsets.UTF_8).build();
+	};
+
+	private final DeadlineClient client = new DeadlineClient(this.delegate);
+
+	private final Request.Options options = new Request.Options(1000, 5000, true);
+
+	@AfterEach
+	void tearDown() {
+		FeignDeadline.restore(null);
+	}
+
+	@Test
+	void shouldKeepOptionsWithoutDeadline() throws Exception {
+		this.client.execute(request(), this.options);
+
+		assertThat(this.sentOptions).containsExactly(this.options);
+	}
+
+	@Test
+	void shouldKeepOptionsWithinDeadline() throws Exception {
+		FeignDeadline.bind(FeignDeadline.after(Duration.ofSeconds(30)));
+
+		this.client.execute(request(), this.options);
+
+		assertThat(this.sentOptions).containsExactly(this.options);
+	}
+
+	@Test
+	void shouldCapTimeoutsToTimeLeft() throws Exception {
+		FeignDeadline.bind(FeignDeadline.after(Duration.ofMillis(800)));
+
+		this.client.execute(request(), this.options);
+
+		Request.Options sent = this.sentOptions.get(0);
+		assertThat(sent.connectTimeoutMillis()).isLessThanOrEqualTo(800);
+		assertThat(sent.readTimeoutMillis()).isLessThanOrEqualTo(800)
+				.isGreaterThan(0);
+		assertThat(sent.isFollowRedirects()).isTrue();
+	}
+
+	@Test
+	void shouldFailRequestsOnceDeadlineHasPassed() {
+		FeignDeadline.bind(FeignDeadline.after(Duration.ofNanos(1)));
+
+		assertThatThrownBy(() -> this.client.execute(request(), this.options))
+				.isInstanceOf(SocketTimeoutException.class);
+		assertThat(this.sentOptions).isEmpty();
+	}
+
+	private static Request request() {
+		return Request.create(Request.HttpMethod.GET, "http://test/stores",
+				Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+	}
+
+}
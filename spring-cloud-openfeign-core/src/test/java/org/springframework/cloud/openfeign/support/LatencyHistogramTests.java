@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ */
+class LatencyHistogramTests {
+
+	@Test
+	void shouldReturnMinusOneWhenEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram(1, TimeUnit.MINUTES);
+
+		assertThat(histogram.count()).isZero();
+		assertThat(histogram.quantile(0.99)).isEqualTo(-1);
+	}
+
+	@Test
+	void shouldEstimateQuantilesWithinTenPercent() {
+		LatencyHistogram histogram = new LatencyHistogram(1, TimeUnit.MINUTES);
+		for (int millis = 1; millis <= 1000; millis++) {
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+		}
+
+		assertThat(histogram.count()).isEqualTo(1000);
+		assertThat((double) histogram.quantile(0.5))
+				.isCloseTo(TimeUnit.MILLISECONDS.toNanos(500), within(50_000_000d));
+		assertThat((double) histogram.quantile(0.99))
+				.isCloseTo(TimeUnit.MILLISECONDS.toNanos(990), within(99_000_000d));
+	}
+
+	@Test
+	void shouldForgetSamplesOlderThanTheWindow() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram(100, TimeUnit.MILLISECONDS);
+		histogram.record(TimeUnit.SECONDS.toNanos(1));
+
+		Thread.sleep(150);
+
+		assertThat(histogram.count()).isZero();
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import feign.Client;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Response;
+import feign.Target;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MethodOptionsClient}.
+ */
+class MethodOptionsClientTests {
+
+	private final List<Request.Options> sentOptions = new ArrayList<>();
+
+	private final Client delegate = (request, options) -> {
+		this.sentOptions.add(options);
+		return Response.builder().request(request).status(200)
+				.headers(Collections.emptyMap())
+				.body("ok", StandardCharsets.UTF_8).build();
+	};
+
+	private final MethodOptionsClient client = new MethodOptionsClient(this.delegate,
+			methodKey -> methodKey.equals("TestClient#export()")
+					? new MethodRequestOptions(null, 30000, false) : null);
+
+	@Test
+	void shouldApplyOptionsOfInvokedMethod() throws Throwable {
+		call("export");
+
+		Request.Options options = this.sentOptions.get(0);
+		assertThat(options.connectTimeoutMillis()).isEqualTo(1000);
+		assertThat(options.readTimeoutMillis()).isEqualTo(30000);
+		assertThat(options.isFollowRedirects()).isFalse();
+	}
+
+	@Test
+	void shouldKeepOptionsOfClientForOtherMethods() throws Throwable {
+		call("lookup");
+
+		Request.Options options = this.sentOptions.get(0);
+		assertThat(options.connectTimeoutMillis()).isEqualTo(1000);
+		assertThat(options.readTimeoutMillis()).isEqualTo(2000);
+		assertThat(options.isFollowRedirects()).isTrue();
+		assertThat(this.client.getMethodOptions("TestClient#lookup()"))
+				.isSameAs(MethodRequestOptions.NONE);
+	}
+
+	@Test
+	void shouldOverrideOnlyDefinedOptions() {
+		MethodRequestOptions annotated = new MethodRequestOptions(500, 30000, null);
+		MethodRequestOptions configured = new MethodRequestOptions(null, 10000, false);
+
+		assertThat(annotated.overriddenBy(configured))
+				.isEqualTo(new MethodRequestOptions(500, 10000, false));
+	}
+
+	private void call(String methodName) throws Throwable {
+		MethodHandler handler = argv -> this.client.execute(
+				Request.create(Request.HttpMethod.GET, "http://test/" + methodName,
+						Collections.emptyMap(), null, StandardCharsets.UTF_8, null),
+				new Request.Options(1000, 2000, true));
+		FeignInvocationContext.decorator("test")
+				.decorate(new Target.HardCodedTarget<>(TestClient.class, "test",
+						"http://test"), TestClient.class.getMethod(methodName), handler)
+				.invoke(new Object[0]);
+	}
+
+	interface TestClient {
+
+		String export();
+
+		String lookup();
+
+	}
+
+}
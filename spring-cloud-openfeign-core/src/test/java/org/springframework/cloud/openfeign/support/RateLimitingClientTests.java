@@ -0,0 +1,204 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import feign.Client;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Response;
+import feign.Target;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.openfeign.FeignClientProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link RateLimitingClient}.
+ */
+class RateLimitingClientTests {
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final AtomicInteger sent = new AtomicInteger();
+
+	private final Deque<Response.Builder> responses = new ArrayDeque<>();
+
+	private final Client delegate = (request, options) -> {
+		this.sent.incrementAndGet();
+		Response.Builder response = this.responses.poll();
+		if (response == null) {
+			response = response(200);
+		}
+		return response.request(request).build();
+	};
+
+	private final FeignClientProperties.RateLimitConfiguration config = rateLimit(1, 1);
+
+	private final Map<String, FeignClientProperties.RateLimitConfiguration> methods = new HashMap<>();
+
+	private RateLimitingClient client;
+
+	@Test
+	void shouldFailFastWhenNoPermitIsAvailable() throws Throwable {
+		call("lookup");
+
+		assertThatThrownBy(() -> call("lookup"))
+				.isInstanceOf(RateLimitExceededException.class)
+				.satisfies(ex -> assertThat(
+						((RateLimitExceededException) ex).getRequiredWait())
+								.isEqualTo(Duration.ofSeconds(1)));
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		call("lookup");
+		assertThat(this.sent).hasValue(2);
+	}
+
+	@Test
+	void shouldAllowBurstAfterQuietPeriod() throws Throwable {
+		this.config.setBurst(3);
+
+		call("lookup");
+		call("lookup");
+		call("lookup");
+
+		assertThatThrownBy(() -> call("lookup"))
+				.isInstanceOf(RateLimitExceededException.class);
+		assertThat(this.sent).hasValue(3);
+	}
+
+	@Test
+	void shouldWaitForPermitUpToMaxWait() throws Throwable {
+		this.config.setPermitsPerSecond(20);
+		this.config.setMaxWait(Duration.ofSeconds(1));
+
+		call("lookup");
+		long start = System.nanoTime();
+		call("lookup");
+
+		assertThat(System.nanoTime() - start)
+				.isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+		assertThat(this.sent).hasValue(2);
+	}
+
+	@Test
+	void shouldPauseAfterRetryAfterOfThrottledResponse() throws Throwable {
+		this.config.setPermitsPerSecond(100);
+		this.responses.add(response(429, "Retry-After", "5"));
+
+		call("lookup");
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+
+		assertThatThrownBy(() -> call("lookup"))
+				.isInstanceOf(RateLimitExceededException.class);
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		call("lookup");
+	}
+
+	@Test
+	void shouldSpreadRemainingQuotaOverItsWindow() throws Throwable {
+		this.config.setPermitsPerSecond(10);
+		this.responses.add(
+				response(200, "RateLimit-Remaining", "2", "RateLimit-Reset", "10"));
+
+		call("lookup");
+		this.clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		call("lookup");
+
+		assertThatThrownBy(() -> call("lookup"))
+				.isInstanceOf(RateLimitExceededException.class)
+				.satisfies(ex -> assertThat(
+						((RateLimitExceededException) ex).getRequiredWait())
+								.isEqualTo(Duration.ofSeconds(5)));
+	}
+
+	@Test
+	void shouldLimitMethodsWithTheirOwnRateLimit() throws Throwable {
+		this.methods.put("TestClient#export()", rateLimit(1, 1));
+		FeignClientProperties.RateLimitConfiguration unlimited = rateLimit(1, 1);
+		unlimited.setEnabled(false);
+		this.methods.put("TestClient#health()", unlimited);
+
+		call("lookup");
+		call("export");
+		call("health");
+		call("health");
+
+		assertThatThrownBy(() -> call("lookup"))
+				.isInstanceOf(RateLimitExceededException.class);
+		assertThatThrownBy(() -> call("export"))
+				.isInstanceOf(RateLimitExceededException.class);
+		assertThat(this.sent).hasValue(4);
+	}
+
+	private void call(String methodName) throws Throwable {
+		if (this.client == null) {
+			// created on first use, so that tests can change the configuration
+			this.client = new RateLimitingClient(this.delegate, "test", this.config,
+					this.methods::get, FeignMetricsRegistrar.NONE, this.clock::get);
+		}
+		MethodHandler handler = argv -> this.client.execute(
+				Request.create(Request.HttpMethod.GET, "http://test/" + methodName,
+						Collections.emptyMap(), null, StandardCharsets.UTF_8, null),
+				new Request.Options());
+		FeignInvocationContext.decorator("test")
+				.decorate(new Target.HardCodedTarget<>(TestClient.class, "test",
+						"http://test"), TestClient.class.getMethod(methodName), handler)
+				.invoke(new Object[0]);
+	}
+
+	private static FeignClientProperties.RateLimitConfiguration rateLimit(
+			double permitsPerSecond, int burst) {
+		FeignClientProperties.RateLimitConfiguration config = new FeignClientProperties.RateLimitConfiguration();
+		config.setPermitsPerSecond(permitsPerSecond);
+		config.setBurst(burst);
+		return config;
+	}
+
+	private static Response.Builder response(int status, String... headers) {
+		Map<String, Collection<String>> map = new HashMap<>();
+		for (int i = 0; i < headers.length; i += 2) {
+			map.put(headers[i], Arrays.asList(headers[i + 1]));
+		}
+		return Response.builder().status(status).headers(map).body("",
+				StandardCharsets.UTF_8);
+	}
+
+	interface TestClient {
+
+		String lookup();
+
+		String export();
+
+		String health();
+
+	}
+
+}
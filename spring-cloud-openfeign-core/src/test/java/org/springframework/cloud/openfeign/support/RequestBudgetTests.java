@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.openfeign.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RequestBudget}.
+ */
+class RequestBudgetTests {
+
+	@Test
+	void shouldAllowReserveWithoutTraffic() {
+		RequestBudget budget = new RequestBudget(10, 2);
+
+		assertThat(budget.tryWithdraw()).isTrue();
+		assertThat(budget.tryWithdraw()).isTrue();
+		assertThat(budget.tryWithdraw()).isFalse();
+	}
+
+	@Test
+	void shouldCapAdditionalRequestsToPercentageOfTraffic() {
+		RequestBudget budget = new RequestBudget(10, 0);
+		int allowed = 0;
+		for (int i = 0; i < 1000; i++) {
+			budget.deposit();
+			if (budget.tryWithdraw()) {
+				allowed++;
+			}
+		}
+
+		assertThat(allowed).isEqualTo(100);
+	}
+
+}
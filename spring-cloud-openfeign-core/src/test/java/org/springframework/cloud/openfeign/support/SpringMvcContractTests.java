@@ -19,6 +19,7 @@ package org.springframework.cloud.openfeign.support;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
@@ -27,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import feign.MethodMetadata;
@@ -37,6 +39,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import org.springframework.cloud.openfeign.Broadcast;
+import org.springframework.cloud.openfeign.BroadcastResult;
+import org.springframework.cloud.openfeign.CachedResult;
+import org.springframework.cloud.openfeign.CollapsedInto;
+import org.springframework.cloud.openfeign.RequestOptions;
+import org.springframework.cloud.openfeign.RoutingKey;
 import org.springframework.cloud.openfeign.SpringQueryMap;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -644,6 +652,206 @@ public class SpringMvcContractTests {
 		assertThat(data.formParams()).contains("file", "id");
 	}
 
+	@Test
+	public void testProcessAnnotations_CompletableFutureReturnType() throws Exception {
+		Method method = TestTemplate_Async.class.getDeclaredMethod("getTest",
+				String.class);
+		MethodMetadata data = this.contract
+				.parseAndValidateMetadata(method.getDeclaringClass(), method);
+
+		assertThat(data.returnType()).isEqualTo(TestObject.class);
+		assertThat(data.template().url()).isEqualTo("/test/{id}");
+	}
+
+	@Test
+	public void testProcessAnnotations_CompletableFutureOfVoidReturnType()
+			throws Exception {
+		Method method = TestTemplate_Async.class.getDeclaredMethod("deleteTest",
+				String.class);
+		MethodMetadata data = this.contract
+				.parseAndValidateMetadata(method.getDeclaringClass(), method);
+
+		assertThat(data.returnType()).isEqualTo(void.class);
+	}
+
+	@Test
+	public void testProcessAnnotations_RequestOptions() throws Exception {
+		Method method = TestTemplate_RequestOptions.class.getDeclaredMethod("export");
+		MethodMetadata data = this.contract
+				.parseAndValidateMetadata(method.getDeclaringClass(), method);
+
+		assertThat(this.contract.getMethodRequestOptions(data.configKey()))
+				.isEqualTo(new MethodRequestOptions(null, 30000, false));
+	}
+
+	@Test
+	public void testProcessAnnotations_NoRequestOptions() throws Exception {
+		Method method = TestTemplate_RequestOptions.class.getDeclaredMethod("lookup");
+		MethodMetadata data = this.contract
+				.parseAndValidateMetadata(method.getDeclaringClass(), method);
+
+		assertThat(this.contract.getMethodRequestOptions(data.configKey())).isNull();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testProcessAnnotations_InvalidRequestOptions() throws Exception {
+		Method method = TestTemplate_RequestOptions.class
+				.getDeclaredMethod("invalidTimeout");
+		this.contract.parseAndValidateMetadata(method.getDeclaringClass(), method);
+	}
+
+	@Test
+	public void testProcessAnnotations_CachedResult() throws Exception {
+		Method method = TestTemplate_CachedResult.class.getDeclaredMethod("getStores");
+		MethodMetadata data = this.contract
+				.parseAndValidateMetadata(method.getDeclaringClass(), method);
+
+		assertThat(this.contract.getMethodResultCaching(data.configKey()))
+				.isEqualTo(new MethodResultCaching(Duration.ofMinutes(5), 10,
+						CachedResult.Scope.REQUEST));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testProcessAnnotations_InvalidCachedResult() throws Exception {
+		Method method = TestTemplate_CachedResult.class.getDeclaredMethod("invalidTtl");
+		this.contract.parseAndValidateMetadata(method.getDeclaringClass(), method);
+	}
+
+	@Test
+	public void testProcessAnnotations_CollapsedInto() throws Exception {
+		Method method = TestTemplate_CollapsedInto.class.getDeclaredMethod("getStore",
+				String.class);
+		MethodMetadata data = this.contract
+				.parseAndValidateMetadata(method.getDeclaringClass(), method);
+
+		assertThat(this.contract.getMethodCollapsing(data.configKey())).isEqualTo(
+				new MethodCollapsing("getStores", "id", Duration.ofMillis(5), 50));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testProcessAnnotations_CollapsedIntoWithoutKey() throws Exception {
+		Method method = TestTemplate_CollapsedInto.class
+				.getDeclaredMethod("getStoreWithoutKey");
+		this.contract.parseAndValidateMetadata(method.getDeclaringClass(), method);
+	}
+
+	@Test
+	public void testProcessAnnotations_RoutingKey() throws Exception {
+		Method method = TestTemplate_RoutingKey.class.getDeclaredMethod("getCart",
+				String.class);
+		MethodMetadata data = this.contract
+				.parseAndValidateMetadata(method.getDeclaringClass(), method);
+
+		assertThat(data.template().url()).isEqualTo("/carts/{userId}");
+		assertThat(data.template().headers().get(RoutingKey.HEADER))
+				.containsExactly("{" + RoutingKey.HEADER + "}");
+		assertThat(data.indexToName().get(0)).containsExactly("userId",
+				RoutingKey.HEADER);
+	}
+
+	@Test
+	public void testProcessAnnotations_Broadcast() throws Exception {
+		Method method = TestTemplate_Broadcast.class.getDeclaredMethod("refresh");
+		MethodMetadata data = this.contract
+				.parseAndValidateMetadata(method.getDeclaringClass(), method);
+
+		assertThat(data.returnType()).isEqualTo(String.class);
+		assertThat(this.contract.getMethodBroadcast(data.configKey()))
+				.isEqualTo(new MethodBroadcast(4, Duration.ofSeconds(2)));
+	}
+
+	@Test
+	public void testProcessAnnotations_BroadcastWithoutResult() throws Exception {
+		Method method = TestTemplate_Broadcast.class.getDeclaredMethod("evict");
+		MethodMetadata data = this.contract
+				.parseAndValidateMetadata(method.getDeclaringClass(), method);
+
+		assertThat(data.returnType()).isEqualTo(void.class);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testProcessAnnotations_BroadcastWithInvalidReturnType()
+			throws Exception {
+		Method method = TestTemplate_Broadcast.class.getDeclaredMethod("invalid");
+		this.contract.parseAndValidateMetadata(method.getDeclaringClass(), method);
+	}
+
+	public interface TestTemplate_Broadcast {
+
+		@PostMapping("/refresh")
+		@Broadcast(maxConcurrency = 4, timeout = "2s")
+		List<BroadcastResult<String>> refresh();
+
+		@PostMapping("/evict")
+		@Broadcast
+		List<BroadcastResult<Void>> evict();
+
+		@PostMapping("/invalid")
+		@Broadcast
+		List<String> invalid();
+
+	}
+
+	public interface TestTemplate_RoutingKey {
+
+		@GetMapping("/carts/{userId}")
+		String getCart(@PathVariable("userId") @RoutingKey String userId);
+
+	}
+
+	public interface TestTemplate_CollapsedInto {
+
+		@GetMapping("/stores/{id}")
+		@CollapsedInto(value = "getStores", resultKey = "id", window = "5ms",
+				maxBatchSize = 50)
+		String getStore(@PathVariable("id") String id);
+
+		@PostMapping("/stores/batch")
+		List<String> getStores(@RequestBody List<String> ids);
+
+		@GetMapping("/stores/any")
+		@CollapsedInto("getStores")
+		String getStoreWithoutKey();
+
+	}
+
+	public interface TestTemplate_CachedResult {
+
+		@GetMapping("/stores")
+		@CachedResult(ttl = "5m", maxEntries = 10, scope = CachedResult.Scope.REQUEST)
+		List<String> getStores();
+
+		@GetMapping("/invalid")
+		@CachedResult(ttl = "soon")
+		String invalidTtl();
+
+	}
+
+	public interface TestTemplate_RequestOptions {
+
+		@GetMapping("/export")
+		@RequestOptions(readTimeout = "30000", followRedirects = "false")
+		String export();
+
+		@GetMapping("/lookup")
+		String lookup();
+
+		@GetMapping("/invalid")
+		@RequestOptions(readTimeout = "30s")
+		String invalidTimeout();
+
+	}
+
+	public interface TestTemplate_Async {
+
+		@GetMapping("/test/{id}")
+		CompletableFuture<TestObject> getTest(@PathVariable("id") String id);
+
+		@RequestMapping(value = "/test/{id}", method = RequestMethod.DELETE)
+		CompletableFuture<Void> deleteTest(@PathVariable("id") String id);
+
+	}
+
 	public interface TestTemplate_Simple {
 
 		@RequestMapping(value = "/test/{id}", method = RequestMethod.GET,
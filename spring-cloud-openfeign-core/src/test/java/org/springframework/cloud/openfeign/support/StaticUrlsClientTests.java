@@ -0,0 +1,239 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.openfeign.support;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.openfeign.FeignClientProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link StaticUrlsClient}.
+ */
+class StaticUrlsClientTests {
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final List<String> sent = new ArrayList<>();
+
+	private final Set<String> failing = new HashSet<>();
+
+	private final Set<String> unknownHosts = new HashSet<>();
+
+	private final Map<String, Integer> statuses = new HashMap<>();
+
+	private final AtomicInteger resolutions = new AtomicInteger();
+
+	private Executor resolverExecutor = Runnable::run;
+
+	private final Client delegate = (request, options) -> {
+		this.sent.add(request.url());
+		String host = request.url().substring(0, request.url().indexOf('/', 8));
+		if (this.failing.contains(host)) {
+			throw new ConnectException("Connection refused");
+		}
+		return Response.builder().status(this.statuses.getOrDefault(host, 200))
+				.request(request).headers(Collections.emptyMap()).build();
+	};
+
+	private final FeignClientProperties.StaticUrlsConfiguration config = new FeignClientProperties.StaticUrlsConfiguration();
+
+	@Test
+	void shouldSendRequestsToEachUrlInTurn() throws IOException {
+		StaticUrlsClient client = client();
+
+		for (int i = 0; i < 4; i++) {
+			client.execute(request(Request.HttpMethod.GET), options());
+		}
+
+		assertThat(this.sent).containsExactly("https://a.example.com/api/items",
+				"http://b.example.com:8080/api/items", "https://a.example.com/api/items",
+				"http://b.example.com:8080/api/items");
+	}
+
+	@Test
+	void shouldFailOverWhenConnectionIsRefused() throws IOException {
+		this.failing.add("https://a.example.com");
+		StaticUrlsClient client = client();
+
+		Response response = client.execute(request(Request.HttpMethod.POST), options());
+
+		assertThat(response.status()).isEqualTo(200);
+		assertThat(this.sent).containsExactly("https://a.example.com/api/items",
+				"http://b.example.com:8080/api/items");
+	}
+
+	@Test
+	void shouldNotFailOverNonIdempotentRequests() {
+		StaticUrlsClient client = new StaticUrlsClient((request, options) -> {
+			throw new IOException("Connection reset");
+		}, "test", "http://test/api", urls(), this.config, FeignMetricsRegistrar.NONE,
+				host -> new InetAddress[0], Runnable::run, this.clock::get);
+
+		assertThatThrownBy(
+				() -> client.execute(request(Request.HttpMethod.POST), options()))
+						.isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void shouldStopUsingFailingUrlForDownTime() throws IOException {
+		this.config.setFailureThreshold(2);
+		this.config.setDownTime(Duration.ofSeconds(10));
+		this.failing.add("https://a.example.com");
+		StaticUrlsClient client = client();
+		for (int i = 0; i < 4; i++) {
+			client.execute(request(Request.HttpMethod.GET), options());
+		}
+		this.failing.clear();
+		this.sent.clear();
+
+		for (int i = 0; i < 2; i++) {
+			client.execute(request(Request.HttpMethod.GET), options());
+		}
+		assertThat(this.sent).containsOnly("http://b.example.com:8080/api/items");
+
+		this.sent.clear();
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		for (int i = 0; i < 2; i++) {
+			client.execute(request(Request.HttpMethod.GET), options());
+		}
+		assertThat(this.sent).contains("https://a.example.com/api/items");
+	}
+
+	@Test
+	void shouldSkipUrlsWhoseHostDoesNotResolve() throws IOException {
+		this.unknownHosts.add("a.example.com");
+		StaticUrlsClient client = client();
+		for (int i = 0; i < 2; i++) {
+			client.execute(request(Request.HttpMethod.GET), options());
+		}
+		assertThat(this.sent).containsOnly("http://b.example.com:8080/api/items");
+
+		this.unknownHosts.clear();
+		this.sent.clear();
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		for (int i = 0; i < 2; i++) {
+			client.execute(request(Request.HttpMethod.GET), options());
+		}
+		assertThat(this.sent).contains("https://a.example.com/api/items");
+	}
+
+	@Test
+	void shouldResolveHostNamesInBackground() throws IOException {
+		List<Runnable> tasks = new ArrayList<>();
+		this.resolverExecutor = tasks::add;
+		this.unknownHosts.add("a.example.com");
+		StaticUrlsClient client = client();
+
+		client.execute(request(Request.HttpMethod.GET), options());
+		assertThat(this.resolutions.get()).isZero();
+		assertThat(this.sent).containsExactly("https://a.example.com/api/items");
+
+		tasks.forEach(Runnable::run);
+		this.sent.clear();
+		for (int i = 0; i < 2; i++) {
+			client.execute(request(Request.HttpMethod.GET), options());
+		}
+		assertThat(this.resolutions.get()).isEqualTo(2);
+		assertThat(this.sent).containsOnly("http://b.example.com:8080/api/items");
+	}
+
+	@Test
+	void shouldFailOverIdempotentRequestsWhenUrlIsUnavailable() throws IOException {
+		this.statuses.put("https://a.example.com", 503);
+		StaticUrlsClient client = client();
+
+		Response response = client.execute(request(Request.HttpMethod.GET), options());
+
+		assertThat(response.status()).isEqualTo(200);
+		assertThat(this.sent).containsExactly("https://a.example.com/api/items",
+				"http://b.example.com:8080/api/items");
+	}
+
+	@Test
+	void shouldReturnServerErrorsOfNonIdempotentRequests() throws IOException {
+		this.statuses.put("https://a.example.com", 503);
+		StaticUrlsClient client = client();
+
+		Response response = client.execute(request(Request.HttpMethod.POST),
+				options());
+
+		assertThat(response.status()).isEqualTo(503);
+		assertThat(this.sent).containsExactly("https://a.example.com/api/items");
+	}
+
+	@Test
+	void shouldReturnInternalServerErrors() throws IOException {
+		this.statuses.put("https://a.example.com", 500);
+		StaticUrlsClient client = client();
+
+		Response response = client.execute(request(Request.HttpMethod.GET), options());
+
+		assertThat(response.status()).isEqualTo(500);
+		assertThat(this.sent).containsExactly("https://a.example.com/api/items");
+	}
+
+	private StaticUrlsClient client() {
+		return new StaticUrlsClient(this.delegate, "test", "http://test/api", urls(),
+				this.config, FeignMetricsRegistrar.NONE, host -> {
+					this.resolutions.incrementAndGet();
+					if (this.unknownHosts.contains(host)) {
+						throw new UnknownHostException(host);
+					}
+					return new InetAddress[] { InetAddress.getLoopbackAddress() };
+				}, this.resolverExecutor, this.clock::get);
+	}
+
+	private static List<String> urls() {
+		return Arrays.asList("https://a.example.com/api",
+				"http://b.example.com:8080/api");
+	}
+
+	private static Request request(Request.HttpMethod method) {
+		return Request.create(method, "http://test/api/items", Collections.emptyMap(),
+				null, null, null);
+	}
+
+	private static Request.Options options() {
+		return new Request.Options();
+	}
+
+}